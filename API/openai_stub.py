@@ -0,0 +1,292 @@
+"""Servidor local compativel com /v1/responses da OpenAI para testes de carga do plugin.
+
+Nao chama a OpenAI: devolve traducoes falsas ("[idioma] texto") no mesmo formato json_schema
+estrito que o plugin pede, com latencia, limite de taxa e falhas configuraveis.
+
+Uso:
+    python openai_stub.py
+    OPENAI_ENDPOINT=http://127.0.0.1:5522/v1/responses  (no ambiente do servidor Hytale)
+"""
+
+import asyncio
+import json
+import logging
+import math
+import os
+import random
+import re
+import threading
+import time
+import uuid
+from collections import deque
+from typing import Any, Dict, List
+
+from fastapi import FastAPI, Request
+from fastapi.responses import JSONResponse, StreamingResponse
+
+
+def env_float(name: str, default: float) -> float:
+    try:
+        return float(os.getenv(name, default))
+    except ValueError:
+        return default
+
+
+# Latencia ate o primeiro token (lognormal definida pela mediana e pelo p99).
+LATENCY_P50_MS = env_float("STUB_LATENCY_P50_MS", 400)
+LATENCY_P99_MS = env_float("STUB_LATENCY_P99_MS", 2500)
+# Velocidade de geracao; 0 desliga a simulacao de tokens.
+TOKENS_PER_SECOND = env_float("STUB_TOKENS_PER_SECOND", 150)
+# Limites anunciados nos cabecalhos x-ratelimit-*; 0 desliga.
+REQUESTS_PER_MINUTE = env_float("STUB_RPM", 500)
+TOKENS_PER_MINUTE = env_float("STUB_TPM", 200000)
+# Probabilidades (0.0 a 1.0) de cada falha injetada.
+RATE_429 = env_float("STUB_RATE_429", 0.0)
+RATE_5XX = env_float("STUB_RATE_5XX", 0.0)
+RATE_TIMEOUT = env_float("STUB_RATE_TIMEOUT", 0.0)
+RATE_MALFORMED = env_float("STUB_RATE_MALFORMED", 0.0)
+TIMEOUT_SECONDS = env_float("STUB_TIMEOUT_SECONDS", 120)
+
+LOG_LEVEL = os.getenv("LOG_LEVEL", "INFO").upper()
+logging.basicConfig(level=LOG_LEVEL)
+logger = logging.getLogger("tradutor-universal-openai-stub")
+
+app = FastAPI()
+
+IDIOMAS_RE = re.compile(r"^Idiomas:\s*(\[.*\])\s*$", re.MULTILINE)
+TEXTO_RE = re.compile(r'^Texto original:\s*"(.*)"\s*$', re.MULTILINE | re.DOTALL)
+MENSAGENS_RE = re.compile(r"^Mensagens:\s*(\[.*\])\s*$", re.MULTILINE | re.DOTALL)
+
+
+class Stats:
+    def __init__(self) -> None:
+        self.lock = threading.Lock()
+        self.counts: Dict[str, int] = {}
+        self.window: deque = deque()
+        self.tokens: deque = deque()
+
+    def count(self, key: str) -> None:
+        with self.lock:
+            self.counts[key] = self.counts.get(key, 0) + 1
+
+    def snapshot(self) -> Dict[str, int]:
+        with self.lock:
+            return dict(self.counts)
+
+    def admit(self, tokens: int) -> Dict[str, Any]:
+        """Registra a chamada na janela de 60s e devolve o estado dos limites."""
+        now = time.monotonic()
+        with self.lock:
+            while self.window and now - self.window[0] > 60:
+                self.window.popleft()
+            while self.tokens and now - self.tokens[0][0] > 60:
+                self.tokens.popleft()
+            used_tokens = sum(t for _, t in self.tokens)
+            over = (REQUESTS_PER_MINUTE > 0 and len(self.window) >= REQUESTS_PER_MINUTE) or (
+                TOKENS_PER_MINUTE > 0 and used_tokens + tokens > TOKENS_PER_MINUTE
+            )
+            if not over:
+                self.window.append(now)
+                self.tokens.append((now, tokens))
+                used_tokens += tokens
+            reset_s = 60 - (now - self.window[0]) if self.window else 0.0
+            return {
+                "over": over,
+                "remaining_requests": max(0, int(REQUESTS_PER_MINUTE) - len(self.window)),
+                "remaining_tokens": max(0, int(TOKENS_PER_MINUTE) - used_tokens),
+                "reset_s": max(0.0, reset_s),
+            }
+
+
+stats = Stats()
+
+
+def sample_latency_s() -> float:
+    if LATENCY_P50_MS <= 0:
+        return 0.0
+    sigma = max(0.0, math.log(max(LATENCY_P99_MS, LATENCY_P50_MS) / LATENCY_P50_MS) / 2.326)
+    return random.lognormvariate(math.log(LATENCY_P50_MS), sigma) / 1000.0
+
+
+def estimate_tokens(text: str) -> int:
+    return max(1, len(text) // 4)
+
+
+def rate_limit_headers(state: Dict[str, Any]) -> Dict[str, str]:
+    if REQUESTS_PER_MINUTE <= 0 and TOKENS_PER_MINUTE <= 0:
+        return {}
+    reset = f"{state['reset_s']:.3f}s"
+    headers: Dict[str, str] = {}
+    if REQUESTS_PER_MINUTE > 0:
+        headers["x-ratelimit-limit-requests"] = str(int(REQUESTS_PER_MINUTE))
+        headers["x-ratelimit-remaining-requests"] = str(state["remaining_requests"])
+        headers["x-ratelimit-reset-requests"] = reset
+    if TOKENS_PER_MINUTE > 0:
+        headers["x-ratelimit-limit-tokens"] = str(int(TOKENS_PER_MINUTE))
+        headers["x-ratelimit-remaining-tokens"] = str(state["remaining_tokens"])
+        headers["x-ratelimit-reset-tokens"] = reset
+    return headers
+
+
+def fake_translation(texto: str, idioma: str) -> str:
+    return f"[{idioma}] {texto}"
+
+
+def build_output(body: Dict[str, Any]) -> Dict[str, Any]:
+    """Monta a resposta que o schema pedido espera a partir do input compacto do plugin."""
+    input_text = body.get("input") or ""
+    schema = (((body.get("text") or {}).get("format") or {}).get("schema") or {})
+    properties = schema.get("properties") or {}
+
+    if "mensagens" in properties:
+        match = MENSAGENS_RE.search(input_text)
+        mensagens = json.loads(match.group(1)) if match else []
+        return {
+            "mensagens": [
+                {
+                    "id": str(m.get("id", "")),
+                    "traducao": [fake_translation(m.get("texto_original", ""), i) for i in m.get("idiomas", [])],
+                }
+                for m in mensagens
+            ]
+        }
+
+    idiomas_match = IDIOMAS_RE.search(input_text)
+    idiomas: List[str] = json.loads(idiomas_match.group(1)) if idiomas_match else []
+    texto_match = TEXTO_RE.search(input_text)
+    texto = texto_match.group(1) if texto_match else input_text
+    try:
+        texto = json.loads(f'"{texto}"')
+    except json.JSONDecodeError:
+        pass
+    return {"traducao": [fake_translation(texto, i) for i in idiomas]}
+
+
+def malform(output: Dict[str, Any]) -> str:
+    """Uma das falhas de saida que o plugin precisa tolerar."""
+    text = json.dumps(output, ensure_ascii=False)
+    kind = random.choice(["truncated", "prose", "missing_slot", "legacy"])
+    stats.count("malformed_" + kind)
+    if kind == "truncated":
+        return text[: max(1, len(text) // 2)]
+    if kind == "prose":
+        return "Claro! Aqui esta a traducao:\n" + text
+    if kind == "missing_slot" and output.get("traducao"):
+        return json.dumps({"traducao": output["traducao"][:-1]}, ensure_ascii=False)
+    if "traducao" in output:
+        return json.dumps(
+            {"traducao": [{"jogador": f"p{i}", "texto_traduzido": t} for i, t in enumerate(output["traducao"])]},
+            ensure_ascii=False,
+        )
+    return text[: max(1, len(text) // 2)]
+
+
+def response_envelope(model: str, text: str, input_tokens: int) -> Dict[str, Any]:
+    output_tokens = estimate_tokens(text)
+    return {
+        "id": "resp_" + uuid.uuid4().hex,
+        "object": "response",
+        "created_at": int(time.time()),
+        "status": "completed",
+        "model": model,
+        "output": [
+            {
+                "type": "message",
+                "id": "msg_" + uuid.uuid4().hex,
+                "status": "completed",
+                "role": "assistant",
+                "content": [{"type": "output_text", "text": text, "annotations": []}],
+            }
+        ],
+        "usage": {
+            "input_tokens": input_tokens,
+            "output_tokens": output_tokens,
+            "total_tokens": input_tokens + output_tokens,
+        },
+    }
+
+
+def sse(event: Dict[str, Any]) -> str:
+    return f"event: {event['type']}\ndata: {json.dumps(event, ensure_ascii=False)}\n\n"
+
+
+@app.post("/v1/responses")
+async def responses(request: Request):
+    stats.count("requests")
+    try:
+        body = await request.json()
+    except json.JSONDecodeError:
+        stats.count("bad_request")
+        return JSONResponse({"error": {"message": "invalid JSON body", "type": "invalid_request_error"}}, 400)
+
+    model = body.get("model") or "gpt-5-nano"
+    input_tokens = estimate_tokens(json.dumps(body, ensure_ascii=False))
+    state = stats.admit(input_tokens)
+    headers = rate_limit_headers(state)
+
+    if state["over"] or random.random() < RATE_429:
+        stats.count("status_429")
+        headers["retry-after-ms"] = str(int(max(state["reset_s"] * 1000, 250)))
+        return JSONResponse(
+            {"error": {"message": "Rate limit reached", "type": "requests", "code": "rate_limit_exceeded"}},
+            429,
+            headers=headers,
+        )
+    if random.random() < RATE_TIMEOUT:
+        stats.count("timeout")
+        await asyncio.sleep(TIMEOUT_SECONDS)
+    if random.random() < RATE_5XX:
+        status = random.choice([500, 502, 503])
+        stats.count(f"status_{status}")
+        await asyncio.sleep(sample_latency_s() / 2)
+        return JSONResponse({"error": {"message": "The server had an error", "type": "server_error"}}, status, headers=headers)
+
+    try:
+        output = build_output(body)
+    except (json.JSONDecodeError, AttributeError, TypeError) as e:
+        stats.count("bad_input")
+        logger.warning("Input fora do formato esperado: %s", e)
+        return JSONResponse({"error": {"message": "unexpected input", "type": "invalid_request_error"}}, 400)
+
+    if random.random() < RATE_MALFORMED:
+        text = malform(output)
+    else:
+        text = json.dumps(output, ensure_ascii=False)
+    output_tokens = estimate_tokens(text)
+    await asyncio.sleep(sample_latency_s())
+
+    if body.get("stream"):
+        stats.count("stream")
+
+        async def events():
+            yield sse({"type": "response.created", "response": {"id": "resp_stream", "status": "in_progress"}})
+            step = 16
+            for start in range(0, len(text), step):
+                if TOKENS_PER_SECOND > 0:
+                    await asyncio.sleep(estimate_tokens(text[start : start + step]) / TOKENS_PER_SECOND)
+                yield sse({"type": "response.output_text.delta", "output_index": 0, "content_index": 0, "delta": text[start : start + step]})
+            yield sse({"type": "response.output_text.done", "output_index": 0, "content_index": 0, "text": text})
+            yield sse({"type": "response.completed", "response": response_envelope(model, text, input_tokens)})
+
+        return StreamingResponse(events(), media_type="text/event-stream", headers=headers)
+
+    if TOKENS_PER_SECOND > 0:
+        await asyncio.sleep(output_tokens / TOKENS_PER_SECOND)
+    stats.count("status_200")
+    return JSONResponse(response_envelope(model, text, input_tokens), headers=headers)
+
+
+@app.get("/stub/stats")
+async def stub_stats():
+    return stats.snapshot()
+
+
+if __name__ == "__main__":
+    import uvicorn
+
+    uvicorn.run(
+        "openai_stub:app",
+        host=os.getenv("STUB_HOST", "127.0.0.1"),
+        port=int(os.getenv("STUB_PORT", "5522")),
+        log_level="warning",
+    )
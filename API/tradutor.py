@@ -281,6 +281,8 @@ manager = ConnectionManager()
 async def websocket_endpoint(websocket: WebSocket) -> None:
     await websocket.accept()
     server_id: Optional[str] = None
+    # Linhas em traducao por message_id, para o plugin poder cancelar as que nao espera mais.
+    pending: Dict[str, asyncio.Task] = {}
     logger.info("WS connect: %s", websocket.client)
     try:
         while True:
@@ -296,12 +298,22 @@ async def websocket_endpoint(websocket: WebSocket) -> None:
             if msg_type == "hello":
                 server_id = payload.get("server_id") or "unknown"
                 await manager.register(server_id, websocket)
-                await websocket.send_text(json.dumps({"type": "hello_ack", "server_id": server_id, "ok": True}))
+                await websocket.send_text(json.dumps({"type": "hello_ack", "server_id": server_id, "ok": True, "model": MODEL}))
                 logger.info("Servidor conectado: %s", server_id)
                 continue
 
             if msg_type == "chat":
-                asyncio.create_task(handle_chat_message(server_id, websocket, payload))
+                task = asyncio.create_task(handle_chat_message(server_id, websocket, payload))
+                message_id = payload.get("message_id") or ""
+                if message_id:
+                    pending[message_id] = task
+                    task.add_done_callback(lambda _task, mid=message_id: pending.pop(mid, None))
+                continue
+
+            if msg_type == "cancel":
+                task = pending.pop(payload.get("message_id") or "", None)
+                if task is not None:
+                    task.cancel()
     except WebSocketDisconnect:
         manager.remove(server_id)
         logger.info("Servidor desconectado: %s", server_id)
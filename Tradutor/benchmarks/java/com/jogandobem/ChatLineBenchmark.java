@@ -0,0 +1,99 @@
+package com.jogandobem;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.jogandobem.TranslationModels.TranslationResponse;
+import com.jogandobem.TranslationModels.TranslationTarget;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * What the OpenAI backend does with one chat line, from the online player list to the per-player
+ * response. Players speak one of {@link #LANGUAGES} in turn, so 100 and 1000 players both ask for
+ * every language in the pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatLineBenchmark {
+   static final String[] LANGUAGES = {
+         "pt-BR", "en-US", "es-ES", "fr-FR", "de-DE", "it-IT", "ru-RU", "pl-PL",
+         "tr-TR", "uk-UA", "nl-NL", "sv-SE", "ja-JP", "ko-KR", "zh-CN", "vi-VN",
+         "th-TH", "id-ID", "ar-SA", "hi-IN", "cs-CZ", "ro-RO", "hu-HU", "el-GR"
+   };
+   private static final String TEXT = "alguem tem ferro sobrando? to na base perto do rio, \"troco\" por carvao";
+
+   @Param({"10", "100", "1000"})
+   public int players;
+
+   private List<TranslationTarget> targets;
+   private List<TranslationTarget> deduped;
+   private String outputText;
+   private Map<String, String> byLanguage;
+
+   @Setup
+   public void setUp() {
+      this.targets = new ArrayList<>(this.players);
+      for (int i = 0; i < this.players; i++) {
+         TranslationTarget target = new TranslationTarget();
+         target.jogador = "Player" + i;
+         target.idioma = LANGUAGES[i % LANGUAGES.length];
+         this.targets.add(target);
+      }
+      this.deduped = OpenAiTranslationService.dedupeTargetsByLanguage(this.targets).targets;
+
+      JsonArray slots = new JsonArray();
+      this.byLanguage = new HashMap<>();
+      for (TranslationTarget target : this.deduped) {
+         String translated = "translated to " + target.idioma + ": anyone has spare iron?";
+         slots.add(translated);
+         this.byLanguage.put(target.idioma.toLowerCase(Locale.ROOT), translated);
+      }
+      JsonObject output = new JsonObject();
+      output.add("traducao", slots);
+      this.outputText = output.toString();
+   }
+
+   @Benchmark
+   public Object dedupeTargetsByLanguage() {
+      return OpenAiTranslationService.dedupeTargetsByLanguage(this.targets);
+   }
+
+   @Benchmark
+   public String buildPrompt() {
+      return OpenAiTranslationService.buildPrompt(TEXT, this.deduped);
+   }
+
+   @Benchmark
+   public Map<String, String> decodeStrict() {
+      return OpenAiTranslationService.decodeStrict(this.outputText, this.deduped);
+   }
+
+   @Benchmark
+   public String[] decodeSlots() {
+      return OpenAiResponseDecoder.decodeSlots(this.outputText, this.deduped.size());
+   }
+
+   @Benchmark
+   public TranslationResponse normalizeResponse() {
+      return OpenAiTranslationService.normalizeResponse(this.byLanguage, this.targets, TEXT, "pt-BR", "Player0", "uuid-0");
+   }
+}
@@ -0,0 +1,93 @@
+package com.jogandobem;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.jogandobem.discord.DiscordMessageSanitizer;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The smaller string paths next to the chat line: the Discord relay in both directions, player
+ * messages, language code lookups and the join-time IP cleanup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringPathBenchmark {
+   private MessageStore messages;
+   private TranslationConfig config;
+   private final Map<String, String> params = Map.of("lang", "pt-BR");
+   private final String[] codes = {"pt-br", "en-us", "zh-hant-tw", "xx-yy"};
+   private int next;
+
+   @Setup
+   public void setUp() throws IOException {
+      Path dataDir = Files.createTempDirectory("tradutor-bench");
+      this.messages = MessageStore.loadOrCreate(dataDir, HytaleLogger.forEnclosingClass());
+      this.config = new TranslationConfig();
+   }
+
+   @Benchmark
+   public String sanitizeForDiscord(ChatLine line) {
+      return DiscordMessageSanitizer.sanitizeForDiscord(line.text);
+   }
+
+   @Benchmark
+   public String sanitizeForGame(ChatLine line) {
+      return DiscordMessageSanitizer.sanitizeForGame(line.text);
+   }
+
+   @Benchmark
+   public String messageStoreFormat() {
+      return this.messages.format("cmd_language_set", "en-US", this.config, this.params);
+   }
+
+   @Benchmark
+   public String allowedCodeLookup() {
+      this.next = (this.next + 1) & 3;
+      return LanguageCatalog.ALLOWED_CODES.get(this.codes[this.next]);
+   }
+
+   @Benchmark
+   public String sanitizeIp() {
+      return IpInfoService.sanitizeIp("/203.0.113.7:52314");
+   }
+
+   /**
+    * {@code plain} is an ordinary chat line; {@code markup} carries the characters each sanitizer
+    * pass looks for.
+    */
+   @State(Scope.Benchmark)
+   public static class ChatLine {
+      private static final Map<String, String> LINES = Map.of(
+            "plain", "alguem tem ferro sobrando? to na base perto do rio",
+            "markup", "**boss** caiu @everyone, loot em `#base` &a__agora__ ~~ou~~ ||nunca|| <@&123>"
+      );
+
+      @Param({"plain", "markup"})
+      public String line;
+
+      String text;
+
+      @Setup
+      public void setUp() {
+         this.text = LINES.get(this.line);
+      }
+   }
+}
@@ -0,0 +1,50 @@
+package com.jogandobem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Calls made on behalf of one chat line or one side of a hedged request, so they can be stopped
+ * once nobody waits for them: the losing side of a hedge, or a line the router gave up on.
+ */
+final class CallGroup {
+   private final List<Runnable> cancellers = new ArrayList<>();
+   private boolean cancelled;
+
+   void add(CompletableFuture<?> call) {
+      onCancel(() -> call.cancel(true));
+   }
+
+   /**
+    * Runs {@code canceller} when the group is cancelled, or right away when it already is.
+    */
+   void onCancel(Runnable canceller) {
+      synchronized (this) {
+         if (!this.cancelled) {
+            this.cancellers.add(canceller);
+            return;
+         }
+      }
+      canceller.run();
+   }
+
+   synchronized boolean isCancelled() {
+      return this.cancelled;
+   }
+
+   void cancel() {
+      List<Runnable> pending;
+      synchronized (this) {
+         if (this.cancelled) {
+            return;
+         }
+         this.cancelled = true;
+         pending = new ArrayList<>(this.cancellers);
+         this.cancellers.clear();
+      }
+      for (Runnable canceller : pending) {
+         canceller.run();
+      }
+   }
+}
@@ -0,0 +1,51 @@
+package com.jogandobem;
+
+import com.jogandobem.MetricsRegistry.Counter;
+import com.jogandobem.MetricsRegistry.Histogram;
+
+/**
+ * Instruments for each stage of the chat pipeline, shared by the plugin, {@code /tstats} and the
+ * simulation harness.
+ */
+public final class ChatMetrics {
+   public static final MetricsRegistry REGISTRY = new MetricsRegistry();
+   public static final MessageTracer TRACER = new MessageTracer();
+
+   /** From the chat event to the translation payload being ready. */
+   public static final Histogram PAYLOAD_BUILD = REGISTRY.histogram("chat.payload");
+   /** One HTTP call to the OpenAI endpoint. */
+   public static final Histogram BACKEND_OPENAI = REGISTRY.histogram("backend.openai");
+   /** From sending a payload to the relay to its answer. */
+   public static final Histogram BACKEND_WS = REGISTRY.histogram("backend.ws");
+   /** One call to the legacy REST translation API. */
+   public static final Histogram BACKEND_REST = REGISTRY.histogram("backend.rest");
+   /** Decoding one OpenAI response body, strict path plus fallback. */
+   public static final Histogram OPENAI_PARSE = REGISTRY.histogram("openai.parse");
+   /** Fan-out of one translated response to the recipients. */
+   public static final Histogram DISPATCH_FANOUT = REGISTRY.histogram("dispatch.fanout");
+   /** From the chat event to the final delivery of its translations. */
+   public static final Histogram END_TO_END = REGISTRY.histogram("chat.end_to_end");
+
+   public static final Counter CHATS_RECEIVED = REGISTRY.counter("chat.received");
+   public static final Counter PASSTHROUGH = REGISTRY.counter("chat.passthrough");
+   public static final Counter CHAT_DUPLICATE = REGISTRY.counter("chat.duplicate_collapsed");
+   public static final Counter CHAT_RATE_LIMITED = REGISTRY.counter("chat.rate_limited");
+   public static final Counter CHAT_OVERLOADED = REGISTRY.counter("chat.overloaded");
+   public static final Counter LANGUAGE_OVERRIDDEN = REGISTRY.counter("lang.overridden");
+   public static final Counter SAME_LANGUAGE_SKIPPED = REGISTRY.counter("lang.same_language_skipped");
+   public static final Counter CACHE_COMPLETE = REGISTRY.counter("cache.complete");
+   public static final Counter MASK_APPLIED = REGISTRY.counter("mask.applied");
+   public static final Counter MASK_REFILL_FAILED = REGISTRY.counter("mask.refill_failed");
+   public static final Counter OPENAI_SUCCESS = REGISTRY.counter("openai.success");
+   public static final Counter OPENAI_FALLBACK = REGISTRY.counter("openai.fallback");
+   public static final Counter OPENAI_COALESCED = REGISTRY.counter("openai.coalesced");
+   public static final Counter OPENAI_SPLIT = REGISTRY.counter("openai.split");
+   public static final Counter OPENAI_SPLIT_REQUESTS = REGISTRY.counter("openai.split_requests");
+   public static final Counter WS_SUCCESS = REGISTRY.counter("ws.success");
+   public static final Counter WS_FALLBACK = REGISTRY.counter("ws.fallback");
+   public static final Counter PHRASEBOOK_HIT = REGISTRY.counter("phrasebook.hit");
+   public static final Counter PHRASEBOOK_MISS = REGISTRY.counter("phrasebook.miss");
+
+   private ChatMetrics() {
+   }
+}
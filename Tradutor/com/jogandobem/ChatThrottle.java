@@ -0,0 +1,152 @@
+package com.jogandobem;
+
+import com.jogandobem.SocketModels.ChatPayload;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps one player from spending the whole translation throughput. The backends ask it right before
+ * a line would leave the server, after the phrasebook, the cache and in-flight coalescing had their
+ * chance, so lines answered locally never count. Each player has a token bucket
+ * ({@code chat_rate_burst} lines, refilled at {@code chat_rate_per_minute}) and remembers the last
+ * line sent: the same line again inside {@code chat_duplicate_window_seconds} is a repeat. Repeats
+ * and lines over the rate are delivered as typed instead of being translated. {@code 0} turns the
+ * rate limit or the repeat check off.
+ */
+public final class ChatThrottle {
+   private static final int MAX_PLAYERS = 4096;
+   private static final int EVICT_TO = MAX_PLAYERS - MAX_PLAYERS / 8;
+   private static final long IDLE_MS = 30L * 60L * 1000L;
+
+   public enum Verdict {
+      /** Within the limits: translate as usual. */
+      TRANSLATE,
+      /** Same line as the previous one inside the duplicate window. */
+      DUPLICATE,
+      /** Bucket empty: the player is sending faster than the configured rate. */
+      OVER_RATE
+   }
+
+   private final ConcurrentHashMap<String, PlayerState> players = new ConcurrentHashMap<>();
+
+   /**
+    * Whether {@code payload} may go to a backend under the limits in {@code config}. Asking again for
+    * the same message (a failover to the next backend) repeats the first answer without counting.
+    */
+   public boolean admit(ChatPayload payload, TranslationConfig config) {
+      if (payload == null) {
+         return true;
+      }
+      return check(
+            payload.jogadorUuid,
+            payload.messageId,
+            payload.textoOriginal,
+            config.chatRatePerMinute,
+            config.chatRateBurst,
+            config.chatDuplicateWindowSeconds * 1000L
+      ) == Verdict.TRANSLATE;
+   }
+
+   /**
+    * Records one line from {@code player} that is about to be sent to a backend and says what to do
+    * with it. Repeats do not take a token.
+    */
+   public Verdict check(String player, String messageId, String text, int perMinute, int burst, long duplicateWindowMs) {
+      if (player == null || player.isEmpty()) {
+         return Verdict.TRANSLATE;
+      }
+      PlayerState state = this.players.get(player);
+      if (state == null) {
+         sweepPlayers();
+         state = this.players.computeIfAbsent(player, ignored -> new PlayerState());
+      }
+      String key = TranslationCache.normalizeText(text).toLowerCase(Locale.ROOT);
+      long nowMs = System.currentTimeMillis();
+      Verdict verdict;
+      synchronized (state) {
+         if (messageId != null && messageId.equals(state.lastMessageId)) {
+            return state.lastVerdict;
+         }
+         boolean repeat = duplicateWindowMs > 0 && key.equals(state.lastText) && nowMs - state.lastTextMs <= duplicateWindowMs;
+         if (repeat) {
+            verdict = Verdict.DUPLICATE;
+         } else if (perMinute <= 0 || state.tryTake(nowMs, perMinute, burst)) {
+            verdict = Verdict.TRANSLATE;
+         } else {
+            verdict = Verdict.OVER_RATE;
+         }
+         state.lastText = key;
+         state.lastTextMs = nowMs;
+         state.lastMessageId = messageId;
+         state.lastVerdict = verdict;
+      }
+      if (verdict == Verdict.DUPLICATE) {
+         ChatMetrics.CHAT_DUPLICATE.increment();
+      } else if (verdict == Verdict.OVER_RATE) {
+         ChatMetrics.CHAT_RATE_LIMITED.increment();
+      }
+      return verdict;
+   }
+
+   int size() {
+      return this.players.size();
+   }
+
+   /**
+    * Over {@value #MAX_PLAYERS} players, drops the ones idle for {@code IDLE_MS} and then, if that
+    * was not enough, the least recently active ones.
+    */
+   private void sweepPlayers() {
+      if (this.players.size() < MAX_PLAYERS) {
+         return;
+      }
+      long cutoff = System.currentTimeMillis() - IDLE_MS;
+      Iterator<Map.Entry<String, PlayerState>> it = this.players.entrySet().iterator();
+      while (it.hasNext()) {
+         if (it.next().getValue().lastTextMs < cutoff) {
+            it.remove();
+         }
+      }
+      int excess = this.players.size() - EVICT_TO;
+      if (excess <= 0) {
+         return;
+      }
+      // Snapshot the timestamps: they keep moving while the list is sorted.
+      List<Map.Entry<String, Long>> byActivity = new ArrayList<>(this.players.size());
+      for (Map.Entry<String, PlayerState> entry : this.players.entrySet()) {
+         byActivity.add(Map.entry(entry.getKey(), entry.getValue().lastTextMs));
+      }
+      byActivity.sort(Map.Entry.comparingByValue());
+      for (int i = 0; i < excess && i < byActivity.size(); i++) {
+         this.players.remove(byActivity.get(i).getKey());
+      }
+   }
+
+   private static final class PlayerState {
+      private double tokens = -1;
+      private long refilledMs;
+      private String lastText;
+      private volatile long lastTextMs;
+      private String lastMessageId;
+      private Verdict lastVerdict;
+
+      private boolean tryTake(long nowMs, int perMinute, int burst) {
+         int capacity = Math.max(1, burst);
+         if (this.tokens < 0) {
+            this.tokens = capacity;
+         } else {
+            this.tokens = Math.min(capacity, this.tokens + (nowMs - this.refilledMs) * perMinute / 60_000.0);
+         }
+         this.refilledMs = nowMs;
+         if (this.tokens < 1.0) {
+            return false;
+         }
+         this.tokens -= 1.0;
+         return true;
+      }
+   }
+}
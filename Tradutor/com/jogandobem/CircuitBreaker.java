@@ -0,0 +1,205 @@
+package com.jogandobem;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.logger.HytaleLogger.Api;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed/open/half-open breaker for one translation endpoint.
+ *
+ * <p>Calls are recorded in a rolling window of time buckets. Once the window holds enough calls and
+ * either the failure rate or the slow-call rate reaches the threshold, the breaker opens and callers
+ * skip the endpoint entirely. After the open period a few probe calls are let through; if they all
+ * succeed the breaker closes again, any failure reopens it.
+ */
+public final class CircuitBreaker {
+   public enum State {
+      CLOSED,
+      OPEN,
+      HALF_OPEN
+   }
+
+   private static final int BUCKETS = 10;
+   private static final long BUCKET_MS = 3000L;
+   private static final int HALF_OPEN_PROBES = 2;
+
+   private final String name;
+   private final HytaleLogger logger;
+   private final Object lock = new Object();
+   private final long[] bucketStart = new long[BUCKETS];
+   private final int[] bucketCalls = new int[BUCKETS];
+   private final int[] bucketFailures = new int[BUCKETS];
+   private final int[] bucketSlow = new int[BUCKETS];
+   private final AtomicLong opened = new AtomicLong();
+   private final AtomicLong shortCircuited = new AtomicLong();
+   private State state = State.CLOSED;
+   private long openUntilMs;
+   private int probesInFlight;
+   private int probeSuccesses;
+   private volatile int failureRatePercent;
+   private volatile long slowCallMs;
+   private volatile long openMs;
+   private volatile int minimumCalls;
+
+   public CircuitBreaker(String name, HytaleLogger logger, int failureRatePercent, long slowCallMs, long openMs, int minimumCalls) {
+      this.name = name;
+      this.logger = logger;
+      configure(failureRatePercent, slowCallMs, openMs, minimumCalls);
+   }
+
+   public void configure(int failureRatePercent, long slowCallMs, long openMs, int minimumCalls) {
+      this.failureRatePercent = Math.max(1, Math.min(100, failureRatePercent));
+      this.slowCallMs = Math.max(1L, slowCallMs);
+      this.openMs = Math.max(1000L, openMs);
+      this.minimumCalls = Math.max(1, minimumCalls);
+   }
+
+   /**
+    * Returns {@code true} when a call may go to the endpoint. Every accepted call must be followed by
+    * {@link #onResult} or {@link #onCancelled}.
+    */
+   public boolean tryAcquire() {
+      synchronized (this.lock) {
+         long now = System.currentTimeMillis();
+         if (this.state == State.OPEN) {
+            if (now < this.openUntilMs) {
+               this.shortCircuited.incrementAndGet();
+               return false;
+            }
+            transition(State.HALF_OPEN, "open period elapsed");
+         }
+         if (this.state == State.HALF_OPEN) {
+            if (this.probesInFlight >= HALF_OPEN_PROBES - this.probeSuccesses) {
+               this.shortCircuited.incrementAndGet();
+               return false;
+            }
+            this.probesInFlight++;
+         }
+         return true;
+      }
+   }
+
+   public void onResult(long latencyMs, boolean failure) {
+      boolean slow = latencyMs >= this.slowCallMs;
+      synchronized (this.lock) {
+         long now = System.currentTimeMillis();
+         if (this.state == State.HALF_OPEN) {
+            this.probesInFlight = Math.max(0, this.probesInFlight - 1);
+            if (failure || slow) {
+               open(now, "probe " + (failure ? "failed" : "slow " + latencyMs + "ms"));
+            } else if (++this.probeSuccesses >= HALF_OPEN_PROBES) {
+               resetWindow();
+               transition(State.CLOSED, "probes succeeded");
+            }
+            return;
+         }
+         if (this.state == State.OPEN) {
+            return;
+         }
+         int index = bucketFor(now);
+         this.bucketCalls[index]++;
+         if (failure) {
+            this.bucketFailures[index]++;
+         }
+         if (slow) {
+            this.bucketSlow[index]++;
+         }
+         evaluate(now);
+      }
+   }
+
+   /**
+    * Releases an accepted call that never reached the endpoint.
+    */
+   public void onCancelled() {
+      synchronized (this.lock) {
+         if (this.state == State.HALF_OPEN) {
+            this.probesInFlight = Math.max(0, this.probesInFlight - 1);
+         }
+      }
+   }
+
+   /**
+    * True while the breaker rejects calls; does not start a half-open probe.
+    */
+   public boolean isOpen() {
+      synchronized (this.lock) {
+         return this.state == State.OPEN && System.currentTimeMillis() < this.openUntilMs;
+      }
+   }
+
+   public State getState() {
+      synchronized (this.lock) {
+         return this.state;
+      }
+   }
+
+   public long getOpenedCount() {
+      return this.opened.get();
+   }
+
+   public long getShortCircuited() {
+      return this.shortCircuited.get();
+   }
+
+   private void evaluate(long now) {
+      int calls = 0;
+      int failures = 0;
+      int slow = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+         if (now - this.bucketStart[i] < BUCKETS * BUCKET_MS) {
+            calls += this.bucketCalls[i];
+            failures += this.bucketFailures[i];
+            slow += this.bucketSlow[i];
+         }
+      }
+      if (calls < this.minimumCalls) {
+         return;
+      }
+      int failureRate = failures * 100 / calls;
+      int slowRate = slow * 100 / calls;
+      if (failureRate >= this.failureRatePercent || slowRate >= this.failureRatePercent) {
+         open(now, "calls=" + calls + " failure_rate=" + failureRate + "% slow_rate=" + slowRate + "%");
+      }
+   }
+
+   private int bucketFor(long now) {
+      long slot = now / BUCKET_MS;
+      int index = (int) (slot % BUCKETS);
+      long start = slot * BUCKET_MS;
+      if (this.bucketStart[index] != start) {
+         this.bucketStart[index] = start;
+         this.bucketCalls[index] = 0;
+         this.bucketFailures[index] = 0;
+         this.bucketSlow[index] = 0;
+      }
+      return index;
+   }
+
+   private void open(long now, String reason) {
+      this.openUntilMs = now + this.openMs;
+      this.opened.incrementAndGet();
+      transition(State.OPEN, reason);
+   }
+
+   private void resetWindow() {
+      for (int i = 0; i < BUCKETS; i++) {
+         this.bucketStart[i] = 0L;
+         this.bucketCalls[i] = 0;
+         this.bucketFailures[i] = 0;
+         this.bucketSlow[i] = 0;
+      }
+   }
+
+   private void transition(State next, String reason) {
+      State previous = this.state;
+      this.state = next;
+      this.probesInFlight = 0;
+      this.probeSuccesses = 0;
+      if (this.logger != null && previous != next) {
+         ((Api) this.logger.atWarning()).log(
+               "ChatTranslation circuit " + this.name + " " + previous + " -> " + next + " (" + reason + ")"
+         );
+      }
+   }
+}
@@ -0,0 +1,251 @@
+package com.jogandobem;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Adaptive (AIMD) cap on the number of asynchronous calls in flight.
+ *
+ * <p>The window grows by roughly one call per window of successful calls and shrinks
+ * multiplicatively when a call reports overload (429/5xx, timeout). Latency only shrinks it when the
+ * median of the last {@value #SAMPLE_WINDOW} calls is well above the median of the last
+ * {@value #HISTORY} calls: single slow calls are usually just long translations, and comparing
+ * against a rolling median instead of the fastest call ever seen keeps the window from ratcheting
+ * down to one. Cancelled calls are not sampled. Calls above the window wait in a bounded FIFO queue
+ * without holding a thread; once the queue is full new calls fail fast with
+ * {@link TranslationOverloadedException}.
+ */
+public final class ConcurrencyLimiter {
+   private static final double LATENCY_TOLERANCE = 2.0;
+   private static final double DROP_BACKOFF = 0.7;
+   private static final double LATENCY_BACKOFF = 0.9;
+   private static final int SAMPLE_WINDOW = 20;
+   private static final int HISTORY = 200;
+
+   private final Object lock = new Object();
+   private final ArrayDeque<Runnable> queue = new ArrayDeque<>();
+   private final AtomicLong rejected = new AtomicLong();
+   private final AtomicLong drops = new AtomicLong();
+   private int inFlight;
+   private double limit;
+   private int maxLimit;
+   private int maxQueue;
+   private final long[] window = new long[SAMPLE_WINDOW];
+   private final long[] history = new long[HISTORY];
+   private int windowCount;
+   private int historyCount;
+   private int historyNext;
+   private boolean shutdown;
+
+   public ConcurrencyLimiter(int maxLimit, int maxQueue) {
+      this.maxLimit = Math.max(1, maxLimit);
+      this.maxQueue = Math.max(0, maxQueue);
+      this.limit = Math.max(1, this.maxLimit / 2);
+   }
+
+   /**
+    * Runs {@code call} once a slot is free. {@code dropped} tells whether a completed call signals
+    * overload; failed calls always count as overload.
+    */
+   public <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> call, Predicate<T> dropped) {
+      CompletableFuture<T> result = new CompletableFuture<>();
+      Runnable start = () -> start(call, dropped, result);
+      boolean runNow;
+      synchronized (this.lock) {
+         if (this.shutdown) {
+            result.completeExceptionally(new CancellationException("limiter shut down"));
+            return result;
+         }
+         runNow = this.inFlight < (int) this.limit;
+         if (runNow) {
+            this.inFlight++;
+         } else if (this.queue.size() >= this.maxQueue) {
+            this.rejected.incrementAndGet();
+            result.completeExceptionally(new TranslationOverloadedException(
+                  "limit=" + (int) this.limit + " queued=" + this.queue.size()
+            ));
+            return result;
+         } else {
+            this.queue.addLast(start);
+         }
+      }
+      if (runNow) {
+         start.run();
+      }
+      return result;
+   }
+
+   /**
+    * Takes a slot for a call whose completion is observed elsewhere. Returns {@code false} without
+    * queueing when the window is full; a successful acquire must be paired with {@link #release}.
+    */
+   public boolean tryAcquire() {
+      synchronized (this.lock) {
+         if (this.shutdown || this.inFlight >= (int) this.limit) {
+            this.rejected.incrementAndGet();
+            return false;
+         }
+         this.inFlight++;
+         return true;
+      }
+   }
+
+   public void release(long startNanos, boolean dropped) {
+      synchronized (this.lock) {
+         this.inFlight--;
+         onSample(System.nanoTime() - startNanos, dropped);
+      }
+      startQueued();
+   }
+
+   /**
+    * Gives back a slot whose call was cancelled: no latency sample, no overload signal.
+    */
+   public void releaseCancelled() {
+      synchronized (this.lock) {
+         this.inFlight--;
+      }
+      startQueued();
+   }
+
+   public boolean isSaturated() {
+      synchronized (this.lock) {
+         return this.inFlight >= (int) this.limit && this.queue.size() >= this.maxQueue;
+      }
+   }
+
+   public void configure(int maxLimit, int maxQueue) {
+      synchronized (this.lock) {
+         this.maxLimit = Math.max(1, maxLimit);
+         this.maxQueue = Math.max(0, maxQueue);
+         this.limit = Math.min(this.limit, this.maxLimit);
+      }
+      startQueued();
+   }
+
+   public int getLimit() {
+      synchronized (this.lock) {
+         return (int) this.limit;
+      }
+   }
+
+   public int getInFlight() {
+      synchronized (this.lock) {
+         return this.inFlight;
+      }
+   }
+
+   public int getQueueDepth() {
+      synchronized (this.lock) {
+         return this.queue.size();
+      }
+   }
+
+   public long getRejected() {
+      return this.rejected.get();
+   }
+
+   public long getDrops() {
+      return this.drops.get();
+   }
+
+   /**
+    * Rejects new calls and cancels the queued ones. Calls already in flight finish on their own.
+    */
+   public void shutdown() {
+      ArrayDeque<Runnable> dropped;
+      synchronized (this.lock) {
+         this.shutdown = true;
+         dropped = new ArrayDeque<>(this.queue);
+         this.queue.clear();
+         this.inFlight += dropped.size();
+      }
+      // Queued starts see the shutdown flag and cancel their result instead of calling out.
+      for (Runnable start : dropped) {
+         start.run();
+      }
+   }
+
+   private <T> void start(Supplier<CompletableFuture<T>> call, Predicate<T> dropped, CompletableFuture<T> result) {
+      CompletableFuture<T> future;
+      boolean stopped;
+      synchronized (this.lock) {
+         stopped = this.shutdown;
+      }
+      long startNanos = System.nanoTime();
+      if (stopped) {
+         future = CompletableFuture.failedFuture(new CancellationException("limiter shut down"));
+      } else {
+         try {
+            future = call.get();
+         } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+         }
+      }
+      future.whenComplete((value, error) -> {
+         // A cancelled call (e.g. the losing side of a hedge) says nothing about the backend.
+         boolean cancelled = error instanceof CancellationException
+               || (error != null && error.getCause() instanceof CancellationException);
+         if (cancelled) {
+            releaseCancelled();
+         } else {
+            release(startNanos, error != null || dropped.test(value));
+         }
+         if (error != null) {
+            result.completeExceptionally(error);
+         } else {
+            result.complete(value);
+         }
+      });
+   }
+
+   private void onSample(long latencyNanos, boolean dropped) {
+      if (dropped) {
+         this.drops.incrementAndGet();
+         this.limit = Math.max(1.0, this.limit * DROP_BACKOFF);
+         return;
+      }
+      this.window[this.windowCount++] = latencyNanos;
+      this.history[this.historyNext] = latencyNanos;
+      this.historyNext = (this.historyNext + 1) % HISTORY;
+      this.historyCount = Math.min(HISTORY, this.historyCount + 1);
+      if (this.windowCount == SAMPLE_WINDOW) {
+         this.windowCount = 0;
+         // The history follows slow, permanent shifts (model or network changes) on its own.
+         if (this.historyCount >= 2 * SAMPLE_WINDOW
+               && median(this.window, SAMPLE_WINDOW) > median(this.history, this.historyCount) * LATENCY_TOLERANCE) {
+            this.limit = Math.max(1.0, this.limit * LATENCY_BACKOFF);
+            return;
+         }
+      }
+      if (this.inFlight + 1 >= (int) this.limit / 2) {
+         // Only grow while the window is actually in use.
+         this.limit = Math.min(this.maxLimit, this.limit + 1.0 / this.limit);
+      }
+   }
+
+   private static long median(long[] samples, int count) {
+      long[] sorted = Arrays.copyOf(samples, count);
+      Arrays.sort(sorted);
+      return sorted[count / 2];
+   }
+
+   private void startQueued() {
+      while (true) {
+         Runnable next;
+         synchronized (this.lock) {
+            if (this.inFlight >= (int) this.limit || this.queue.isEmpty()) {
+               return;
+            }
+            next = this.queue.pollFirst();
+            this.inFlight++;
+         }
+         next.run();
+      }
+   }
+}
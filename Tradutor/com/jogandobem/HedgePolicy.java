@@ -0,0 +1,90 @@
+package com.jogandobem;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides when a slow request deserves a duplicate ("hedge").
+ *
+ * <p>Keeps the most recent request latencies to compute the hedge delay as a percentile, and caps
+ * hedges to a share of recent traffic so a general slowdown never doubles the load.
+ */
+public final class HedgePolicy {
+   private static final int SAMPLES = 256;
+   private static final int MIN_SAMPLES = 20;
+   private static final long MIN_DELAY_MS = 50L;
+   private static final long COUNTER_DECAY_AT = 10_000L;
+
+   private final Object lock = new Object();
+   private final long[] latencies = new long[SAMPLES];
+   private final AtomicLong hedgesSent = new AtomicLong();
+   private final AtomicLong hedgeWins = new AtomicLong();
+   private int sampleCount;
+   private int nextSample;
+   private long recentRequests;
+   private long recentHedges;
+
+   public void recordLatency(long latencyMs) {
+      synchronized (this.lock) {
+         this.latencies[this.nextSample] = Math.max(0L, latencyMs);
+         this.nextSample = (this.nextSample + 1) % SAMPLES;
+         if (this.sampleCount < SAMPLES) {
+            this.sampleCount++;
+         }
+      }
+   }
+
+   /**
+    * Delay after which a request still running should be hedged, or {@code -1} while there are not
+    * enough samples to tell what "slow" means.
+    */
+   public long hedgeDelayMs(int percentile) {
+      long[] copy;
+      synchronized (this.lock) {
+         if (this.sampleCount < MIN_SAMPLES) {
+            return -1L;
+         }
+         copy = Arrays.copyOf(this.latencies, this.sampleCount);
+      }
+      Arrays.sort(copy);
+      int clamped = Math.max(50, Math.min(99, percentile));
+      int index = Math.min(copy.length - 1, (copy.length * clamped) / 100);
+      return Math.max(MIN_DELAY_MS, copy[index]);
+   }
+
+   public void onRequest() {
+      synchronized (this.lock) {
+         this.recentRequests++;
+         if (this.recentRequests >= COUNTER_DECAY_AT) {
+            this.recentRequests /= 2;
+            this.recentHedges /= 2;
+         }
+      }
+   }
+
+   /**
+    * Reserves one hedge if it keeps hedges within {@code budgetPercent} of recent requests.
+    */
+   public boolean tryHedge(int budgetPercent) {
+      synchronized (this.lock) {
+         if ((this.recentHedges + 1) * 100 > this.recentRequests * Math.max(0, budgetPercent)) {
+            return false;
+         }
+         this.recentHedges++;
+      }
+      this.hedgesSent.incrementAndGet();
+      return true;
+   }
+
+   public void onHedgeWin() {
+      this.hedgeWins.incrementAndGet();
+   }
+
+   public long getHedgesSent() {
+      return this.hedgesSent.get();
+   }
+
+   public long getHedgeWins() {
+      return this.hedgeWins.get();
+   }
+}
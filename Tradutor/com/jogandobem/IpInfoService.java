@@ -92,7 +92,7 @@ public final class IpInfoService {
       return BASE_URL + "/me?token=" + trimmedToken;
    }
 
-   private static String sanitizeIp(String ip) {
+   static String sanitizeIp(String ip) {
       if (ip == null) {
          return null;
       }
@@ -0,0 +1,404 @@
+package com.jogandobem;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.logger.HytaleLogger.Api;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Guesses the language a chat line is actually written in, so a player whose configured language is
+ * wrong (or {@code auto}) does not trigger useless requests or skip needed ones.
+ *
+ * <p>Lines in a non-Latin script are recognized by the script alone. Latin-script lines are scored
+ * with letter trigram frequencies from {@code language_profiles.txt} (naive Bayes), plus a prior
+ * built from what each player has written recently and a small bonus for the configured language.
+ * Scoring walks the text once and does not allocate per character.
+ */
+public final class LanguageDetector {
+   private static final String PROFILE_RESOURCE = "language_profiles.txt";
+   private static final int MIN_TRIGRAMS = 6;
+   private static final double SMOOTHING = 0.5;
+   private static final double CONFIGURED_PRIOR = Math.log(3.0);
+   private static final float PROFILE_DECAY = 0.85f;
+   private static final int MAX_PLAYER_PROFILES = 4096;
+   private static final long PROFILE_IDLE_MS = 30L * 60L * 1000L;
+   private static final char BOUNDARY = '_';
+   private static final Set<String> NON_LATIN_LANGUAGES = Set.of(
+         "ru", "uk", "bg", "sr", "mk", "be", "kk", "el", "he", "ar", "fa", "ur", "ku", "ckb", "hi", "bn", "pa",
+         "ta", "te", "mr", "gu", "kn", "ml", "si", "ne", "zh", "yue", "ja", "ko", "th", "am"
+   );
+
+   private final HytaleLogger logger;
+   private final ConcurrentHashMap<UUID, PlayerProfile> players = new ConcurrentHashMap<>();
+   private String[] languages = new String[0];
+   private long[] tableKeys = new long[0];
+   private int[] tableRows = new int[0];
+   private float[] logProbs = new float[0];
+
+   public LanguageDetector(HytaleLogger logger) {
+      this.logger = logger;
+      loadProfiles();
+   }
+
+   /**
+    * Returns the base language ({@code pt}, {@code en}, ...) {@code text} is written in when the
+    * detector is at least {@code minConfidencePercent} sure, or {@code null}. Confident Latin-script
+    * detections also feed the sender's rolling profile.
+    */
+   public String detect(UUID player, String text, String configuredLanguage, int minConfidencePercent) {
+      if (text == null || text.isEmpty() || minConfidencePercent >= 100) {
+         return null;
+      }
+      String configured = baseLanguage(configuredLanguage);
+      int length = text.length();
+      int latinLetters = 0;
+      int otherLetters = 0;
+      Character.UnicodeScript dominant = null;
+      int dominantCount = 0;
+      for (int i = 0; i < length; ) {
+         int cp = text.codePointAt(i);
+         i += Character.charCount(cp);
+         if (!Character.isLetter(cp)) {
+            continue;
+         }
+         Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+         if (script == Character.UnicodeScript.LATIN) {
+            latinLetters++;
+         } else {
+            otherLetters++;
+            if (script == dominant) {
+               dominantCount++;
+            } else if (dominantCount == 0) {
+               dominant = script;
+               dominantCount = 1;
+            } else {
+               dominantCount--;
+            }
+         }
+      }
+      if (otherLetters >= 3 && otherLetters * 10 >= (otherLetters + latinLetters) * 6) {
+         return detectByScript(dominant, configured);
+      }
+      if (latinLetters < 3 || this.languages.length == 0) {
+         return null;
+      }
+      if (!configured.isEmpty() && !"auto".equals(configured) && !NON_LATIN_LANGUAGES.contains(configured) && indexOf(configured) < 0) {
+         // A Latin-script language without a profile (nl, pl, sv...) would just be mistaken for the nearest one.
+         return null;
+      }
+      return detectByTrigrams(player, text, configured, minConfidencePercent / 100.0);
+   }
+
+   public int getProfileLanguageCount() {
+      return this.languages.length;
+   }
+
+   public void forget(UUID player) {
+      if (player != null) {
+         this.players.remove(player);
+      }
+   }
+
+   private String detectByTrigrams(UUID player, String text, String configured, double minConfidence) {
+      int languageCount = this.languages.length;
+      double[] scores = new double[languageCount];
+      int trigrams = 0;
+      char c1 = 0;
+      char c2 = 0;
+      boolean inWord = false;
+      int length = text.length();
+      for (int i = 0; i <= length; i++) {
+         char c = i < length ? text.charAt(i) : ' ';
+         if (Character.isLetter(c)) {
+            if (!inWord) {
+               c1 = 0;
+               c2 = BOUNDARY;
+               inWord = true;
+            }
+            c = Character.toLowerCase(c);
+            if (c1 != 0 && addTrigram(scores, key(c1, c2, c))) {
+               trigrams++;
+            }
+            c1 = c2;
+            c2 = c;
+         } else if (inWord) {
+            if (addTrigram(scores, key(c1, c2, BOUNDARY))) {
+               trigrams++;
+            }
+            inWord = false;
+         }
+      }
+      if (trigrams < MIN_TRIGRAMS) {
+         return null;
+      }
+
+      int textBest = argMax(scores);
+      boolean textConfident = confidence(scores, textBest) >= minConfidence;
+
+      PlayerProfile profile = player == null ? null : this.players.get(player);
+      if (profile != null) {
+         profile.addLogPrior(scores);
+      }
+      int configuredIndex = indexOf(configured);
+      if (configuredIndex >= 0) {
+         scores[configuredIndex] += CONFIGURED_PRIOR;
+      }
+      int best = argMax(scores);
+      boolean confident = confidence(scores, best) >= minConfidence;
+
+      if (textConfident && player != null) {
+         if (profile == null) {
+            sweepProfiles();
+            profile = this.players.computeIfAbsent(player, ignored -> new PlayerProfile(languageCount));
+         }
+         profile.observe(textBest);
+      }
+      return confident ? this.languages[best] : null;
+   }
+
+   /**
+    * Adds one trigram's log-probabilities; trigrams no profile knows carry no evidence and are skipped.
+    */
+   private boolean addTrigram(double[] scores, long key) {
+      int row = findRow(key);
+      if (row < 0) {
+         return false;
+      }
+      int offset = row * scores.length;
+      for (int l = 0; l < scores.length; l++) {
+         scores[l] += this.logProbs[offset + l];
+      }
+      return true;
+   }
+
+   private static double confidence(double[] scores, int best) {
+      double sum = 0;
+      for (double score : scores) {
+         sum += Math.exp(score - scores[best]);
+      }
+      return 1.0 / sum;
+   }
+
+   private static int argMax(double[] scores) {
+      int best = 0;
+      for (int i = 1; i < scores.length; i++) {
+         if (scores[i] > scores[best]) {
+            best = i;
+         }
+      }
+      return best;
+   }
+
+   private static String detectByScript(Character.UnicodeScript script, String configured) {
+      String[] candidates;
+      if (script == null) {
+         return null;
+      }
+      switch (script) {
+         case CYRILLIC:
+            candidates = new String[] {"ru", "uk", "bg", "sr", "mk", "be", "kk"};
+            break;
+         case GREEK:
+            candidates = new String[] {"el"};
+            break;
+         case HEBREW:
+            candidates = new String[] {"he"};
+            break;
+         case ARABIC:
+            candidates = new String[] {"ar", "fa", "ur", "ku", "ckb"};
+            break;
+         case DEVANAGARI:
+            candidates = new String[] {"hi", "mr", "ne"};
+            break;
+         case HIRAGANA:
+         case KATAKANA:
+            candidates = new String[] {"ja"};
+            break;
+         case HANGUL:
+            candidates = new String[] {"ko"};
+            break;
+         case HAN:
+            candidates = new String[] {"zh", "yue", "ja"};
+            break;
+         case THAI:
+            candidates = new String[] {"th"};
+            break;
+         default:
+            return null;
+      }
+      for (String candidate : candidates) {
+         if (candidate.equals(configured)) {
+            return configured;
+         }
+      }
+      return candidates[0];
+   }
+
+   private void sweepProfiles() {
+      if (this.players.size() < MAX_PLAYER_PROFILES) {
+         return;
+      }
+      long cutoff = System.currentTimeMillis() - PROFILE_IDLE_MS;
+      Iterator<Map.Entry<UUID, PlayerProfile>> it = this.players.entrySet().iterator();
+      while (it.hasNext()) {
+         if (it.next().getValue().lastSeenMs < cutoff) {
+            it.remove();
+         }
+      }
+      if (this.players.size() >= MAX_PLAYER_PROFILES) {
+         this.players.clear();
+      }
+   }
+
+   private int indexOf(String language) {
+      for (int i = 0; i < this.languages.length; i++) {
+         if (this.languages[i].equals(language)) {
+            return i;
+         }
+      }
+      return -1;
+   }
+
+   public static String baseLanguage(String language) {
+      String normalized = TranslationResponses.normalizeLanguage(language);
+      int dash = normalized.indexOf('-');
+      return dash > 0 ? normalized.substring(0, dash) : normalized;
+   }
+
+   private static long key(char a, char b, char c) {
+      return ((long) a << 32) | ((long) b << 16) | c;
+   }
+
+   private int findRow(long key) {
+      int mask = this.tableKeys.length - 1;
+      if (mask < 0) {
+         return -1;
+      }
+      int slot = mix(key) & mask;
+      while (true) {
+         int row = this.tableRows[slot];
+         if (row < 0) {
+            return -1;
+         }
+         if (this.tableKeys[slot] == key) {
+            return row;
+         }
+         slot = (slot + 1) & mask;
+      }
+   }
+
+   private static int mix(long key) {
+      long h = key * 0x9E3779B97F4A7C15L;
+      return (int) (h ^ (h >>> 32));
+   }
+
+   private void loadProfiles() {
+      List<String[]> rows = new ArrayList<>();
+      try (InputStream in = LanguageDetector.class.getResourceAsStream(PROFILE_RESOURCE)) {
+         if (in == null) {
+            ((Api) this.logger.atWarning()).log("ChatTranslation " + PROFILE_RESOURCE + " not found; language detection limited to non-Latin scripts");
+            return;
+         }
+         BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+         String line;
+         while ((line = reader.readLine()) != null) {
+            if (line.isBlank() || line.startsWith("#")) {
+               continue;
+            }
+            String[] parts = line.split("\t");
+            if (parts.length == 3) {
+               rows.add(parts);
+            }
+         }
+      } catch (IOException e) {
+         ((Api) this.logger.atWarning().withCause(e)).log("ChatTranslation failed to read " + PROFILE_RESOURCE);
+         return;
+      }
+
+      int languageCount = rows.size();
+      String[] names = new String[languageCount];
+      long[] totals = new long[languageCount];
+      Map<Long, int[]> counts = new HashMap<>();
+      for (int l = 0; l < languageCount; l++) {
+         String[] parts = rows.get(l);
+         names[l] = parts[0].trim().toLowerCase(Locale.ROOT);
+         totals[l] = Long.parseLong(parts[1].trim());
+         for (String item : parts[2].trim().split(" ")) {
+            int colon = item.lastIndexOf(':');
+            if (colon != 3) {
+               continue;
+            }
+            long key = key(item.charAt(0), item.charAt(1), item.charAt(2));
+            counts.computeIfAbsent(key, ignored -> new int[languageCount])[l] = Integer.parseInt(item.substring(colon + 1));
+         }
+      }
+
+      int vocabulary = counts.size();
+      int capacity = Integer.highestOneBit(Math.max(16, vocabulary * 2) - 1) << 1;
+      long[] keys = new long[capacity];
+      int[] tableRows = new int[capacity];
+      Arrays.fill(tableRows, -1);
+      float[] probs = new float[vocabulary * languageCount];
+      int row = 0;
+      for (Map.Entry<Long, int[]> entry : counts.entrySet()) {
+         int slot = mix(entry.getKey()) & (capacity - 1);
+         while (tableRows[slot] >= 0) {
+            slot = (slot + 1) & (capacity - 1);
+         }
+         keys[slot] = entry.getKey();
+         tableRows[slot] = row;
+         for (int l = 0; l < languageCount; l++) {
+            probs[row * languageCount + l] = (float) Math.log((entry.getValue()[l] + SMOOTHING) / (totals[l] + SMOOTHING * vocabulary));
+         }
+         row++;
+      }
+      this.tableKeys = keys;
+      this.tableRows = tableRows;
+      this.logProbs = probs;
+      this.languages = names;
+   }
+
+   /**
+    * Decayed count of the languages a player's confident lines were written in.
+    */
+   private static final class PlayerProfile {
+      private final float[] weights;
+      private volatile long lastSeenMs = System.currentTimeMillis();
+
+      private PlayerProfile(int languageCount) {
+         this.weights = new float[languageCount];
+      }
+
+      private synchronized void observe(int language) {
+         for (int i = 0; i < this.weights.length; i++) {
+            this.weights[i] *= PROFILE_DECAY;
+         }
+         this.weights[language] += 1f;
+         this.lastSeenMs = System.currentTimeMillis();
+      }
+
+      private synchronized void addLogPrior(double[] scores) {
+         double total = 0;
+         for (float weight : this.weights) {
+            total += weight;
+         }
+         double denominator = total + SMOOTHING * this.weights.length;
+         for (int i = 0; i < this.weights.length; i++) {
+            scores[i] += Math.log((this.weights[i] + SMOOTHING) / denominator);
+         }
+      }
+   }
+}
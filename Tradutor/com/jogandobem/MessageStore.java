@@ -406,6 +406,90 @@ public final class MessageStore {
             "翻译器已重新加载。"
       ));
 
+      defaults.put("cmd_stats_window", langMap(
+            "Últimos {minutes} min ({seconds}s):",
+            "Last {minutes} min ({seconds}s):",
+            "Últimos {minutes} min ({seconds}s):",
+            "Dernières {minutes} min ({seconds}s) :",
+            "Letzte {minutes} Min. ({seconds}s):",
+            "Ultimi {minutes} min ({seconds}s):",
+            "Последние {minutes} мин ({seconds} с):",
+            "直近{minutes}分（{seconds}秒）:",
+            "最近 {minutes} 分钟（{seconds} 秒）："
+      ));
+
+      defaults.put("cmd_stats_now", langMap(
+            "Agora:",
+            "Now:",
+            "Ahora:",
+            "Maintenant :",
+            "Jetzt:",
+            "Adesso:",
+            "Сейчас:",
+            "現在:",
+            "当前："
+      ));
+
+      defaults.put("cmd_trace_none", langMap(
+            "Nenhuma mensagem lenta registrada. Uso: /ttrace <id>",
+            "No slow messages recorded. Usage: /ttrace <id>",
+            "No hay mensajes lentos registrados. Uso: /ttrace <id>",
+            "Aucun message lent enregistré. Utilisation : /ttrace <id>",
+            "Keine langsamen Nachrichten erfasst. Verwendung: /ttrace <id>",
+            "Nessun messaggio lento registrato. Uso: /ttrace <id>",
+            "Медленных сообщений не зафиксировано. Использование: /ttrace <id>",
+            "遅いメッセージの記録はありません。使い方: /ttrace <id>",
+            "没有记录到慢消息。用法：/ttrace <id>"
+      ));
+
+      defaults.put("cmd_trace_recent", langMap(
+            "Mensagens lentas recentes (use /ttrace <id>):",
+            "Recent slow messages (use /ttrace <id>):",
+            "Mensajes lentos recientes (usa /ttrace <id>):",
+            "Messages lents récents (utilise /ttrace <id>) :",
+            "Letzte langsame Nachrichten (/ttrace <id> verwenden):",
+            "Messaggi lenti recenti (usa /ttrace <id>):",
+            "Недавние медленные сообщения (используйте /ttrace <id>):",
+            "最近の遅いメッセージ（/ttrace <id> で詳細）:",
+            "最近的慢消息（使用 /ttrace <id>）："
+      ));
+
+      defaults.put("cmd_trace_not_found", langMap(
+            "Rastreamento não encontrado (não amostrado ou expirado).",
+            "Trace not found (not sampled or expired).",
+            "Rastreo no encontrado (no muestreado o expirado).",
+            "Trace introuvable (non échantillonnée ou expirée).",
+            "Ablauf nicht gefunden (nicht erfasst oder abgelaufen).",
+            "Traccia non trovata (non campionata o scaduta).",
+            "Трассировка не найдена (не попала в выборку или устарела).",
+            "トレースが見つかりません（未サンプリングまたは期限切れ）。",
+            "未找到追踪记录（未采样或已过期）。"
+      ));
+
+      defaults.put("cmd_trace_in_flight", langMap(
+            "(em andamento)",
+            "(in progress)",
+            "(en curso)",
+            "(en cours)",
+            "(läuft noch)",
+            "(in corso)",
+            "(выполняется)",
+            "（処理中）",
+            "（进行中）"
+      ));
+
+      defaults.put("chat_overloaded", langMap(
+            "O tradutor está sobrecarregado; sua mensagem foi entregue sem tradução.",
+            "The translator is overloaded; your message was delivered untranslated.",
+            "El traductor está sobrecargado; tu mensaje se entregó sin traducir.",
+            "Le traducteur est surchargé ; ton message a été envoyé sans traduction.",
+            "Der Übersetzer ist überlastet; deine Nachricht wurde unübersetzt zugestellt.",
+            "Il traduttore è sovraccarico; il tuo messaggio è stato consegnato senza traduzione.",
+            "Переводчик перегружен; ваше сообщение доставлено без перевода.",
+            "翻訳機能が混み合っているため、メッセージは翻訳せずに届けられました。",
+            "翻译器负载过高，你的消息已按原文发送。"
+      ));
+
       defaults.put("cmd_help_intro", langListMap(
             List.of(
                   "Como funciona: o chat é traduzido para o idioma escolhido por você.",
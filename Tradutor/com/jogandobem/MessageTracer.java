@@ -0,0 +1,288 @@
+package com.jogandobem;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.logger.HytaleLogger.Api;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-message lifecycle timestamps, from the chat event to the last delivery.
+ *
+ * <p>A trace is started with the message id and every stage is stamped once (the delivery stamp is
+ * overwritten by each partial delivery, so it ends up at the last one). When the message is finished,
+ * traces slower than {@code trace_slow_ms} are appended to {@code traces.log} (rolled to
+ * {@code traces.log.1} past {@code trace_file_max_kb}); slow and sampled traces stay queryable by id.
+ */
+public final class MessageTracer {
+   public enum Stage {
+      RECEIVED("received"),
+      ENQUEUED("enqueued"),
+      SENT("sent"),
+      FIRST_BYTE("first_byte"),
+      PARSED("parsed"),
+      DISPATCH_STARTED("dispatch"),
+      DELIVERED("delivered");
+
+      private final String label;
+
+      Stage(String label) {
+         this.label = label;
+      }
+   }
+
+   private static final Stage[] STAGES = Stage.values();
+   private static final String FILE_NAME = "traces.log";
+   private static final int MAX_RECENT = 512;
+   private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+   private final ConcurrentHashMap<String, Trace> active = new ConcurrentHashMap<>();
+   private final Map<String, Trace> recent = new LinkedHashMap<>(64, 0.75f, false) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Trace> eldest) {
+         return size() > MAX_RECENT;
+      }
+   };
+   private final AtomicLong lastSweepNanos = new AtomicLong(System.nanoTime());
+   private volatile long slowNanos = TimeUnit.SECONDS.toNanos(3);
+   private volatile int samplePercent = 10;
+   private volatile long maxTraceNanos = TimeUnit.SECONDS.toNanos(60);
+   private volatile long maxFileBytes = 1024L * 1024L;
+   private volatile Path file;
+   private volatile HytaleLogger logger;
+   private ExecutorService writer;
+
+   /**
+    * Applies the trace settings and starts writing slow traces under {@code dataDir}. Safe to call
+    * again on reload.
+    */
+   public synchronized void configure(Path dataDir, TranslationConfig config, HytaleLogger logger) {
+      this.slowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, config.traceSlowMs));
+      this.samplePercent = Math.max(0, Math.min(100, config.traceSamplePercent));
+      this.maxTraceNanos = TimeUnit.SECONDS.toNanos(Math.max(5, config.pendingTtlSeconds) * 2L);
+      this.maxFileBytes = Math.max(16, config.traceFileMaxKb) * 1024L;
+      this.logger = logger;
+      if (dataDir != null) {
+         this.file = dataDir.resolve(FILE_NAME);
+         if (this.writer == null) {
+            this.writer = Executors.newSingleThreadExecutor();
+         }
+      }
+   }
+
+   public void start(String messageId, long receivedNanos) {
+      if (messageId == null) {
+         return;
+      }
+      Trace trace = new Trace(messageId, System.currentTimeMillis());
+      trace.stages.set(Stage.RECEIVED.ordinal(), receivedNanos);
+      this.active.put(messageId, trace);
+      long now = System.nanoTime();
+      long last = this.lastSweepNanos.get();
+      if (now - last > SWEEP_INTERVAL_NANOS && this.lastSweepNanos.compareAndSet(last, now)) {
+         sweep(now);
+      }
+   }
+
+   /**
+    * Stamps {@code stage} on an active trace; earlier stamps of the same stage are kept, except for
+    * {@link Stage#DELIVERED}.
+    */
+   public void mark(String messageId, Stage stage) {
+      markAt(messageId, stage, System.nanoTime());
+   }
+
+   public void markAt(String messageId, Stage stage, long nanos) {
+      if (messageId == null) {
+         return;
+      }
+      Trace trace = this.active.get(messageId);
+      if (trace != null) {
+         trace.mark(stage, nanos);
+      }
+   }
+
+   public void mark(List<String> messageIds, Stage stage) {
+      if (messageIds == null) {
+         return;
+      }
+      long now = System.nanoTime();
+      for (String messageId : messageIds) {
+         Trace trace = messageId == null ? null : this.active.get(messageId);
+         if (trace != null) {
+            trace.mark(stage, now);
+         }
+      }
+   }
+
+   /**
+    * Closes the trace of a message once its final response was dispatched.
+    */
+   public void finish(String messageId) {
+      if (messageId == null) {
+         return;
+      }
+      Trace trace = this.active.remove(messageId);
+      if (trace != null) {
+         complete(trace, false);
+      }
+   }
+
+   /**
+    * A finished trace, or the stages stamped so far for a message still in flight followed by
+    * {@code inFlightNote}; {@code null} when the id was not sampled or is too old.
+    */
+   public String describe(String messageId, String inFlightNote) {
+      if (messageId == null) {
+         return null;
+      }
+      Trace trace = this.active.get(messageId);
+      if (trace != null) {
+         return trace.format(false) + " " + inFlightNote;
+      }
+      synchronized (this.recent) {
+         trace = this.recent.get(messageId);
+      }
+      return trace == null ? null : trace.format(trace.expired);
+   }
+
+   /**
+    * Ids of the most recent slow traces, newest first.
+    */
+   public List<String> recentSlow(int limit) {
+      List<String> ids = new ArrayList<>();
+      synchronized (this.recent) {
+         for (Trace trace : this.recent.values()) {
+            if (trace.slow) {
+               ids.add(0, trace.messageId);
+            }
+         }
+      }
+      return ids.size() > limit ? ids.subList(0, limit) : ids;
+   }
+
+   public synchronized void shutdown() {
+      if (this.writer != null) {
+         this.writer.shutdown();
+         this.writer = null;
+      }
+   }
+
+   private void sweep(long now) {
+      Iterator<Trace> iterator = this.active.values().iterator();
+      while (iterator.hasNext()) {
+         Trace trace = iterator.next();
+         if (now - trace.stages.get(Stage.RECEIVED.ordinal()) > this.maxTraceNanos) {
+            iterator.remove();
+            complete(trace, true);
+         }
+      }
+   }
+
+   private void complete(Trace trace, boolean expired) {
+      trace.expired = expired;
+      trace.slow = expired || trace.totalNanos() >= this.slowNanos;
+      boolean sampled = trace.slow || ThreadLocalRandom.current().nextInt(100) < this.samplePercent;
+      if (sampled) {
+         synchronized (this.recent) {
+            this.recent.put(trace.messageId, trace);
+         }
+      }
+      if (trace.slow) {
+         write(trace.format(expired));
+      }
+   }
+
+   private synchronized void write(String line) {
+      Path target = this.file;
+      if (this.writer == null || target == null) {
+         return;
+      }
+      long maxBytes = this.maxFileBytes;
+      try {
+         this.writer.execute(() -> append(target, line, maxBytes));
+      } catch (RejectedExecutionException ignored) {
+      }
+   }
+
+   private void append(Path target, String line, long maxBytes) {
+      try {
+         if (Files.exists(target) && Files.size(target) > maxBytes) {
+            Files.move(target, target.resolveSibling(FILE_NAME + ".1"), StandardCopyOption.REPLACE_EXISTING);
+         }
+         Files.writeString(target, line + System.lineSeparator(), StandardCharsets.UTF_8,
+               StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+      } catch (IOException e) {
+         HytaleLogger current = this.logger;
+         if (current != null) {
+            ((Api) current.atWarning().withCause(e)).log("ChatTranslation failed to write " + FILE_NAME);
+         }
+      }
+   }
+
+   private static final class Trace {
+      private final String messageId;
+      private final long startMillis;
+      private final AtomicLongArray stages = new AtomicLongArray(STAGES.length);
+      private volatile boolean expired;
+      private volatile boolean slow;
+
+      private Trace(String messageId, long startMillis) {
+         this.messageId = messageId;
+         this.startMillis = startMillis;
+      }
+
+      private void mark(Stage stage, long now) {
+         if (stage == Stage.DELIVERED) {
+            this.stages.set(stage.ordinal(), now);
+         } else {
+            this.stages.compareAndSet(stage.ordinal(), 0L, now);
+         }
+      }
+
+      private long totalNanos() {
+         long last = 0L;
+         for (int i = 0; i < STAGES.length; i++) {
+            last = Math.max(last, this.stages.get(i));
+         }
+         return last - this.stages.get(Stage.RECEIVED.ordinal());
+      }
+
+      private String format(boolean expired) {
+         long received = this.stages.get(Stage.RECEIVED.ordinal());
+         StringBuilder line = new StringBuilder(160);
+         line.append(Instant.ofEpochMilli(this.startMillis)).append(" id=").append(this.messageId);
+         line.append(" total=").append(TimeUnit.NANOSECONDS.toMillis(totalNanos())).append("ms");
+         for (int i = 1; i < STAGES.length; i++) {
+            long stamp = this.stages.get(i);
+            line.append(' ').append(STAGES[i].label).append('=');
+            if (stamp == 0L) {
+               line.append('-');
+            } else {
+               line.append('+').append(TimeUnit.NANOSECONDS.toMillis(stamp - received)).append("ms");
+            }
+         }
+         if (expired) {
+            line.append(" expired");
+         }
+         return line.toString();
+      }
+   }
+}
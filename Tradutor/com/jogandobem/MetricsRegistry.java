@@ -0,0 +1,258 @@
+package com.jogandobem;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * In-process metrics: latency histograms, counters and gauges kept over the last 15 minutes.
+ *
+ * <p>Histograms use log-linear buckets (16 sub-buckets per power of two, about 6% relative error) in
+ * microseconds. Every instrument keeps one slot per minute in a small ring, so recording is a couple
+ * of atomic increments on preallocated arrays and never allocates. Reports add up the slots of the
+ * requested window.
+ */
+public final class MetricsRegistry {
+   public static final int MAX_WINDOW_MINUTES = 15;
+   private static final int SLOTS = MAX_WINDOW_MINUTES + 1;
+   private static final long NANOS_PER_MINUTE = 60_000_000_000L;
+   private static final int SUB_BUCKET_BITS = 4;
+   private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+   private static final int MAX_EXPONENT = 32;
+   private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+   private final long startNanos = System.nanoTime();
+   private final Map<String, Histogram> histograms = new LinkedHashMap<>();
+   private final Map<String, Counter> counters = new LinkedHashMap<>();
+   private final Map<String, LongSupplier> gauges = new LinkedHashMap<>();
+
+   public synchronized Histogram histogram(String name) {
+      return this.histograms.computeIfAbsent(name, ignored -> new Histogram());
+   }
+
+   public synchronized Counter counter(String name) {
+      return this.counters.computeIfAbsent(name, ignored -> new Counter());
+   }
+
+   /**
+    * Registers (or replaces) a value read when a report is built, such as a queue depth.
+    */
+   public synchronized void gauge(String name, LongSupplier supplier) {
+      this.gauges.put(name, supplier);
+   }
+
+   /**
+    * Histogram and counter lines for the last {@code minutes} minutes; instruments with no samples in
+    * the window are left out.
+    */
+   public synchronized List<String> report(int minutes) {
+      int window = Math.max(1, Math.min(MAX_WINDOW_MINUTES, minutes));
+      long now = System.nanoTime();
+      double seconds = windowSeconds(now, window);
+      List<String> lines = new ArrayList<>();
+      for (Map.Entry<String, Histogram> entry : this.histograms.entrySet()) {
+         long[] counts = entry.getValue().collect(now, window);
+         long total = 0;
+         for (long count : counts) {
+            total += count;
+         }
+         if (total == 0) {
+            continue;
+         }
+         lines.add(String.format(Locale.ROOT, "%s n=%d %.2f/s p50=%s p95=%s p99=%s",
+               entry.getKey(), total, total / seconds,
+               formatMicros(percentile(counts, total, 50)),
+               formatMicros(percentile(counts, total, 95)),
+               formatMicros(percentile(counts, total, 99))
+         ));
+      }
+      for (Map.Entry<String, Counter> entry : this.counters.entrySet()) {
+         long total = entry.getValue().sum(now, window);
+         if (total == 0) {
+            continue;
+         }
+         lines.add(String.format(Locale.ROOT, "%s %d (%.2f/s)", entry.getKey(), total, total / seconds));
+      }
+      return lines;
+   }
+
+   /**
+    * Current value of every gauge, one {@code name value} line each.
+    */
+   public synchronized List<String> gaugeReport() {
+      List<String> lines = new ArrayList<>();
+      for (Map.Entry<String, LongSupplier> entry : this.gauges.entrySet()) {
+         long value;
+         try {
+            value = entry.getValue().getAsLong();
+         } catch (RuntimeException e) {
+            continue;
+         }
+         lines.add(entry.getKey() + " " + value);
+      }
+      return lines;
+   }
+
+   /**
+    * Seconds covered by the last {@code minutes} minutes, the divisor of every rate in
+    * {@link #report}; shorter than the full window right after startup.
+    */
+   public double getWindowSeconds(int minutes) {
+      return windowSeconds(System.nanoTime(), Math.max(1, Math.min(MAX_WINDOW_MINUTES, minutes)));
+   }
+
+   private double windowSeconds(long now, int minutes) {
+      long intoMinute = Math.floorMod(now, NANOS_PER_MINUTE);
+      long covered = (minutes - 1) * NANOS_PER_MINUTE + intoMinute;
+      return Math.max(1.0, Math.min(covered, now - this.startNanos) / 1e9);
+   }
+
+   private static long minuteOf(long nanos) {
+      return Math.floorDiv(nanos, NANOS_PER_MINUTE);
+   }
+
+   static int bucketOf(long micros) {
+      if (micros < SUB_BUCKETS) {
+         return (int) Math.max(0L, micros);
+      }
+      int exponent = Math.min(MAX_EXPONENT, 63 - Long.numberOfLeadingZeros(micros));
+      int sub = (int) ((micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+      return Math.min(BUCKETS - 1, (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub);
+   }
+
+   /**
+    * Midpoint of a bucket, in microseconds.
+    */
+   static long valueOf(int bucket) {
+      if (bucket < SUB_BUCKETS) {
+         return bucket;
+      }
+      int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+      int sub = bucket % SUB_BUCKETS;
+      long width = 1L << (exponent - SUB_BUCKET_BITS);
+      return (SUB_BUCKETS + sub) * width + width / 2;
+   }
+
+   private static long percentile(long[] counts, long total, int percentile) {
+      long rank = Math.max(1L, (long) Math.ceil(total * percentile / 100.0));
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+         seen += counts[i];
+         if (seen >= rank) {
+            return valueOf(i);
+         }
+      }
+      return valueOf(counts.length - 1);
+   }
+
+   private static String formatMicros(long micros) {
+      if (micros < 1000) {
+         return micros + "us";
+      }
+      if (micros < 10_000_000) {
+         return String.format(Locale.ROOT, "%.1fms", micros / 1000.0);
+      }
+      return String.format(Locale.ROOT, "%.1fs", micros / 1_000_000.0);
+   }
+
+   /**
+    * One slot per minute; the slot for a new minute is cleared by the first writer that reaches it.
+    */
+   private static final class MinuteRing {
+      private final AtomicLongArray[] slots = new AtomicLongArray[SLOTS];
+      private final AtomicLongArray slotMinutes = new AtomicLongArray(SLOTS);
+
+      private MinuteRing(int width) {
+         for (int i = 0; i < SLOTS; i++) {
+            this.slots[i] = new AtomicLongArray(width);
+            this.slotMinutes.set(i, Long.MIN_VALUE);
+         }
+      }
+
+      private AtomicLongArray current(long now) {
+         long minute = minuteOf(now);
+         int index = (int) Math.floorMod(minute, (long) SLOTS);
+         AtomicLongArray slot = this.slots[index];
+         if (this.slotMinutes.get(index) != minute) {
+            synchronized (slot) {
+               if (this.slotMinutes.get(index) != minute) {
+                  for (int i = 0; i < slot.length(); i++) {
+                     slot.set(i, 0L);
+                  }
+                  this.slotMinutes.set(index, minute);
+               }
+            }
+         }
+         return slot;
+      }
+
+      private void addWindow(long now, int minutes, long[] into) {
+         long minute = minuteOf(now);
+         for (int i = 0; i < SLOTS; i++) {
+            AtomicLongArray slot = this.slots[i];
+            synchronized (slot) {
+               long slotMinute = this.slotMinutes.get(i);
+               if (slotMinute > minute - minutes && slotMinute <= minute) {
+                  for (int j = 0; j < into.length; j++) {
+                     into[j] += slot.get(j);
+                  }
+               }
+            }
+         }
+      }
+   }
+
+   public static final class Histogram {
+      private final MinuteRing ring = new MinuteRing(BUCKETS);
+
+      private Histogram() {
+      }
+
+      public void recordNanos(long nanos) {
+         recordMicros(nanos / 1000L);
+      }
+
+      public void recordMicros(long micros) {
+         this.ring.current(System.nanoTime()).incrementAndGet(bucketOf(micros));
+      }
+
+      /**
+       * Records the time elapsed since {@code startNanos} (a {@link System#nanoTime()} reading).
+       */
+      public void recordSince(long startNanos) {
+         long now = System.nanoTime();
+         this.ring.current(now).incrementAndGet(bucketOf((now - startNanos) / 1000L));
+      }
+
+      private long[] collect(long now, int minutes) {
+         long[] counts = new long[BUCKETS];
+         this.ring.addWindow(now, minutes, counts);
+         return counts;
+      }
+   }
+
+   public static final class Counter {
+      private final MinuteRing ring = new MinuteRing(1);
+
+      private Counter() {
+      }
+
+      public void increment() {
+         this.ring.current(System.nanoTime()).incrementAndGet(0);
+      }
+
+      public void add(long delta) {
+         this.ring.current(System.nanoTime()).addAndGet(0, delta);
+      }
+
+      private long sum(long now, int minutes) {
+         long[] total = new long[1];
+         this.ring.addWindow(now, minutes, total);
+         return total[0];
+      }
+   }
+}
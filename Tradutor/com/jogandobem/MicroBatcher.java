@@ -0,0 +1,111 @@
+package com.jogandobem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Groups items that arrive close together into a single flush.
+ *
+ * <p>The window only applies while traffic is bursty: an item that arrives after a quiet
+ * period longer than the window is flushed immediately, so single messages keep their latency.
+ */
+public final class MicroBatcher<T> {
+   private final Consumer<List<T>> flushHandler;
+   private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+   private final Object lock = new Object();
+   private final AtomicLong flushedBatches = new AtomicLong();
+   private final AtomicLong flushedItems = new AtomicLong();
+   private List<T> pending = new ArrayList<>();
+   private long lastArrivalNanos;
+   private boolean flushScheduled;
+   private volatile long windowNanos;
+   private volatile int maxSize;
+
+   public MicroBatcher(long windowMs, int maxSize, Consumer<List<T>> flushHandler) {
+      this.flushHandler = flushHandler;
+      configure(windowMs, maxSize);
+   }
+
+   public void configure(long windowMs, int maxSize) {
+      this.windowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, windowMs));
+      this.maxSize = Math.max(1, maxSize);
+   }
+
+   public void submit(T item) {
+      List<T> ready = null;
+      boolean schedule = false;
+      synchronized (this.lock) {
+         long now = System.nanoTime();
+         long gap = now - this.lastArrivalNanos;
+         this.lastArrivalNanos = now;
+         this.pending.add(item);
+         if (this.pending.size() >= this.maxSize) {
+            ready = drain();
+         } else if (this.pending.size() == 1 && (this.windowNanos <= 0L || gap > this.windowNanos)) {
+            // Quiet traffic: the window shrinks to zero and the item goes out on its own.
+            ready = drain();
+         } else if (!this.flushScheduled) {
+            this.flushScheduled = true;
+            schedule = true;
+         }
+      }
+      if (ready != null) {
+         flush(ready);
+      } else if (schedule) {
+         this.scheduler.schedule(this::flushScheduled, this.windowNanos, TimeUnit.NANOSECONDS);
+      }
+   }
+
+   public int getPendingCount() {
+      synchronized (this.lock) {
+         return this.pending.size();
+      }
+   }
+
+   public long getFlushedBatches() {
+      return this.flushedBatches.get();
+   }
+
+   public long getFlushedItems() {
+      return this.flushedItems.get();
+   }
+
+   public void shutdown() {
+      this.scheduler.shutdownNow();
+      List<T> ready;
+      synchronized (this.lock) {
+         ready = drain();
+      }
+      if (!ready.isEmpty()) {
+         flush(ready);
+      }
+   }
+
+   private void flushScheduled() {
+      List<T> ready;
+      synchronized (this.lock) {
+         ready = drain();
+      }
+      if (!ready.isEmpty()) {
+         flush(ready);
+      }
+   }
+
+   private List<T> drain() {
+      List<T> ready = this.pending;
+      this.pending = new ArrayList<>();
+      this.flushScheduled = false;
+      return ready;
+   }
+
+   private void flush(List<T> ready) {
+      this.flushedBatches.incrementAndGet();
+      this.flushedItems.addAndGet(ready.size());
+      this.flushHandler.accept(ready);
+   }
+}
@@ -0,0 +1,136 @@
+package com.jogandobem;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.jogandobem.TranslationModels.TranslationTarget;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wire format of a batched OpenAI request: several chat lines in one prompt, one answer row per line.
+ *
+ * <p>Message {@code i} is sent with id {@code "i"} and its answer is matched back by that id, so the
+ * model may reorder rows. A row that is missing or malformed decodes to {@code null}, and the caller
+ * resends that line on its own.
+ */
+final class OpenAiBatchFormat {
+   static final JsonObject SCHEMA = buildSchema();
+   private static final Gson PROMPT_GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+   private OpenAiBatchFormat() {
+   }
+
+   /**
+    * One chat line in a batch.
+    */
+   interface Message {
+      /**
+       * Masked text sent to the model.
+       */
+      String getTemplate();
+
+      /**
+       * One target per language, in slot order.
+       */
+      List<TranslationTarget> getTargets();
+
+      /**
+       * Lower-cased representative player name to language, for legacy answers keyed by player.
+       */
+      Map<String, String> getRepresentativeToLanguage();
+   }
+
+   static String buildPrompt(List<? extends Message> messages) {
+      JsonArray entries = new JsonArray();
+      for (int i = 0; i < messages.size(); i++) {
+         Message message = messages.get(i);
+         JsonObject entry = new JsonObject();
+         entry.addProperty("id", Integer.toString(i));
+         entry.addProperty("texto_original", message.getTemplate());
+         JsonArray languages = new JsonArray();
+         for (TranslationTarget target : message.getTargets()) {
+            languages.add(TranslationResponses.normalizeLanguage(target.idioma));
+         }
+         entry.add("idiomas", languages);
+         entries.add(entry);
+      }
+      return "Mensagens: " + PROMPT_GSON.toJson(entries);
+   }
+
+   /**
+    * Strict decoding of the model text; {@code null} when it does not follow the schema at all.
+    */
+   static List<Map<String, String>> decodeStrict(String outputText, List<? extends Message> messages) {
+      int[] slotCounts = new int[messages.size()];
+      for (int i = 0; i < slotCounts.length; i++) {
+         slotCounts[i] = messages.get(i).getTargets().size();
+      }
+      String[][] rows = OpenAiResponseDecoder.decodeBatch(outputText, slotCounts);
+      if (rows == null) {
+         return null;
+      }
+      List<Map<String, String>> byMessage = new ArrayList<>(rows.length);
+      for (int i = 0; i < rows.length; i++) {
+         byMessage.add(rows[i] == null ? null : OpenAiTranslationService.slotsToLanguages(rows[i], messages.get(i).getTargets()));
+      }
+      return byMessage;
+   }
+
+   /**
+    * Decoding of an object found by the lenient search; {@code batchObject} passed
+    * {@link OpenAiLenientDecoder#validateBatchOutput}.
+    */
+   static List<Map<String, String>> decodeLenient(JsonObject batchObject, List<? extends Message> messages) {
+      Map<String, JsonObject> byId = new HashMap<>();
+      for (JsonElement element : batchObject.getAsJsonArray("mensagens")) {
+         JsonObject row = element.getAsJsonObject();
+         String id = OpenAiLenientDecoder.getAsString(row, "id");
+         byId.putIfAbsent(id == null ? "" : id, row);
+      }
+      List<Map<String, String>> byMessage = new ArrayList<>(messages.size());
+      for (int i = 0; i < messages.size(); i++) {
+         JsonObject row = byId.get(Integer.toString(i));
+         Message message = messages.get(i);
+         byMessage.add(row == null || !OpenAiLenientDecoder.validateTranslationOutput(row)
+               ? null
+               : OpenAiLenientDecoder.extractTranslationsByLanguage(row, message.getTargets(), message.getRepresentativeToLanguage()));
+      }
+      return byMessage;
+   }
+
+   private static JsonObject buildSchema() {
+      JsonObject message = new JsonObject();
+      message.addProperty("type", "object");
+      JsonObject messageProperties = new JsonObject();
+      JsonObject id = new JsonObject();
+      id.addProperty("type", "string");
+      messageProperties.add("id", id);
+      messageProperties.add("traducao", OpenAiTranslationService.buildTranslationArraySchema());
+      message.add("properties", messageProperties);
+      JsonArray requiredMessage = new JsonArray();
+      requiredMessage.add("id");
+      requiredMessage.add("traducao");
+      message.add("required", requiredMessage);
+      message.addProperty("additionalProperties", false);
+
+      JsonObject mensagens = new JsonObject();
+      mensagens.addProperty("type", "array");
+      mensagens.add("items", message);
+
+      JsonObject schema = new JsonObject();
+      schema.addProperty("type", "object");
+      JsonObject properties = new JsonObject();
+      properties.add("mensagens", mensagens);
+      schema.add("properties", properties);
+      JsonArray requiredRoot = new JsonArray();
+      requiredRoot.add("mensagens");
+      schema.add("required", requiredRoot);
+      schema.addProperty("additionalProperties", false);
+      return schema;
+   }
+}
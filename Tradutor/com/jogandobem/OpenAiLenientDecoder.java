@@ -0,0 +1,371 @@
+package com.jogandobem;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.jogandobem.TranslationModels.TranslationTarget;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Tree-walking fallback for OpenAI answers that {@link OpenAiResponseDecoder} rejects.
+ *
+ * <p>Accepts JSON wrapped in prose, the legacy {@code {"jogador", "texto_traduzido"}} slot objects and
+ * the alternative array keys older prompts produced. It is slower than the strict decoder and only
+ * runs after the strict decode failed.
+ */
+final class OpenAiLenientDecoder {
+   private OpenAiLenientDecoder() {
+   }
+
+   /**
+    * Finds the first object accepted by {@code matcher}, looking first inside the model's output text
+    * and then anywhere in the response body. Returns {@code null} when nothing matches.
+    */
+   static JsonObject parseResponseToObject(String body, Predicate<JsonObject> matcher) {
+      if (body == null || body.isBlank()) {
+         return null;
+      }
+      try {
+         JsonElement rootElement = JsonParser.parseString(body);
+         String outputText = extractOutputText(rootElement);
+         if (outputText != null && !outputText.isBlank()) {
+            JsonObject parsedOutput = parseJsonObjectSafe(outputText);
+            if (parsedOutput != null) {
+               JsonObject foundInOutput = findMatchingObject(parsedOutput, matcher, 0);
+               if (foundInOutput != null) {
+                  return foundInOutput;
+               }
+            }
+         }
+         JsonObject bySearch = findMatchingObject(rootElement, matcher, 0);
+         if (bySearch != null) {
+            return bySearch;
+         }
+         return null;
+      } catch (JsonParseException e) {
+         return null;
+      }
+   }
+
+   static JsonObject findMatchingObject(JsonElement element, Predicate<JsonObject> matcher, int depth) {
+      if (element == null || element.isJsonNull() || depth > 10) {
+         return null;
+      }
+      if (element.isJsonObject()) {
+         JsonObject obj = element.getAsJsonObject();
+         if (matcher.test(obj)) {
+            return obj;
+         }
+         for (Map.Entry<String, JsonElement> entry : obj.entrySet()) {
+            JsonObject found = findMatchingObject(entry.getValue(), matcher, depth + 1);
+            if (found != null) {
+               return found;
+            }
+         }
+         return null;
+      }
+      if (element.isJsonArray()) {
+         JsonArray arr = element.getAsJsonArray();
+         for (JsonElement item : arr) {
+            JsonObject found = findMatchingObject(item, matcher, depth + 1);
+            if (found != null) {
+               return found;
+            }
+         }
+      }
+      return null;
+   }
+
+   static boolean hasTranslationArrayKey(JsonObject data) {
+      if (data == null) {
+         return false;
+      }
+      JsonElement a = data.get("traducao");
+      if (a != null && a.isJsonArray()) {
+         return true;
+      }
+      JsonElement b = data.get("tradução");
+      if (b != null && b.isJsonArray()) {
+         return true;
+      }
+      JsonElement c = data.get("translations");
+      if (c != null && c.isJsonArray()) {
+         return true;
+      }
+      JsonElement d = data.get("translation");
+      return d != null && d.isJsonArray();
+   }
+
+   static boolean hasBatchArrayKey(JsonObject data) {
+      if (data == null) {
+         return false;
+      }
+      JsonElement messages = data.get("mensagens");
+      return messages != null && messages.isJsonArray();
+   }
+
+   private static String extractOutputText(JsonElement root) {
+      if (root == null || !root.isJsonObject()) {
+         return null;
+      }
+      JsonObject obj = root.getAsJsonObject();
+      if (obj.has("output_text") && obj.get("output_text").isJsonPrimitive()) {
+         return obj.get("output_text").getAsString();
+      }
+
+      StringBuilder out = new StringBuilder();
+      JsonElement output = obj.get("output");
+      if (output != null && output.isJsonArray()) {
+         for (JsonElement item : output.getAsJsonArray()) {
+            if (!item.isJsonObject()) {
+               continue;
+            }
+            JsonObject msg = item.getAsJsonObject();
+            JsonElement content = msg.get("content");
+            if (content == null || !content.isJsonArray()) {
+               continue;
+            }
+            for (JsonElement chunk : content.getAsJsonArray()) {
+               String text = readTextChunk(chunk);
+               if (text == null || text.isBlank()) {
+                  continue;
+               }
+               if (out.length() > 0) {
+                  out.append('\n');
+               }
+               out.append(text);
+            }
+         }
+      }
+
+      if (out.length() > 0) {
+         return out.toString();
+      }
+      return null;
+   }
+
+   private static String readTextChunk(JsonElement chunk) {
+      if (chunk == null || !chunk.isJsonObject()) {
+         return null;
+      }
+      JsonObject obj = chunk.getAsJsonObject();
+      if (obj.has("text") && obj.get("text").isJsonPrimitive()) {
+         return obj.get("text").getAsString();
+      }
+      if (obj.has("output_text") && obj.get("output_text").isJsonPrimitive()) {
+         return obj.get("output_text").getAsString();
+      }
+      if (obj.has("value") && obj.get("value").isJsonPrimitive()) {
+         return obj.get("value").getAsString();
+      }
+      JsonElement textObj = obj.get("text");
+      if (textObj != null && textObj.isJsonObject()) {
+         JsonObject nested = textObj.getAsJsonObject();
+         if (nested.has("value") && nested.get("value").isJsonPrimitive()) {
+            return nested.get("value").getAsString();
+         }
+      }
+      return null;
+   }
+
+   static JsonObject parseJsonObjectSafe(String text) {
+      if (text == null || text.isBlank()) {
+         return null;
+      }
+      try {
+         JsonElement parsed = JsonParser.parseString(text);
+         if (parsed.isJsonObject()) {
+            return parsed.getAsJsonObject();
+         }
+      } catch (Exception ignored) {
+      }
+      int start = text.indexOf('{');
+      int end = text.lastIndexOf('}');
+      if (start >= 0 && end > start) {
+         String slice = text.substring(start, end + 1);
+         try {
+            JsonElement parsed = JsonParser.parseString(slice);
+            if (parsed.isJsonObject()) {
+               return parsed.getAsJsonObject();
+            }
+         } catch (Exception ignored) {
+         }
+      }
+      return null;
+   }
+
+   private static JsonArray getTranslationItems(JsonObject data) {
+      if (data == null) {
+         return null;
+      }
+      JsonElement items = null;
+      if (data.has("traducao")) {
+         items = data.get("traducao");
+      } else if (data.has("tradução")) {
+         items = data.get("tradução");
+      } else if (data.has("translations")) {
+         items = data.get("translations");
+      } else if (data.has("translation")) {
+         items = data.get("translation");
+      }
+      if (items == null || !items.isJsonArray()) {
+         return null;
+      }
+      return items.getAsJsonArray();
+   }
+
+   static String getPlayerName(JsonObject item) {
+      String name = getAsString(item, "jogador");
+      if (name == null || name.isBlank()) {
+         name = getAsString(item, "player");
+      }
+      if (name == null || name.isBlank()) {
+         name = getAsString(item, "name");
+      }
+      return name;
+   }
+
+   private static boolean isStringSlot(JsonElement item) {
+      return item != null && item.isJsonPrimitive() && item.getAsJsonPrimitive().isString();
+   }
+
+   /**
+    * Text of one output slot: a plain string in the compact protocol, or a legacy
+    * {@code {"jogador", "texto_traduzido"}} object.
+    */
+   static String readSlotText(JsonElement item) {
+      if (isStringSlot(item)) {
+         return item.getAsString();
+      }
+      if (item != null && item.isJsonObject()) {
+         return getTranslatedText(item.getAsJsonObject());
+      }
+      return null;
+   }
+
+   private static String getTranslatedText(JsonObject item) {
+      String text = getAsString(item, "texto_traduzido");
+      if (text == null) {
+         text = getAsString(item, "textoTraduzido");
+      }
+      if (text == null) {
+         text = getAsString(item, "translated_text");
+      }
+      if (text == null) {
+         text = getAsString(item, "text");
+      }
+      return text;
+   }
+
+   static boolean validateTranslationOutput(JsonObject data) {
+      if (data == null) {
+         return false;
+      }
+      JsonArray items = getTranslationItems(data);
+      if (items == null) {
+         return false;
+      }
+      for (JsonElement item : items) {
+         if (readSlotText(item) == null) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   static boolean validateBatchOutput(JsonObject data) {
+      if (!hasBatchArrayKey(data)) {
+         return false;
+      }
+      for (JsonElement message : data.getAsJsonArray("mensagens")) {
+         if (!message.isJsonObject()) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   static Map<String, String> extractTranslationsByLanguage(
+         JsonObject data,
+         List<TranslationTarget> dedupedTargets,
+         Map<String, String> representativeToLanguage
+   ) {
+      Map<String, String> byLanguage = new HashMap<>();
+      List<String> textsInOrder = new ArrayList<>();
+
+      JsonArray items = getTranslationItems(data);
+      if (items != null) {
+         for (JsonElement item : items) {
+            if (isStringSlot(item)) {
+               textsInOrder.add(item.getAsString());
+               continue;
+            }
+            if (!item.isJsonObject()) {
+               continue;
+            }
+            JsonObject obj = item.getAsJsonObject();
+            String targetName = safe(getPlayerName(obj));
+            String translated = getTranslatedText(obj);
+            if (translated == null) {
+               continue;
+            }
+            textsInOrder.add(translated);
+            if (!targetName.isBlank()) {
+               String language = representativeToLanguage.get(targetName.toLowerCase(Locale.ROOT));
+               if (language != null && !language.isBlank()) {
+                  byLanguage.put(language, translated);
+               }
+            }
+         }
+      }
+
+      // If the model changed target names, map by index against deduped list.
+      if (!textsInOrder.isEmpty() && dedupedTargets != null && !dedupedTargets.isEmpty()) {
+         int max = Math.min(textsInOrder.size(), dedupedTargets.size());
+         for (int i = 0; i < max; i++) {
+            TranslationTarget deduped = dedupedTargets.get(i);
+            if (deduped == null) {
+               continue;
+            }
+            String langKey = normalizeLanguage(deduped.idioma);
+            if (langKey.isBlank()) {
+               continue;
+            }
+            byLanguage.putIfAbsent(langKey, textsInOrder.get(i));
+         }
+      }
+      return byLanguage;
+   }
+
+   static String getAsString(JsonObject obj, String key) {
+      if (obj == null || key == null) {
+         return null;
+      }
+      JsonElement value = obj.get(key);
+      if (value == null || value.isJsonNull() || !value.isJsonPrimitive()) {
+         return null;
+      }
+      return value.getAsString();
+   }
+
+   private static String normalizeLanguage(String language) {
+      if (language == null) {
+         return "";
+      }
+      return language.trim().toLowerCase(Locale.ROOT);
+   }
+
+   private static String safe(String value) {
+      if (value == null) {
+         return "";
+      }
+      return value;
+   }
+}
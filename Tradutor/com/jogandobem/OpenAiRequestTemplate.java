@@ -0,0 +1,136 @@
+package com.jogandobem;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Pre-encoded Responses API request body.
+ *
+ * <p>Everything that does not change between messages (model, instructions, schema, cache key) is
+ * serialized to UTF-8 once. A request only encodes its own {@code input} string and is published as
+ * {@code prefix + input + suffix} without copying the shared parts. Keeping the instructions ahead of
+ * the variable input also gives the provider a stable prefix for prompt caching.
+ */
+public final class OpenAiRequestTemplate {
+   private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+   private static final byte[] SUFFIX = "}".getBytes(StandardCharsets.UTF_8);
+   private static final byte[] STREAM_SUFFIX = ",\"stream\":true}".getBytes(StandardCharsets.UTF_8);
+   private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+   private final String model;
+   private final byte[] prefix;
+
+   public OpenAiRequestTemplate(
+         String model,
+         String instructions,
+         String promptCacheKey,
+         String schemaName,
+         String schemaDescription,
+         JsonObject schema
+   ) {
+      JsonObject root = new JsonObject();
+      root.addProperty("model", model);
+      root.addProperty("instructions", instructions);
+      root.addProperty("prompt_cache_key", promptCacheKey);
+
+      JsonObject text = new JsonObject();
+      JsonObject format = new JsonObject();
+      format.addProperty("type", "json_schema");
+      format.addProperty("name", schemaName);
+      format.addProperty("description", schemaDescription);
+      format.add("schema", schema);
+      format.addProperty("strict", true);
+      text.add("format", format);
+      root.add("text", text);
+
+      String head = GSON.toJson(root);
+      this.model = model;
+      this.prefix = (head.substring(0, head.length() - 1) + ",\"input\":").getBytes(StandardCharsets.UTF_8);
+   }
+
+   public String getModel() {
+      return this.model;
+   }
+
+   public HttpRequest.BodyPublisher publisher(String input, boolean stream) {
+      return HttpRequest.BodyPublishers.ofByteArrays(List.of(this.prefix, encodeJsonString(input), stream ? STREAM_SUFFIX : SUFFIX));
+   }
+
+   /**
+    * Encodes {@code value} as a quoted JSON string straight to UTF-8, sizing the array up front.
+    */
+   static byte[] encodeJsonString(String value) {
+      String text = value == null ? "" : value;
+      int length = 2;
+      for (int i = 0; i < text.length(); i++) {
+         char c = text.charAt(i);
+         if (c == '"' || c == '\\' || c == '\n' || c == '\r' || c == '\t') {
+            length += 2;
+         } else if (c < 0x20) {
+            length += 6;
+         } else if (c < 0x80) {
+            length += 1;
+         } else if (c < 0x800) {
+            length += 2;
+         } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+            length += 4;
+            i++;
+         } else if (Character.isSurrogate(c)) {
+            length += 1;
+         } else {
+            length += 3;
+         }
+      }
+
+      byte[] out = new byte[length];
+      int pos = 0;
+      out[pos++] = '"';
+      for (int i = 0; i < text.length(); i++) {
+         char c = text.charAt(i);
+         if (c == '"' || c == '\\') {
+            out[pos++] = '\\';
+            out[pos++] = (byte) c;
+         } else if (c == '\n') {
+            out[pos++] = '\\';
+            out[pos++] = 'n';
+         } else if (c == '\r') {
+            out[pos++] = '\\';
+            out[pos++] = 'r';
+         } else if (c == '\t') {
+            out[pos++] = '\\';
+            out[pos++] = 't';
+         } else if (c < 0x20) {
+            out[pos++] = '\\';
+            out[pos++] = 'u';
+            out[pos++] = '0';
+            out[pos++] = '0';
+            out[pos++] = HEX[c >> 4];
+            out[pos++] = HEX[c & 0xF];
+         } else if (c < 0x80) {
+            out[pos++] = (byte) c;
+         } else if (c < 0x800) {
+            out[pos++] = (byte) (0xC0 | (c >> 6));
+            out[pos++] = (byte) (0x80 | (c & 0x3F));
+         } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+            int codePoint = Character.toCodePoint(c, text.charAt(++i));
+            out[pos++] = (byte) (0xF0 | (codePoint >> 18));
+            out[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            out[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            out[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+         } else if (Character.isSurrogate(c)) {
+            // Unpaired surrogate: not encodable, same replacement the JDK encoder uses.
+            out[pos++] = '?';
+         } else {
+            out[pos++] = (byte) (0xE0 | (c >> 12));
+            out[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            out[pos++] = (byte) (0x80 | (c & 0x3F));
+         }
+      }
+      out[pos] = '"';
+      return out;
+   }
+}
@@ -0,0 +1,224 @@
+package com.jogandobem;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single-pass decoder for Responses API bodies that follow the strict translation schema.
+ *
+ * <p>Reads the body with a {@link JsonReader}, skipping everything except {@code output_text} and
+ * {@code output[].content[].text}, then decodes the schema payload straight into preallocated slots.
+ * No tree is built. Every method returns {@code null} when the input does not have the exact expected
+ * shape, so the caller can fall back to the lenient search.
+ */
+public final class OpenAiResponseDecoder {
+   private OpenAiResponseDecoder() {
+   }
+
+   /**
+    * Text the model produced, with multiple content chunks joined by a newline.
+    */
+   public static String readOutputText(String body) {
+      if (body == null || body.isEmpty()) {
+         return null;
+      }
+      try (JsonReader reader = new JsonReader(new StringReader(body))) {
+         if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            return null;
+         }
+         String direct = null;
+         StringBuilder chunks = new StringBuilder();
+         reader.beginObject();
+         while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("output_text".equals(name) && reader.peek() == JsonToken.STRING) {
+               direct = reader.nextString();
+            } else if ("output".equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+               readOutputItems(reader, chunks);
+            } else {
+               reader.skipValue();
+            }
+         }
+         reader.endObject();
+         if (direct != null && !direct.isBlank()) {
+            return direct;
+         }
+         return chunks.length() > 0 ? chunks.toString() : null;
+      } catch (IOException | IllegalStateException e) {
+         return null;
+      }
+   }
+
+   /**
+    * Decodes {@code {"traducao":["...", ...]}} into exactly {@code slots} non-blank strings.
+    */
+   public static String[] decodeSlots(String outputText, int slots) {
+      if (outputText == null || slots <= 0) {
+         return null;
+      }
+      try (JsonReader reader = new JsonReader(new StringReader(outputText))) {
+         String[] result = null;
+         reader.beginObject();
+         while (reader.hasNext()) {
+            if ("traducao".equals(reader.nextName()) && result == null) {
+               result = new String[slots];
+               if (readSlots(reader, result) != slots) {
+                  return null;
+               }
+            } else {
+               reader.skipValue();
+            }
+         }
+         reader.endObject();
+         return reader.peek() == JsonToken.END_DOCUMENT ? result : null;
+      } catch (IOException | IllegalStateException e) {
+         return null;
+      }
+   }
+
+   /**
+    * Decodes {@code {"mensagens":[{"id":"0","traducao":[...]}, ...]}} into one row per message, where
+    * {@code slotCounts[i]} is the number of languages requested for message {@code i}. Rows the model
+    * left out, or answered with the wrong number of slots, stay {@code null}.
+    */
+   public static String[][] decodeBatch(String outputText, int[] slotCounts) {
+      if (outputText == null || slotCounts == null) {
+         return null;
+      }
+      try (JsonReader reader = new JsonReader(new StringReader(outputText))) {
+         String[][] rows = null;
+         reader.beginObject();
+         while (reader.hasNext()) {
+            if ("mensagens".equals(reader.nextName()) && rows == null) {
+               rows = new String[slotCounts.length][];
+               reader.beginArray();
+               while (reader.hasNext()) {
+                  readBatchMessage(reader, slotCounts, rows);
+               }
+               reader.endArray();
+            } else {
+               reader.skipValue();
+            }
+         }
+         reader.endObject();
+         return reader.peek() == JsonToken.END_DOCUMENT ? rows : null;
+      } catch (IOException | IllegalStateException e) {
+         return null;
+      }
+   }
+
+   private static void readOutputItems(JsonReader reader, StringBuilder chunks) throws IOException {
+      reader.beginArray();
+      while (reader.hasNext()) {
+         if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            continue;
+         }
+         reader.beginObject();
+         while (reader.hasNext()) {
+            if ("content".equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+               readContentChunks(reader, chunks);
+            } else {
+               reader.skipValue();
+            }
+         }
+         reader.endObject();
+      }
+      reader.endArray();
+   }
+
+   private static void readContentChunks(JsonReader reader, StringBuilder chunks) throws IOException {
+      reader.beginArray();
+      while (reader.hasNext()) {
+         if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            continue;
+         }
+         reader.beginObject();
+         while (reader.hasNext()) {
+            if ("text".equals(reader.nextName()) && reader.peek() == JsonToken.STRING) {
+               String text = reader.nextString();
+               if (!text.isBlank()) {
+                  if (chunks.length() > 0) {
+                     chunks.append('\n');
+                  }
+                  chunks.append(text);
+               }
+            } else {
+               reader.skipValue();
+            }
+         }
+         reader.endObject();
+      }
+      reader.endArray();
+   }
+
+   private static void readBatchMessage(JsonReader reader, int[] slotCounts, String[][] rows) throws IOException {
+      String id = null;
+      List<String> texts = null;
+      boolean valid = true;
+      reader.beginObject();
+      while (reader.hasNext()) {
+         String name = reader.nextName();
+         if ("id".equals(name)) {
+            if (reader.peek() == JsonToken.STRING || reader.peek() == JsonToken.NUMBER) {
+               id = reader.nextString();
+            } else {
+               reader.skipValue();
+            }
+         } else if ("traducao".equals(name)) {
+            texts = new ArrayList<>();
+            reader.beginArray();
+            while (reader.hasNext()) {
+               if (reader.peek() != JsonToken.STRING) {
+                  valid = false;
+                  reader.skipValue();
+                  continue;
+               }
+               String text = reader.nextString();
+               valid &= !text.isBlank();
+               texts.add(text);
+            }
+            reader.endArray();
+         } else {
+            reader.skipValue();
+         }
+      }
+      reader.endObject();
+      if (!valid || id == null || texts == null) {
+         return;
+      }
+      // A bad id costs only its own row; the other messages in the batch still decode.
+      int index;
+      try {
+         index = Integer.parseInt(id.trim());
+      } catch (NumberFormatException e) {
+         return;
+      }
+      if (index < 0 || index >= rows.length || rows[index] != null || texts.size() != slotCounts[index]) {
+         return;
+      }
+      rows[index] = texts.toArray(new String[0]);
+   }
+
+   private static int readSlots(JsonReader reader, String[] slots) throws IOException {
+      int count = 0;
+      reader.beginArray();
+      while (reader.hasNext()) {
+         if (count >= slots.length || reader.peek() != JsonToken.STRING) {
+            return -1;
+         }
+         String text = reader.nextString();
+         if (text.isBlank()) {
+            return -1;
+         }
+         slots[count++] = text;
+      }
+      reader.endArray();
+      return count;
+   }
+}
@@ -5,8 +5,6 @@ import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParseException;
-import com.google.gson.JsonParser;
 import com.hypixel.hytale.logger.HytaleLogger;
 import com.hypixel.hytale.logger.HytaleLogger.Api;
 import java.net.URI;
@@ -17,41 +15,224 @@ import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import com.jogandobem.SocketModels.ChatPayload;
 import com.jogandobem.TranslationModels.TranslationResponse;
 import com.jogandobem.TranslationModels.TranslationResult;
 import com.jogandobem.TranslationModels.TranslationTarget;
 
-public final class OpenAiTranslationService {
+public final class OpenAiTranslationService implements TranslationBackend {
    private static final String OPENAI_ENDPOINT = "https://api.openai.com/v1/responses";
+   // Lets a local stand-in (API/openai_stub.py) replace OpenAI without touching the config file.
+   private static final String ENDPOINT_OVERRIDE = System.getenv("OPENAI_ENDPOINT");
    private static final String DEFAULT_MODEL = "gpt-5-nano";
    private static final int MAX_HTTP_LOG_BODY = 1000;
+   private static final int MAX_ATTEMPTS = 2;
+   private static final JsonObject TRANSLATION_SCHEMA = buildSchema();
+   // Static guidance lives in "instructions" so every request shares the same cacheable prefix.
+   private static final String PLACEHOLDER_INSTRUCTIONS =
+         "Marcadores como {0} e {1} representam nomes, numeros, links ou emojis: copie cada um exatamente como esta, sem traduzir nem remover.\n\n";
+   private static final String TRANSLATION_INSTRUCTIONS =
+         "Voce e um tradutor de chat que traduz o chat de um servidor de Hytale. " +
+               "Traduza a mensagem recebida para cada idioma da lista Idiomas.\n\n" +
+               "Realize a traducao da melhor forma possivel adaptando girias e expressoes unicas para uma compativel para o idioma destino quando necessario.\n\n" +
+               PLACEHOLDER_INSTRUCTIONS +
+               "Responda somente com JSON valido no formato:\n" +
+               "{\"traducao\":[\"texto no 1o idioma\",\"texto no 2o idioma\"]}\n" +
+               "com exatamente uma traducao por idioma, na mesma ordem da lista Idiomas.";
+   private static final String BATCH_INSTRUCTIONS =
+         "Voce e um tradutor de chat que traduz o chat de um servidor de Hytale. " +
+               "Traduza cada mensagem da lista recebida para cada idioma da lista idiomas da propria mensagem.\n\n" +
+               "Realize a traducao da melhor forma possivel adaptando girias e expressoes unicas para uma compativel para o idioma destino quando necessario.\n\n" +
+               PLACEHOLDER_INSTRUCTIONS +
+               "Responda somente com JSON valido no formato, com uma entrada por mensagem usando o mesmo id:\n" +
+               "{\"mensagens\":[{\"id\":\"0\",\"traducao\":[\"texto no 1o idioma\",\"texto no 2o idioma\"]}]}\n" +
+               "com exatamente uma traducao por idioma, na mesma ordem da lista idiomas da mensagem.";
 
    private final TranslationConfig config;
    private final HytaleLogger logger;
    private final Gson gson = new GsonBuilder().disableHtmlEscaping().create();
    private final HttpClient httpClient;
-   private final ExecutorService executor;
+   private final ConcurrencyLimiter limiter;
+   private final CircuitBreaker breaker;
+   private final ConcurrentHashMap<String, OpenAiRequestTemplate> templates = new ConcurrentHashMap<>();
+   private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+   private final RateLimitScheduler rateLimits;
+   private final RequestHedger hedger;
+   private volatile TranslationSocketClient relay;
+   private volatile ChatThrottle chatThrottle;
+   private final TranslationCache cache;
+   private final MicroBatcher<BatchItem> batcher;
+   // One future per cache key being translated right now; identical requests wait on it instead.
+   private final ConcurrentHashMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+   private final AtomicLong coalescedLanguages = new AtomicLong();
 
-   public OpenAiTranslationService(TranslationConfig config, HytaleLogger logger) {
+   public OpenAiTranslationService(TranslationConfig config, HytaleLogger logger, TranslationCache cache) {
       this.config = config;
       this.logger = logger;
+      this.cache = cache;
       this.httpClient = HttpClient.newBuilder()
             .connectTimeout(Duration.ofSeconds(10))
             .build();
-      this.executor = Executors.newFixedThreadPool(2);
+      this.limiter = new ConcurrencyLimiter(config.openAiMaxConcurrency, config.translationMaxQueue);
+      this.breaker = new CircuitBreaker(
+            "openai",
+            logger,
+            config.circuitFailureRatePercent,
+            config.circuitSlowCallMs,
+            config.circuitOpenSeconds * 1000L,
+            config.circuitMinimumCalls
+      );
+      this.rateLimits = new RateLimitScheduler(this.scheduler);
+      this.hedger = new RequestHedger(config, this.scheduler);
+      this.batcher = new MicroBatcher<>(config.openAiBatchWindowMs, config.openAiBatchMaxSize, this::flushBatch);
    }
 
    public CompletableFuture<TranslationResponse> translateAsync(ChatPayload payload) {
-      return CompletableFuture.supplyAsync(() -> translateInternal(payload), this.executor);
+      return translateAsync(payload, null);
+   }
+
+   /**
+    * Translates a chat payload. When {@code partialListener} is given, languages that are already
+    * known (cache hits, sender language) and, in streaming mode, each language finished by the model
+    * are handed to it early; the returned response then only carries the remaining recipients.
+    */
+   public CompletableFuture<TranslationResponse> translateAsync(ChatPayload payload, Consumer<TranslationResponse> partialListener) {
+      return translate(payload, partialListener, false);
+   }
+
+   @Override
+   public String getName() {
+      return "openai";
+   }
+
+   @Override
+   public boolean isAvailable() {
+      return this.config.hasOpenAiApiKey() && !this.breaker.isOpen();
+   }
+
+   /**
+    * Same as {@link #translateAsync(ChatPayload, Consumer)}, but completes with {@code null} instead of
+    * the original text when OpenAI could not translate, so the router can fail over.
+    */
+   @Override
+   public CompletableFuture<TranslationResponse> translate(ChatPayload payload, Consumer<TranslationResponse> partialListener) {
+      return translate(payload, partialListener, true);
+   }
+
+   private CompletableFuture<TranslationResponse> translate(ChatPayload payload, Consumer<TranslationResponse> partialListener, boolean nullWhenUntranslated) {
+      PreparedTranslation prepared;
+      try {
+         prepared = prepare(payload, partialListener);
+      } catch (RuntimeException e) {
+         return CompletableFuture.failedFuture(e);
+      }
+      if (prepared.isComplete()) {
+         ChatMetrics.CACHE_COMPLETE.increment();
+         return CompletableFuture.completedFuture(prepared.buildResponse());
+      }
+      if (!this.config.hasOpenAiApiKey()) {
+         ((Api) this.logger.atWarning()).log("ChatTranslation OpenAI key not configured. Using fallback.");
+         ChatMetrics.OPENAI_FALLBACK.increment();
+         return CompletableFuture.completedFuture(nullWhenUntranslated ? null : prepared.buildResponse());
+      }
+      if (this.breaker.isOpen()) {
+         // Endpoint is failing: answer with cache hits and original text right away.
+         ChatMetrics.OPENAI_FALLBACK.increment();
+         return CompletableFuture.completedFuture(nullWhenUntranslated ? null : prepared.buildResponse());
+      }
+
+      Map<String, CompletableFuture<String>> joined = new HashMap<>();
+      Map<String, CompletableFuture<String>> led = new HashMap<>();
+      List<TranslationTarget> claimed = claimFlights(prepared, joined, led);
+      if (!claimed.isEmpty() && this.limiter.isSaturated()) {
+         releaseFlights(prepared, led, Map.of());
+         ChatMetrics.OPENAI_FALLBACK.increment();
+         return CompletableFuture.failedFuture(new TranslationOverloadedException(
+               "OpenAI in_flight=" + this.limiter.getInFlight() + " queued=" + this.limiter.getQueueDepth()
+         ));
+      }
+      ChatThrottle throttle = this.chatThrottle;
+      boolean throttled = !claimed.isEmpty() && throttle != null && !throttle.admit(payload, this.config);
+      if (throttled) {
+         // Over the sender's rate or a repeat: cache hits and joined requests only, original text for the rest.
+         releaseFlights(prepared, led, Map.of());
+      }
+      List<TranslationTarget> leading = throttled ? List.of() : claimed;
+
+      ((Api) this.logger.atInfo()).log(
+            "ChatTranslation OpenAI request model=" + prepared.model
+                  + " targets=" + prepared.originalTargets.size()
+                  + " dedupe=" + prepared.dedupe.targets.size()
+                  + " cached=" + prepared.byLanguage.size()
+                  + " coalesced=" + joined.size()
+                  + " idioma_original=" + prepared.originalLanguage
+      );
+      if (prepared.partialListener != null) {
+         Map<String, String> known = new HashMap<>(prepared.byLanguage);
+         known.put(normalizeLanguage(prepared.originalLanguage), prepared.originalText);
+         deliverPartial(prepared, known);
+      }
+      CompletableFuture<Map<String, String>> future;
+      if (leading.isEmpty()) {
+         future = CompletableFuture.completedFuture(Map.of());
+      } else {
+         PreparedTranslation leader = leading.size() == prepared.pendingTargets.size() ? prepared : prepared.forTargets(leading);
+         ChatMetrics.TRACER.mark(prepared.traceIds, MessageTracer.Stage.ENQUEUED);
+         if (shouldSplit(leader)) {
+            future = executeSplit(leader);
+         } else {
+            BatchItem item = new BatchItem(leader);
+            this.batcher.submit(item);
+            future = item.future;
+         }
+         future = future.whenComplete((translated, error) -> {
+            releaseFlights(prepared, led, error == null && translated != null ? translated : Map.of());
+            boolean translatedAny = error == null && translated != null && !translated.isEmpty();
+            (translatedAny ? ChatMetrics.OPENAI_SUCCESS : ChatMetrics.OPENAI_FALLBACK).increment();
+         });
+      }
+      CompletableFuture<TranslationResponse> result = withJoinedFlights(future, joined).thenApply(translated -> {
+         Map<String, String> filled = fillPlaceholders(prepared, translated);
+         if (nullWhenUntranslated && filled.isEmpty() && !throttled) {
+            return null;
+         }
+         prepared.byLanguage.putAll(filled);
+         return prepared.buildResponse();
+      });
+      // The router cancels a line it stopped waiting for: stop the HTTP calls made for it as well.
+      result.whenComplete((ignored, error) -> {
+         if (error instanceof CancellationException) {
+            prepared.calls.cancel();
+         }
+      });
+      return result;
+   }
+
+   /**
+    * Languages answered by joining an identical request that was already in flight.
+    */
+   public long getCoalescedLanguages() {
+      return this.coalescedLanguages.get();
    }
 
    public TranslationResponse buildFallbackResponse(ChatPayload payload) {
@@ -59,124 +240,782 @@ public final class OpenAiTranslationService {
          return emptyResponse("", "");
       }
       return normalizeResponse(
-            null,
-            sanitizeTargets(payload.jogadoresOnline),
+            Map.of(),
             sanitizeTargets(payload.jogadoresOnline),
             safe(payload.textoOriginal),
             safe(payload.idiomaOriginal),
-            Map.of(),
             safe(payload.jogador),
             safe(payload.jogadorUuid)
       );
    }
 
+   public int getInFlightRequests() {
+      return this.limiter.getInFlight();
+   }
+
+   public int getBatchPending() {
+      return this.batcher.getPendingCount();
+   }
+
+   public int getQueuedRequests() {
+      return this.limiter.getQueueDepth();
+   }
+
+   public int getConcurrencyLimit() {
+      return this.limiter.getLimit();
+   }
+
+   public long getRejectedRequests() {
+      return this.limiter.getRejected();
+   }
+
+   public String getCircuitState() {
+      return this.breaker.getState().name();
+   }
+
+   public long getCircuitOpenedCount() {
+      return this.breaker.getOpenedCount();
+   }
+
+   /**
+    * Relay used as the racing backend when {@code openai_race_relay} is enabled.
+    */
+   public void setRelay(TranslationSocketClient relay) {
+      this.relay = relay;
+   }
+
+   /**
+    * Applies the concurrency, circuit breaker and batching settings of a reloaded config.
+    */
+   public void applyConfig() {
+      this.limiter.configure(this.config.openAiMaxConcurrency, this.config.translationMaxQueue);
+      this.breaker.configure(
+            this.config.circuitFailureRatePercent,
+            this.config.circuitSlowCallMs,
+            this.config.circuitOpenSeconds * 1000L,
+            this.config.circuitMinimumCalls
+      );
+      this.batcher.configure(this.config.openAiBatchWindowMs, this.config.openAiBatchMaxSize);
+   }
+
+   /**
+    * Per-player limits checked before a line is sent to OpenAI.
+    */
+   public void setChatThrottle(ChatThrottle chatThrottle) {
+      this.chatThrottle = chatThrottle;
+   }
+
+   public long getRateLimitedResponses() {
+      return this.rateLimits.getThrottled();
+   }
+
+   public long getPacedRequests() {
+      return this.rateLimits.getPaced();
+   }
+
+   public long getHedgesSent() {
+      return this.hedger.getPolicy().getHedgesSent();
+   }
+
+   public long getHedgeWins() {
+      return this.hedger.getPolicy().getHedgeWins();
+   }
+
    public void shutdown() {
-      this.executor.shutdown();
-      try {
-         if (!this.executor.awaitTermination(3, TimeUnit.SECONDS)) {
-            this.executor.shutdownNow();
-         }
-      } catch (InterruptedException e) {
-         Thread.currentThread().interrupt();
-         this.executor.shutdownNow();
+      this.scheduler.shutdownNow();
+      this.batcher.shutdown();
+      this.limiter.shutdown();
+   }
+
+   private PreparedTranslation prepare(ChatPayload payload, Consumer<TranslationResponse> partialListener) {
+      String sender = payload == null ? "" : safe(payload.jogador);
+      String senderUuid = payload == null ? "" : safe(payload.jogadorUuid);
+      List<TranslationTarget> originalTargets = payload == null ? List.of() : sanitizeTargets(payload.jogadoresOnline);
+      String originalText = payload == null ? "" : safe(payload.textoOriginal);
+      String originalLanguage = payload == null ? "" : safe(payload.idiomaOriginal);
+      List<String> playerNames = new ArrayList<>(originalTargets.size() + 1);
+      playerNames.add(sender);
+      for (TranslationTarget target : originalTargets) {
+         playerNames.add(target.jogador);
       }
+      PlaceholderMasker.Masked masked = PlaceholderMasker.mask(originalText, playerNames);
+      DedupeResult dedupe = dedupeTargetsByLanguage(originalTargets);
+      String model = resolveModel();
+      Map<String, String> byLanguage = new HashMap<>();
+      List<TranslationTarget> pendingTargets = resolveCachedTargets(masked, originalLanguage, model, dedupe.targets, byLanguage);
+      List<String> traceIds = payload == null || payload.messageId == null ? List.of() : List.of(payload.messageId);
+      return new PreparedTranslation(originalTargets, dedupe, pendingTargets, byLanguage, originalText, masked, originalLanguage, sender, senderUuid, model, partialListener, ConcurrentHashMap.newKeySet(), traceIds, new CallGroup());
    }
 
-   private TranslationResponse translateInternal(ChatPayload payload) {
-      if (payload == null) {
-         return emptyResponse("", "");
+   /**
+    * Output grows with languages x text length, and so does latency. Past the configured estimate
+    * the pending languages are spread over several smaller requests that run side by side.
+    */
+   private boolean shouldSplit(PreparedTranslation prepared) {
+      int perRequest = Math.max(1, this.config.openAiSplitLanguagesPerRequest);
+      if (prepared.pendingTargets.size() <= perRequest) {
+         return false;
       }
+      long estimate = (long) prepared.pendingTargets.size() * prepared.masked.getTemplate().length();
+      return estimate > this.config.openAiSplitThresholdChars;
+   }
 
-      List<TranslationTarget> originalTargets = sanitizeTargets(payload.jogadoresOnline);
-      if (originalTargets.isEmpty()) {
-         return emptyResponse(safe(payload.jogador), safe(payload.jogadorUuid));
+   private CompletableFuture<Map<String, String>> executeSplit(PreparedTranslation prepared) {
+      int perRequest = Math.max(1, this.config.openAiSplitLanguagesPerRequest);
+      List<BatchItem> chunks = new ArrayList<>();
+      for (int i = 0; i < prepared.pendingTargets.size(); i += perRequest) {
+         List<TranslationTarget> chunk = prepared.pendingTargets.subList(i, Math.min(prepared.pendingTargets.size(), i + perRequest));
+         chunks.add(new BatchItem(prepared.forTargets(new ArrayList<>(chunk))));
       }
+      ChatMetrics.OPENAI_SPLIT.increment();
+      ChatMetrics.OPENAI_SPLIT_REQUESTS.add(chunks.size());
+      ((Api) this.logger.atInfo()).log(
+            "ChatTranslation OpenAI split languages=" + prepared.pendingTargets.size()
+                  + " estimate=" + ((long) prepared.pendingTargets.size() * prepared.masked.getTemplate().length())
+                  + " requests=" + chunks.size()
+      );
 
-      String originalText = safe(payload.textoOriginal);
-      String originalLanguage = safe(payload.idiomaOriginal);
-      String sender = safe(payload.jogador);
-      String senderUuid = safe(payload.jogadorUuid);
+      CompletableFuture<?>[] futures = new CompletableFuture<?>[chunks.size()];
+      for (int i = 0; i < chunks.size(); i++) {
+         BatchItem chunk = chunks.get(i);
+         futures[i] = chunk.future;
+         flushBatch(List.of(chunk));
+      }
+      return CompletableFuture.allOf(futures).thenApply(ignored -> {
+         Map<String, String> merged = new HashMap<>();
+         for (BatchItem chunk : chunks) {
+            merged.putAll(chunk.future.join());
+         }
+         return merged;
+      });
+   }
 
-      DedupeResult dedupe = dedupeTargetsByLanguage(originalTargets);
-      if (dedupe.targets.isEmpty()) {
-         return emptyResponse(sender, senderUuid);
+   private void flushBatch(List<BatchItem> items) {
+      List<BatchItem> live = new ArrayList<>(items.size());
+      for (BatchItem item : items) {
+         if (item.prepared.calls.isCancelled()) {
+            item.future.complete(Map.of());
+         } else {
+            live.add(item);
+         }
+      }
+      if (live.size() == 1) {
+         executeSingle(live.get(0));
+      } else if (!live.isEmpty()) {
+         executeBatch(live);
       }
+   }
 
-      if (!this.config.hasOpenAiApiKey()) {
-         ((Api) this.logger.atWarning()).log("ChatTranslation OpenAI key not configured. Using fallback.");
-         return normalizeResponse(null, originalTargets, dedupe.targets, originalText, originalLanguage, dedupe.representativeToLanguage, sender, senderUuid);
+   private void executeSingle(BatchItem item) {
+      PreparedTranslation prepared = item.prepared;
+      if (prepared.calls.isCancelled()) {
+         item.future.complete(Map.of());
+         return;
+      }
+      long start = System.currentTimeMillis();
+      boolean streaming = this.config.openAiStreaming && prepared.partialListener != null;
+      // Own group for this call so a winning hedge can cancel it without cancelling the line.
+      CallGroup calls = new CallGroup();
+      prepared.calls.onCancel(calls::cancel);
+      CompletableFuture<Map<String, String>> request;
+      if (streaming) {
+         request = requestTranslations(prepared, true, calls, 1);
+      } else {
+         request = requestTranslations(prepared, false, calls, 1);
+         if (this.config.openAiHedging) {
+            request = this.hedger.hedge(request, calls, prepared.calls, start,
+                  (hedgeCalls, delayMs) -> requestHedge(prepared, hedgeCalls, delayMs));
+         }
       }
+      request.whenComplete((translated, error) -> {
+         if (error != null) {
+            ((Api) this.logger.atWarning().withCause(error)).log("ChatTranslation OpenAI request failed. Using fallback.");
+            item.future.complete(Map.of());
+            return;
+         }
+         if (!translated.isEmpty()) {
+            ((Api) this.logger.atInfo()).log(
+                  "ChatTranslation OpenAI ok in " + (System.currentTimeMillis() - start)
+                        + "ms translated=" + translated.size()
+            );
+         }
+         item.future.complete(translated);
+      });
+   }
 
-      String model = resolveModel();
-      String prompt = buildPrompt(originalText, dedupe.targets);
+   /**
+    * Runs one translation request (with retries from {@code firstAttempt}) and maps the answer by
+    * language. Completes with an empty map when nothing usable came back.
+    */
+   private CompletableFuture<Map<String, String>> requestTranslations(PreparedTranslation prepared, boolean streaming, CallGroup calls, int firstAttempt) {
+      CompletableFuture<Map<String, String>> request;
+      try {
+         String prompt = buildPrompt(prepared.masked.getTemplate(), prepared.pendingTargets);
+         if (streaming) {
+            request = requestStreamingTranslation(prepared, prompt, calls, firstAttempt);
+         } else {
+            request = requestStructuredOutput(new OutputRequest<>(
+                  template(prepared.model, false),
+                  prompt,
+                  text -> decodeStrict(text, prepared.pendingTargets),
+                  OpenAiLenientDecoder::hasTranslationArrayKey,
+                  OpenAiLenientDecoder::validateTranslationOutput,
+                  parsed -> OpenAiLenientDecoder.extractTranslationsByLanguage(parsed, prepared.pendingTargets, prepared.dedupe.representativeToLanguage),
+                  calls,
+                  prepared.traceIds
+            ), firstAttempt);
+         }
+      } catch (Exception e) {
+         ((Api) this.logger.atWarning().withCause(e)).log("ChatTranslation OpenAI request failed. Using fallback.");
+         return CompletableFuture.completedFuture(Map.of());
+      }
+      return request.handle((byLanguage, error) -> {
+         if (calls != null && calls.isCancelled()) {
+            return Map.<String, String>of();
+         }
+         if (error != null) {
+            ((Api) this.logger.atWarning().withCause(error)).log("ChatTranslation OpenAI request failed. Using fallback.");
+            return Map.<String, String>of();
+         }
+         if (byLanguage == null) {
+            ((Api) this.logger.atWarning()).log("ChatTranslation OpenAI exhausted retries. Using fallback.");
+            return Map.<String, String>of();
+         }
+         return byLanguage;
+      });
+   }
+
+   /**
+    * Second request for a line the hedger found slow: the WebSocket relay when racing is enabled and
+    * the relay is up, otherwise a duplicate OpenAI call.
+    */
+   private CompletableFuture<Map<String, String>> requestHedge(PreparedTranslation prepared, CallGroup calls, long delayMs) {
+      TranslationSocketClient relay = this.relay;
+      boolean useRelay = this.config.openAiRaceRelay && relay != null && relay.isAvailable();
       ((Api) this.logger.atInfo()).log(
-            "ChatTranslation OpenAI request model=" + model
-                  + " targets=" + originalTargets.size()
-                  + " dedupe=" + dedupe.targets.size()
-                  + " idioma_original=" + originalLanguage
+            "ChatTranslation OpenAI hedging after " + delayMs + "ms via " + (useRelay ? "relay" : "openai")
       );
+      return useRelay
+            ? requestFromRelay(relay, prepared, calls)
+            : requestTranslations(prepared, false, calls, MAX_ATTEMPTS);
+   }
 
-      for (int attempt = 1; attempt <= 2; attempt++) {
-         long start = System.currentTimeMillis();
-         try {
-            JsonObject requestBody = buildRequestBody(model, prompt);
-            HttpRequest request = HttpRequest.newBuilder()
-                  .uri(URI.create(OPENAI_ENDPOINT))
-                  .timeout(Duration.ofMillis(Math.max(1000, this.config.apiTimeoutMs)))
-                  .header("Content-Type", "application/json")
-                  .header("Authorization", "Bearer " + this.config.openAiApiKey.trim())
-                  .POST(HttpRequest.BodyPublishers.ofString(this.gson.toJson(requestBody), StandardCharsets.UTF_8))
-                  .build();
-
-            HttpResponse<String> response = this.httpClient.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
-            int status = response.statusCode();
-            String body = response.body();
-            if (status < 200 || status >= 300) {
-               ((Api) this.logger.atWarning()).log(
-                     "ChatTranslation OpenAI status " + status + " attempt=" + attempt
-                           + " body=" + truncate(body, MAX_HTTP_LOG_BODY)
-               );
+   private CompletableFuture<Map<String, String>> requestFromRelay(TranslationSocketClient relay, PreparedTranslation prepared, CallGroup calls) {
+      ChatPayload payload = new ChatPayload();
+      payload.type = "chat";
+      payload.serverId = this.config.serverId;
+      payload.messageId = "race:" + UUID.randomUUID();
+      // The relay does its own translation and knows nothing about placeholders: send the line as typed
+      // and turn the answers back into templates so they are filled and cached like the model's.
+      payload.textoOriginal = prepared.originalText;
+      payload.idiomaOriginal = prepared.originalLanguage;
+      payload.jogador = prepared.sender;
+      payload.jogadorUuid = prepared.senderUuid;
+      payload.jogadoresOnline = prepared.pendingTargets;
+      CompletableFuture<TranslationResponse> call = relay.requestAsync(payload);
+      calls.add(call);
+      return call.thenApply(response -> {
+         Map<String, String> byLanguage = new HashMap<>();
+         if (response == null || response.traducao == null) {
+            return byLanguage;
+         }
+         for (TranslationResult item : response.traducao) {
+            if (item == null || item.jogador == null || item.textoTraduzido == null || item.textoTraduzido.isBlank()) {
                continue;
             }
-
-            JsonObject translationObject = parseResponseToTranslationObject(body);
-            if (translationObject == null) {
-               ((Api) this.logger.atWarning()).log(
-                     "ChatTranslation OpenAI parse returned null attempt=" + attempt
-                           + " body=" + truncate(body, MAX_HTTP_LOG_BODY)
-               );
+            // An echo of the line means the relay could not translate it: leave the language untranslated
+            // rather than caching the original text as the model's answer.
+            if (TranslationCache.sameText(prepared.originalText, item.textoTraduzido)) {
                continue;
             }
-            if (!validateTranslationOutput(translationObject)) {
-               ((Api) this.logger.atWarning()).log(
-                     "ChatTranslation OpenAI invalid output attempt=" + attempt
-                           + " parsed=" + truncate(this.gson.toJson(translationObject), MAX_HTTP_LOG_BODY)
-               );
+            String language = prepared.dedupe.representativeToLanguage.get(item.jogador.trim().toLowerCase(Locale.ROOT));
+            if (language == null) {
                continue;
             }
+            String template = prepared.masked.unfill(item.textoTraduzido);
+            if (template == null) {
+               ChatMetrics.MASK_REFILL_FAILED.increment();
+               continue;
+            }
+            byLanguage.put(language, template);
+         }
+         return byLanguage;
+      });
+   }
 
-            TranslationResponse normalized = normalizeResponse(
-                  translationObject,
-                  originalTargets,
-                  dedupe.targets,
-                  originalText,
-                  originalLanguage,
-                  dedupe.representativeToLanguage,
-                  sender,
-                  senderUuid
-            );
-            ((Api) this.logger.atInfo()).log(
-                  "ChatTranslation OpenAI ok in " + (System.currentTimeMillis() - start)
-                        + "ms translated=" + normalized.traducao.size()
+   private static List<String> batchTraceIds(List<BatchItem> items) {
+      List<String> ids = new ArrayList<>(items.size());
+      for (BatchItem item : items) {
+         ids.addAll(item.prepared.traceIds);
+      }
+      return ids;
+   }
+
+   private void executeBatch(List<BatchItem> items) {
+      String model = items.get(0).prepared.model;
+      long start = System.currentTimeMillis();
+      CallGroup calls = new CallGroup();
+      AtomicInteger waiting = new AtomicInteger(items.size());
+      List<PreparedTranslation> messages = new ArrayList<>(items.size());
+      for (BatchItem item : items) {
+         messages.add(item.prepared);
+         // One call answers every line in the batch: stop it only once all of them gave up.
+         item.prepared.calls.onCancel(() -> {
+            if (waiting.decrementAndGet() == 0) {
+               calls.cancel();
+            }
+         });
+      }
+      CompletableFuture<List<Map<String, String>>> request;
+      try {
+         request = requestStructuredOutput(new OutputRequest<>(
+               template(model, true),
+               OpenAiBatchFormat.buildPrompt(messages),
+               text -> OpenAiBatchFormat.decodeStrict(text, messages),
+               OpenAiLenientDecoder::hasBatchArrayKey,
+               OpenAiLenientDecoder::validateBatchOutput,
+               batchObject -> OpenAiBatchFormat.decodeLenient(batchObject, messages),
+               calls,
+               batchTraceIds(items)
+         ), 1);
+      } catch (Exception e) {
+         ((Api) this.logger.atWarning().withCause(e)).log("ChatTranslation OpenAI batch failed. Using fallback.");
+         for (BatchItem item : items) {
+            item.future.complete(Map.of());
+         }
+         return;
+      }
+      request.whenComplete((byMessage, error) -> {
+         if (error != null) {
+            ((Api) this.logger.atWarning().withCause(error)).log("ChatTranslation OpenAI batch failed. Using fallback.");
+            for (BatchItem item : items) {
+               item.future.complete(Map.of());
+            }
+            return;
+         }
+         int resolved = 0;
+         for (int i = 0; i < items.size(); i++) {
+            BatchItem item = items.get(i);
+            Map<String, String> byLanguage = byMessage == null ? null : byMessage.get(i);
+            if (byLanguage == null) {
+               // Anything the batch did not answer goes out on its own.
+               executeSingle(item);
+               continue;
+            }
+            item.future.complete(byLanguage);
+            resolved++;
+         }
+         ((Api) this.logger.atInfo()).log(
+               "ChatTranslation OpenAI batch ok in " + (System.currentTimeMillis() - start)
+                     + "ms messages=" + items.size() + " resolved=" + resolved
+         );
+      });
+   }
+
+   /**
+    * Strict decoding of a single-message answer: slot {@code i} is the language of target {@code i}.
+    */
+   static Map<String, String> decodeStrict(String outputText, List<TranslationTarget> dedupedTargets) {
+      String[] slots = OpenAiResponseDecoder.decodeSlots(outputText, dedupedTargets.size());
+      return slots == null ? null : slotsToLanguages(slots, dedupedTargets);
+   }
+
+   static Map<String, String> slotsToLanguages(String[] slots, List<TranslationTarget> dedupedTargets) {
+      Map<String, String> byLanguage = new HashMap<>(slots.length * 2);
+      for (int i = 0; i < slots.length; i++) {
+         String language = normalizeLanguage(dedupedTargets.get(i).idioma);
+         if (!language.isBlank()) {
+            byLanguage.put(language, slots[i]);
+         }
+      }
+      return byLanguage;
+   }
+
+   private CompletableFuture<Map<String, String>> requestStreamingTranslation(PreparedTranslation prepared, String prompt, CallGroup calls, int attempt) {
+      HttpRequest request = HttpRequest.newBuilder()
+            .uri(endpoint())
+            .timeout(Duration.ofMillis(this.config.getRequestTimeoutMs()))
+            .header("Content-Type", "application/json")
+            .header("Accept", "text/event-stream")
+            .header("Authorization", "Bearer " + this.config.openAiApiKey.trim())
+            .POST(template(prepared.model, false).publisher(prompt, true))
+            .build();
+      AtomicInteger elementIndex = new AtomicInteger();
+      StreamEventSubscriber events = new StreamEventSubscriber(new StreamingTranslationParser(
+            element -> onStreamedElement(prepared, element, elementIndex.getAndIncrement())
+      ));
+      HttpResponse.BodyHandler<StreamEventSubscriber> handler = info -> {
+         if (info.statusCode() < 200 || info.statusCode() >= 300) {
+            return HttpResponse.BodySubscribers.mapping(
+                  HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8),
+                  body -> events.fail("status " + info.statusCode() + " body=" + truncate(body, MAX_HTTP_LOG_BODY))
             );
-            return normalized;
-         } catch (Exception e) {
-            ((Api) this.logger.atWarning().withCause(e)).log("ChatTranslation OpenAI failed attempt=" + attempt);
          }
+         return HttpResponse.BodySubscribers.fromLineSubscriber(events, subscriber -> subscriber, StandardCharsets.UTF_8, null);
+      };
+
+      return send(request, handler, calls, prompt, prepared.traceIds)
+            .handle((response, error) -> {
+               if (calls.isCancelled()) {
+                  return null;
+               }
+               if (error != null) {
+                  rethrowIfOverloaded(error);
+                  ((Api) this.logger.atWarning().withCause(error)).log("ChatTranslation OpenAI stream failed attempt=" + attempt);
+                  return null;
+               }
+               if (events.failure != null) {
+                  ((Api) this.logger.atWarning()).log(
+                        "ChatTranslation OpenAI stream error attempt=" + attempt + " " + events.failure
+                  );
+                  return null;
+               }
+               String text = events.parser.getText();
+               Map<String, String> decoded = decodeStrict(text, prepared.pendingTargets);
+               if (decoded != null) {
+                  return decoded;
+               }
+               JsonObject parsed = null;
+               JsonObject streamed = OpenAiLenientDecoder.parseJsonObjectSafe(text);
+               if (streamed != null) {
+                  parsed = OpenAiLenientDecoder.findMatchingObject(streamed, OpenAiLenientDecoder::hasTranslationArrayKey, 0);
+               }
+               if (parsed == null && events.completed != null) {
+                  parsed = OpenAiLenientDecoder.parseResponseToObject(this.gson.toJson(events.completed), OpenAiLenientDecoder::hasTranslationArrayKey);
+               }
+               if (parsed == null || !OpenAiLenientDecoder.validateTranslationOutput(parsed)) {
+                  ((Api) this.logger.atWarning()).log(
+                        "ChatTranslation OpenAI stream invalid output attempt=" + attempt
+                              + " text=" + truncate(text, MAX_HTTP_LOG_BODY)
+                  );
+                  return null;
+               }
+               return OpenAiLenientDecoder.extractTranslationsByLanguage(parsed, prepared.pendingTargets, prepared.dedupe.representativeToLanguage);
+            })
+            .thenCompose(decoded -> {
+               if (decoded != null) {
+                  ChatMetrics.TRACER.mark(prepared.traceIds, MessageTracer.Stage.PARSED);
+               }
+               if (decoded != null || attempt >= MAX_ATTEMPTS || this.breaker.isOpen() || calls.isCancelled()) {
+                  return CompletableFuture.completedFuture(decoded);
+               }
+               return requestStreamingTranslation(prepared, prompt, calls, attempt + 1);
+            });
+   }
+
+   private void onStreamedElement(PreparedTranslation prepared, JsonElement element, int index) {
+      // A streamed slot with a broken placeholder is left for the final response to report.
+      String translated = prepared.masked.fill(OpenAiLenientDecoder.readSlotText(element));
+      if (translated == null || translated.isBlank()) {
+         return;
+      }
+      String targetName = element.isJsonObject() ? safe(OpenAiLenientDecoder.getPlayerName(element.getAsJsonObject())) : "";
+      String language = null;
+      if (!targetName.isBlank()) {
+         language = prepared.dedupe.representativeToLanguage.get(targetName.toLowerCase(Locale.ROOT));
       }
+      if (language == null && index < prepared.pendingTargets.size()) {
+         language = normalizeLanguage(prepared.pendingTargets.get(index).idioma);
+      }
+      if (language == null || language.isEmpty()) {
+         return;
+      }
+      Map<String, String> single = new HashMap<>();
+      single.put(language, translated);
+      deliverPartial(prepared, single);
+   }
 
-      ((Api) this.logger.atWarning()).log("ChatTranslation OpenAI exhausted retries. Using fallback.");
-      return normalizeResponse(null, originalTargets, dedupe.targets, originalText, originalLanguage, dedupe.representativeToLanguage, sender, senderUuid);
+   private void deliverPartial(PreparedTranslation prepared, Map<String, String> byLanguage) {
+      Map<String, String> fresh = new HashMap<>();
+      for (Map.Entry<String, String> entry : byLanguage.entrySet()) {
+         if (prepared.deliveredLanguages.add(entry.getKey())) {
+            fresh.put(entry.getKey(), entry.getValue());
+         }
+      }
+      if (fresh.isEmpty()) {
+         return;
+      }
+      TranslationResponse partial = TranslationResponses.fromLanguageMap(
+            fresh,
+            prepared.originalTargets,
+            prepared.originalText,
+            prepared.originalLanguage,
+            prepared.sender,
+            prepared.senderUuid,
+            fresh::containsKey
+      );
+      if (partial.traducao.isEmpty()) {
+         return;
+      }
+      try {
+         prepared.partialListener.accept(partial);
+      } catch (Exception e) {
+         ((Api) this.logger.atWarning().withCause(e)).log("ChatTranslation partial dispatch failed");
+      }
+   }
+
+
+   private URI endpoint() {
+      if (ENDPOINT_OVERRIDE != null && !ENDPOINT_OVERRIDE.isBlank()) {
+         return URI.create(ENDPOINT_OVERRIDE.trim());
+      }
+      String configured = this.config.openAiEndpoint;
+      return URI.create(configured == null || configured.isBlank() ? OPENAI_ENDPOINT : configured.trim());
+   }
+
+   private <T> CompletableFuture<T> requestStructuredOutput(OutputRequest<T> output, int attempt) {
+      HttpRequest request = HttpRequest.newBuilder()
+            .uri(endpoint())
+            .timeout(Duration.ofMillis(this.config.getRequestTimeoutMs()))
+            .header("Content-Type", "application/json")
+            .header("Authorization", "Bearer " + this.config.openAiApiKey.trim())
+            .POST(output.template.publisher(output.prompt, false))
+            .build();
+
+      return send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8), output.calls, output.prompt, output.traceIds)
+            .handle((response, error) -> {
+               if (output.calls != null && output.calls.isCancelled()) {
+                  return null;
+               }
+               if (error != null) {
+                  rethrowIfOverloaded(error);
+                  ((Api) this.logger.atWarning().withCause(error)).log("ChatTranslation OpenAI failed attempt=" + attempt);
+                  return null;
+               }
+               int status = response.statusCode();
+               String body = response.body();
+               if (status < 200 || status >= 300) {
+                  ((Api) this.logger.atWarning()).log(
+                        "ChatTranslation OpenAI status " + status + " attempt=" + attempt
+                              + " body=" + truncate(body, MAX_HTTP_LOG_BODY)
+                  );
+                  return null;
+               }
+
+               long parseStart = System.nanoTime();
+               T decoded = decodeOutput(output, body, attempt);
+               ChatMetrics.OPENAI_PARSE.recordSince(parseStart);
+               if (decoded != null) {
+                  ChatMetrics.TRACER.mark(output.traceIds, MessageTracer.Stage.PARSED);
+               }
+               return decoded;
+            })
+            .thenCompose(decoded -> {
+               if (decoded != null || attempt >= MAX_ATTEMPTS || this.breaker.isOpen()
+                     || (output.calls != null && output.calls.isCancelled())) {
+                  return CompletableFuture.completedFuture(decoded);
+               }
+               return requestStructuredOutput(output, attempt + 1);
+            });
+   }
+
+   private <T> T decodeOutput(OutputRequest<T> output, String body, int attempt) {
+      T decoded = output.strict.apply(OpenAiResponseDecoder.readOutputText(body));
+      if (decoded != null) {
+         return decoded;
+      }
+      JsonObject parsed = OpenAiLenientDecoder.parseResponseToObject(body, output.matcher);
+      if (parsed == null) {
+         ((Api) this.logger.atWarning()).log(
+               "ChatTranslation OpenAI parse returned null attempt=" + attempt
+                     + " body=" + truncate(body, MAX_HTTP_LOG_BODY)
+         );
+         return null;
+      }
+      if (!output.validator.test(parsed)) {
+         ((Api) this.logger.atWarning()).log(
+               "ChatTranslation OpenAI invalid output attempt=" + attempt
+                     + " parsed=" + truncate(this.gson.toJson(parsed), MAX_HTTP_LOG_BODY)
+         );
+         return null;
+      }
+      return output.lenient.apply(parsed);
+   }
+
+   /**
+    * Sends one HTTP call once the rate-limit scheduler allows it. A call that would have to wait
+    * longer than the API timeout is not worth sending for chat and fails fast instead.
+    */
+   private <T> CompletableFuture<HttpResponse<T>> send(
+         HttpRequest request, HttpResponse.BodyHandler<T> handler, CallGroup calls, String prompt, List<String> traceIds) {
+      long estimatedTokens = prompt.length() / 2L;
+      return this.rateLimits.pace(estimatedTokens, this.config.getRequestTimeoutMs(), calls, () -> sendNow(request, handler, calls, traceIds));
+   }
+
+   /**
+    * Sends one HTTP call through the circuit breaker and the concurrency limiter.
+    */
+   private <T> CompletableFuture<HttpResponse<T>> sendNow(
+         HttpRequest request, HttpResponse.BodyHandler<T> handler, CallGroup calls, List<String> traceIds) {
+      if (!this.breaker.tryAcquire()) {
+         return CompletableFuture.failedFuture(new TranslationOverloadedException("OpenAI circuit open"));
+      }
+      long[] startNanos = new long[1];
+      return this.limiter.submit(
+            () -> {
+               if (calls != null && calls.isCancelled()) {
+                  return CompletableFuture.failedFuture(new CancellationException("cancelled while queued"));
+               }
+               startNanos[0] = System.nanoTime();
+               ChatMetrics.TRACER.mark(traceIds, MessageTracer.Stage.SENT);
+               HttpResponse.BodyHandler<T> traced = info -> {
+                  ChatMetrics.TRACER.mark(traceIds, MessageTracer.Stage.FIRST_BYTE);
+                  return handler.apply(info);
+               };
+               CompletableFuture<HttpResponse<T>> call = this.httpClient.sendAsync(request, traced);
+               if (calls != null) {
+                  calls.add(call);
+               }
+               return call;
+            },
+            response -> isOverloadStatus(response.statusCode())
+      ).whenComplete((response, error) -> {
+         if (response != null) {
+            this.rateLimits.onResponse(response.statusCode(), response.headers());
+         }
+         if (startNanos[0] == 0L || (calls != null && calls.isCancelled())) {
+            this.breaker.onCancelled();
+            return;
+         }
+         long elapsedNanos = System.nanoTime() - startNanos[0];
+         ChatMetrics.BACKEND_OPENAI.recordNanos(elapsedNanos);
+         this.breaker.onResult(TimeUnit.NANOSECONDS.toMillis(elapsedNanos), error != null || isOverloadStatus(response.statusCode()));
+      });
+   }
+
+   private static boolean isOverloadStatus(int status) {
+      return status == 429 || status >= 500;
+   }
+
+   /**
+    * A full limiter is not worth retrying; let the failure reach the caller so it can fall back.
+    */
+   private static void rethrowIfOverloaded(Throwable error) {
+      Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+      if (cause instanceof TranslationOverloadedException) {
+         throw (TranslationOverloadedException) cause;
+      }
+   }
+
+   private List<TranslationTarget> resolveCachedTargets(
+         PlaceholderMasker.Masked masked,
+         String originalLanguage,
+         String model,
+         List<TranslationTarget> dedupedTargets,
+         Map<String, String> byLanguage
+   ) {
+      String baseLanguage = normalizeLanguage(originalLanguage);
+      List<TranslationTarget> pending = new ArrayList<>();
+      for (TranslationTarget target : dedupedTargets) {
+         String languageKey = normalizeLanguage(target.idioma);
+         if (Objects.equals(languageKey, baseLanguage)) {
+            continue;
+         }
+         String cached = this.cache == null ? null : masked.fill(this.cache.get(masked.getTemplate(), baseLanguage, languageKey, model));
+         if (cached != null) {
+            byLanguage.put(languageKey, cached);
+            continue;
+         }
+         pending.add(target);
+      }
+      return pending;
+   }
+
+   /**
+    * Splits the pending languages into those another identical request is already translating
+    * ({@code joined}) and those this request now leads ({@code led}). Returns the targets to request.
+    */
+   private List<TranslationTarget> claimFlights(
+         PreparedTranslation prepared,
+         Map<String, CompletableFuture<String>> joined,
+         Map<String, CompletableFuture<String>> led
+   ) {
+      List<TranslationTarget> leading = new ArrayList<>();
+      for (TranslationTarget target : prepared.pendingTargets) {
+         String languageKey = normalizeLanguage(target.idioma);
+         CompletableFuture<String> flight = new CompletableFuture<>();
+         CompletableFuture<String> existing = this.inFlight.putIfAbsent(flightKey(prepared, languageKey), flight);
+         if (existing != null) {
+            joined.put(languageKey, existing);
+            continue;
+         }
+         led.put(languageKey, flight);
+         leading.add(target);
+      }
+      if (!joined.isEmpty()) {
+         ChatMetrics.OPENAI_COALESCED.add(joined.size());
+         this.coalescedLanguages.addAndGet(joined.size());
+      }
+      return leading;
+   }
+
+   /**
+    * Hands this request's translations to everyone who joined it. Missing languages complete with
+    * {@code null}, so followers treat them as untranslated instead of waiting.
+    */
+   private void releaseFlights(PreparedTranslation prepared, Map<String, CompletableFuture<String>> led, Map<String, String> translated) {
+      for (Map.Entry<String, CompletableFuture<String>> entry : led.entrySet()) {
+         this.inFlight.remove(flightKey(prepared, entry.getKey()), entry.getValue());
+         entry.getValue().complete(translated.get(entry.getKey()));
+      }
+   }
+
+   private static CompletableFuture<Map<String, String>> withJoinedFlights(
+         CompletableFuture<Map<String, String>> own,
+         Map<String, CompletableFuture<String>> joined
+   ) {
+      if (joined.isEmpty()) {
+         return own;
+      }
+      CompletableFuture<Void> all = CompletableFuture.allOf(joined.values().toArray(new CompletableFuture<?>[0]));
+      return own.thenCombine(all, (translated, ignored) -> {
+         Map<String, String> merged = new HashMap<>(translated);
+         for (Map.Entry<String, CompletableFuture<String>> entry : joined.entrySet()) {
+            String text = entry.getValue().getNow(null);
+            if (text != null) {
+               merged.put(entry.getKey(), text);
+            }
+         }
+         return merged;
+      });
+   }
+
+   private static String flightKey(PreparedTranslation prepared, String languageKey) {
+      return TranslationCache.buildKey(prepared.masked.getTemplate(), normalizeLanguage(prepared.originalLanguage), languageKey, prepared.model);
+   }
+
+   /**
+    * Fills the placeholders back into each translated template and caches the templates that came
+    * back intact. A language whose translation lost or invented a placeholder stays untranslated.
+    */
+   private Map<String, String> fillPlaceholders(PreparedTranslation prepared, Map<String, String> translated) {
+      if (!prepared.masked.isMasked()) {
+         storeInCache(prepared.originalText, prepared.originalLanguage, prepared.model, translated);
+         return translated;
+      }
+      Map<String, String> filled = new HashMap<>();
+      Map<String, String> intact = new HashMap<>();
+      for (Map.Entry<String, String> entry : translated.entrySet()) {
+         String text = prepared.masked.fill(entry.getValue());
+         if (text == null) {
+            ChatMetrics.MASK_REFILL_FAILED.increment();
+            continue;
+         }
+         filled.put(entry.getKey(), text);
+         intact.put(entry.getKey(), entry.getValue());
+      }
+      storeInCache(prepared.masked.getTemplate(), prepared.originalLanguage, prepared.model, intact);
+      return filled;
+   }
+
+   private void storeInCache(String originalText, String originalLanguage, String model, Map<String, String> translated) {
+      if (this.cache == null || translated.isEmpty()) {
+         return;
+      }
+      String baseLanguage = normalizeLanguage(originalLanguage);
+      for (Map.Entry<String, String> entry : translated.entrySet()) {
+         this.cache.putFresh(originalText, baseLanguage, entry.getKey(), model, entry.getValue());
+      }
    }
 
    private String resolveModel() {
@@ -208,10 +1047,12 @@ public final class OpenAiTranslationService {
       return list;
    }
 
-   private static DedupeResult dedupeTargetsByLanguage(List<TranslationTarget> targets) {
+   static DedupeResult dedupeTargetsByLanguage(List<TranslationTarget> targets) {
       Map<String, String> representativeToLanguage = new HashMap<>();
       List<TranslationTarget> deduped = new ArrayList<>();
-      Map<String, Boolean> seenByLanguage = new HashMap<>();
+      // One counter per language; the array is shared with the representative so sorting needs no lookups.
+      Map<String, int[]> recipientsByLanguage = new HashMap<>();
+      Map<TranslationTarget, int[]> recipientsByRepresentative = new IdentityHashMap<>();
 
       for (TranslationTarget item : targets) {
          if (item == null || item.jogador == null) {
@@ -222,60 +1063,55 @@ public final class OpenAiTranslationService {
             continue;
          }
          String languageKey = normalizeLanguage(item.idioma);
-         if (seenByLanguage.putIfAbsent(languageKey, Boolean.TRUE) == null) {
+         int[] recipients = recipientsByLanguage.get(languageKey);
+         if (recipients == null) {
+            recipients = new int[1];
+            recipientsByLanguage.put(languageKey, recipients);
             TranslationTarget rep = new TranslationTarget();
             rep.jogador = name;
             rep.idioma = item.idioma == null ? "" : item.idioma.trim();
             deduped.add(rep);
+            recipientsByRepresentative.put(rep, recipients);
             representativeToLanguage.put(name.toLowerCase(Locale.ROOT), languageKey);
          }
+         recipients[0]++;
       }
 
+      // Languages with the most recipients go first so streamed output reaches most players sooner.
+      if (deduped.size() > 1) {
+         deduped.sort((a, b) -> Integer.compare(recipientsByRepresentative.get(b)[0], recipientsByRepresentative.get(a)[0]));
+      }
       return new DedupeResult(deduped, representativeToLanguage);
    }
 
-   private static String buildPrompt(String originalText, List<TranslationTarget> dedupedTargets) {
-      Gson jsonGson = new GsonBuilder().disableHtmlEscaping().setPrettyPrinting().create();
-      String playersJson = jsonGson.toJson(dedupedTargets);
-      return (
-            "Voce e um tradutor de chat que traduz o chat de um servidor de Hytale. " +
-                  "Traduza a mensagem recebida para os idiomas selecionados.\n\n" +
-                  "Realize a traducao da melhor forma possivel adaptando girias e expressoes unicas para uma compativel para o idioma destino quando necessario.\n\n" +
-                  "A lista de jogadores abaixo contem no maximo 1 jogador por idioma. Traduza para o idioma indicado em cada entrada.\n\n" +
-                  "O texto para jogadores falantes do mesmo idioma deve ser enviado EXATAMENTE igual ao original sem nenhuma alteracao.\n\n" +
-                  "Retorne SOMENTE um JSON valido no formato:\n" +
-                  "{\"traducao\":[{\"jogador\":\"Nome\",\"texto_traduzido\":\"Mensagem\"}]}\n\n" +
-                  "---\n\n" +
-                  "**Texto Original:**\n" +
-                  "\"" + escapeForPrompt(originalText) + "\"\n\n" +
-                  "**Jogadores Online:**\n" +
-                  playersJson
-      );
+   static String buildPrompt(String originalText, List<TranslationTarget> dedupedTargets) {
+      String text = escapeForPrompt(originalText);
+      StringBuilder prompt = new StringBuilder(32 + text.length() + dedupedTargets.size() * 10);
+      prompt.append("Texto original: \"").append(text).append("\"\nIdiomas: [");
+      for (int i = 0; i < dedupedTargets.size(); i++) {
+         if (i > 0) {
+            prompt.append(',');
+         }
+         prompt.append('"').append(escapeForPrompt(normalizeLanguage(dedupedTargets.get(i).idioma))).append('"');
+      }
+      return prompt.append(']').toString();
    }
 
    private static String escapeForPrompt(String value) {
       if (value == null) {
          return "";
       }
+      if (value.indexOf('\\') < 0 && value.indexOf('"') < 0) {
+         return value;
+      }
       return value.replace("\\", "\\\\").replace("\"", "\\\"");
    }
 
-   private JsonObject buildRequestBody(String model, String prompt) {
-      JsonObject root = new JsonObject();
-      root.addProperty("model", model);
-      root.addProperty("instructions", "Responda somente com JSON valido.");
-      root.addProperty("input", prompt);
-
-      JsonObject text = new JsonObject();
-      JsonObject format = new JsonObject();
-      format.addProperty("type", "json_schema");
-      format.addProperty("name", "chat_translation");
-      format.addProperty("description", "Lista de traducoes por jogador");
-      format.add("schema", buildSchema());
-      format.addProperty("strict", true);
-      text.add("format", format);
-      root.add("text", text);
-      return root;
+   private OpenAiRequestTemplate template(String model, boolean batch) {
+      String key = (batch ? "batch\u0000" : "single\u0000") + model;
+      return this.templates.computeIfAbsent(key, ignored -> batch
+            ? new OpenAiRequestTemplate(model, BATCH_INSTRUCTIONS, "tradutor-universal-batch", "chat_translation_batch", "Lista de traducoes por mensagem", OpenAiBatchFormat.SCHEMA)
+            : new OpenAiRequestTemplate(model, TRANSLATION_INSTRUCTIONS, "tradutor-universal-chat", "chat_translation", "Lista de traducoes por jogador", TRANSLATION_SCHEMA));
    }
 
    private static JsonObject buildSchema() {
@@ -283,29 +1119,7 @@ public final class OpenAiTranslationService {
       schema.addProperty("type", "object");
 
       JsonObject properties = new JsonObject();
-      JsonObject traducao = new JsonObject();
-      traducao.addProperty("type", "array");
-
-      JsonObject item = new JsonObject();
-      item.addProperty("type", "object");
-
-      JsonObject itemProperties = new JsonObject();
-      JsonObject jogador = new JsonObject();
-      jogador.addProperty("type", "string");
-      JsonObject textoTraduzido = new JsonObject();
-      textoTraduzido.addProperty("type", "string");
-      itemProperties.add("jogador", jogador);
-      itemProperties.add("texto_traduzido", textoTraduzido);
-      item.add("properties", itemProperties);
-
-      JsonArray requiredItem = new JsonArray();
-      requiredItem.add("jogador");
-      requiredItem.add("texto_traduzido");
-      item.add("required", requiredItem);
-      item.addProperty("additionalProperties", false);
-
-      traducao.add("items", item);
-      properties.add("traducao", traducao);
+      properties.add("traducao", buildTranslationArraySchema());
       schema.add("properties", properties);
 
       JsonArray requiredRoot = new JsonArray();
@@ -315,380 +1129,269 @@ public final class OpenAiTranslationService {
       return schema;
    }
 
-   private JsonObject parseResponseToTranslationObject(String body) {
-      if (body == null || body.isBlank()) {
-         return null;
-      }
-      try {
-         JsonElement rootElement = JsonParser.parseString(body);
-         String outputText = extractOutputText(rootElement);
-         if (outputText != null && !outputText.isBlank()) {
-            JsonObject parsedOutput = parseJsonObjectSafe(outputText);
-            if (parsedOutput != null) {
-               JsonObject foundInOutput = findTranslationObject(parsedOutput, 0);
-               if (foundInOutput != null) {
-                  return foundInOutput;
-               }
-            }
-         }
-         JsonObject bySearch = findTranslationObject(rootElement, 0);
-         if (bySearch != null) {
-            return bySearch;
-         }
-         return null;
-      } catch (JsonParseException e) {
-         ((Api) this.logger.atWarning().withCause(e)).log("ChatTranslation OpenAI response parse error");
-         return null;
-      }
+   static JsonObject buildTranslationArraySchema() {
+      // One string per language slot; the slot order is the order of the requested languages.
+      JsonObject traducao = new JsonObject();
+      traducao.addProperty("type", "array");
+      JsonObject item = new JsonObject();
+      item.addProperty("type", "string");
+      traducao.add("items", item);
+      return traducao;
    }
 
-   private static JsonObject findTranslationObject(JsonElement element, int depth) {
-      if (element == null || element.isJsonNull() || depth > 10) {
-         return null;
-      }
-      if (element.isJsonObject()) {
-         JsonObject obj = element.getAsJsonObject();
-         if (hasTranslationArrayKey(obj)) {
-            return obj;
-         }
-         for (Map.Entry<String, JsonElement> entry : obj.entrySet()) {
-            JsonObject found = findTranslationObject(entry.getValue(), depth + 1);
-            if (found != null) {
-               return found;
-            }
-         }
-         return null;
-      }
-      if (element.isJsonArray()) {
-         JsonArray arr = element.getAsJsonArray();
-         for (JsonElement item : arr) {
-            JsonObject found = findTranslationObject(item, depth + 1);
-            if (found != null) {
-               return found;
-            }
-         }
-      }
-      return null;
+   static TranslationResponse normalizeResponse(
+         Map<String, String> byLanguage,
+         List<TranslationTarget> jogadoresOnline,
+         String textoOriginal,
+         String idiomaOriginal,
+         String jogador,
+         String jogadorUuid
+   ) {
+      return TranslationResponses.fromLanguageMap(byLanguage, jogadoresOnline, textoOriginal, idiomaOriginal, jogador, jogadorUuid);
    }
 
-   private static boolean hasTranslationArrayKey(JsonObject data) {
-      if (data == null) {
-         return false;
-      }
-      JsonElement a = data.get("traducao");
-      if (a != null && a.isJsonArray()) {
-         return true;
-      }
-      JsonElement b = data.get("tradução");
-      if (b != null && b.isJsonArray()) {
-         return true;
-      }
-      JsonElement c = data.get("translations");
-      if (c != null && c.isJsonArray()) {
-         return true;
-      }
-      JsonElement d = data.get("translation");
-      return d != null && d.isJsonArray();
+   private static TranslationResponse emptyResponse(String jogador, String jogadorUuid) {
+      TranslationResponse response = new TranslationResponse();
+      response.jogador = jogador == null ? "" : jogador;
+      response.jogadorUuid = jogadorUuid == null ? "" : jogadorUuid;
+      response.traducao = List.of();
+      return response;
    }
 
-   private static String extractOutputText(JsonElement root) {
-      if (root == null || !root.isJsonObject()) {
-         return null;
-      }
-      JsonObject obj = root.getAsJsonObject();
-      if (obj.has("output_text") && obj.get("output_text").isJsonPrimitive()) {
-         return obj.get("output_text").getAsString();
-      }
-
-      StringBuilder out = new StringBuilder();
-      JsonElement output = obj.get("output");
-      if (output != null && output.isJsonArray()) {
-         for (JsonElement item : output.getAsJsonArray()) {
-            if (!item.isJsonObject()) {
-               continue;
-            }
-            JsonObject msg = item.getAsJsonObject();
-            JsonElement content = msg.get("content");
-            if (content == null || !content.isJsonArray()) {
-               continue;
-            }
-            for (JsonElement chunk : content.getAsJsonArray()) {
-               String text = readTextChunk(chunk);
-               if (text == null || text.isBlank()) {
-                  continue;
-               }
-               if (out.length() > 0) {
-                  out.append('\n');
-               }
-               out.append(text);
-            }
-         }
-      }
-
-      if (out.length() > 0) {
-         return out.toString();
+   private static String normalizeLanguage(String language) {
+      if (language == null) {
+         return "";
       }
-      return null;
+      return language.trim().toLowerCase(Locale.ROOT);
    }
 
-   private static String readTextChunk(JsonElement chunk) {
-      if (chunk == null || !chunk.isJsonObject()) {
-         return null;
-      }
-      JsonObject obj = chunk.getAsJsonObject();
-      if (obj.has("text") && obj.get("text").isJsonPrimitive()) {
-         return obj.get("text").getAsString();
-      }
-      if (obj.has("output_text") && obj.get("output_text").isJsonPrimitive()) {
-         return obj.get("output_text").getAsString();
-      }
-      if (obj.has("value") && obj.get("value").isJsonPrimitive()) {
-         return obj.get("value").getAsString();
-      }
-      JsonElement textObj = obj.get("text");
-      if (textObj != null && textObj.isJsonObject()) {
-         JsonObject nested = textObj.getAsJsonObject();
-         if (nested.has("value") && nested.get("value").isJsonPrimitive()) {
-            return nested.get("value").getAsString();
-         }
+   private static String safe(String value) {
+      if (value == null) {
+         return "";
       }
-      return null;
+      return value;
    }
 
-   private static JsonObject parseJsonObjectSafe(String text) {
-      if (text == null || text.isBlank()) {
-         return null;
+   private static String truncate(String value, int maxLen) {
+      if (value == null) {
+         return "";
       }
-      try {
-         JsonElement parsed = JsonParser.parseString(text);
-         if (parsed.isJsonObject()) {
-            return parsed.getAsJsonObject();
-         }
-      } catch (Exception ignored) {
-      }
-      int start = text.indexOf('{');
-      int end = text.lastIndexOf('}');
-      if (start >= 0 && end > start) {
-         String slice = text.substring(start, end + 1);
-         try {
-            JsonElement parsed = JsonParser.parseString(slice);
-            if (parsed.isJsonObject()) {
-               return parsed.getAsJsonObject();
-            }
-         } catch (Exception ignored) {
-         }
+      if (value.length() <= maxLen) {
+         return value;
       }
-      return null;
+      return value.substring(0, Math.max(0, maxLen)) + "...(truncated)";
    }
 
-   private static JsonArray getTranslationItems(JsonObject data) {
-      if (data == null) {
-         return null;
-      }
-      JsonElement items = null;
-      if (data.has("traducao")) {
-         items = data.get("traducao");
-      } else if (data.has("tradução")) {
-         items = data.get("tradução");
-      } else if (data.has("translations")) {
-         items = data.get("translations");
-      } else if (data.has("translation")) {
-         items = data.get("translation");
-      }
-      if (items == null || !items.isJsonArray()) {
-         return null;
-      }
-      return items.getAsJsonArray();
-   }
+   static final class DedupeResult {
+      final List<TranslationTarget> targets;
+      private final Map<String, String> representativeToLanguage;
 
-   private static String getPlayerName(JsonObject item) {
-      String name = getAsString(item, "jogador");
-      if (name == null || name.isBlank()) {
-         name = getAsString(item, "player");
-      }
-      if (name == null || name.isBlank()) {
-         name = getAsString(item, "name");
+      private DedupeResult(List<TranslationTarget> targets, Map<String, String> representativeToLanguage) {
+         this.targets = targets;
+         this.representativeToLanguage = representativeToLanguage;
       }
-      return name;
    }
 
-   private static String getTranslatedText(JsonObject item) {
-      String text = getAsString(item, "texto_traduzido");
-      if (text == null) {
-         text = getAsString(item, "textoTraduzido");
-      }
-      if (text == null) {
-         text = getAsString(item, "translated_text");
-      }
-      if (text == null) {
-         text = getAsString(item, "text");
+   private static final class PreparedTranslation implements OpenAiBatchFormat.Message {
+      private final List<TranslationTarget> originalTargets;
+      private final DedupeResult dedupe;
+      private final List<TranslationTarget> pendingTargets;
+      private final Map<String, String> byLanguage;
+      private final String originalText;
+      private final PlaceholderMasker.Masked masked;
+      private final String originalLanguage;
+      private final String sender;
+      private final String senderUuid;
+      private final String model;
+      private final Consumer<TranslationResponse> partialListener;
+      private final Set<String> deliveredLanguages;
+      private final List<String> traceIds;
+      // Everything sent for this chat line; cancelled when the caller stops waiting.
+      private final CallGroup calls;
+
+      private PreparedTranslation(
+            List<TranslationTarget> originalTargets,
+            DedupeResult dedupe,
+            List<TranslationTarget> pendingTargets,
+            Map<String, String> byLanguage,
+            String originalText,
+            PlaceholderMasker.Masked masked,
+            String originalLanguage,
+            String sender,
+            String senderUuid,
+            String model,
+            Consumer<TranslationResponse> partialListener,
+            Set<String> deliveredLanguages,
+            List<String> traceIds,
+            CallGroup calls
+      ) {
+         this.originalTargets = originalTargets;
+         this.dedupe = dedupe;
+         this.pendingTargets = pendingTargets;
+         this.byLanguage = byLanguage;
+         this.originalText = originalText;
+         this.masked = masked;
+         this.originalLanguage = originalLanguage;
+         this.sender = sender;
+         this.senderUuid = senderUuid;
+         this.model = model;
+         this.partialListener = partialListener;
+         this.deliveredLanguages = deliveredLanguages;
+         this.traceIds = traceIds;
+         this.calls = calls;
       }
-      return text;
-   }
 
-   private static boolean validateTranslationOutput(JsonObject data) {
-      if (data == null) {
-         return false;
+      private boolean isComplete() {
+         return this.pendingTargets.isEmpty();
       }
-      JsonArray items = getTranslationItems(data);
-      if (items == null) {
-         return false;
+
+      @Override
+      public String getTemplate() {
+         return this.masked.getTemplate();
       }
-      for (JsonElement item : items) {
-         if (!item.isJsonObject()) {
-            return false;
-         }
-         JsonObject obj = item.getAsJsonObject();
-         String texto = getTranslatedText(obj);
-         if (texto == null) {
-            return false;
-         }
+
+      @Override
+      public List<TranslationTarget> getTargets() {
+         return this.pendingTargets;
       }
-      return true;
-   }
 
-   private static TranslationResponse normalizeResponse(
-         JsonObject data,
-         List<TranslationTarget> jogadoresOnline,
-         List<TranslationTarget> dedupedTargets,
-         String textoOriginal,
-         String idiomaOriginal,
-         Map<String, String> representativeToLanguage,
-         String jogador,
-         String jogadorUuid
-   ) {
-      Map<String, String> byName = new HashMap<>();
-      Map<String, String> byLanguage = new HashMap<>();
-      List<String> textsInOrder = new ArrayList<>();
+      @Override
+      public Map<String, String> getRepresentativeToLanguage() {
+         return this.dedupe.representativeToLanguage;
+      }
 
-      JsonArray items = getTranslationItems(data);
-      if (items != null) {
-         for (JsonElement item : items) {
-            if (!item.isJsonObject()) {
-               continue;
-            }
-            JsonObject obj = item.getAsJsonObject();
-            String targetName = safe(getPlayerName(obj));
-            String translated = getTranslatedText(obj);
-            if (translated == null) {
-               continue;
-            }
-            textsInOrder.add(translated);
-            if (!targetName.isBlank()) {
-               String targetKey = targetName.toLowerCase(Locale.ROOT);
-               byName.put(targetKey, translated);
-               String language = representativeToLanguage.get(targetKey);
-               if (language != null && !language.isBlank()) {
-                  byLanguage.put(language, translated);
-               }
-            }
-         }
+      private PreparedTranslation forTargets(List<TranslationTarget> targets) {
+         return new PreparedTranslation(
+               this.originalTargets,
+               this.dedupe,
+               targets,
+               this.byLanguage,
+               this.originalText,
+               this.masked,
+               this.originalLanguage,
+               this.sender,
+               this.senderUuid,
+               this.model,
+               this.partialListener,
+               this.deliveredLanguages,
+               this.traceIds,
+               this.calls
+         );
       }
 
-      // If the model changed target names, map by index against deduped list.
-      if (!textsInOrder.isEmpty() && dedupedTargets != null && !dedupedTargets.isEmpty()) {
-         int max = Math.min(textsInOrder.size(), dedupedTargets.size());
-         for (int i = 0; i < max; i++) {
-            TranslationTarget deduped = dedupedTargets.get(i);
-            if (deduped == null) {
-               continue;
-            }
-            String langKey = normalizeLanguage(deduped.idioma);
-            if (langKey.isBlank()) {
-               continue;
-            }
-            byLanguage.putIfAbsent(langKey, textsInOrder.get(i));
+      private TranslationResponse buildResponse() {
+         if (this.deliveredLanguages.isEmpty()) {
+            return normalizeResponse(this.byLanguage, this.originalTargets, this.originalText, this.originalLanguage, this.sender, this.senderUuid);
          }
+         return TranslationResponses.fromLanguageMap(
+               this.byLanguage,
+               this.originalTargets,
+               this.originalText,
+               this.originalLanguage,
+               this.sender,
+               this.senderUuid,
+               language -> !this.deliveredLanguages.contains(language)
+         );
       }
+   }
 
-      String baseLanguage = normalizeLanguage(idiomaOriginal);
-      List<TranslationResult> translatedItems = new ArrayList<>();
-      for (TranslationTarget target : jogadoresOnline) {
-         if (target == null || target.jogador == null) {
-            continue;
-         }
-         String targetName = target.jogador.trim();
-         if (targetName.isEmpty()) {
-            continue;
-         }
-         String targetLanguage = normalizeLanguage(target.idioma);
-         String text;
-         if (Objects.equals(targetLanguage, baseLanguage)) {
-            text = textoOriginal;
-         } else {
-            String key = targetName.toLowerCase(Locale.ROOT);
-            text = byName.get(key);
-            if (text == null || text.isBlank()) {
-               text = byLanguage.get(targetLanguage);
-            }
-            if (text == null || text.isBlank()) {
-               text = textoOriginal;
-            }
-         }
+   /**
+    * One structured-output call. {@code strict} decodes the model text when it follows the schema
+    * exactly; otherwise the body is searched with {@code matcher}, checked with {@code validator} and
+    * converted with {@code lenient}.
+    */
+   private static final class OutputRequest<T> {
+      private final OpenAiRequestTemplate template;
+      private final String prompt;
+      private final Function<String, T> strict;
+      private final Predicate<JsonObject> matcher;
+      private final Predicate<JsonObject> validator;
+      private final Function<JsonObject, T> lenient;
+      private final CallGroup calls;
+      private final List<String> traceIds;
 
-         TranslationResult result = new TranslationResult();
-         result.jogador = targetName;
-         result.textoTraduzido = text;
-         translatedItems.add(result);
+      private OutputRequest(
+            OpenAiRequestTemplate template,
+            String prompt,
+            Function<String, T> strict,
+            Predicate<JsonObject> matcher,
+            Predicate<JsonObject> validator,
+            Function<JsonObject, T> lenient,
+            CallGroup calls,
+            List<String> traceIds
+      ) {
+         this.template = template;
+         this.prompt = prompt;
+         this.strict = strict;
+         this.matcher = matcher;
+         this.validator = validator;
+         this.lenient = lenient;
+         this.calls = calls;
+         this.traceIds = traceIds;
       }
-
-      TranslationResponse response = new TranslationResponse();
-      response.jogador = jogador;
-      response.jogadorUuid = jogadorUuid;
-      response.traducao = translatedItems;
-      return response;
    }
 
-   private static TranslationResponse emptyResponse(String jogador, String jogadorUuid) {
-      TranslationResponse response = new TranslationResponse();
-      response.jogador = jogador == null ? "" : jogador;
-      response.jogadorUuid = jogadorUuid == null ? "" : jogadorUuid;
-      response.traducao = List.of();
-      return response;
-   }
+   /**
+    * Consumes the server-sent events of a streamed response line by line as they arrive.
+    */
+   private static final class StreamEventSubscriber implements Flow.Subscriber<String> {
+      private final StreamingTranslationParser parser;
+      private volatile JsonObject completed;
+      private volatile String failure;
 
-   private static String getAsString(JsonObject obj, String key) {
-      if (obj == null || key == null) {
-         return null;
+      private StreamEventSubscriber(StreamingTranslationParser parser) {
+         this.parser = parser;
       }
-      JsonElement value = obj.get(key);
-      if (value == null || value.isJsonNull() || !value.isJsonPrimitive()) {
-         return null;
+
+      private StreamEventSubscriber fail(String failure) {
+         this.failure = failure;
+         return this;
       }
-      return value.getAsString();
-   }
 
-   private static String normalizeLanguage(String language) {
-      if (language == null) {
-         return "";
+      @Override
+      public void onSubscribe(Flow.Subscription subscription) {
+         subscription.request(Long.MAX_VALUE);
       }
-      return language.trim().toLowerCase(Locale.ROOT);
-   }
 
-   private static String safe(String value) {
-      if (value == null) {
-         return "";
+      @Override
+      public void onNext(String line) {
+         if (this.failure != null || !line.startsWith("data:")) {
+            return;
+         }
+         String data = line.substring(5).trim();
+         if (data.isEmpty() || "[DONE]".equals(data)) {
+            return;
+         }
+         JsonObject event = OpenAiLenientDecoder.parseJsonObjectSafe(data);
+         if (event == null) {
+            return;
+         }
+         String type = safe(OpenAiLenientDecoder.getAsString(event, "type"));
+         if ("response.output_text.delta".equals(type)) {
+            this.parser.append(OpenAiLenientDecoder.getAsString(event, "delta"));
+         } else if ("response.completed".equals(type)) {
+            JsonElement full = event.get("response");
+            this.completed = full != null && full.isJsonObject() ? full.getAsJsonObject() : null;
+         } else if ("response.failed".equals(type) || "error".equals(type)) {
+            this.failure = "event=" + truncate(data, MAX_HTTP_LOG_BODY);
+         }
       }
-      return value;
-   }
 
-   private static String truncate(String value, int maxLen) {
-      if (value == null) {
-         return "";
+      @Override
+      public void onError(Throwable throwable) {
       }
-      if (value.length() <= maxLen) {
-         return value;
+
+      @Override
+      public void onComplete() {
       }
-      return value.substring(0, Math.max(0, maxLen)) + "...(truncated)";
    }
 
-   private static final class DedupeResult {
-      private final List<TranslationTarget> targets;
-      private final Map<String, String> representativeToLanguage;
+   private static final class BatchItem {
+      private final PreparedTranslation prepared;
+      private final CompletableFuture<Map<String, String>> future = new CompletableFuture<>();
 
-      private DedupeResult(List<TranslationTarget> targets, Map<String, String> representativeToLanguage) {
-         this.targets = targets;
-         this.representativeToLanguage = representativeToLanguage;
+      private BatchItem(PreparedTranslation prepared) {
+         this.prepared = prepared;
       }
    }
 }
@@ -0,0 +1,292 @@
+package com.jogandobem;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides, before any payload is built, that a chat line reads the same in every language: numbers
+ * and coordinates ("120 64 -30"), URLs, emoji and other symbols, online player names and runs of a
+ * single character ("?????", "kkkk"). Such lines are delivered as typed without calling a backend.
+ *
+ * <p>It also learns lines the backends return unchanged, per source and target language: "ok" sent
+ * in pt-BR and cached as "ok" for en and es passes through when every recipient reads en or es, but
+ * still goes to the backend when a ja reader is online or once any of those pairs came back changed.
+ */
+public final class PassthroughClassifier {
+   private static final int MAX_LEARNED_CHARS = 100;
+   private static final int MAX_CANDIDATES = 10_000;
+   private static final Set<String> URL_SUFFIXES = Set.of(
+         "com", "net", "org", "io", "gg", "br", "me", "tv", "co", "dev", "app", "xyz", "info", "eu", "uk", "de", "fr", "es", "pt"
+   );
+
+   private final ConcurrentHashMap<String, Candidate> candidates = new ConcurrentHashMap<>();
+   private final AtomicLong checked = new AtomicLong();
+   private final AtomicLong passed = new AtomicLong();
+   private final AtomicLong passedLearned = new AtomicLong();
+
+   /**
+    * True when {@code text} needs no translation. {@code playerNames} are matched without case and
+    * may be lower-cased already. {@code targetLanguages} are the tags the line would be translated
+    * into; a learned line passes only when each of them was seen unchanged from
+    * {@code sourceLanguage}.
+    */
+   public boolean isPassthrough(String text,
+                                Collection<String> playerNames,
+                                String sourceLanguage,
+                                Collection<String> targetLanguages) {
+      this.checked.incrementAndGet();
+      boolean result;
+      if (text == null || text.isBlank()) {
+         result = true;
+      } else if (allTokensPass(text, playerNames)) {
+         result = true;
+      } else if (isLearned(text, sourceLanguage, targetLanguages)) {
+         this.passedLearned.incrementAndGet();
+         result = true;
+      } else {
+         result = false;
+      }
+      if (result) {
+         this.passed.incrementAndGet();
+         ChatMetrics.PASSTHROUGH.increment();
+      }
+      return result;
+   }
+
+   /**
+    * Feeds one fresh model translation. Called by {@link TranslationCache#putFresh} only; cache hits
+    * and relay answers are not evidence.
+    */
+   public void learn(String text, String sourceLanguage, String targetLanguage, String translated) {
+      if (text == null || translated == null || text.length() > MAX_LEARNED_CHARS) {
+         return;
+      }
+      String source = TranslationResponses.normalizeLanguage(sourceLanguage);
+      String target = TranslationResponses.normalizeLanguage(targetLanguage);
+      if (target.isEmpty() || target.equals(source)) {
+         return;
+      }
+      String textKey = learnKey(text);
+      if (textKey.isEmpty()) {
+         return;
+      }
+      boolean unchanged = textKey.equals(learnKey(translated));
+      String key = candidateKey(textKey, source);
+      Candidate candidate = this.candidates.get(key);
+      if (candidate == null) {
+         if (!unchanged || this.candidates.size() >= MAX_CANDIDATES) {
+            return;
+         }
+         candidate = this.candidates.computeIfAbsent(key, ignored -> new Candidate());
+      }
+      if (unchanged) {
+         candidate.unchanged.add(target);
+      } else {
+         candidate.changed.add(target);
+      }
+   }
+
+   /**
+    * Number of (line, source, target) combinations that currently pass through.
+    */
+   public int getLearnedCount() {
+      int count = 0;
+      for (Candidate candidate : this.candidates.values()) {
+         for (String target : candidate.unchanged) {
+            if (!candidate.changed.contains(target)) {
+               count++;
+            }
+         }
+      }
+      return count;
+   }
+
+   public long getChecked() {
+      return this.checked.get();
+   }
+
+   public long getPassed() {
+      return this.passed.get();
+   }
+
+   /**
+    * Share of the lines that would have gone to a backend and were delivered as typed instead.
+    */
+   public String describe() {
+      long checkedCount = this.checked.get();
+      long passedCount = this.passed.get();
+      return String.format(Locale.ROOT, "passthrough short_circuited=%d of %d (%.1f%%) by_learned=%d learned=%d",
+            passedCount,
+            checkedCount,
+            checkedCount == 0 ? 0.0 : passedCount * 100.0 / checkedCount,
+            this.passedLearned.get(),
+            getLearnedCount()
+      );
+   }
+
+   private boolean isLearned(String text, String sourceLanguage, Collection<String> targetLanguages) {
+      if (this.candidates.isEmpty() || text.length() > MAX_LEARNED_CHARS || targetLanguages == null) {
+         return false;
+      }
+      String source = TranslationResponses.normalizeLanguage(sourceLanguage);
+      Candidate candidate = this.candidates.get(candidateKey(learnKey(text), source));
+      if (candidate == null) {
+         return false;
+      }
+      boolean any = false;
+      for (String language : targetLanguages) {
+         String target = TranslationResponses.normalizeLanguage(language);
+         if (target.isEmpty() || target.equals(source)) {
+            continue;
+         }
+         if (!candidate.unchanged.contains(target) || candidate.changed.contains(target)) {
+            return false;
+         }
+         any = true;
+      }
+      return any;
+   }
+
+   private static boolean allTokensPass(String text, Collection<String> playerNames) {
+      int length = text.length();
+      int i = 0;
+      while (i < length) {
+         while (i < length && Character.isWhitespace(text.charAt(i))) {
+            i++;
+         }
+         int start = i;
+         while (i < length && !Character.isWhitespace(text.charAt(i))) {
+            i++;
+         }
+         if (start < i && !tokenPasses(text.substring(start, i), playerNames)) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   private static boolean tokenPasses(String token, Collection<String> playerNames) {
+      if (!hasLetter(token) || isSingleCharacterRun(token) || isAxisCoordinate(token) || isUrl(token)) {
+         return true;
+      }
+      String name = stripNamePunctuation(token);
+      if (name.isEmpty() || playerNames == null) {
+         return false;
+      }
+      for (String player : playerNames) {
+         if (player != null && player.equalsIgnoreCase(name)) {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   private static boolean hasLetter(String token) {
+      for (int i = 0; i < token.length(); ) {
+         int cp = token.codePointAt(i);
+         if (Character.isLetter(cp)) {
+            return true;
+         }
+         i += Character.charCount(cp);
+      }
+      return false;
+   }
+
+   /**
+    * "kkkk", "??", "hhhhh". A lone letter is not a run: "a", "e" and "y" are words.
+    */
+   static boolean isSingleCharacterRun(String token) {
+      int first = Character.toLowerCase(token.codePointAt(0));
+      int count = 1;
+      for (int i = Character.charCount(first); i < token.length(); ) {
+         int cp = token.codePointAt(i);
+         if (Character.toLowerCase(cp) != first) {
+            return false;
+         }
+         count++;
+         i += Character.charCount(cp);
+      }
+      return count > 1 || !Character.isLetter(first);
+   }
+
+   /**
+    * {@code x:120}, {@code Y=64}, {@code z-30}: one axis letter followed by a number.
+    */
+   static boolean isAxisCoordinate(String token) {
+      if (token.length() < 2) {
+         return false;
+      }
+      char axis = Character.toLowerCase(token.charAt(0));
+      if (axis != 'x' && axis != 'y' && axis != 'z') {
+         return false;
+      }
+      int i = 1;
+      if (token.charAt(i) == ':' || token.charAt(i) == '=') {
+         i++;
+      }
+      if (i < token.length() && (token.charAt(i) == '-' || token.charAt(i) == '+')) {
+         i++;
+      }
+      boolean digit = false;
+      for (; i < token.length(); i++) {
+         char c = token.charAt(i);
+         if (c >= '0' && c <= '9') {
+            digit = true;
+         } else if (c != '.' && c != ',') {
+            return false;
+         }
+      }
+      return digit;
+   }
+
+   static boolean isUrl(String token) {
+      String lower = token.toLowerCase(Locale.ROOT);
+      if (lower.startsWith("http://") || lower.startsWith("https://") || lower.startsWith("www.")) {
+         return true;
+      }
+      int slash = lower.indexOf('/');
+      String host = slash < 0 ? lower : lower.substring(0, slash);
+      int dot = host.lastIndexOf('.');
+      if (dot <= 0 || dot == host.length() - 1) {
+         return false;
+      }
+      for (int i = 0; i < host.length(); i++) {
+         char c = host.charAt(i);
+         if (!(c >= 'a' && c <= 'z') && !(c >= '0' && c <= '9') && c != '.' && c != '-') {
+            return false;
+         }
+      }
+      return URL_SUFFIXES.contains(host.substring(dot + 1));
+   }
+
+   private static String stripNamePunctuation(String token) {
+      int start = 0;
+      int end = token.length();
+      while (start < end && !Character.isLetterOrDigit(token.charAt(start)) && token.charAt(start) != '_') {
+         start++;
+      }
+      while (end > start && !Character.isLetterOrDigit(token.charAt(end - 1)) && token.charAt(end - 1) != '_') {
+         end--;
+      }
+      return token.substring(start, end);
+   }
+
+   private static String learnKey(String text) {
+      return TranslationCache.normalizeText(text).toLowerCase(Locale.ROOT);
+   }
+
+   private static String candidateKey(String textKey, String sourceLanguage) {
+      return sourceLanguage + '\n' + textKey;
+   }
+
+   /**
+    * Target tags a line was cached into unchanged, and those it came back different in.
+    */
+   private static final class Candidate {
+      private final Set<String> unchanged = ConcurrentHashMap.newKeySet();
+      private final Set<String> changed = ConcurrentHashMap.newKeySet();
+   }
+}
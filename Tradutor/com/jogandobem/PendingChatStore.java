@@ -1,8 +1,7 @@
 package com.jogandobem;
 
+import com.jogandobem.platform.ChatPlayer;
 import com.hypixel.hytale.server.core.event.events.player.PlayerChatEvent;
-import com.hypixel.hytale.server.core.universe.PlayerRef;
-import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.Executors;
@@ -10,14 +9,20 @@ import java.util.concurrent.TimeUnit;
 
 public final class PendingChatStore {
    public static final class PendingChat {
-      public final PlayerRef sender;
+      public final ChatPlayer sender;
       public final PlayerChatEvent.Formatter formatter;
       public final String senderName;
+      public final long receivedNanos;
 
-      public PendingChat(PlayerRef sender, PlayerChatEvent.Formatter formatter, String senderName) {
+      public PendingChat(ChatPlayer sender, PlayerChatEvent.Formatter formatter, String senderName) {
+         this(sender, formatter, senderName, System.nanoTime());
+      }
+
+      public PendingChat(ChatPlayer sender, PlayerChatEvent.Formatter formatter, String senderName, long receivedNanos) {
          this.sender = sender;
          this.formatter = formatter;
          this.senderName = senderName;
+         this.receivedNanos = receivedNanos;
       }
    }
 
@@ -37,6 +42,13 @@ public final class PendingChatStore {
       this.scheduler.schedule(() -> this.pending.remove(messageId, chat), this.ttlMs, TimeUnit.MILLISECONDS);
    }
 
+   public PendingChat get(String messageId) {
+      if (messageId == null) {
+         return null;
+      }
+      return this.pending.get(messageId);
+   }
+
    public PendingChat remove(String messageId) {
       if (messageId == null) {
          return null;
@@ -44,6 +56,10 @@ public final class PendingChatStore {
       return this.pending.remove(messageId);
    }
 
+   public int size() {
+      return this.pending.size();
+   }
+
    public void shutdown() {
       this.scheduler.shutdownNow();
    }
@@ -0,0 +1,616 @@
+package com.jogandobem;
+
+import com.jogandobem.SocketModels.ChatPayload;
+import com.jogandobem.TranslationModels.TranslationResponse;
+import com.jogandobem.TranslationModels.TranslationTarget;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.annotations.SerializedName;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.logger.HytaleLogger.Api;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local dictionary of stock chat phrases ("gg", "ty", "brb", "alguém quer trocar?"), loaded from
+ * {@code phrasebook.json}. A message is answered here only when the whole line matches a phrase and
+ * every recipient language has an equivalent; anything else goes to the translation backends.
+ *
+ * <p>Phrases are compared after folding case and accents and dropping punctuation. A line may
+ * stretch the letters of a phrase ("OBRIGADOOO!!" is "obrigado") but not shorten them, so "god" is
+ * not "good" and "k" is not "kkkk". Short lines that miss are counted so the most common ones can be
+ * added to the file.
+ *
+ * <p>A line is looked up among the phrases of the sender's language. Phrases of other languages are
+ * accepted only when the sender's language is unknown, or when the phrase lists the line under
+ * {@value #ANY_LANGUAGE} (stock English like "gg" or "brb" that players type whatever they speak).
+ */
+public final class Phrasebook {
+   private static final String FILE_NAME = "phrasebook.json";
+   private static final String ANY_LANGUAGE = "*";
+   private static final int MAX_MESSAGE_CHARS = 64;
+   private static final int MAX_MISS_WORDS = 4;
+   private static final int MAX_TRACKED_MISSES = 1000;
+   private static final int REPORTED_MISSES = 5;
+
+   private final Path filePath;
+   private final Gson gson;
+   private final HytaleLogger logger;
+   private final AtomicLong lookups = new AtomicLong();
+   private final AtomicLong hits = new AtomicLong();
+   private final ConcurrentHashMap<String, Miss> misses = new ConcurrentHashMap<>();
+   private volatile Index index = Index.EMPTY;
+
+   private Phrasebook(Path filePath, Gson gson, HytaleLogger logger) {
+      this.filePath = filePath;
+      this.gson = gson;
+      this.logger = logger;
+   }
+
+   public static Phrasebook loadOrCreate(Path dataDir, HytaleLogger logger) {
+      Gson gson = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+      if (dataDir == null) {
+         Phrasebook phrasebook = new Phrasebook(Path.of(".").resolve(FILE_NAME), gson, logger);
+         phrasebook.reload();
+         return phrasebook;
+      }
+      try {
+         Files.createDirectories(dataDir);
+      } catch (IOException e) {
+         ((Api) logger.atWarning().withCause(e)).log("ChatTranslation failed to create data directory");
+      }
+      Phrasebook phrasebook = new Phrasebook(dataDir.resolve(FILE_NAME), gson, logger);
+      phrasebook.reload();
+      return phrasebook;
+   }
+
+   /**
+    * Re-reads {@code phrasebook.json}, writing the default phrases when the file does not exist. A
+    * file that fails to parse keeps the phrases already loaded.
+    */
+   public void reload() {
+      PhrasebookFile file;
+      if (!Files.exists(this.filePath)) {
+         file = buildDefaultFile();
+         writeFile(file);
+      } else {
+         file = readFile();
+         if (file == null) {
+            return;
+         }
+      }
+      this.index = Index.build(file.phrases);
+   }
+
+   /**
+    * Answers {@code payload} from the phrasebook, or returns {@code null} when the line is not a known
+    * phrase or some recipient language has no equivalent.
+    */
+   public TranslationResponse translate(ChatPayload payload) {
+      if (payload == null) {
+         return null;
+      }
+      this.lookups.incrementAndGet();
+      TranslationResponse response = lookup(payload);
+      if (response != null) {
+         this.hits.incrementAndGet();
+         ChatMetrics.PHRASEBOOK_HIT.increment();
+      } else {
+         ChatMetrics.PHRASEBOOK_MISS.increment();
+      }
+      return response;
+   }
+
+   public int size() {
+      return this.index.entries;
+   }
+
+   public long getLookups() {
+      return this.lookups.get();
+   }
+
+   public long getHits() {
+      return this.hits.get();
+   }
+
+   /**
+    * Hit rate since startup and the short lines that missed most often.
+    */
+   public List<String> describe() {
+      long lookupCount = this.lookups.get();
+      long hitCount = this.hits.get();
+      List<String> lines = new ArrayList<>(2);
+      lines.add(String.format(Locale.ROOT, "phrasebook entries=%d hits=%d lookups=%d hit_rate=%.1f%%",
+            this.index.entries,
+            hitCount,
+            lookupCount,
+            lookupCount == 0 ? 0.0 : hitCount * 100.0 / lookupCount
+      ));
+      List<Miss> top = new ArrayList<>(this.misses.values());
+      if (!top.isEmpty()) {
+         top.sort((a, b) -> Long.compare(b.count.get(), a.count.get()));
+         StringBuilder line = new StringBuilder("phrasebook.top_misses");
+         for (int i = 0; i < Math.min(REPORTED_MISSES, top.size()); i++) {
+            Miss miss = top.get(i);
+            line.append(i == 0 ? " " : ", ").append('"').append(miss.sample).append("\" x").append(miss.count.get());
+         }
+         lines.add(line.toString());
+      }
+      return lines;
+   }
+
+   private TranslationResponse lookup(ChatPayload payload) {
+      String original = payload.textoOriginal;
+      if (original == null || original.length() > MAX_MESSAGE_CHARS) {
+         return null;
+      }
+      String key = normalizePhrase(original);
+      if (key == null || key.isEmpty()) {
+         return null;
+      }
+      Index current = this.index;
+      Entry entry = current.resolve(key, payload.idiomaOriginal);
+      if (entry == null) {
+         recordMiss(squeeze(key), original);
+         return null;
+      }
+
+      String suffix = trailingPunctuation(original);
+      String senderLanguage = TranslationResponses.normalizeLanguage(payload.idiomaOriginal);
+      Map<String, String> byLanguage = new HashMap<>();
+      if (payload.jogadoresOnline != null) {
+         for (TranslationTarget target : payload.jogadoresOnline) {
+            if (target == null || target.jogador == null) {
+               continue;
+            }
+            String language = TranslationResponses.normalizeLanguage(target.idioma);
+            if (language.equals(senderLanguage) || byLanguage.containsKey(language)) {
+               continue;
+            }
+            if (entry.isVariant(language, key)) {
+               // The recipient speaks the language the phrase was written in: keep the sender's wording.
+               byLanguage.put(language, original);
+               continue;
+            }
+            String phrase = entry.canonical(language);
+            if (phrase == null) {
+               return null;
+            }
+            byLanguage.put(language, suffix.isEmpty() || endsWithPunctuation(phrase) ? phrase : phrase + suffix);
+         }
+      }
+      return TranslationResponses.fromLanguageMap(
+            byLanguage,
+            payload.jogadoresOnline,
+            original,
+            payload.idiomaOriginal,
+            payload.jogador == null ? "" : payload.jogador,
+            payload.jogadorUuid == null ? "" : payload.jogadorUuid
+      );
+   }
+
+   private void recordMiss(String key, String original) {
+      if (countWords(key) > MAX_MISS_WORDS) {
+         return;
+      }
+      Miss miss = this.misses.get(key);
+      if (miss == null) {
+         if (this.misses.size() >= MAX_TRACKED_MISSES) {
+            return;
+         }
+         miss = this.misses.computeIfAbsent(key, ignored -> new Miss(original.trim()));
+      }
+      miss.count.incrementAndGet();
+   }
+
+   /**
+    * Lower-cases, strips accents and punctuation and collapses whitespace. Returns {@code null} when
+    * the text holds symbols (emoji, arrows, ...) that a phrase cannot stand for.
+    */
+   static String normalizePhrase(String text) {
+      if (text == null) {
+         return null;
+      }
+      String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+      StringBuilder out = new StringBuilder(decomposed.length());
+      boolean pendingSpace = false;
+      for (int i = 0; i < decomposed.length(); ) {
+         int cp = decomposed.codePointAt(i);
+         i += Character.charCount(cp);
+         switch (Character.getType(cp)) {
+            case Character.NON_SPACING_MARK:
+            case Character.ENCLOSING_MARK:
+            case Character.COMBINING_SPACING_MARK:
+               continue;
+            case Character.MATH_SYMBOL:
+            case Character.CURRENCY_SYMBOL:
+            case Character.MODIFIER_SYMBOL:
+            case Character.OTHER_SYMBOL:
+            case Character.SURROGATE:
+            case Character.PRIVATE_USE:
+               return null;
+            default:
+               break;
+         }
+         if (Character.isWhitespace(cp)) {
+            pendingSpace = out.length() > 0;
+            continue;
+         }
+         if (!Character.isLetterOrDigit(cp)) {
+            continue;
+         }
+         if (pendingSpace) {
+            out.append(' ');
+            pendingSpace = false;
+         }
+         out.appendCodePoint(Character.toLowerCase(cp));
+      }
+      return out.toString();
+   }
+
+   /**
+    * Collapses repeated letters of a normalized key: the index bucket both a phrase and its
+    * stretched spellings fall into.
+    */
+   static String squeeze(String key) {
+      StringBuilder out = new StringBuilder(key.length());
+      int last = -1;
+      for (int i = 0; i < key.length(); ) {
+         int cp = key.codePointAt(i);
+         i += Character.charCount(cp);
+         if (cp == last && Character.isLetter(cp)) {
+            continue;
+         }
+         out.appendCodePoint(cp);
+         last = cp;
+      }
+      return out.toString();
+   }
+
+   /**
+    * Whether {@code typed} is {@code phrase} with some letters repeated more times: "obrigadooo"
+    * stretches "obrigado" and "kkkkkk" stretches "kkkk", but "god" does not stretch "good".
+    */
+   static boolean stretches(String typed, String phrase) {
+      int i = 0;
+      int j = 0;
+      while (i < typed.length() && j < phrase.length()) {
+         int cp = phrase.codePointAt(j);
+         if (typed.codePointAt(i) != cp) {
+            return false;
+         }
+         int phraseRun = 0;
+         while (j < phrase.length() && phrase.codePointAt(j) == cp) {
+            j += Character.charCount(cp);
+            phraseRun++;
+         }
+         int typedRun = 0;
+         while (i < typed.length() && typed.codePointAt(i) == cp) {
+            i += Character.charCount(cp);
+            typedRun++;
+         }
+         if (typedRun < phraseRun || (typedRun > phraseRun && !Character.isLetter(cp))) {
+            return false;
+         }
+      }
+      return i == typed.length() && j == phrase.length();
+   }
+
+   private static String trailingPunctuation(String text) {
+      int end = text.length();
+      while (end > 0 && Character.isWhitespace(text.charAt(end - 1))) {
+         end--;
+      }
+      int start = end;
+      while (start > 0 && isSentencePunctuation(text.charAt(start - 1)) && end - start < 3) {
+         start--;
+      }
+      return text.substring(start, end);
+   }
+
+   private static boolean endsWithPunctuation(String phrase) {
+      return !phrase.isEmpty() && isSentencePunctuation(phrase.charAt(phrase.length() - 1));
+   }
+
+   private static boolean isSentencePunctuation(char c) {
+      return c == '?' || c == '!' || c == '.';
+   }
+
+   private static int countWords(String key) {
+      int words = 1;
+      for (int i = 0; i < key.length(); i++) {
+         if (key.charAt(i) == ' ') {
+            words++;
+         }
+      }
+      return words;
+   }
+
+   private PhrasebookFile readFile() {
+      try {
+         String json = Files.readString(this.filePath, StandardCharsets.UTF_8);
+         PhrasebookFile file = this.gson.fromJson(json, PhrasebookFile.class);
+         if (file == null) {
+            file = new PhrasebookFile();
+         }
+         if (file.phrases == null) {
+            file.phrases = new ArrayList<>();
+         }
+         return file;
+      } catch (IOException | JsonParseException e) {
+         ((Api) this.logger.atWarning().withCause(e)).log("ChatTranslation failed to read phrasebook.json");
+         return null;
+      }
+   }
+
+   private void writeFile(PhrasebookFile file) {
+      try {
+         Files.writeString(this.filePath, this.gson.toJson(file), StandardCharsets.UTF_8, new OpenOption[0]);
+      } catch (IOException e) {
+         ((Api) this.logger.atWarning().withCause(e)).log("ChatTranslation failed to write phrasebook.json");
+      }
+   }
+
+   private static PhrasebookFile buildDefaultFile() {
+      PhrasebookFile file = new PhrasebookFile();
+      file.phrases = new ArrayList<>();
+      addPhrase(file, new String[] {"gg"}, new String[] {"gg"}, new String[] {"gg"}, new String[] {"gg"}, new String[] {"gg"})
+            .put(ANY_LANGUAGE, List.of("gg"));
+      addPhrase(file,
+            new String[] {"good game"}, new String[] {"bom jogo"}, new String[] {"buen juego"},
+            new String[] {"bonne partie"}, new String[] {"gutes Spiel"});
+      addPhrase(file,
+            new String[] {"well played", "wp"}, new String[] {"bem jogado"}, new String[] {"bien jugado"},
+            new String[] {"bien joué"}, new String[] {"gut gespielt"})
+            .put(ANY_LANGUAGE, List.of("wp"));
+      addPhrase(file,
+            new String[] {"thanks", "ty", "thx", "thank you", "tyvm"},
+            new String[] {"obrigado", "obrigada", "obg", "vlw", "valeu"},
+            new String[] {"gracias", "grax"}, new String[] {"merci"}, new String[] {"danke"})
+            .put(ANY_LANGUAGE, List.of("ty", "thx"));
+      addPhrase(file,
+            new String[] {"you're welcome", "np", "no problem", "yw"},
+            new String[] {"de nada", "por nada"}, new String[] {"de nada"},
+            new String[] {"de rien"}, new String[] {"bitte", "gern geschehen"})
+            .put(ANY_LANGUAGE, List.of("np"));
+      addPhrase(file,
+            new String[] {"hi", "hello", "hey"},
+            new String[] {"oi", "olá", "eae", "eai", "salve"},
+            new String[] {"hola"}, new String[] {"salut", "coucou"}, new String[] {"hallo"});
+      addPhrase(file,
+            new String[] {"bye", "goodbye", "cya", "see you"},
+            new String[] {"tchau", "falou", "flw", "até mais"},
+            new String[] {"adiós", "chao", "hasta luego"},
+            new String[] {"au revoir", "à plus"}, new String[] {"tschüss", "bis dann"});
+      addPhrase(file,
+            new String[] {"good morning"}, new String[] {"bom dia"}, new String[] {"buenos días"},
+            new String[] {"bonjour"}, new String[] {"guten Morgen"});
+      addPhrase(file,
+            new String[] {"good night", "gn"}, new String[] {"boa noite"}, new String[] {"buenas noches"},
+            new String[] {"bonne nuit"}, new String[] {"gute Nacht"});
+      addPhrase(file,
+            new String[] {"brb", "be right back"}, new String[] {"já volto", "ja volto", "volto já"},
+            new String[] {"ya vuelvo", "ahora vuelvo"}, new String[] {"je reviens"}, new String[] {"bin gleich zurück"})
+            .put(ANY_LANGUAGE, List.of("brb"));
+      addPhrase(file,
+            new String[] {"yes", "yeah", "yep"}, new String[] {"sim"}, new String[] {"sí"},
+            new String[] {"oui"}, new String[] {"ja"});
+      addPhrase(file,
+            new String[] {"no", "nope"}, new String[] {"não"}, new String[] {"no"},
+            new String[] {"non"}, new String[] {"nein"});
+      addPhrase(file,
+            new String[] {"ok", "okay"}, new String[] {"ok", "beleza", "blz"}, new String[] {"ok", "vale"},
+            new String[] {"ok", "d'accord"}, new String[] {"ok", "okay"})
+            .put(ANY_LANGUAGE, List.of("ok"));
+      addPhrase(file,
+            new String[] {"lol"}, new String[] {"kkkk", "rsrs"}, new String[] {"jajaja", "jaja"},
+            new String[] {"mdr"}, new String[] {"lol"})
+            .put(ANY_LANGUAGE, List.of("lol"));
+      addPhrase(file,
+            new String[] {"sorry", "sry"}, new String[] {"desculpa", "foi mal", "desculpe"},
+            new String[] {"perdón", "lo siento"}, new String[] {"désolé", "pardon"},
+            new String[] {"sorry", "Entschuldigung"});
+      addPhrase(file,
+            new String[] {"wait", "hold on"}, new String[] {"espera", "pera", "peraí"},
+            new String[] {"espera"}, new String[] {"attends"}, new String[] {"warte"});
+      addPhrase(file,
+            new String[] {"come here"}, new String[] {"vem aqui", "vem cá"}, new String[] {"ven aquí"},
+            new String[] {"viens ici"}, new String[] {"komm her"});
+      addPhrase(file,
+            new String[] {"help", "help me"}, new String[] {"socorro", "me ajuda"}, new String[] {"ayuda"},
+            new String[] {"à l'aide", "aidez-moi"}, new String[] {"Hilfe"});
+      addPhrase(file,
+            new String[] {"anyone want to trade?", "anyone wanna trade", "wtt"},
+            new String[] {"alguém quer trocar?"}, new String[] {"¿alguien quiere intercambiar?"},
+            new String[] {"quelqu'un veut échanger ?"}, new String[] {"will jemand tauschen?"});
+      addPhrase(file,
+            new String[] {"nice", "nice one"}, new String[] {"boa", "show"}, new String[] {"genial"},
+            new String[] {"sympa"}, new String[] {"cool"});
+      return file;
+   }
+
+   private static Map<String, Object> addPhrase(PhrasebookFile file, String[] en, String[] pt, String[] es, String[] fr, String[] de) {
+      Map<String, Object> phrase = new LinkedHashMap<>();
+      phrase.put("en", List.of(en));
+      phrase.put("pt", List.of(pt));
+      phrase.put("es", List.of(es));
+      phrase.put("fr", List.of(fr));
+      phrase.put("de", List.of(de));
+      file.phrases.add(phrase);
+      return phrase;
+   }
+
+   private static final class PhrasebookFile {
+      @SerializedName("phrases")
+      private List<Map<String, Object>> phrases;
+   }
+
+   /**
+    * One phrase in every language it is known in, each as a single string or a list of variants. The
+    * first variant of each language is the one delivered to readers of that language.
+    */
+   private static final class Entry {
+      private final Map<String, String> canonical = new HashMap<>();
+      private final Map<String, Set<String>> variants = new HashMap<>();
+
+      private void add(String language, Object value) {
+         List<?> phrases = value instanceof List ? (List<?>) value : Collections.singletonList(value);
+         Set<String> keys = new HashSet<>();
+         for (Object item : phrases) {
+            if (!(item instanceof String) || ((String) item).isBlank()) {
+               continue;
+            }
+            String phrase = (String) item;
+            String key = normalizePhrase(phrase);
+            if (key == null || key.isEmpty()) {
+               continue;
+            }
+            if (!this.canonical.containsKey(language)) {
+               this.canonical.put(language, phrase.trim());
+            }
+            keys.add(key);
+         }
+         if (!keys.isEmpty()) {
+            this.variants.put(language, keys);
+         }
+      }
+
+      private String canonical(String language) {
+         String phrase = this.canonical.get(language);
+         return phrase != null ? phrase : this.canonical.get(baseLanguage(language));
+      }
+
+      private boolean isVariant(String language, String key) {
+         Set<String> keys = this.variants.get(language);
+         if (keys == null) {
+            keys = this.variants.get(baseLanguage(language));
+         }
+         if (keys == null) {
+            return false;
+         }
+         for (String variant : keys) {
+            if (stretches(key, variant)) {
+               return true;
+            }
+         }
+         return false;
+      }
+   }
+
+   /**
+    * A line that missed, grouped by its normalized key and shown as the first spelling seen.
+    */
+   private static final class Miss {
+      private final String sample;
+      private final AtomicLong count = new AtomicLong();
+
+      private Miss(String sample) {
+         this.sample = sample;
+      }
+   }
+
+   private static final class Match {
+      private final Entry entry;
+      private final String language;
+      private final String key;
+
+      private Match(Entry entry, String language, String key) {
+         this.entry = entry;
+         this.language = language;
+         this.key = key;
+      }
+   }
+
+   private static final class Index {
+      private static final Index EMPTY = new Index(Collections.emptyMap(), 0);
+
+      private final Map<String, List<Match>> byKey;
+      private final int entries;
+
+      private Index(Map<String, List<Match>> byKey, int entries) {
+         this.byKey = byKey;
+         this.entries = entries;
+      }
+
+      private static Index build(List<Map<String, Object>> phrases) {
+         Map<String, List<Match>> byKey = new HashMap<>();
+         int entries = 0;
+         for (Map<String, Object> phrase : phrases) {
+            if (phrase == null || phrase.isEmpty()) {
+               continue;
+            }
+            Entry entry = new Entry();
+            for (Map.Entry<String, Object> language : phrase.entrySet()) {
+               String normalized = TranslationResponses.normalizeLanguage(language.getKey());
+               if (!normalized.isEmpty() && language.getValue() != null) {
+                  entry.add(normalized, language.getValue());
+               }
+            }
+            if (entry.variants.isEmpty()) {
+               continue;
+            }
+            entries++;
+            for (Map.Entry<String, Set<String>> language : entry.variants.entrySet()) {
+               for (String key : language.getValue()) {
+                  byKey.computeIfAbsent(squeeze(key), ignored -> new ArrayList<>(1)).add(new Match(entry, language.getKey(), key));
+               }
+            }
+         }
+         return new Index(byKey, entries);
+      }
+
+      /**
+       * Prefers a phrase of the sender's language. Another language's phrase is taken only when it
+       * is listed under {@value #ANY_LANGUAGE} or the sender's language is unknown, and only when the
+       * key names a single phrase.
+       */
+      private Entry resolve(String key, String senderLanguage) {
+         List<Match> matches = this.byKey.get(squeeze(key));
+         if (matches == null) {
+            return null;
+         }
+         String sender = TranslationResponses.normalizeLanguage(senderLanguage);
+         String senderBase = baseLanguage(sender);
+         boolean senderUnknown = sender.isEmpty() || sender.equals("auto");
+         Entry only = null;
+         for (Match match : matches) {
+            if (!stretches(key, match.key)) {
+               continue;
+            }
+            if (match.language.equals(sender) || match.language.equals(senderBase)) {
+               return match.entry;
+            }
+            if (!senderUnknown && !match.language.equals(ANY_LANGUAGE)) {
+               continue;
+            }
+            if (only == null) {
+               only = match.entry;
+            } else if (only != match.entry) {
+               return null;
+            }
+         }
+         return only;
+      }
+   }
+
+   private static String baseLanguage(String language) {
+      int dash = language.indexOf('-');
+      return dash > 0 ? language.substring(0, dash) : language;
+   }
+}
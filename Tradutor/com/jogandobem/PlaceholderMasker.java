@@ -0,0 +1,392 @@
+package com.jogandobem;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Swaps the parts of a chat line that never change between languages (online player names, numbers
+ * and coordinates, URLs and emoji) for numbered placeholders before translation. "@Steve vem pro
+ * 120 64 -30" and "@Alex vem pro 8 70 12" both become "@{0} vem pro {1}", so they share one cache
+ * entry and the model never sees (or mangles) the values. The translated template is filled back per
+ * message with {@link Masked#fill(String)}.
+ *
+ * <p>Small cardinals standing on their own ("2 diamantes", "1 minuto") stay in the text: the number
+ * decides singular, plural or dual in the target language and the model has to see it.
+ */
+public final class PlaceholderMasker {
+   private static final int MAX_PLACEHOLDERS = 20;
+   private static final int MIN_BARE_NAME_LENGTH = 3;
+   private static final int MAX_KEPT_CARDINAL = 20;
+
+   private PlaceholderMasker() {
+   }
+
+   /**
+    * Masks {@code text}. {@code playerNames} are the players online right now; a name is masked when
+    * written with {@code @}, or bare when it matches exactly and is not likely to be a plain word.
+    * Lines that already contain braces are left untouched.
+    */
+   public static Masked mask(String text, Collection<String> playerNames) {
+      if (text == null || text.isEmpty() || text.indexOf('{') >= 0 || text.indexOf('}') >= 0) {
+         return Masked.unmasked(text);
+      }
+      List<String> values = new ArrayList<>();
+      StringBuilder template = new StringBuilder(text.length());
+      int length = text.length();
+      int i = 0;
+      // Where the last numeric placeholder starts and ends, so "120, 64 -30" stays one value.
+      int numberTemplateStart = -1;
+      int numberSourceStart = -1;
+      int numberSourceEnd = -1;
+      while (i < length) {
+         int spaceStart = i;
+         while (i < length && Character.isWhitespace(text.charAt(i))) {
+            i++;
+         }
+         template.append(text, spaceStart, i);
+         int start = i;
+         while (i < length && !Character.isWhitespace(text.charAt(i))) {
+            i++;
+         }
+         if (start == i) {
+            break;
+         }
+         String token = text.substring(start, i);
+         int coreStart = 0;
+         int coreEnd = token.length();
+         while (coreStart < coreEnd && isEdgePunctuation(token.charAt(coreStart), true)) {
+            coreStart++;
+         }
+         while (coreEnd > coreStart && isEdgePunctuation(token.charAt(coreEnd - 1), false)) {
+            coreEnd--;
+         }
+         String core = token.substring(coreStart, coreEnd);
+         if (values.size() >= MAX_PLACEHOLDERS || core.isEmpty()) {
+            template.append(token);
+            numberTemplateStart = -1;
+            continue;
+         }
+         if (isNumber(core) || PassthroughClassifier.isAxisCoordinate(core)) {
+            boolean extendsGroup = numberTemplateStart >= 0 && onlySeparators(text, numberSourceEnd, start + coreStart);
+            if (!extendsGroup && isSmallCardinal(core) && !numberFollows(text, start + coreEnd)) {
+               template.append(token);
+               numberTemplateStart = -1;
+               continue;
+            }
+            if (extendsGroup) {
+               // Extend the previous number into a coordinate group: rewrite it as one placeholder.
+               template.setLength(numberTemplateStart);
+               String value = text.substring(numberSourceStart, start + coreEnd);
+               values.set(values.size() - 1, value);
+               template.append('{').append(values.size() - 1).append('}').append(token, coreEnd, token.length());
+            } else {
+               template.append(token, 0, coreStart);
+               numberTemplateStart = template.length();
+               numberSourceStart = start + coreStart;
+               // Numbers always get their own slot so a coordinate group can grow it in place.
+               values.add(core);
+               template.append('{').append(values.size() - 1).append('}').append(token, coreEnd, token.length());
+            }
+            numberSourceEnd = start + coreEnd;
+            continue;
+         }
+         numberTemplateStart = -1;
+         if (PassthroughClassifier.isUrl(core)) {
+            template.append(token, 0, coreStart).append(placeholder(values, core)).append(token, coreEnd, token.length());
+            continue;
+         }
+         boolean mention = core.charAt(0) == '@';
+         String name = mention ? core.substring(1) : core;
+         if (!name.isEmpty() && isPlayerName(name, mention, playerNames)) {
+            template.append(token, 0, coreStart);
+            if (mention) {
+               template.append('@');
+            }
+            template.append(placeholder(values, name)).append(token, coreEnd, token.length());
+            continue;
+         }
+         appendWithEmojiMasked(template, token, values);
+      }
+      if (values.isEmpty()) {
+         return Masked.unmasked(text);
+      }
+      ChatMetrics.MASK_APPLIED.increment();
+      return new Masked(template.toString(), values);
+   }
+
+   private static String placeholder(List<String> values, String value) {
+      int index = values.indexOf(value);
+      if (index < 0) {
+         index = values.size();
+         values.add(value);
+      }
+      return "{" + index + "}";
+   }
+
+   private static void appendWithEmojiMasked(StringBuilder template, String token, List<String> values) {
+      int i = 0;
+      while (i < token.length()) {
+         int cp = token.codePointAt(i);
+         if (!isEmoji(cp) || values.size() >= MAX_PLACEHOLDERS) {
+            template.appendCodePoint(cp);
+            i += Character.charCount(cp);
+            continue;
+         }
+         int start = i;
+         while (i < token.length()) {
+            int next = token.codePointAt(i);
+            if (!isEmoji(next) && !isEmojiJoiner(next)) {
+               break;
+            }
+            i += Character.charCount(next);
+         }
+         template.append(placeholder(values, token.substring(start, i)));
+      }
+   }
+
+   private static boolean isPlayerName(String name, boolean mention, Collection<String> playerNames) {
+      if (playerNames == null) {
+         return false;
+      }
+      for (String player : playerNames) {
+         if (player == null || player.isEmpty()) {
+            continue;
+         }
+         if (mention) {
+            if (player.equalsIgnoreCase(name)) {
+               return true;
+            }
+         } else if (player.length() >= MIN_BARE_NAME_LENGTH) {
+            // "Pedro" written as "pedro" is probably the word, "xX_pedro_Xx" is not.
+            if (player.equals(name) || (looksLikeHandle(player) && player.equalsIgnoreCase(name))) {
+               return true;
+            }
+         }
+      }
+      return false;
+   }
+
+   private static boolean looksLikeHandle(String name) {
+      for (int i = 0; i < name.length(); i++) {
+         char c = name.charAt(i);
+         if (c == '_' || (c >= '0' && c <= '9')) {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   /**
+    * {@code 120}, {@code -30}, {@code 1.000,50}, {@code 10:30}.
+    */
+   private static boolean isNumber(String core) {
+      int i = 0;
+      if (core.charAt(0) == '-' || core.charAt(0) == '+') {
+         i++;
+      }
+      boolean digit = false;
+      boolean separator = false;
+      for (; i < core.length(); i++) {
+         char c = core.charAt(i);
+         if (c >= '0' && c <= '9') {
+            digit = true;
+            separator = false;
+         } else if ((c == '.' || c == ',' || c == ':') && digit && !separator) {
+            separator = true;
+         } else {
+            return false;
+         }
+      }
+      return digit && !separator;
+   }
+
+   private static boolean isSmallCardinal(String core) {
+      if (core.length() > 2) {
+         return false;
+      }
+      for (int i = 0; i < core.length(); i++) {
+         char c = core.charAt(i);
+         if (c < '0' || c > '9') {
+            return false;
+         }
+      }
+      return Integer.parseInt(core) <= MAX_KEPT_CARDINAL;
+   }
+
+   /**
+    * Whether the next token after {@code from}, past separators, is a number or coordinate, which
+    * would make the current number the start of a group.
+    */
+   private static boolean numberFollows(String text, int from) {
+      int i = from;
+      while (i < text.length() && !Character.isWhitespace(text.charAt(i))) {
+         i++;
+      }
+      while (i < text.length() && onlySeparators(text, i, i + 1)) {
+         i++;
+      }
+      int start = i;
+      while (i < text.length() && !Character.isWhitespace(text.charAt(i))) {
+         i++;
+      }
+      int coreStart = start;
+      int coreEnd = i;
+      while (coreStart < coreEnd && isEdgePunctuation(text.charAt(coreStart), true)) {
+         coreStart++;
+      }
+      while (coreEnd > coreStart && isEdgePunctuation(text.charAt(coreEnd - 1), false)) {
+         coreEnd--;
+      }
+      if (coreStart == coreEnd) {
+         return false;
+      }
+      String core = text.substring(coreStart, coreEnd);
+      return isNumber(core) || PassthroughClassifier.isAxisCoordinate(core);
+   }
+
+   private static boolean onlySeparators(String text, int from, int to) {
+      for (int i = from; i < to; i++) {
+         char c = text.charAt(i);
+         if (!Character.isWhitespace(c) && c != ',' && c != ';' && c != '/') {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   private static boolean isEdgePunctuation(char c, boolean leading) {
+      if (Character.isLetterOrDigit(c) || c == '_' || Character.isSurrogate(c) || isEmoji(c)) {
+         return false;
+      }
+      return !(leading && (c == '@' || c == '-' || c == '+'));
+   }
+
+   private static boolean isEmoji(int cp) {
+      return (cp >= 0x1F000 && cp <= 0x1FAFF)
+            || (cp >= 0x2600 && cp <= 0x27BF)
+            || (cp >= 0x2B00 && cp <= 0x2BFF);
+   }
+
+   private static boolean isEmojiJoiner(int cp) {
+      return cp == 0x200D || cp == 0xFE0F || cp == 0x20E3;
+   }
+
+   /**
+    * A template and the values its placeholders stand for.
+    */
+   public static final class Masked {
+      private final String template;
+      private final List<String> values;
+
+      private Masked(String template, List<String> values) {
+         this.template = template;
+         this.values = values;
+      }
+
+      private static Masked unmasked(String text) {
+         return new Masked(text == null ? "" : text, List.of());
+      }
+
+      public String getTemplate() {
+         return this.template;
+      }
+
+      public boolean isMasked() {
+         return !this.values.isEmpty();
+      }
+
+      /**
+       * Puts the values back into a translated template. Returns {@code null} when the translation
+       * dropped a placeholder or invented one, so the caller can treat it as untranslated.
+       */
+      public String fill(String translated) {
+         if (translated == null || this.values.isEmpty()) {
+            return translated;
+         }
+         StringBuilder filled = new StringBuilder(translated.length() + 16);
+         boolean[] seen = new boolean[this.values.size()];
+         int i = 0;
+         while (i < translated.length()) {
+            char c = translated.charAt(i);
+            int close = c == '{' ? translated.indexOf('}', i + 1) : -1;
+            if (close > i + 1 && close - i <= 3 && allDigits(translated, i + 1, close)) {
+               int index = Integer.parseInt(translated.substring(i + 1, close));
+               if (index >= this.values.size()) {
+                  return null;
+               }
+               seen[index] = true;
+               filled.append(this.values.get(index));
+               i = close + 1;
+               continue;
+            }
+            filled.append(c);
+            i++;
+         }
+         for (boolean present : seen) {
+            if (!present) {
+               return null;
+            }
+         }
+         return filled.toString();
+      }
+
+      /**
+       * The reverse of {@link #fill(String)}, for a translation made from the original text instead
+       * of the template (the relay gets the line as typed). Each value is put back as its
+       * placeholder; returns {@code null} when a value is not found verbatim.
+       */
+      public String unfill(String translated) {
+         if (translated == null || this.values.isEmpty()) {
+            return translated;
+         }
+         StringBuilder template = new StringBuilder(translated.length());
+         boolean[] seen = new boolean[this.values.size()];
+         int i = 0;
+         while (i < translated.length()) {
+            int match = -1;
+            for (int index = 0; index < this.values.size(); index++) {
+               String value = this.values.get(index);
+               if ((match < 0 || value.length() > this.values.get(match).length())
+                     && translated.startsWith(value, i)
+                     && standsAlone(translated, i, i + value.length())) {
+                  match = index;
+               }
+            }
+            if (match < 0) {
+               template.append(translated.charAt(i));
+               i++;
+               continue;
+            }
+            seen[match] = true;
+            template.append('{').append(match).append('}');
+            i += this.values.get(match).length();
+         }
+         for (boolean present : seen) {
+            if (!present) {
+               return null;
+            }
+         }
+         return template.toString();
+      }
+
+      /**
+       * "120" in "x120y" or "Steve" in "Steven" is part of another word, not the value.
+       */
+      private static boolean standsAlone(String text, int from, int to) {
+         boolean before = from > 0 && Character.isLetterOrDigit(text.charAt(from - 1)) && Character.isLetterOrDigit(text.charAt(from));
+         boolean after = to < text.length() && Character.isLetterOrDigit(text.charAt(to)) && Character.isLetterOrDigit(text.charAt(to - 1));
+         return !before && !after;
+      }
+
+      private static boolean allDigits(String text, int from, int to) {
+         for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+               return false;
+            }
+         }
+         return true;
+      }
+   }
+}
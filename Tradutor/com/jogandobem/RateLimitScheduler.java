@@ -0,0 +1,229 @@
+package com.jogandobem;
+
+import java.net.http.HttpHeaders;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Paces outgoing OpenAI calls from the provider's own rate-limit headers.
+ *
+ * <p>Requests are drawn from a token bucket sized by {@code x-ratelimit-limit-requests} (per minute)
+ * and corrected by {@code x-ratelimit-remaining-requests} on every response. The token budget is
+ * tracked from {@code x-ratelimit-remaining-tokens}/{@code x-ratelimit-reset-tokens}. A 429 pauses
+ * all calls for {@code Retry-After}, or for an exponential backoff with jitter when the header is
+ * missing. Until the first headers arrive nothing is paced. {@link #pace} holds a call back on the
+ * given scheduler for as long as {@link #reserve} asks, without blocking a thread.
+ */
+public final class RateLimitScheduler {
+   private static final Pattern DURATION_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|s|m|h)");
+   private static final long BACKOFF_BASE_MS = 250L;
+   private static final long BACKOFF_MAX_MS = 30_000L;
+   private static final double WINDOW_MS = 60_000.0;
+
+   private final ScheduledExecutorService scheduler;
+   private final Object lock = new Object();
+   private final AtomicLong throttled = new AtomicLong();
+   private final AtomicLong paced = new AtomicLong();
+   private long requestLimit;
+   private double requestTokens;
+   private long lastRefillMs;
+   private long tokensRemaining = -1L;
+   private long tokensResetAtMs;
+   private long pausedUntilMs;
+   private int consecutiveThrottles;
+
+   public RateLimitScheduler(ScheduledExecutorService scheduler) {
+      this.scheduler = scheduler;
+   }
+
+   /**
+    * Runs {@code send} once the rate limit allows it. A call that would have to wait longer than
+    * {@code maxWaitMs} is not worth sending for chat and fails fast with
+    * {@link TranslationOverloadedException}; a call whose group was cancelled while it waited is
+    * never sent. Either way its reservation is given back.
+    */
+   <T> CompletableFuture<T> pace(long estimatedTokens, long maxWaitMs, CallGroup calls, Supplier<CompletableFuture<T>> send) {
+      long waitMs = reserve(estimatedTokens);
+      if (waitMs <= 0L) {
+         return send.get();
+      }
+      if (waitMs > maxWaitMs) {
+         cancel(estimatedTokens);
+         return CompletableFuture.failedFuture(new TranslationOverloadedException("OpenAI rate limited wait=" + waitMs + "ms"));
+      }
+      CompletableFuture<Void> delay = new CompletableFuture<>();
+      try {
+         this.scheduler.schedule(() -> delay.complete(null), waitMs, TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException e) {
+         return CompletableFuture.failedFuture(e);
+      }
+      return delay.thenCompose(ignored -> {
+         if (calls != null && calls.isCancelled()) {
+            cancel(estimatedTokens);
+            return CompletableFuture.failedFuture(new CancellationException("cancelled while paced"));
+         }
+         return send.get();
+      });
+   }
+
+   /**
+    * Reserves a slot for one request and returns how long the caller should wait before sending it.
+    */
+   public long reserve(long estimatedTokens) {
+      synchronized (this.lock) {
+         long now = System.currentTimeMillis();
+         refill(now);
+         long waitMs = Math.max(0L, this.pausedUntilMs - now);
+         if (this.requestLimit > 0) {
+            if (this.requestTokens < 1.0) {
+               waitMs = Math.max(waitMs, (long) Math.ceil((1.0 - this.requestTokens) * WINDOW_MS / this.requestLimit));
+            }
+            this.requestTokens -= 1.0;
+         }
+         if (this.tokensRemaining >= 0L) {
+            if (this.tokensRemaining < estimatedTokens && now < this.tokensResetAtMs) {
+               waitMs = Math.max(waitMs, this.tokensResetAtMs - now);
+            }
+            this.tokensRemaining = Math.max(0L, this.tokensRemaining - estimatedTokens);
+         }
+         if (waitMs > 0L) {
+            this.paced.incrementAndGet();
+         }
+         return waitMs;
+      }
+   }
+
+   /**
+    * Returns the reservation of a request that was never sent (e.g. its wait was too long).
+    */
+   public void cancel(long estimatedTokens) {
+      synchronized (this.lock) {
+         if (this.requestLimit > 0) {
+            this.requestTokens = Math.min(this.requestLimit, this.requestTokens + 1.0);
+         }
+         if (this.tokensRemaining >= 0L) {
+            this.tokensRemaining += estimatedTokens;
+         }
+      }
+   }
+
+   public void onResponse(int status, HttpHeaders headers) {
+      synchronized (this.lock) {
+         long now = System.currentTimeMillis();
+         refill(now);
+         long limit = headerLong(headers, "x-ratelimit-limit-requests");
+         long remaining = headerLong(headers, "x-ratelimit-remaining-requests");
+         if (limit > 0) {
+            this.requestLimit = limit;
+            if (remaining >= 0 && remaining < this.requestTokens) {
+               this.requestTokens = remaining;
+            } else if (this.lastRefillMs == 0L) {
+               this.requestTokens = remaining >= 0 ? remaining : limit;
+            }
+            this.lastRefillMs = now;
+         }
+         long remainingTokens = headerLong(headers, "x-ratelimit-remaining-tokens");
+         if (remainingTokens >= 0) {
+            this.tokensRemaining = remainingTokens;
+            long resetMs = parseDurationMs(headers.firstValue("x-ratelimit-reset-tokens").orElse(null));
+            this.tokensResetAtMs = now + Math.max(0L, resetMs);
+         }
+
+         if (status == 429) {
+            this.throttled.incrementAndGet();
+            this.consecutiveThrottles++;
+            long backoff = Math.min(BACKOFF_MAX_MS, BACKOFF_BASE_MS << Math.min(16, this.consecutiveThrottles - 1));
+            long jittered = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+            long retryAfter = retryAfterMs(headers);
+            this.pausedUntilMs = Math.max(this.pausedUntilMs, now + Math.max(retryAfter, jittered));
+         } else if (status >= 200 && status < 300) {
+            this.consecutiveThrottles = 0;
+         }
+      }
+   }
+
+   public long getThrottled() {
+      return this.throttled.get();
+   }
+
+   public long getPaced() {
+      return this.paced.get();
+   }
+
+   private void refill(long now) {
+      if (this.requestLimit <= 0) {
+         return;
+      }
+      if (this.lastRefillMs > 0L && now > this.lastRefillMs) {
+         double refill = (now - this.lastRefillMs) * this.requestLimit / WINDOW_MS;
+         this.requestTokens = Math.min(this.requestLimit, this.requestTokens + refill);
+      }
+      this.lastRefillMs = now;
+   }
+
+   private static long retryAfterMs(HttpHeaders headers) {
+      long retryAfterMs = headerLong(headers, "retry-after-ms");
+      if (retryAfterMs >= 0) {
+         return retryAfterMs;
+      }
+      Optional<String> retryAfter = headers.firstValue("retry-after");
+      if (retryAfter.isPresent()) {
+         try {
+            return (long) (Double.parseDouble(retryAfter.get().trim()) * 1000.0);
+         } catch (NumberFormatException ignored) {
+            // HTTP-date form: fall back to the computed backoff.
+         }
+      }
+      return 0L;
+   }
+
+   private static long headerLong(HttpHeaders headers, String name) {
+      Optional<String> value = headers.firstValue(name);
+      if (value.isEmpty()) {
+         return -1L;
+      }
+      try {
+         return Long.parseLong(value.get().trim());
+      } catch (NumberFormatException e) {
+         return -1L;
+      }
+   }
+
+   /**
+    * Parses OpenAI reset values such as {@code 20ms}, {@code 1s} or {@code 6m0.5s}.
+    */
+   static long parseDurationMs(String value) {
+      if (value == null || value.isBlank()) {
+         return 0L;
+      }
+      Matcher matcher = DURATION_PART.matcher(value.trim());
+      double total = 0.0;
+      while (matcher.find()) {
+         double amount = Double.parseDouble(matcher.group(1));
+         switch (matcher.group(2)) {
+            case "ms":
+               total += amount;
+               break;
+            case "s":
+               total += amount * 1000.0;
+               break;
+            case "m":
+               total += amount * 60_000.0;
+               break;
+            default:
+               total += amount * 3_600_000.0;
+               break;
+         }
+      }
+      return (long) Math.ceil(total);
+   }
+}
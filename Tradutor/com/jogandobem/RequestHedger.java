@@ -0,0 +1,125 @@
+package com.jogandobem;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Races a slow request against a second one ("hedge").
+ *
+ * <p>The hedge starts when the first request is still running after the configured latency
+ * percentile, within the hedge budget ({@link HedgePolicy}). The first non-empty answer wins and the
+ * calls of the other side are cancelled; an empty answer only wins once both sides gave up.
+ */
+final class RequestHedger {
+   /**
+    * Starts the second request. Its calls must be added to {@code calls} so the race can stop them.
+    */
+   interface Secondary {
+      CompletableFuture<Map<String, String>> launch(CallGroup calls, long delayMs);
+   }
+
+   private final TranslationConfig config;
+   private final ScheduledExecutorService scheduler;
+   private final HedgePolicy policy = new HedgePolicy();
+
+   RequestHedger(TranslationConfig config, ScheduledExecutorService scheduler) {
+      this.config = config;
+      this.scheduler = scheduler;
+   }
+
+   /**
+    * Result of the race between {@code primary} and a hedge launched by {@code secondary}.
+    * {@code primaryCalls} is cancelled when the hedge wins; {@code lineCalls} is the group of the whole
+    * chat line, and a launched hedge is stopped together with it.
+    */
+   CompletableFuture<Map<String, String>> hedge(
+         CompletableFuture<Map<String, String>> primary,
+         CallGroup primaryCalls,
+         CallGroup lineCalls,
+         long startMs,
+         Secondary secondary
+   ) {
+      this.policy.onRequest();
+      primary.thenAccept(translated -> {
+         if (!translated.isEmpty() && !primaryCalls.isCancelled()) {
+            this.policy.recordLatency(System.currentTimeMillis() - startMs);
+         }
+      });
+      long delayMs = this.policy.hedgeDelayMs(this.config.openAiHedgePercentile);
+      if (delayMs < 0L) {
+         return primary;
+      }
+
+      HedgedCall race = new HedgedCall();
+      primary.whenComplete((translated, error) -> {
+         if (race.offer(error == null ? translated : Map.of(), false)) {
+            race.cancelHedge();
+         }
+      });
+      this.scheduler.schedule(() -> {
+         CallGroup hedgeCalls = new CallGroup();
+         if (primary.isDone() || !this.policy.tryHedge(this.config.openAiHedgeBudgetPercent) || !race.launchHedge(hedgeCalls)) {
+            return;
+         }
+         lineCalls.onCancel(hedgeCalls::cancel);
+         secondary.launch(hedgeCalls, delayMs).whenComplete((translated, error) -> {
+            if (race.offer(error == null ? translated : Map.of(), true)) {
+               this.policy.onHedgeWin();
+               primaryCalls.cancel();
+            }
+         });
+      }, delayMs, TimeUnit.MILLISECONDS);
+      return race.result;
+   }
+
+   HedgePolicy getPolicy() {
+      return this.policy;
+   }
+
+   private static final class HedgedCall {
+      private final CompletableFuture<Map<String, String>> result = new CompletableFuture<>();
+      private CallGroup hedgeCalls;
+      private int outstanding = 1;
+      private boolean hedgeLaunched;
+
+      private synchronized boolean launchHedge(CallGroup calls) {
+         if (this.result.isDone()) {
+            return false;
+         }
+         this.hedgeCalls = calls;
+         this.outstanding++;
+         this.hedgeLaunched = true;
+         return true;
+      }
+
+      /**
+       * Returns true when this answer won the race.
+       */
+      private synchronized boolean offer(Map<String, String> translated, boolean fromHedge) {
+         this.outstanding--;
+         if (this.result.isDone()) {
+            return false;
+         }
+         if (!translated.isEmpty()) {
+            this.result.complete(translated);
+            return fromHedge || this.hedgeLaunched;
+         }
+         if (this.outstanding <= 0) {
+            this.result.complete(translated);
+         }
+         return false;
+      }
+
+      private void cancelHedge() {
+         CallGroup calls;
+         synchronized (this) {
+            calls = this.hedgeCalls;
+         }
+         if (calls != null) {
+            calls.cancel();
+         }
+      }
+   }
+}
@@ -0,0 +1,116 @@
+package com.jogandobem;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import java.util.function.Consumer;
+
+/**
+ * Incremental scanner for the structured output text of a streamed response.
+ *
+ * <p>Text deltas are appended as they arrive and every string or object that completes directly
+ * inside the first array of the root object (the {@code traducao} array) is handed to the listener
+ * right away.
+ */
+public final class StreamingTranslationParser {
+   private final StringBuilder text = new StringBuilder();
+   private final Consumer<JsonElement> elementListener;
+   private int scanPosition;
+   private int depth;
+   private boolean inString;
+   private boolean escaped;
+   private boolean arrayOpened;
+   private boolean arrayClosed;
+   private int elementStart = -1;
+   private int elementCount;
+
+   public StreamingTranslationParser(Consumer<JsonElement> elementListener) {
+      this.elementListener = elementListener;
+   }
+
+   public void append(String delta) {
+      if (delta == null || delta.isEmpty()) {
+         return;
+      }
+      this.text.append(delta);
+      scan();
+   }
+
+   public String getText() {
+      return this.text.toString();
+   }
+
+   public int getElementCount() {
+      return this.elementCount;
+   }
+
+   private void scan() {
+      int length = this.text.length();
+      while (this.scanPosition < length) {
+         char c = this.text.charAt(this.scanPosition);
+         if (this.inString) {
+            if (this.escaped) {
+               this.escaped = false;
+            } else if (c == '\\') {
+               this.escaped = true;
+            } else if (c == '"') {
+               this.inString = false;
+               if (this.elementStart >= 0 && this.depth == 2) {
+                  emit(this.text.substring(this.elementStart, this.scanPosition + 1));
+                  this.elementStart = -1;
+               }
+            }
+            this.scanPosition++;
+            continue;
+         }
+         switch (c) {
+            case '"':
+               this.inString = true;
+               if (this.arrayOpened && !this.arrayClosed && this.depth == 2) {
+                  this.elementStart = this.scanPosition;
+               }
+               break;
+            case '{':
+               if (this.arrayOpened && !this.arrayClosed && this.depth == 2) {
+                  this.elementStart = this.scanPosition;
+               }
+               this.depth++;
+               break;
+            case '[':
+               if (!this.arrayOpened && this.depth == 1) {
+                  this.arrayOpened = true;
+               }
+               this.depth++;
+               break;
+            case '}':
+               this.depth--;
+               if (this.elementStart >= 0 && this.depth == 2) {
+                  emit(this.text.substring(this.elementStart, this.scanPosition + 1));
+                  this.elementStart = -1;
+               }
+               break;
+            case ']':
+               this.depth--;
+               if (this.arrayOpened && this.depth == 1) {
+                  this.arrayClosed = true;
+               }
+               break;
+            default:
+               break;
+         }
+         this.scanPosition++;
+      }
+   }
+
+   private void emit(String elementJson) {
+      JsonElement parsed;
+      try {
+         parsed = JsonParser.parseString(elementJson);
+      } catch (RuntimeException e) {
+         return;
+      }
+      if (parsed.isJsonObject() || parsed.isJsonPrimitive()) {
+         this.elementCount++;
+         this.elementListener.accept(parsed);
+      }
+   }
+}
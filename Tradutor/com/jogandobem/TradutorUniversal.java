@@ -2,9 +2,13 @@ package com.jogandobem;
 
 import com.jogandobem.commands.LanguageCommand;
 import com.jogandobem.commands.ReloadCommand;
+import com.jogandobem.commands.StatsCommand;
+import com.jogandobem.commands.TraceCommand;
 import com.jogandobem.discord.DiscordIntegration;
 import com.jogandobem.listeners.ChatListener;
 import com.jogandobem.listeners.PlayerConnectListener;
+import com.jogandobem.platform.ChatEventSource;
+import com.jogandobem.platform.HytalePlatform;
 import com.hypixel.hytale.logger.HytaleLogger;
 import com.hypixel.hytale.logger.HytaleLogger.Api;
 import com.hypixel.hytale.server.core.command.system.CommandManager;
@@ -13,6 +17,7 @@ import com.hypixel.hytale.server.core.event.events.player.PlayerConnectEvent;
 import com.hypixel.hytale.server.core.plugin.JavaPlugin;
 import com.hypixel.hytale.server.core.plugin.JavaPluginInit;
 import java.nio.file.Path;
+import java.util.List;
 import javax.annotation.Nonnull;
 
 public class TradutorUniversal extends JavaPlugin {
@@ -23,7 +28,13 @@ public class TradutorUniversal extends JavaPlugin {
    private TranslationDispatcher translationDispatcher;
    private TranslationSocketClient socketClient;
    private OpenAiTranslationService openAiTranslationService;
+   private TranslationService restTranslationService;
+   private TranslationRouter translationRouter;
+   private TranslationCache translationCache;
+   private TranslationMemoryStore translationMemoryStore;
    private MessageStore messageStore;
+   private Phrasebook phrasebook;
+   private PassthroughClassifier passthroughClassifier;
    private IpInfoService ipInfoService;
    private ChatListener chatListener;
    private DiscordIntegration discordIntegration;
@@ -38,40 +49,68 @@ public class TradutorUniversal extends JavaPlugin {
       this.translationConfig = TranslationConfig.loadOrCreate(dataDir, this.getLogger());
       this.languageStore = LanguageStore.loadOrCreate(dataDir, this.getLogger());
       this.messageStore = MessageStore.loadOrCreate(dataDir, this.getLogger());
+      this.phrasebook = Phrasebook.loadOrCreate(dataDir, this.getLogger());
       this.ipInfoService = new IpInfoService(this.translationConfig, this.getLogger());
       this.pendingChatStore = new PendingChatStore(this.translationConfig.pendingTtlSeconds);
+      ChatMetrics.TRACER.configure(dataDir, this.translationConfig, this.getLogger());
       if (isDiscordAvailable()) {
-         this.discordIntegration = new DiscordIntegration(dataDir, this.getLogger(), this.languageStore, this.translationConfig);
+         this.discordIntegration = new DiscordIntegration(dataDir, this.getLogger(), this.languageStore, this.translationConfig, HytalePlatform.INSTANCE, HytalePlatform.INSTANCE);
       } else {
          ((Api)LOGGER.atWarning()).log("Discord integration disabled (JDA not found on classpath).");
          this.discordIntegration = null;
       }
-      this.translationDispatcher = new TranslationDispatcher(this.pendingChatStore, this.getLogger(), this.discordIntegration);
-      this.openAiTranslationService = new OpenAiTranslationService(this.translationConfig, this.getLogger());
-      this.socketClient = new TranslationSocketClient(this.translationConfig, this.getLogger(), this.translationDispatcher);
+      this.translationDispatcher = new TranslationDispatcher(this.pendingChatStore, this.getLogger(), this.discordIntegration, HytalePlatform.INSTANCE, HytalePlatform.INSTANCE);
+      this.translationCache = new TranslationCache(this.translationConfig.translationCacheSize);
+      this.translationMemoryStore = TranslationMemoryStore.open(dataDir, this.getLogger(), this.translationConfig.translationMemoryMaxMb);
+      this.translationCache.setPersistentStore(this.translationMemoryStore);
+      this.passthroughClassifier = new PassthroughClassifier();
+      this.translationCache.setPassthroughClassifier(this.passthroughClassifier);
+      this.openAiTranslationService = new OpenAiTranslationService(this.translationConfig, this.getLogger(), this.translationCache);
+      this.socketClient = new TranslationSocketClient(this.translationConfig, this.getLogger(), this.translationDispatcher, this.translationCache);
+      this.openAiTranslationService.setRelay(this.socketClient);
+      this.restTranslationService = new TranslationService(this.translationConfig, this.getLogger());
+      ChatThrottle chatThrottle = new ChatThrottle();
+      this.openAiTranslationService.setChatThrottle(chatThrottle);
+      this.socketClient.setChatThrottle(chatThrottle);
+      this.restTranslationService.setChatThrottle(chatThrottle);
+      this.translationRouter = new TranslationRouter(
+            this.translationConfig,
+            this.getLogger(),
+            this.phrasebook,
+            List.of(this.openAiTranslationService, this.socketClient, this.restTranslationService)
+      );
       if (this.discordIntegration != null) {
-         this.discordIntegration.setSocketClient(this.socketClient);
-         this.discordIntegration.setOpenAiTranslationService(this.openAiTranslationService);
+         this.discordIntegration.setTranslationRouter(this.translationRouter);
       }
       this.socketClient.start();
+      registerGauges();
 
       this.chatListener = new ChatListener(
             this.translationConfig,
             this.languageStore,
-            this.socketClient,
+            this.translationRouter,
+            this.passthroughClassifier,
+            new LanguageDetector(this.getLogger()),
             this.pendingChatStore,
-            this.openAiTranslationService,
             this.translationDispatcher,
             this.getLogger(),
-            this.discordIntegration
+            this.discordIntegration,
+            HytalePlatform.INSTANCE,
+            HytalePlatform.INSTANCE
+      );
+      ChatEventSource chatEvents = handler -> this.getEventRegistry().registerGlobal(
+            PlayerChatEvent.class, event -> HytalePlatform.publish(event, handler)
       );
-      this.getEventRegistry().registerGlobal(PlayerChatEvent.class, this.chatListener::onChatEvent);
+      this.chatListener.setMessageStore(this.messageStore);
+      chatEvents.subscribe(this.chatListener::onChat);
 
       PlayerConnectListener connectListener = new PlayerConnectListener(this.translationConfig, this.languageStore, this.messageStore, this.ipInfoService, this.getLogger());
       this.getEventRegistry().registerGlobal(PlayerConnectEvent.class, connectListener::onPlayerConnect);
 
       CommandManager.get().register(new LanguageCommand(this.translationConfig, this.languageStore, this.messageStore));
       CommandManager.get().register(new ReloadCommand(this, this.translationConfig, this.languageStore, this.messageStore));
+      CommandManager.get().register(new StatsCommand(ChatMetrics.REGISTRY, this.translationRouter, this.passthroughClassifier, this.openAiTranslationService, this.socketClient, this.translationConfig, this.languageStore, this.messageStore));
+      CommandManager.get().register(new TraceCommand(ChatMetrics.TRACER, this.translationConfig, this.languageStore, this.messageStore));
 
       if (this.discordIntegration != null) {
          try {
@@ -93,17 +132,38 @@ public class TradutorUniversal extends JavaPlugin {
       if (this.openAiTranslationService != null) {
          this.openAiTranslationService.shutdown();
       }
+      if (this.translationMemoryStore != null) {
+         this.translationMemoryStore.shutdown();
+      }
+      ChatMetrics.TRACER.shutdown();
    }
 
    public void reloadTranslation() {
       Path dataDir = this.getDataDirectory();
       TranslationConfig refreshed = TranslationConfig.loadOrCreate(dataDir, this.getLogger());
       this.translationConfig.applyFrom(refreshed);
+      if (this.translationCache != null) {
+         this.translationCache.resize(this.translationConfig.translationCacheSize);
+      }
+      if (this.translationMemoryStore != null) {
+         this.translationMemoryStore.setBudgetMb(this.translationConfig.translationMemoryMaxMb);
+      }
+      ChatMetrics.TRACER.configure(dataDir, this.translationConfig, this.getLogger());
       this.languageStore.reload();
       if (this.messageStore != null) {
          this.messageStore.reload();
       }
+      if (this.phrasebook != null) {
+         this.phrasebook.reload();
+      }
+      if (this.openAiTranslationService != null) {
+         this.openAiTranslationService.applyConfig();
+      }
+      if (this.restTranslationService != null) {
+         this.restTranslationService.applyConfig();
+      }
       if (this.socketClient != null) {
+         this.socketClient.applyConfig();
          this.socketClient.reconnectNow();
       }
       if (this.discordIntegration != null) {
@@ -116,6 +176,35 @@ public class TradutorUniversal extends JavaPlugin {
       }
    }
 
+   private void registerGauges() {
+      MetricsRegistry metrics = ChatMetrics.REGISTRY;
+      OpenAiTranslationService openAi = this.openAiTranslationService;
+      TranslationSocketClient relay = this.socketClient;
+      PendingChatStore pending = this.pendingChatStore;
+      TranslationCache cache = this.translationCache;
+      metrics.gauge("cache.size", cache::size);
+      metrics.gauge("cache.hits", cache::getHits);
+      metrics.gauge("cache.persistent_hits", cache::getPersistentHits);
+      metrics.gauge("cache.misses", cache::getMisses);
+      metrics.gauge("cache.evictions", cache::getEvictions);
+      TranslationMemoryStore memory = this.translationMemoryStore;
+      if (memory != null) {
+         metrics.gauge("memory.entries", memory::size);
+         metrics.gauge("memory.hits", memory::getHits);
+         metrics.gauge("memory.misses", memory::getMisses);
+         metrics.gauge("memory.compactions", memory::getCompactions);
+         metrics.gauge("memory.used_bytes", memory::getFileBytes);
+         metrics.gauge("memory.file_bytes", memory::getMappedBytes);
+      }
+      metrics.gauge("openai.in_flight", openAi::getInFlightRequests);
+      metrics.gauge("openai.queued", openAi::getQueuedRequests);
+      metrics.gauge("openai.concurrency_limit", openAi::getConcurrencyLimit);
+      metrics.gauge("openai.batch_pending", openAi::getBatchPending);
+      metrics.gauge("ws.in_flight", relay::getInFlightRequests);
+      metrics.gauge("ws.concurrency_limit", relay::getConcurrencyLimit);
+      metrics.gauge("pending.chats", pending::size);
+   }
+
    private boolean isDiscordAvailable() {
       try {
          ClassLoader loader = this.getClass().getClassLoader();
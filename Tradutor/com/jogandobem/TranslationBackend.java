@@ -0,0 +1,30 @@
+package com.jogandobem;
+
+import com.jogandobem.SocketModels.ChatPayload;
+import com.jogandobem.TranslationModels.TranslationResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * A service that can translate one chat payload. {@link TranslationRouter} picks among the configured
+ * backends and fails over when one of them does not answer.
+ */
+public interface TranslationBackend {
+   /**
+    * Short, stable name used in {@code backend_weights}, logs and metrics.
+    */
+   String getName();
+
+   /**
+    * True when the backend is configured and its circuit breaker lets calls through.
+    */
+   boolean isAvailable();
+
+   /**
+    * Translates {@code payload}. Completes with {@code null} (or exceptionally) when nothing usable
+    * came back, so the router can try the next backend. {@code partialListener}, when given, may
+    * receive translations ahead of the final response; the final response then leaves those
+    * recipients out.
+    */
+   CompletableFuture<TranslationResponse> translate(ChatPayload payload, Consumer<TranslationResponse> partialListener);
+}
@@ -0,0 +1,197 @@
+package com.jogandobem;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class TranslationCache {
+   private static final char KEY_SEPARATOR = '\u0000';
+   private static final int MIN_ENTRIES = 16;
+
+   private final Object lock = new Object();
+   private final LinkedHashMap<String, String> entries;
+   private final AtomicLong hits = new AtomicLong();
+   private final AtomicLong misses = new AtomicLong();
+   private final AtomicLong evictions = new AtomicLong();
+   private final AtomicLong persistentHits = new AtomicLong();
+   private volatile int maxEntries;
+   private volatile TranslationMemoryStore persistentStore;
+   private volatile PassthroughClassifier passthroughClassifier;
+
+   public TranslationCache(int maxEntries) {
+      this.maxEntries = Math.max(MIN_ENTRIES, maxEntries);
+      this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+         @Override
+         protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            if (size() > TranslationCache.this.maxEntries) {
+               TranslationCache.this.evictions.incrementAndGet();
+               return true;
+            }
+            return false;
+         }
+      };
+   }
+
+   public void setPersistentStore(TranslationMemoryStore persistentStore) {
+      this.persistentStore = persistentStore;
+   }
+
+   public void setPassthroughClassifier(PassthroughClassifier passthroughClassifier) {
+      this.passthroughClassifier = passthroughClassifier;
+   }
+
+   public String get(String text, String sourceLanguage, String targetLanguage, String model) {
+      String key = buildKey(text, sourceLanguage, targetLanguage, model);
+      String value;
+      synchronized (this.lock) {
+         value = this.entries.get(key);
+      }
+      if (value != null) {
+         this.hits.incrementAndGet();
+         return value;
+      }
+      TranslationMemoryStore store = this.persistentStore;
+      if (store != null) {
+         value = store.get(key);
+         if (value != null) {
+            synchronized (this.lock) {
+               this.entries.put(key, value);
+            }
+            this.persistentHits.incrementAndGet();
+            return value;
+         }
+      }
+      this.misses.incrementAndGet();
+      return null;
+   }
+
+   /**
+    * Stores a translation without teaching the passthrough classifier: for answers from a relay,
+    * which may echo the original text when it could not translate.
+    */
+   public void put(String text, String sourceLanguage, String targetLanguage, String model, String translated) {
+      if (translated == null || translated.isBlank()) {
+         return;
+      }
+      String key = buildKey(text, sourceLanguage, targetLanguage, model);
+      synchronized (this.lock) {
+         this.entries.put(key, translated);
+      }
+      TranslationMemoryStore store = this.persistentStore;
+      if (store != null) {
+         store.put(key, translated);
+      }
+   }
+
+   /**
+    * Stores what the model just returned for this line and lets the passthrough classifier learn
+    * from it. Hits never feed the classifier: only fresh model output says whether a line changes.
+    */
+   public void putFresh(String text, String sourceLanguage, String targetLanguage, String model, String translated) {
+      if (translated == null || translated.isBlank()) {
+         return;
+      }
+      put(text, sourceLanguage, targetLanguage, model, translated);
+      PassthroughClassifier classifier = this.passthroughClassifier;
+      if (classifier != null) {
+         classifier.learn(text, sourceLanguage, targetLanguage, translated);
+      }
+   }
+
+   public void resize(int maxEntries) {
+      int resolved = Math.max(MIN_ENTRIES, maxEntries);
+      synchronized (this.lock) {
+         this.maxEntries = resolved;
+         Iterator<String> it = this.entries.keySet().iterator();
+         while (this.entries.size() > resolved && it.hasNext()) {
+            it.next();
+            it.remove();
+            this.evictions.incrementAndGet();
+         }
+      }
+   }
+
+   public void clear() {
+      synchronized (this.lock) {
+         this.entries.clear();
+      }
+   }
+
+   public int size() {
+      synchronized (this.lock) {
+         return this.entries.size();
+      }
+   }
+
+   public int getMaxEntries() {
+      return this.maxEntries;
+   }
+
+   public long getHits() {
+      return this.hits.get();
+   }
+
+   public long getPersistentHits() {
+      return this.persistentHits.get();
+   }
+
+   public long getMisses() {
+      return this.misses.get();
+   }
+
+   public long getEvictions() {
+      return this.evictions.get();
+   }
+
+   /**
+    * Whether {@code translated} is just {@code original} again, ignoring case and whitespace.
+    */
+   public static boolean sameText(String original, String translated) {
+      return normalizeText(original).equalsIgnoreCase(normalizeText(translated));
+   }
+
+   public static String normalizeText(String text) {
+      if (text == null) {
+         return "";
+      }
+      String trimmed = text.trim();
+      StringBuilder out = new StringBuilder(trimmed.length());
+      boolean lastWasSpace = false;
+      for (int i = 0; i < trimmed.length(); i++) {
+         char c = trimmed.charAt(i);
+         if (Character.isWhitespace(c)) {
+            if (!lastWasSpace) {
+               out.append(' ');
+            }
+            lastWasSpace = true;
+            continue;
+         }
+         out.append(c);
+         lastWasSpace = false;
+      }
+      return out.toString();
+   }
+
+   /**
+    * Key of one (text, source, target, model) entry. Also used to coalesce identical requests that
+    * are still in flight.
+    */
+   static String buildKey(String text, String sourceLanguage, String targetLanguage, String model) {
+      String normalizedText = normalizeText(text);
+      StringBuilder key = new StringBuilder(normalizedText.length() + 32);
+      key.append(normalizeLanguage(sourceLanguage)).append(KEY_SEPARATOR);
+      key.append(normalizeLanguage(targetLanguage)).append(KEY_SEPARATOR);
+      key.append(model == null ? "" : model.trim()).append(KEY_SEPARATOR);
+      key.append(normalizedText);
+      return key.toString();
+   }
+
+   private static String normalizeLanguage(String language) {
+      if (language == null) {
+         return "";
+      }
+      return language.trim().toLowerCase(Locale.ROOT);
+   }
+}
@@ -12,6 +12,8 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public final class TranslationConfig {
    private static final String FILE_NAME = "translator_config.json";
@@ -58,6 +60,73 @@ public final class TranslationConfig {
    @SerializedName("openai_model")
    public String openAiModel;
 
+   @SerializedName("openai_endpoint")
+   public String openAiEndpoint;
+
+   @SerializedName("translation_cache_size")
+   public int translationCacheSize;
+
+   @SerializedName("translation_memory_max_mb")
+   public int translationMemoryMaxMb;
+
+   // 0 turns batching off; -1 marks the key as missing from the file.
+   @SerializedName("openai_batch_window_ms")
+   public int openAiBatchWindowMs = -1;
+
+   @SerializedName("openai_batch_max_size")
+   public int openAiBatchMaxSize;
+   @SerializedName("openai_max_concurrency")
+   public int openAiMaxConcurrency;
+   // 0 means no wait queue; -1 marks the key as missing from the file.
+   @SerializedName("translation_max_queue")
+   public int translationMaxQueue = -1;
+   @SerializedName("ws_max_in_flight")
+   public int wsMaxInFlight;
+   @SerializedName("circuit_failure_rate_percent")
+   public int circuitFailureRatePercent;
+   @SerializedName("circuit_slow_call_ms")
+   public int circuitSlowCallMs;
+   @SerializedName("circuit_open_seconds")
+   public int circuitOpenSeconds;
+   @SerializedName("circuit_minimum_calls")
+   public int circuitMinimumCalls;
+   @SerializedName("openai_hedging")
+   public boolean openAiHedging;
+   @SerializedName("openai_hedge_percentile")
+   public int openAiHedgePercentile;
+   @SerializedName("openai_hedge_budget_percent")
+   public int openAiHedgeBudgetPercent;
+   @SerializedName("openai_race_relay")
+   public boolean openAiRaceRelay;
+   @SerializedName("openai_streaming")
+   public boolean openAiStreaming;
+   @SerializedName("openai_split_threshold_chars")
+   public int openAiSplitThresholdChars;
+   @SerializedName("openai_split_languages_per_request")
+   public int openAiSplitLanguagesPerRequest;
+   @SerializedName("trace_slow_ms")
+   public int traceSlowMs;
+   // 0 keeps only slow traces; -1 marks the key as missing from the file.
+   @SerializedName("trace_sample_percent")
+   public int traceSamplePercent = -1;
+   @SerializedName("trace_file_max_kb")
+   public int traceFileMaxKb;
+   @SerializedName("backend_weights")
+   public Map<String, Integer> backendWeights;
+   @SerializedName("backend_timeout_ms")
+   public int backendTimeoutMs;
+
+   @SerializedName("language_detection_min_confidence")
+   public int languageDetectionMinConfidence;
+
+   // 0 turns these off, so a key missing from the file is told apart by -1 and gets the default.
+   @SerializedName("chat_rate_per_minute")
+   public int chatRatePerMinute = -1;
+   @SerializedName("chat_rate_burst")
+   public int chatRateBurst = -1;
+   @SerializedName("chat_duplicate_window_seconds")
+   public int chatDuplicateWindowSeconds = -1;
+
    public static TranslationConfig loadOrCreate(Path dataDir, HytaleLogger logger) {
       Gson gson = new GsonBuilder().setPrettyPrinting().create();
       TranslationConfig defaults = defaultConfig();
@@ -129,6 +198,42 @@ public final class TranslationConfig {
       this.pendingTtlSeconds = other.pendingTtlSeconds;
       this.openAiApiKey = other.openAiApiKey;
       this.openAiModel = other.openAiModel;
+      this.openAiEndpoint = other.openAiEndpoint;
+      this.translationCacheSize = other.translationCacheSize;
+      this.translationMemoryMaxMb = other.translationMemoryMaxMb;
+      this.openAiBatchWindowMs = other.openAiBatchWindowMs;
+      this.openAiBatchMaxSize = other.openAiBatchMaxSize;
+      this.openAiMaxConcurrency = other.openAiMaxConcurrency;
+      this.translationMaxQueue = other.translationMaxQueue;
+      this.wsMaxInFlight = other.wsMaxInFlight;
+      this.circuitFailureRatePercent = other.circuitFailureRatePercent;
+      this.circuitSlowCallMs = other.circuitSlowCallMs;
+      this.circuitOpenSeconds = other.circuitOpenSeconds;
+      this.circuitMinimumCalls = other.circuitMinimumCalls;
+      this.openAiHedging = other.openAiHedging;
+      this.openAiHedgePercentile = other.openAiHedgePercentile;
+      this.openAiHedgeBudgetPercent = other.openAiHedgeBudgetPercent;
+      this.openAiRaceRelay = other.openAiRaceRelay;
+      this.openAiStreaming = other.openAiStreaming;
+      this.openAiSplitThresholdChars = other.openAiSplitThresholdChars;
+      this.openAiSplitLanguagesPerRequest = other.openAiSplitLanguagesPerRequest;
+      this.traceSlowMs = other.traceSlowMs;
+      this.traceSamplePercent = other.traceSamplePercent;
+      this.traceFileMaxKb = other.traceFileMaxKb;
+      this.backendWeights = other.backendWeights;
+      this.backendTimeoutMs = other.backendTimeoutMs;
+      this.languageDetectionMinConfidence = other.languageDetectionMinConfidence;
+      this.chatRatePerMinute = other.chatRatePerMinute;
+      this.chatRateBurst = other.chatRateBurst;
+      this.chatDuplicateWindowSeconds = other.chatDuplicateWindowSeconds;
+   }
+
+   /**
+    * HTTP timeout for one backend call: {@code api_timeout_ms}, but never longer than the router
+    * waits for the backend ({@code backend_timeout_ms}), so an abandoned call does not keep running.
+    */
+   public long getRequestTimeoutMs() {
+      return Math.min(Math.max(1000, this.apiTimeoutMs), Math.max(1000, this.backendTimeoutMs));
    }
 
    public String getEndpoint() {
@@ -158,6 +263,37 @@ public final class TranslationConfig {
       cfg.pendingTtlSeconds = 30;
       cfg.openAiApiKey = "YOUR_OPENAI_API_KEY_HERE";
       cfg.openAiModel = "gpt-5-nano";
+      cfg.openAiEndpoint = "https://api.openai.com/v1/responses";
+      cfg.translationCacheSize = 5000;
+      cfg.translationMemoryMaxMb = 64;
+      cfg.openAiBatchWindowMs = 50;
+      cfg.openAiBatchMaxSize = 16;
+      cfg.openAiMaxConcurrency = 16;
+      cfg.translationMaxQueue = 64;
+      cfg.wsMaxInFlight = 64;
+      cfg.circuitFailureRatePercent = 50;
+      cfg.circuitSlowCallMs = 6000;
+      cfg.circuitOpenSeconds = 15;
+      cfg.circuitMinimumCalls = 8;
+      cfg.openAiHedging = false;
+      cfg.openAiHedgePercentile = 95;
+      cfg.openAiHedgeBudgetPercent = 10;
+      cfg.openAiRaceRelay = false;
+      cfg.openAiStreaming = false;
+      cfg.openAiSplitThresholdChars = 1200;
+      cfg.openAiSplitLanguagesPerRequest = 4;
+      cfg.traceSlowMs = 3000;
+      cfg.traceSamplePercent = 10;
+      cfg.traceFileMaxKb = 1024;
+      cfg.backendWeights = new LinkedHashMap<>();
+      cfg.backendWeights.put("openai", 100);
+      cfg.backendWeights.put("ws", 0);
+      cfg.backendWeights.put("rest", 0);
+      cfg.backendTimeoutMs = 15000;
+      cfg.languageDetectionMinConfidence = 90;
+      cfg.chatRatePerMinute = 30;
+      cfg.chatRateBurst = 10;
+      cfg.chatDuplicateWindowSeconds = 15;
       return cfg;
    }
 
@@ -201,6 +337,81 @@ public final class TranslationConfig {
       if (this.openAiModel == null || this.openAiModel.isBlank()) {
          this.openAiModel = defaults.openAiModel;
       }
+      if (this.openAiEndpoint == null || this.openAiEndpoint.isBlank()) {
+         this.openAiEndpoint = defaults.openAiEndpoint;
+      }
+      if (this.translationCacheSize <= 0) {
+         this.translationCacheSize = defaults.translationCacheSize;
+      }
+      if (this.translationMemoryMaxMb <= 0) {
+         this.translationMemoryMaxMb = defaults.translationMemoryMaxMb;
+      }
+      if (this.openAiBatchWindowMs < 0) {
+         this.openAiBatchWindowMs = defaults.openAiBatchWindowMs;
+      }
+      if (this.openAiBatchMaxSize <= 0) {
+         this.openAiBatchMaxSize = defaults.openAiBatchMaxSize;
+      }
+      if (this.openAiMaxConcurrency <= 0) {
+         this.openAiMaxConcurrency = defaults.openAiMaxConcurrency;
+      }
+      if (this.translationMaxQueue < 0) {
+         this.translationMaxQueue = defaults.translationMaxQueue;
+      }
+      if (this.wsMaxInFlight <= 0) {
+         this.wsMaxInFlight = defaults.wsMaxInFlight;
+      }
+      if (this.circuitFailureRatePercent <= 0) {
+         this.circuitFailureRatePercent = defaults.circuitFailureRatePercent;
+      }
+      if (this.circuitSlowCallMs <= 0) {
+         this.circuitSlowCallMs = defaults.circuitSlowCallMs;
+      }
+      if (this.circuitOpenSeconds <= 0) {
+         this.circuitOpenSeconds = defaults.circuitOpenSeconds;
+      }
+      if (this.circuitMinimumCalls <= 0) {
+         this.circuitMinimumCalls = defaults.circuitMinimumCalls;
+      }
+      if (this.openAiHedgePercentile <= 0) {
+         this.openAiHedgePercentile = defaults.openAiHedgePercentile;
+      }
+      if (this.openAiHedgeBudgetPercent <= 0) {
+         this.openAiHedgeBudgetPercent = defaults.openAiHedgeBudgetPercent;
+      }
+      if (this.openAiSplitThresholdChars <= 0) {
+         this.openAiSplitThresholdChars = defaults.openAiSplitThresholdChars;
+      }
+      if (this.openAiSplitLanguagesPerRequest <= 0) {
+         this.openAiSplitLanguagesPerRequest = defaults.openAiSplitLanguagesPerRequest;
+      }
+      if (this.traceSlowMs <= 0) {
+         this.traceSlowMs = defaults.traceSlowMs;
+      }
+      if (this.traceSamplePercent < 0) {
+         this.traceSamplePercent = defaults.traceSamplePercent;
+      }
+      if (this.traceFileMaxKb <= 0) {
+         this.traceFileMaxKb = defaults.traceFileMaxKb;
+      }
+      if (this.backendWeights == null || this.backendWeights.isEmpty()) {
+         this.backendWeights = defaults.backendWeights;
+      }
+      if (this.backendTimeoutMs <= 0) {
+         this.backendTimeoutMs = defaults.backendTimeoutMs;
+      }
+      if (this.languageDetectionMinConfidence <= 0) {
+         this.languageDetectionMinConfidence = defaults.languageDetectionMinConfidence;
+      }
+      if (this.chatRatePerMinute < 0) {
+         this.chatRatePerMinute = defaults.chatRatePerMinute;
+      }
+      if (this.chatRateBurst < 0) {
+         this.chatRateBurst = defaults.chatRateBurst;
+      }
+      if (this.chatDuplicateWindowSeconds < 0) {
+         this.chatDuplicateWindowSeconds = defaults.chatDuplicateWindowSeconds;
+      }
    }
 
    private static void writeConfig(Path path, TranslationConfig cfg, Gson gson, HytaleLogger logger) {
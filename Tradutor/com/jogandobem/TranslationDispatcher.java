@@ -2,14 +2,15 @@ package com.jogandobem;
 
 import com.jogandobem.PendingChatStore.PendingChat;
 import com.jogandobem.discord.DiscordIntegration;
+import com.jogandobem.platform.ChatMessage;
+import com.jogandobem.platform.ChatPlayer;
+import com.jogandobem.platform.MessageSink;
+import com.jogandobem.platform.PlayerRoster;
 import com.jogandobem.TranslationModels.TranslationResponse;
 import com.jogandobem.TranslationModels.TranslationResult;
 import com.hypixel.hytale.logger.HytaleLogger;
 import com.hypixel.hytale.logger.HytaleLogger.Api;
-import com.hypixel.hytale.server.core.Message;
 import com.hypixel.hytale.server.core.event.events.player.PlayerChatEvent;
-import com.hypixel.hytale.server.core.universe.PlayerRef;
-import com.hypixel.hytale.server.core.universe.Universe;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
@@ -20,19 +21,33 @@ public final class TranslationDispatcher {
    private final PendingChatStore pendingStore;
    private final HytaleLogger logger;
    private final DiscordIntegration discordIntegration;
+   private final PlayerRoster roster;
+   private final MessageSink sink;
 
-   public TranslationDispatcher(PendingChatStore pendingStore, HytaleLogger logger, DiscordIntegration discordIntegration) {
+   public TranslationDispatcher(PendingChatStore pendingStore,
+                                HytaleLogger logger,
+                                DiscordIntegration discordIntegration,
+                                PlayerRoster roster,
+                                MessageSink sink) {
       this.pendingStore = pendingStore;
       this.logger = logger;
       this.discordIntegration = discordIntegration;
+      this.roster = roster;
+      this.sink = sink;
    }
 
    public void dispatch(String messageId, TranslationResponse response) {
+      boolean discordMessage = messageId != null && messageId.startsWith("discord:");
       if (response == null || response.traducao == null || response.traducao.isEmpty()) {
+         if (!discordMessage) {
+            // Every recipient may already have been served by partial deliveries.
+            this.pendingStore.remove(messageId);
+            ChatMetrics.TRACER.finish(messageId);
+         }
          return;
       }
 
-      if (messageId != null && messageId.startsWith("discord:")) {
+      if (discordMessage) {
          if (this.discordIntegration != null) {
             this.discordIntegration.handleTranslatedDiscordToGame(messageId, response);
          }
@@ -40,19 +55,41 @@ public final class TranslationDispatcher {
       }
 
       PendingChat pending = this.pendingStore.remove(messageId);
-      PlayerRef sender = pending == null ? null : pending.sender;
+      deliver(messageId, pending, response);
+      if (pending != null) {
+         ChatMetrics.END_TO_END.recordSince(pending.receivedNanos);
+      }
+      ChatMetrics.TRACER.finish(messageId);
+   }
+
+   /**
+    * Delivers part of a translation ahead of the final response, keeping the pending chat so the
+    * remaining recipients can still be served with the original formatter.
+    */
+   public void dispatchPartial(String messageId, TranslationResponse response) {
+      if (response == null || response.traducao == null || response.traducao.isEmpty()) {
+         return;
+      }
+      if (messageId != null && messageId.startsWith("discord:")) {
+         return;
+      }
+      deliver(messageId, this.pendingStore.get(messageId), response);
+   }
+
+   private void deliver(String messageId, PendingChat pending, TranslationResponse response) {
+      long startNanos = System.nanoTime();
+      ChatMetrics.TRACER.markAt(messageId, MessageTracer.Stage.DISPATCH_STARTED, startNanos);
+      ChatPlayer sender = pending == null ? null : pending.sender;
       String senderName = pending == null ? null : pending.senderName;
-      PlayerChatEvent.Formatter formatter = pending == null || pending.formatter == null
-            ? PlayerChatEvent.DEFAULT_FORMATTER
-            : pending.formatter;
+      PlayerChatEvent.Formatter formatter = pending == null ? null : pending.formatter;
 
-      Map<String, PlayerRef> playersByName = buildPlayersByName();
+      Map<String, ChatPlayer> playersByName = buildPlayersByName();
       if (sender == null) {
          String responseUuid = response.jogadorUuid;
          if (responseUuid != null && !responseUuid.isBlank()) {
             try {
                UUID uuid = UUID.fromString(responseUuid);
-               sender = Universe.get().getPlayer(uuid);
+               sender = this.roster.getPlayer(uuid);
             } catch (IllegalArgumentException ignored) {
             }
          }
@@ -86,7 +123,7 @@ public final class TranslationDispatcher {
          if (senderName != null && targetName.equalsIgnoreCase(senderName)) {
             continue;
          }
-         PlayerRef target = playersByName.get(targetName.toLowerCase(Locale.ROOT));
+         ChatPlayer target = playersByName.get(targetName.toLowerCase(Locale.ROOT));
          if (target == null) {
             continue;
          }
@@ -94,29 +131,23 @@ public final class TranslationDispatcher {
          if (text == null) {
             continue;
          }
-         Message message;
-         if (sender != null) {
-            message = formatter.format(sender, text);
-         } else if (senderName != null && !senderName.isBlank()) {
-            message = Message.raw(senderName + ": " + text);
-         } else {
-            message = Message.raw(text);
-         }
          try {
-            target.sendMessage(message);
+            this.sink.send(target, ChatMessage.chat(sender, senderName, formatter, text));
          } catch (Exception e) {
             ((Api) this.logger.atWarning().withCause(e)).log("ChatTranslation failed to send translated message");
          }
       }
+      ChatMetrics.DISPATCH_FANOUT.recordSince(startNanos);
+      ChatMetrics.TRACER.mark(messageId, MessageTracer.Stage.DELIVERED);
    }
 
-   private Map<String, PlayerRef> buildPlayersByName() {
-      List<PlayerRef> players = Universe.get().getPlayers();
-      Map<String, PlayerRef> map = new HashMap<>();
+   private Map<String, ChatPlayer> buildPlayersByName() {
+      List<ChatPlayer> players = this.roster.getPlayers();
+      Map<String, ChatPlayer> map = new HashMap<>();
       if (players == null) {
          return map;
       }
-      for (PlayerRef player : players) {
+      for (ChatPlayer player : players) {
          if (player == null) {
             continue;
          }
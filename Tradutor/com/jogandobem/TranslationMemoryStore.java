@@ -0,0 +1,404 @@
+package com.jogandobem;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.logger.HytaleLogger.Api;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only translation memory backed by a memory-mapped segment file.
+ *
+ * <p>Layout: a 16 byte header (magic, version, write position) followed by records of
+ * {@code [int keyLength][int valueLength][key bytes][value bytes]}. Only an index of
+ * key hash to record offset is kept on the heap; values are read from the mapping on demand.
+ *
+ * <p>The file grows in powers of two from 1 MB. Compaction rewrites the records in place and then
+ * truncates the file to the smallest such size that still holds them. Windows refuses to truncate a
+ * file that is still mapped, so there the file keeps its size until the server restarts.
+ */
+public final class TranslationMemoryStore {
+   private static final String FILE_NAME = "translation_memory.dat";
+   private static final int MAGIC = 0x544D454D;
+   private static final int VERSION = 1;
+   private static final int HEADER_SIZE = 16;
+   private static final int RECORD_HEADER_SIZE = 8;
+   private static final int POSITION_OFFSET = 8;
+   private static final long INITIAL_CAPACITY = 1L << 20;
+   private static final long MIN_BUDGET_BYTES = 1L << 20;
+   private static final long MAX_BUDGET_BYTES = 1L << 30;
+   private static final int MAX_KEY_BYTES = 8192;
+   private static final int MAX_VALUE_BYTES = 16384;
+   private static final long COMPACTION_INTERVAL_SECONDS = 300L;
+
+   private final Path filePath;
+   private final HytaleLogger logger;
+   private final Object lock = new Object();
+   private final Map<Long, Long> index = new HashMap<>();
+   private final ScheduledExecutorService compactor = Executors.newSingleThreadScheduledExecutor();
+   private final AtomicBoolean compactionScheduled = new AtomicBoolean(false);
+   private final AtomicLong hits = new AtomicLong();
+   private final AtomicLong misses = new AtomicLong();
+   private final AtomicLong compactions = new AtomicLong();
+   private FileChannel channel;
+   private MappedByteBuffer buffer;
+   private long writePosition;
+   private long liveBytes;
+   private volatile long budgetBytes;
+
+   private TranslationMemoryStore(Path filePath, HytaleLogger logger, long budgetBytes) {
+      this.filePath = filePath;
+      this.logger = logger;
+      this.budgetBytes = clampBudget(budgetBytes);
+   }
+
+   public static TranslationMemoryStore open(Path dataDir, HytaleLogger logger, int budgetMb) {
+      Path dir = dataDir == null ? Path.of(".") : dataDir;
+      try {
+         Files.createDirectories(dir);
+      } catch (IOException e) {
+         ((Api) logger.atWarning().withCause(e)).log("ChatTranslation failed to create data directory");
+      }
+      TranslationMemoryStore store = new TranslationMemoryStore(dir.resolve(FILE_NAME), logger, budgetMb * 1024L * 1024L);
+      try {
+         store.load();
+      } catch (IOException e) {
+         ((Api) logger.atWarning().withCause(e)).log("ChatTranslation failed to open translation_memory.dat. Persistent memory disabled.");
+         store.closeQuietly();
+         return null;
+      }
+      store.compactor.scheduleWithFixedDelay(store::compactIfNeeded, COMPACTION_INTERVAL_SECONDS, COMPACTION_INTERVAL_SECONDS, TimeUnit.SECONDS);
+      return store;
+   }
+
+   public String get(String key) {
+      if (key == null) {
+         return null;
+      }
+      long hash = hash(key);
+      synchronized (this.lock) {
+         Long offset = this.index.get(hash);
+         if (offset == null || this.buffer == null) {
+            this.misses.incrementAndGet();
+            return null;
+         }
+         int pos = (int) (long) offset;
+         int keyLength = this.buffer.getInt(pos);
+         int valueLength = this.buffer.getInt(pos + 4);
+         String storedKey = readString(pos + RECORD_HEADER_SIZE, keyLength);
+         if (!storedKey.equals(key)) {
+            this.misses.incrementAndGet();
+            return null;
+         }
+         this.hits.incrementAndGet();
+         return readString(pos + RECORD_HEADER_SIZE + keyLength, valueLength);
+      }
+   }
+
+   public void put(String key, String value) {
+      if (key == null || value == null || value.isBlank()) {
+         return;
+      }
+      byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+      byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+      if (keyBytes.length > MAX_KEY_BYTES || valueBytes.length > MAX_VALUE_BYTES) {
+         return;
+      }
+      long hash = hash(key);
+      boolean overBudget;
+      synchronized (this.lock) {
+         if (this.buffer == null) {
+            return;
+         }
+         int recordSize = RECORD_HEADER_SIZE + keyBytes.length + valueBytes.length;
+         try {
+            ensureCapacity(this.writePosition + recordSize);
+         } catch (IOException e) {
+            ((Api) this.logger.atWarning().withCause(e)).log("ChatTranslation failed to grow translation_memory.dat");
+            return;
+         }
+         int pos = (int) this.writePosition;
+         this.buffer.putInt(pos, keyBytes.length);
+         this.buffer.putInt(pos + 4, valueBytes.length);
+         this.buffer.put(pos + RECORD_HEADER_SIZE, keyBytes);
+         this.buffer.put(pos + RECORD_HEADER_SIZE + keyBytes.length, valueBytes);
+         Long previous = this.index.put(hash, this.writePosition);
+         if (previous != null) {
+            this.liveBytes -= recordSizeAt(previous);
+         }
+         this.liveBytes += recordSize;
+         this.writePosition += recordSize;
+         this.buffer.putLong(POSITION_OFFSET, this.writePosition);
+         overBudget = this.writePosition > this.budgetBytes;
+      }
+      if (overBudget) {
+         scheduleCompaction();
+      }
+   }
+
+   public void setBudgetMb(int budgetMb) {
+      this.budgetBytes = clampBudget(budgetMb * 1024L * 1024L);
+      scheduleCompaction();
+   }
+
+   public int size() {
+      synchronized (this.lock) {
+         return this.index.size();
+      }
+   }
+
+   public long getFileBytes() {
+      synchronized (this.lock) {
+         return this.writePosition;
+      }
+   }
+
+   /**
+    * Size of the mapping, which is the size of the file on disk unless a truncate failed.
+    */
+   public long getMappedBytes() {
+      synchronized (this.lock) {
+         return this.buffer == null ? 0L : this.buffer.capacity();
+      }
+   }
+
+   public long getHits() {
+      return this.hits.get();
+   }
+
+   public long getMisses() {
+      return this.misses.get();
+   }
+
+   public long getCompactions() {
+      return this.compactions.get();
+   }
+
+   public void shutdown() {
+      this.compactor.shutdownNow();
+      synchronized (this.lock) {
+         if (this.buffer != null) {
+            this.buffer.force();
+         }
+         closeQuietly();
+      }
+   }
+
+   private void load() throws IOException {
+      synchronized (this.lock) {
+         this.channel = FileChannel.open(this.filePath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+         long fileSize = this.channel.size();
+         map(Math.max(INITIAL_CAPACITY, fileSize));
+         if (fileSize < HEADER_SIZE || this.buffer.getInt(0) != MAGIC || this.buffer.getInt(4) != VERSION) {
+            if (fileSize > 0) {
+               ((Api) this.logger.atWarning()).log("ChatTranslation translation_memory.dat has unknown format. Starting empty.");
+            }
+            resetHeader();
+            return;
+         }
+         long storedPosition = this.buffer.getLong(POSITION_OFFSET);
+         long limit = Math.min(storedPosition, this.buffer.capacity());
+         long pos = HEADER_SIZE;
+         while (pos + RECORD_HEADER_SIZE <= limit) {
+            int p = (int) pos;
+            int keyLength = this.buffer.getInt(p);
+            int valueLength = this.buffer.getInt(p + 4);
+            if (keyLength <= 0 || valueLength < 0 || keyLength > MAX_KEY_BYTES || valueLength > MAX_VALUE_BYTES) {
+               break;
+            }
+            long recordSize = RECORD_HEADER_SIZE + (long) keyLength + valueLength;
+            if (pos + recordSize > limit) {
+               break;
+            }
+            String key = readString(p + RECORD_HEADER_SIZE, keyLength);
+            Long previous = this.index.put(hash(key), pos);
+            if (previous != null) {
+               this.liveBytes -= recordSizeAt(previous);
+            }
+            this.liveBytes += recordSize;
+            pos += recordSize;
+         }
+         this.writePosition = pos;
+         this.buffer.putLong(POSITION_OFFSET, this.writePosition);
+         ((Api) this.logger.atInfo()).log("ChatTranslation translation memory loaded entries=" + this.index.size() + " bytes=" + this.writePosition);
+      }
+   }
+
+   private void resetHeader() {
+      this.index.clear();
+      this.liveBytes = 0L;
+      this.buffer.putInt(0, MAGIC);
+      this.buffer.putInt(4, VERSION);
+      this.writePosition = HEADER_SIZE;
+      this.buffer.putLong(POSITION_OFFSET, this.writePosition);
+   }
+
+   private void map(long capacity) throws IOException {
+      if (capacity > Integer.MAX_VALUE) {
+         throw new IOException("translation memory segment too large: " + capacity);
+      }
+      this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+   }
+
+   private void ensureCapacity(long required) throws IOException {
+      long capacity = this.buffer.capacity();
+      if (required <= capacity) {
+         return;
+      }
+      long next = capacity;
+      while (next < required) {
+         next = next * 2;
+      }
+      this.buffer.force();
+      map(Math.min(next, Integer.MAX_VALUE));
+   }
+
+   private void scheduleCompaction() {
+      if (this.compactionScheduled.compareAndSet(false, true)) {
+         try {
+            this.compactor.execute(this::compactIfNeeded);
+         } catch (Exception e) {
+            this.compactionScheduled.set(false);
+         }
+      }
+   }
+
+   void compactIfNeeded() {
+      try {
+         synchronized (this.lock) {
+            if (this.buffer == null) {
+               return;
+            }
+            long deadBytes = this.writePosition - HEADER_SIZE - this.liveBytes;
+            boolean overBudget = this.writePosition > this.budgetBytes;
+            boolean fragmented = this.writePosition > INITIAL_CAPACITY && deadBytes > this.liveBytes;
+            if (!overBudget && !fragmented) {
+               return;
+            }
+            compact();
+         }
+      } catch (Exception e) {
+         ((Api) this.logger.atWarning().withCause(e)).log("ChatTranslation translation memory compaction failed");
+      } finally {
+         this.compactionScheduled.set(false);
+      }
+   }
+
+   private void compact() {
+      List<Long> offsets = new ArrayList<>(this.index.values());
+      offsets.sort(null);
+      // Keep the newest records within half of the budget so compaction does not run on every append.
+      long target = this.budgetBytes / 2;
+      long kept = 0L;
+      int firstKept = offsets.size();
+      for (int i = offsets.size() - 1; i >= 0; i--) {
+         long size = recordSizeAt(offsets.get(i));
+         if (kept + size > target) {
+            break;
+         }
+         kept += size;
+         firstKept = i;
+      }
+
+      // Records are moved towards the start of the same mapping (destination never passes the source),
+      // so the segment is rewritten in place; the header marks the store empty until the copy finishes.
+      long before = this.writePosition;
+      this.buffer.putLong(POSITION_OFFSET, HEADER_SIZE);
+      Map<Long, Long> rebuilt = new HashMap<>();
+      long position = HEADER_SIZE;
+      for (int i = firstKept; i < offsets.size(); i++) {
+         int src = (int) (long) offsets.get(i);
+         int keyLength = this.buffer.getInt(src);
+         int size = (int) recordSizeAt(src);
+         long keyHash = hash(readString(src + RECORD_HEADER_SIZE, keyLength));
+         if (src != position) {
+            byte[] record = new byte[size];
+            this.buffer.get(src, record);
+            this.buffer.put((int) position, record);
+         }
+         rebuilt.put(keyHash, position);
+         position += size;
+      }
+      this.index.clear();
+      this.index.putAll(rebuilt);
+      this.writePosition = position;
+      this.liveBytes = position - HEADER_SIZE;
+      this.buffer.putLong(POSITION_OFFSET, this.writePosition);
+      this.buffer.force();
+      this.compactions.incrementAndGet();
+      shrink();
+      ((Api) this.logger.atInfo()).log(
+            "ChatTranslation translation memory compacted bytes=" + before + "->" + position
+                  + " entries=" + this.index.size() + " file=" + this.buffer.capacity()
+      );
+   }
+
+   /**
+    * Remaps to the smallest power-of-two capacity that holds the live records and truncates the file
+    * to it. The old, larger mapping is dropped first; on Windows it stays open until collected, the
+    * truncate fails and the file keeps its size.
+    */
+   private void shrink() {
+      long capacity = INITIAL_CAPACITY;
+      while (capacity < this.writePosition) {
+         capacity = capacity * 2;
+      }
+      if (capacity >= this.buffer.capacity()) {
+         return;
+      }
+      try {
+         map(capacity);
+         this.channel.truncate(capacity);
+      } catch (IOException e) {
+         // The smaller mapping (if it was created) is still valid: the file just did not shrink.
+      }
+   }
+
+   private long recordSizeAt(long offset) {
+      int pos = (int) offset;
+      return RECORD_HEADER_SIZE + (long) this.buffer.getInt(pos) + this.buffer.getInt(pos + 4);
+   }
+
+   private String readString(int offset, int length) {
+      byte[] bytes = new byte[length];
+      this.buffer.get(offset, bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+   }
+
+   private void closeQuietly() {
+      this.buffer = null;
+      if (this.channel != null) {
+         try {
+            this.channel.close();
+         } catch (IOException ignored) {
+         }
+         this.channel = null;
+      }
+   }
+
+   private static long clampBudget(long budgetBytes) {
+      return Math.min(MAX_BUDGET_BYTES, Math.max(MIN_BUDGET_BYTES, budgetBytes));
+   }
+
+   private static long hash(String key) {
+      long h = 0xcbf29ce484222325L;
+      for (int i = 0; i < key.length(); i++) {
+         h ^= key.charAt(i);
+         h *= 0x100000001b3L;
+      }
+      return h;
+   }
+}
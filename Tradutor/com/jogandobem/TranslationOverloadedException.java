@@ -0,0 +1,30 @@
+package com.jogandobem;
+
+import com.jogandobem.TranslationModels.TranslationResponse;
+
+/**
+ * Raised when a translation backend is at its concurrency limit and its wait queue is full, or when
+ * its circuit breaker is open.
+ * Callers are expected to deliver the original text instead of waiting. The router raises it once
+ * every backend gave up on a line and at least one of them shed it, carrying that original-text
+ * response for the recipients not served yet.
+ */
+public final class TranslationOverloadedException extends RuntimeException {
+   private final transient TranslationResponse fallback;
+
+   public TranslationOverloadedException(String message) {
+      this(message, null);
+   }
+
+   public TranslationOverloadedException(String message, TranslationResponse fallback) {
+      super(message);
+      this.fallback = fallback;
+   }
+
+   /**
+    * The original text for the recipients still waiting, or {@code null} when raised by a backend.
+    */
+   public TranslationResponse getFallback() {
+      return this.fallback;
+   }
+}
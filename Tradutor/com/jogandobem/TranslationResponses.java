@@ -0,0 +1,86 @@
+package com.jogandobem;
+
+import com.jogandobem.TranslationModels.TranslationResponse;
+import com.jogandobem.TranslationModels.TranslationResult;
+import com.jogandobem.TranslationModels.TranslationTarget;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+public final class TranslationResponses {
+   private TranslationResponses() {
+   }
+
+   public static TranslationResponse fromLanguageMap(
+         Map<String, String> byLanguage,
+         List<TranslationTarget> jogadoresOnline,
+         String textoOriginal,
+         String idiomaOriginal,
+         String jogador,
+         String jogadorUuid
+   ) {
+      return fromLanguageMap(byLanguage, jogadoresOnline, textoOriginal, idiomaOriginal, jogador, jogadorUuid, language -> true);
+   }
+
+   /**
+    * Same as {@link #fromLanguageMap(Map, List, String, String, String, String)} but only keeps the
+    * recipients whose normalized language passes {@code languageFilter}.
+    */
+   public static TranslationResponse fromLanguageMap(
+         Map<String, String> byLanguage,
+         List<TranslationTarget> jogadoresOnline,
+         String textoOriginal,
+         String idiomaOriginal,
+         String jogador,
+         String jogadorUuid,
+         Predicate<String> languageFilter
+   ) {
+      String baseLanguage = normalizeLanguage(idiomaOriginal);
+      List<TranslationResult> translatedItems = new ArrayList<>();
+      if (jogadoresOnline != null) {
+         for (TranslationTarget target : jogadoresOnline) {
+            if (target == null || target.jogador == null) {
+               continue;
+            }
+            String targetName = target.jogador.trim();
+            if (targetName.isEmpty()) {
+               continue;
+            }
+            String targetLanguage = normalizeLanguage(target.idioma);
+            if (!languageFilter.test(targetLanguage)) {
+               continue;
+            }
+            String text;
+            if (Objects.equals(targetLanguage, baseLanguage)) {
+               text = textoOriginal;
+            } else {
+               text = byLanguage.get(targetLanguage);
+               if (text == null || text.isBlank()) {
+                  text = textoOriginal;
+               }
+            }
+
+            TranslationResult result = new TranslationResult();
+            result.jogador = targetName;
+            result.textoTraduzido = text;
+            translatedItems.add(result);
+         }
+      }
+
+      TranslationResponse response = new TranslationResponse();
+      response.jogador = jogador;
+      response.jogadorUuid = jogadorUuid;
+      response.traducao = translatedItems;
+      return response;
+   }
+
+   public static String normalizeLanguage(String language) {
+      if (language == null) {
+         return "";
+      }
+      return language.trim().toLowerCase(Locale.ROOT);
+   }
+}
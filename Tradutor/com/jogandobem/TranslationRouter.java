@@ -0,0 +1,324 @@
+package com.jogandobem;
+
+import com.jogandobem.MetricsRegistry.Counter;
+import com.jogandobem.SocketModels.ChatPayload;
+import com.jogandobem.TranslationModels.TranslationResponse;
+import com.jogandobem.TranslationModels.TranslationResult;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.logger.HytaleLogger.Api;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Chooses the translation backend for each chat line and fails over to the next one when it errors,
+ * answers with nothing or takes longer than {@code backend_timeout_ms}.
+ *
+ * <p>The first backend is drawn at random among the available ones with a positive weight in
+ * {@code backend_weights}, each weight scaled down by how much slower the backend has recently been
+ * than the fastest one. The others follow as failover, by the same scaled weight and then by latency;
+ * weight {@code 0} makes a backend failover-only. Backends whose circuit is open are skipped.
+ *
+ * <p>Lines fully covered by the {@link Phrasebook} are answered locally and never reach a backend.
+ */
+public final class TranslationRouter {
+   private static final double LATENCY_SMOOTHING = 0.2;
+   private static final long UNAVAILABLE_WARN_INTERVAL_MS = 60_000L;
+   private static final long FAILURE_WARN_INTERVAL_MS = 60_000L;
+
+   private final TranslationConfig config;
+   private final HytaleLogger logger;
+   private final Phrasebook phrasebook;
+   private final List<Route> routes = new ArrayList<>();
+   private final Counter failovers = ChatMetrics.REGISTRY.counter("router.failover");
+   private final Counter exhausted = ChatMetrics.REGISTRY.counter("router.exhausted");
+   private final Counter overloaded = ChatMetrics.REGISTRY.counter("router.overloaded");
+   private final AtomicLong lastUnavailableWarn = new AtomicLong();
+   private final AtomicLong lastFailureWarn = new AtomicLong();
+
+   public TranslationRouter(TranslationConfig config, HytaleLogger logger, Phrasebook phrasebook, List<? extends TranslationBackend> backends) {
+      this.config = config;
+      this.logger = logger;
+      this.phrasebook = phrasebook;
+      for (TranslationBackend backend : backends) {
+         if (backend != null) {
+            this.routes.add(new Route(backend));
+         }
+      }
+   }
+
+   public boolean hasAvailableBackend() {
+      for (Route route : this.routes) {
+         if (route.backend.isAvailable()) {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   /**
+    * Translates through the routed backends. When every backend fails, the remaining recipients get
+    * the original text; if a backend shed the line for load, that response comes wrapped in a
+    * {@link TranslationOverloadedException} so the caller can tell the player.
+    */
+   public CompletableFuture<TranslationResponse> translate(ChatPayload payload, Consumer<TranslationResponse> partialListener) {
+      TranslationResponse local = this.phrasebook == null ? null : this.phrasebook.translate(payload);
+      if (local != null) {
+         return CompletableFuture.completedFuture(local);
+      }
+      CompletableFuture<TranslationResponse> result = new CompletableFuture<>();
+      DeliveredRecipients delivered = new DeliveredRecipients(partialListener);
+      List<Route> order = order();
+      if (order.isEmpty()) {
+         warnUnavailable();
+      }
+      attempt(payload, order, 0, delivered, result);
+      return result;
+   }
+
+   public TranslationResponse buildFallbackResponse(ChatPayload payload) {
+      return TranslationResponses.fromLanguageMap(
+            Map.of(),
+            payload.jogadoresOnline,
+            payload.textoOriginal == null ? "" : payload.textoOriginal,
+            payload.idiomaOriginal,
+            payload.jogador == null ? "" : payload.jogador,
+            payload.jogadorUuid == null ? "" : payload.jogadorUuid
+      );
+   }
+
+   /**
+    * Phrasebook hit rate, then one line per backend: weight, availability, smoothed latency and call
+    * counts.
+    */
+   public List<String> describe() {
+      List<String> lines = new ArrayList<>();
+      if (this.phrasebook != null) {
+         lines.addAll(this.phrasebook.describe());
+      }
+      for (Route route : this.routes) {
+         lines.add(String.format(Locale.ROOT, "backend.%s weight=%d available=%s latency=%.0fms ok=%d failed=%d",
+               route.backend.getName(),
+               weightOf(route),
+               route.backend.isAvailable(),
+               route.latencyMs,
+               route.successes.get(),
+               route.failures.get()
+         ));
+      }
+      return lines;
+   }
+
+   private void attempt(ChatPayload payload, List<Route> order, int index, DeliveredRecipients delivered, CompletableFuture<TranslationResponse> result) {
+      if (index >= order.size()) {
+         if (!order.isEmpty()) {
+            this.exhausted.increment();
+         }
+         TranslationResponse fallback = delivered.strip(buildFallbackResponse(payload));
+         if (delivered.overloaded) {
+            // Shed for load, not broken: let the caller tell the player instead of failing silently.
+            this.overloaded.increment();
+            result.completeExceptionally(new TranslationOverloadedException("every backend shed the line", fallback));
+         } else {
+            result.complete(fallback);
+         }
+         return;
+      }
+      Route route = order.get(index);
+      delivered.active = route;
+      Consumer<TranslationResponse> listener = delivered.downstream == null ? null : partial -> delivered.accept(route, partial);
+      long timeoutMs = Math.max(1000, this.config.backendTimeoutMs);
+      long start = System.nanoTime();
+      CompletableFuture<TranslationResponse> pending;
+      try {
+         pending = route.backend.translate(payload, listener);
+      } catch (RuntimeException e) {
+         pending = CompletableFuture.failedFuture(e);
+      }
+      CompletableFuture<TranslationResponse> backendCall = pending;
+      backendCall.copy().completeOnTimeout(null, timeoutMs, TimeUnit.MILLISECONDS).whenComplete((response, error) -> {
+         long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+         if (!backendCall.isDone()) {
+            // Timed out: tell the backend to stop instead of letting the call run to api_timeout_ms.
+            backendCall.cancel(true);
+         }
+         if (error == null && response != null) {
+            route.onSuccess(elapsedMs);
+            result.complete(delivered.strip(response));
+            return;
+         }
+         route.onFailure(elapsedMs);
+         Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+         if (cause instanceof TranslationOverloadedException) {
+            delivered.overloaded = true;
+         }
+         String reason = cause == null ? (elapsedMs >= timeoutMs ? "timeout" : "no translation") : cause.getClass().getSimpleName() + ": " + cause.getMessage();
+         boolean hasNext = index + 1 < order.size();
+         if (hasNext) {
+            this.failovers.increment();
+         }
+         warnFailure(route, reason, hasNext ? order.get(index + 1) : null);
+         attempt(payload, order, index + 1, delivered, result);
+      });
+   }
+
+   private List<Route> order() {
+      List<Candidate> candidates = new ArrayList<>(this.routes.size());
+      double fastest = Double.MAX_VALUE;
+      for (Route route : this.routes) {
+         if (route.backend.isAvailable()) {
+            candidates.add(new Candidate(route));
+            if (route.latencyMs > 0) {
+               fastest = Math.min(fastest, route.latencyMs);
+            }
+         }
+      }
+      double total = 0;
+      for (Candidate candidate : candidates) {
+         double latency = candidate.route.latencyMs;
+         double speed = fastest == Double.MAX_VALUE || latency <= 0 ? 1.0 : fastest / latency;
+         candidate.score = weightOf(candidate.route) * speed;
+         total += candidate.score;
+      }
+
+      List<Route> order = new ArrayList<>(candidates.size());
+      if (total > 0) {
+         double roll = ThreadLocalRandom.current().nextDouble(total);
+         for (int i = 0; i < candidates.size(); i++) {
+            roll -= candidates.get(i).score;
+            if (roll < 0 || i == candidates.size() - 1) {
+               order.add(candidates.remove(i).route);
+               break;
+            }
+         }
+      }
+      candidates.sort((a, b) -> {
+         int byScore = Double.compare(b.score, a.score);
+         return byScore != 0 ? byScore : Double.compare(a.route.latencyMs, b.route.latencyMs);
+      });
+      for (Candidate candidate : candidates) {
+         order.add(candidate.route);
+      }
+      return order;
+   }
+
+   private int weightOf(Route route) {
+      Map<String, Integer> weights = this.config.backendWeights;
+      Integer weight = weights == null ? null : weights.get(route.backend.getName());
+      return weight == null ? 0 : Math.max(0, weight);
+   }
+
+   /**
+    * One warning per minute at most; router.failover and router.exhausted carry the volume.
+    */
+   private void warnFailure(Route route, String reason, Route next) {
+      long now = System.currentTimeMillis();
+      long last = this.lastFailureWarn.get();
+      if (now - last >= FAILURE_WARN_INTERVAL_MS && this.lastFailureWarn.compareAndSet(last, now)) {
+         ((Api) this.logger.atWarning()).log(
+               "ChatTranslation backend " + route.backend.getName() + " failed (" + reason + ")"
+                     + (next != null ? ". Trying " + next.backend.getName() + "." : ". Delivering original text.")
+                     + " Further failures this minute are only counted (router.failover in /tstats)."
+         );
+      }
+   }
+
+   private void warnUnavailable() {
+      long now = System.currentTimeMillis();
+      long last = this.lastUnavailableWarn.get();
+      if (now - last >= UNAVAILABLE_WARN_INTERVAL_MS && this.lastUnavailableWarn.compareAndSet(last, now)) {
+         ((Api) this.logger.atWarning()).log(
+               "ChatTranslation no translation backend available: configure openai_api_key, ws_url/server_id or api_host. Delivering original text."
+         );
+      }
+   }
+
+   private static final class Candidate {
+      private final Route route;
+      private double score;
+
+      private Candidate(Route route) {
+         this.route = route;
+      }
+   }
+
+   private static final class Route {
+      private final TranslationBackend backend;
+      private final AtomicLong successes = new AtomicLong();
+      private final AtomicLong failures = new AtomicLong();
+      private volatile double latencyMs;
+
+      private Route(TranslationBackend backend) {
+         this.backend = backend;
+      }
+
+      private void onSuccess(long elapsedMs) {
+         this.successes.incrementAndGet();
+         recordLatency(elapsedMs);
+      }
+
+      private void onFailure(long elapsedMs) {
+         this.failures.incrementAndGet();
+         // A failure costs at least what the caller waited for it.
+         recordLatency(Math.max(elapsedMs, (long) this.latencyMs));
+      }
+
+      private synchronized void recordLatency(long elapsedMs) {
+         this.latencyMs = this.latencyMs <= 0 ? elapsedMs : this.latencyMs + LATENCY_SMOOTHING * (elapsedMs - this.latencyMs);
+      }
+   }
+
+   /**
+    * Forwards partial deliveries from the backend currently in charge and remembers who already got
+    * their line, so a failover answer does not deliver it twice.
+    */
+   private static final class DeliveredRecipients {
+      private final Consumer<TranslationResponse> downstream;
+      private final Set<String> names = ConcurrentHashMap.newKeySet();
+      private volatile Route active;
+      private volatile boolean overloaded;
+
+      private DeliveredRecipients(Consumer<TranslationResponse> downstream) {
+         this.downstream = downstream;
+      }
+
+      private void accept(Route from, TranslationResponse partial) {
+         if (from != this.active || partial == null || partial.traducao == null) {
+            return;
+         }
+         for (TranslationResult item : partial.traducao) {
+            if (item != null && item.jogador != null) {
+               this.names.add(item.jogador.trim().toLowerCase(Locale.ROOT));
+            }
+         }
+         this.downstream.accept(partial);
+      }
+
+      private TranslationResponse strip(TranslationResponse response) {
+         this.active = null;
+         if (this.names.isEmpty() || response.traducao == null) {
+            return response;
+         }
+         List<TranslationResult> remaining = new ArrayList<>(response.traducao.size());
+         for (TranslationResult item : response.traducao) {
+            if (item == null || item.jogador == null || !this.names.contains(item.jogador.trim().toLowerCase(Locale.ROOT))) {
+               remaining.add(item);
+            }
+         }
+         TranslationResponse stripped = new TranslationResponse();
+         stripped.jogador = response.jogador;
+         stripped.jogadorUuid = response.jogadorUuid;
+         stripped.traducao = remaining;
+         return stripped;
+      }
+   }
+}
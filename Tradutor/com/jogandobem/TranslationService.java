@@ -1,5 +1,6 @@
 package com.jogandobem;
 
+import com.jogandobem.SocketModels.ChatPayload;
 import com.jogandobem.TranslationModels.TranslationRequest;
 import com.jogandobem.TranslationModels.TranslationResponse;
 import com.google.gson.Gson;
@@ -11,12 +12,19 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
-public final class TranslationService {
+public final class TranslationService implements TranslationBackend {
    private final TranslationConfig config;
    private final HytaleLogger logger;
    private final Gson gson = new Gson();
    private final HttpClient httpClient;
+   private final CircuitBreaker breaker;
+   private volatile ChatThrottle chatThrottle;
 
    public TranslationService(TranslationConfig config, HytaleLogger logger) {
       this.config = config;
@@ -24,6 +32,33 @@ public final class TranslationService {
       this.httpClient = HttpClient.newBuilder()
             .connectTimeout(Duration.ofMillis(this.config.apiTimeoutMs))
             .build();
+      this.breaker = new CircuitBreaker(
+            "rest",
+            logger,
+            config.circuitFailureRatePercent,
+            config.circuitSlowCallMs,
+            config.circuitOpenSeconds * 1000L,
+            config.circuitMinimumCalls
+      );
+   }
+
+   /**
+    * Applies the circuit breaker settings of a reloaded config.
+    */
+   public void applyConfig() {
+      this.breaker.configure(
+            this.config.circuitFailureRatePercent,
+            this.config.circuitSlowCallMs,
+            this.config.circuitOpenSeconds * 1000L,
+            this.config.circuitMinimumCalls
+      );
+   }
+
+   /**
+    * Per-player limits checked before a line is sent to the REST API.
+    */
+   public void setChatThrottle(ChatThrottle chatThrottle) {
+      this.chatThrottle = chatThrottle;
    }
 
    public TranslationResponse translate(TranslationRequest request) {
@@ -36,23 +71,8 @@ public final class TranslationService {
       }
 
       try {
-         String payload = this.gson.toJson(request);
-         HttpRequest httpRequest = HttpRequest.newBuilder()
-               .uri(URI.create(endpoint))
-               .timeout(Duration.ofMillis(this.config.apiTimeoutMs))
-               .header("Content-Type", "application/json")
-               .POST(HttpRequest.BodyPublishers.ofString(payload))
-               .build();
-         HttpResponse<String> response = this.httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString());
-         if (response.statusCode() < 200 || response.statusCode() >= 300) {
-            ((Api) this.logger.atWarning()).log("ChatTranslation API returned status " + response.statusCode());
-            return null;
-         }
-         String body = response.body();
-         if (body == null || body.isBlank()) {
-            return null;
-         }
-         return this.gson.fromJson(body, TranslationResponse.class);
+         HttpResponse<String> response = this.httpClient.send(buildRequest(endpoint, request), HttpResponse.BodyHandlers.ofString());
+         return parseResponse(response);
       } catch (JsonParseException e) {
          ((Api) this.logger.atWarning().withCause(e)).log("ChatTranslation failed to parse API response");
       } catch (Exception e) {
@@ -60,4 +80,104 @@ public final class TranslationService {
       }
       return null;
    }
+
+   @Override
+   public String getName() {
+      return "rest";
+   }
+
+   @Override
+   public boolean isAvailable() {
+      String endpoint = this.config.getEndpoint();
+      return endpoint != null && !endpoint.isBlank() && !this.breaker.isOpen();
+   }
+
+   @Override
+   public CompletableFuture<TranslationResponse> translate(ChatPayload payload, Consumer<TranslationResponse> partialListener) {
+      String endpoint = this.config.getEndpoint();
+      if (payload == null || endpoint == null || endpoint.isBlank()) {
+         return CompletableFuture.completedFuture(null);
+      }
+      ChatThrottle throttle = this.chatThrottle;
+      if (throttle != null && !throttle.admit(payload, this.config)) {
+         return CompletableFuture.completedFuture(TranslationResponses.fromLanguageMap(
+               Map.of(),
+               payload.jogadoresOnline,
+               payload.textoOriginal == null ? "" : payload.textoOriginal,
+               payload.idiomaOriginal,
+               payload.jogador == null ? "" : payload.jogador,
+               payload.jogadorUuid == null ? "" : payload.jogadorUuid
+         ));
+      }
+      if (!this.breaker.tryAcquire()) {
+         return CompletableFuture.completedFuture(null);
+      }
+
+      TranslationRequest request = new TranslationRequest();
+      request.apiKey = this.config.apiKey;
+      request.textoOriginal = payload.textoOriginal;
+      request.idiomaOriginal = payload.idiomaOriginal;
+      request.jogador = payload.jogador;
+      request.jogadoresOnline = payload.jogadoresOnline;
+
+      HttpRequest httpRequest;
+      try {
+         httpRequest = buildRequest(endpoint, request);
+      } catch (IllegalArgumentException e) {
+         this.breaker.onCancelled();
+         ((Api) this.logger.atWarning().withCause(e)).log("ChatTranslation API request failed");
+         return CompletableFuture.completedFuture(null);
+      }
+      ChatMetrics.TRACER.mark(payload.messageId, MessageTracer.Stage.SENT);
+      long startNanos = System.nanoTime();
+      CompletableFuture<HttpResponse<String>> call = this.httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofString());
+      CompletableFuture<TranslationResponse> result = call.handle((response, error) -> {
+         long elapsedNanos = System.nanoTime() - startNanos;
+         ChatMetrics.BACKEND_REST.recordNanos(elapsedNanos);
+         boolean failed = error != null || response.statusCode() == 429 || response.statusCode() >= 500;
+         this.breaker.onResult(TimeUnit.NANOSECONDS.toMillis(elapsedNanos), failed);
+         if (error != null) {
+            ((Api) this.logger.atWarning().withCause(error)).log("ChatTranslation API request failed");
+            return null;
+         }
+         ChatMetrics.TRACER.mark(payload.messageId, MessageTracer.Stage.FIRST_BYTE);
+         try {
+            TranslationResponse parsed = parseResponse(response);
+            ChatMetrics.TRACER.mark(payload.messageId, MessageTracer.Stage.PARSED);
+            return parsed;
+         } catch (JsonParseException e) {
+            ((Api) this.logger.atWarning().withCause(e)).log("ChatTranslation failed to parse API response");
+            return null;
+         }
+      });
+      // The router gives up on a slow backend by cancelling; stop the HTTP exchange as well.
+      result.whenComplete((ignored, error) -> {
+         if (error instanceof CancellationException) {
+            call.cancel(true);
+         }
+      });
+      return result;
+   }
+
+   private HttpRequest buildRequest(String endpoint, TranslationRequest request) {
+      return HttpRequest.newBuilder()
+            .uri(URI.create(endpoint))
+            .timeout(Duration.ofMillis(this.config.getRequestTimeoutMs()))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(this.gson.toJson(request)))
+            .build();
+   }
+
+   private TranslationResponse parseResponse(HttpResponse<String> response) {
+      if (response.statusCode() < 200 || response.statusCode() >= 300) {
+         ((Api) this.logger.atWarning()).log("ChatTranslation API returned status " + response.statusCode());
+         return null;
+      }
+      String body = response.body();
+      if (body == null || body.isBlank()) {
+         return null;
+      }
+      TranslationResponse parsed = this.gson.fromJson(body, TranslationResponse.class);
+      return parsed == null || parsed.traducao == null || parsed.traducao.isEmpty() ? null : parsed;
+   }
 }
@@ -1,6 +1,9 @@
 package com.jogandobem;
 
+import com.jogandobem.SocketModels.ChatPayload;
 import com.jogandobem.TranslationModels.TranslationResponse;
+import com.jogandobem.TranslationModels.TranslationResult;
+import com.jogandobem.TranslationModels.TranslationTarget;
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
@@ -12,16 +15,22 @@ import java.net.http.HttpClient;
 import java.net.http.WebSocket;
 import java.nio.ByteBuffer;
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
-public final class TranslationSocketClient implements WebSocket.Listener {
+public final class TranslationSocketClient implements WebSocket.Listener, TranslationBackend {
    private final TranslationConfig config;
    private final HytaleLogger logger;
    private final Gson gson = new Gson();
@@ -29,14 +38,31 @@ public final class TranslationSocketClient implements WebSocket.Listener {
    private final AtomicBoolean connecting = new AtomicBoolean(false);
    private final Queue<String> outboundQueue = new ConcurrentLinkedQueue<>();
    private final TranslationDispatcher dispatcher;
+   private final TranslationCache cache;
+   private final ConcurrentHashMap<String, SentChat> sentPayloads = new ConcurrentHashMap<>();
+   private final ConcurrentHashMap<String, CompletableFuture<TranslationResponse>> pendingRequests = new ConcurrentHashMap<>();
+   private final ConcurrencyLimiter limiter;
+   private final CircuitBreaker breaker;
    private volatile WebSocket webSocket;
    private volatile boolean authenticated;
+   private volatile String relayModel;
+   private volatile ChatThrottle chatThrottle;
    private final StringBuilder inboundBuffer = new StringBuilder();
 
-   public TranslationSocketClient(TranslationConfig config, HytaleLogger logger, TranslationDispatcher dispatcher) {
+   public TranslationSocketClient(TranslationConfig config, HytaleLogger logger, TranslationDispatcher dispatcher, TranslationCache cache) {
       this.config = config;
       this.logger = logger;
       this.dispatcher = dispatcher;
+      this.cache = cache;
+      this.limiter = new ConcurrencyLimiter(config.wsMaxInFlight, 0);
+      this.breaker = new CircuitBreaker(
+            "ws",
+            logger,
+            config.circuitFailureRatePercent,
+            config.circuitSlowCallMs,
+            config.circuitOpenSeconds * 1000L,
+            config.circuitMinimumCalls
+      );
    }
 
    public void start() {
@@ -54,7 +80,150 @@ public final class TranslationSocketClient implements WebSocket.Listener {
       this.scheduler.shutdownNow();
    }
 
-   public void sendChat(String jsonPayload) {
+   @Override
+   public String getName() {
+      return "ws";
+   }
+
+   /**
+    * Answers from the translation cache when every language is there, otherwise asks the relay.
+    * Completes with {@code null} when the relay is unavailable or does not answer in time, and with a
+    * {@link TranslationOverloadedException} when it is at its in-flight limit.
+    */
+   @Override
+   public CompletableFuture<TranslationResponse> translate(ChatPayload payload, Consumer<TranslationResponse> partialListener) {
+      if (payload == null) {
+         return CompletableFuture.completedFuture(null);
+      }
+      TranslationResponse cached = resolveFromCache(payload);
+      if (cached != null) {
+         return CompletableFuture.completedFuture(cached);
+      }
+      ChatThrottle throttle = this.chatThrottle;
+      if (throttle != null && !throttle.admit(payload, this.config)) {
+         return CompletableFuture.completedFuture(buildFallbackResponse(payload));
+      }
+      return requestAsync(payload);
+   }
+
+   /**
+    * Applies the in-flight and circuit breaker settings of a reloaded config.
+    */
+   public void applyConfig() {
+      this.limiter.configure(this.config.wsMaxInFlight, 0);
+      this.breaker.configure(
+            this.config.circuitFailureRatePercent,
+            this.config.circuitSlowCallMs,
+            this.config.circuitOpenSeconds * 1000L,
+            this.config.circuitMinimumCalls
+      );
+   }
+
+   /**
+    * Per-player limits checked before a line is sent to the relay as a routed backend.
+    */
+   public void setChatThrottle(ChatThrottle chatThrottle) {
+      this.chatThrottle = chatThrottle;
+   }
+
+   /**
+    * Sends a payload whose answer is returned to the caller instead of being dispatched to players.
+    * Completes with {@code null} when the relay is unavailable or does not answer in time, and with a
+    * {@link TranslationOverloadedException} when it is at its in-flight limit.
+    */
+   public CompletableFuture<TranslationResponse> requestAsync(ChatPayload payload) {
+      if (payload == null || payload.messageId == null || !isAvailable()) {
+         return CompletableFuture.completedFuture(null);
+      }
+      if (!this.breaker.tryAcquire()) {
+         return CompletableFuture.completedFuture(null);
+      }
+      if (!this.limiter.tryAcquire()) {
+         this.breaker.onCancelled();
+         return CompletableFuture.failedFuture(new TranslationOverloadedException(
+               "relay in_flight=" + this.limiter.getInFlight() + " limit=" + this.limiter.getLimit()
+         ));
+      }
+      CompletableFuture<TranslationResponse> future = new CompletableFuture<>();
+      this.pendingRequests.put(payload.messageId, future);
+      track(payload);
+      ChatMetrics.TRACER.mark(payload.messageId, MessageTracer.Stage.ENQUEUED);
+      String json = this.gson.toJson(payload);
+      sendChat(json);
+      ChatMetrics.TRACER.mark(payload.messageId, MessageTracer.Stage.SENT);
+      future.whenComplete((ignored, error) -> {
+         if (error instanceof CancellationException) {
+            abandon(payload.messageId, json);
+         }
+      });
+      return future;
+   }
+
+   /**
+    * The caller stopped waiting (router timeout or a lost hedge): free the slot without counting an
+    * overload, and drop the line from the outbound queue or tell the relay to stop working on it.
+    */
+   private void abandon(String messageId, String json) {
+      this.pendingRequests.remove(messageId);
+      if (this.sentPayloads.remove(messageId) != null) {
+         this.limiter.releaseCancelled();
+         this.breaker.onCancelled();
+      }
+      if (!this.outboundQueue.remove(json)) {
+         JsonObject cancel = new JsonObject();
+         cancel.addProperty("type", "cancel");
+         cancel.addProperty("message_id", messageId);
+         sendRaw(cancel.toString());
+      }
+   }
+
+   /**
+    * True when the relay is connected, authenticated and its circuit breaker is not open.
+    */
+   public boolean isAvailable() {
+      return this.webSocket != null && this.authenticated && !this.breaker.isOpen();
+   }
+
+   private void track(ChatPayload payload) {
+      String messageId = payload.messageId;
+      SentChat sent = new SentChat(payload, System.nanoTime());
+      this.sentPayloads.put(messageId, sent);
+      int ttlSeconds = Math.max(5, this.config.pendingTtlSeconds);
+      this.scheduler.schedule(() -> {
+         // No answer within the TTL counts as an overload signal for the limiter.
+         if (this.sentPayloads.remove(messageId, sent)) {
+            ChatMetrics.WS_FALLBACK.increment();
+            this.limiter.release(sent.startNanos, true);
+            this.breaker.onResult(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sent.startNanos), true);
+         }
+         CompletableFuture<TranslationResponse> waiting = this.pendingRequests.remove(messageId);
+         if (waiting != null) {
+            waiting.complete(null);
+         }
+      }, ttlSeconds, TimeUnit.SECONDS);
+   }
+
+   public String getCircuitState() {
+      return this.breaker.getState().name();
+   }
+
+   public long getCircuitOpenedCount() {
+      return this.breaker.getOpenedCount();
+   }
+
+   public int getInFlightRequests() {
+      return this.limiter.getInFlight();
+   }
+
+   public int getConcurrencyLimit() {
+      return this.limiter.getLimit();
+   }
+
+   public long getRejectedRequests() {
+      return this.limiter.getRejected();
+   }
+
+   private void sendChat(String jsonPayload) {
       if (jsonPayload == null || jsonPayload.isBlank()) {
          return;
       }
@@ -192,6 +361,7 @@ public final class TranslationSocketClient implements WebSocket.Listener {
    }
 
    private void handleMessage(String payload) {
+      long receivedNanos = System.nanoTime();
       try {
          JsonElement elem = JsonParser.parseString(payload);
          if (!elem.isJsonObject()) {
@@ -202,6 +372,8 @@ public final class TranslationSocketClient implements WebSocket.Listener {
          if ("hello_ack".equalsIgnoreCase(type)) {
             boolean ok = obj.has("ok") && obj.get("ok").getAsBoolean();
             if (ok) {
+               String model = obj.has("model") && obj.get("model").isJsonPrimitive() ? obj.get("model").getAsString().trim() : "";
+               this.relayModel = model.isEmpty() ? null : model;
                this.authenticated = true;
                flushQueue();
             } else {
@@ -210,10 +382,123 @@ public final class TranslationSocketClient implements WebSocket.Listener {
          } else if ("translations".equalsIgnoreCase(type)) {
             TranslationResponse response = this.gson.fromJson(obj, TranslationResponse.class);
             String messageId = obj.has("message_id") ? obj.get("message_id").getAsString() : null;
+            ChatMetrics.TRACER.markAt(messageId, MessageTracer.Stage.FIRST_BYTE, receivedNanos);
+            ChatMetrics.TRACER.mark(messageId, MessageTracer.Stage.PARSED);
+            SentChat sent = messageId == null ? null : this.sentPayloads.remove(messageId);
+            if (sent != null) {
+               ChatMetrics.BACKEND_WS.recordSince(sent.startNanos);
+               ChatMetrics.WS_SUCCESS.increment();
+               this.limiter.release(sent.startNanos, false);
+               this.breaker.onResult(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sent.startNanos), false);
+               storeInCache(sent.payload, response);
+            }
+            CompletableFuture<TranslationResponse> waiting = messageId == null ? null : this.pendingRequests.remove(messageId);
+            if (waiting != null) {
+               waiting.complete(response);
+               return;
+            }
+            if (sent == null) {
+               // Answered after the TTL: the recipients already got the original text.
+               return;
+            }
             this.dispatcher.dispatch(messageId, response);
          }
       } catch (Exception e) {
          ((Api) this.logger.atWarning().withCause(e)).log("ChatTranslation WS parse error");
       }
    }
+
+   private TranslationResponse resolveFromCache(ChatPayload payload) {
+      if (this.cache == null || payload.jogadoresOnline == null || payload.jogadoresOnline.isEmpty()) {
+         return null;
+      }
+      String baseLanguage = TranslationResponses.normalizeLanguage(payload.idiomaOriginal);
+      Map<String, String> byLanguage = new HashMap<>();
+      for (TranslationTarget target : payload.jogadoresOnline) {
+         if (target == null) {
+            continue;
+         }
+         String language = TranslationResponses.normalizeLanguage(target.idioma);
+         if (language.equals(baseLanguage) || byLanguage.containsKey(language)) {
+            continue;
+         }
+         String cached = this.cache.get(payload.textoOriginal, baseLanguage, language, cacheModelKey());
+         if (cached == null) {
+            return null;
+         }
+         byLanguage.put(language, cached);
+      }
+      return TranslationResponses.fromLanguageMap(
+            byLanguage,
+            payload.jogadoresOnline,
+            payload.textoOriginal == null ? "" : payload.textoOriginal,
+            payload.idiomaOriginal,
+            payload.jogador == null ? "" : payload.jogador,
+            payload.jogadorUuid == null ? "" : payload.jogadorUuid
+      );
+   }
+
+   private TranslationResponse buildFallbackResponse(ChatPayload payload) {
+      return TranslationResponses.fromLanguageMap(
+            Map.of(),
+            payload.jogadoresOnline,
+            payload.textoOriginal == null ? "" : payload.textoOriginal,
+            payload.idiomaOriginal,
+            payload.jogador == null ? "" : payload.jogador,
+            payload.jogadorUuid == null ? "" : payload.jogadorUuid
+      );
+   }
+
+   private void storeInCache(ChatPayload payload, TranslationResponse response) {
+      if (this.cache == null || response == null || response.traducao == null) {
+         return;
+      }
+      if (payload.jogadoresOnline == null) {
+         return;
+      }
+      Map<String, String> languageByName = new HashMap<>();
+      for (TranslationTarget target : payload.jogadoresOnline) {
+         if (target != null && target.jogador != null) {
+            languageByName.put(target.jogador.trim().toLowerCase(Locale.ROOT), TranslationResponses.normalizeLanguage(target.idioma));
+         }
+      }
+      String baseLanguage = TranslationResponses.normalizeLanguage(payload.idiomaOriginal);
+      for (TranslationResult item : response.traducao) {
+         if (item == null || item.jogador == null || item.textoTraduzido == null) {
+            continue;
+         }
+         // The relay answers with the original text when it could not translate; caching that would
+         // keep serving it from translation_memory.dat after restarts.
+         if (TranslationCache.sameText(payload.textoOriginal, item.textoTraduzido)) {
+            continue;
+         }
+         String language = languageByName.get(item.jogador.trim().toLowerCase(Locale.ROOT));
+         if (language == null || language.equals(baseLanguage)) {
+            continue;
+         }
+         this.cache.put(payload.textoOriginal, baseLanguage, language, cacheModelKey(), item.textoTraduzido);
+      }
+   }
+
+   /**
+    * Cache identity of the relay's answers: the model it reported in {@code hello_ack}, or its URL
+    * for relays that do not report one. Changing either starts a fresh set of entries.
+    */
+   private String cacheModelKey() {
+      String model = this.relayModel;
+      if (model != null) {
+         return "ws:" + model;
+      }
+      return "ws:" + (this.config.wsUrl == null ? "" : this.config.wsUrl.trim());
+   }
+
+   private static final class SentChat {
+      private final ChatPayload payload;
+      private final long startNanos;
+
+      private SentChat(ChatPayload payload, long startNanos) {
+         this.payload = payload;
+         this.startNanos = startNanos;
+      }
+   }
 }
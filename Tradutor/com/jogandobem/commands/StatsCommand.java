@@ -0,0 +1,126 @@
+package com.jogandobem.commands;
+
+import com.jogandobem.LanguageStore;
+import com.jogandobem.MessageStore;
+import com.jogandobem.MetricsRegistry;
+import com.jogandobem.OpenAiTranslationService;
+import com.jogandobem.PassthroughClassifier;
+import com.jogandobem.TranslationConfig;
+import com.jogandobem.TranslationRouter;
+import com.jogandobem.TranslationSocketClient;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.basecommands.AbstractAsyncCommand;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.Universe;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@code /tstats [minutos]}: latency percentiles and throughput per pipeline stage over the last 1, 5
+ * and 15 minutes (or only the given window), followed by queue depths and circuit states.
+ */
+public final class StatsCommand extends AbstractAsyncCommand {
+   private static final int[] DEFAULT_WINDOWS = {1, 5, 15};
+
+   private final MetricsRegistry metrics;
+   private final TranslationRouter translationRouter;
+   private final PassthroughClassifier passthroughClassifier;
+   private final OpenAiTranslationService openAiTranslationService;
+   private final TranslationSocketClient socketClient;
+   private final TranslationConfig config;
+   private final LanguageStore languageStore;
+   private final MessageStore messageStore;
+
+   public StatsCommand(MetricsRegistry metrics,
+                       TranslationRouter translationRouter,
+                       PassthroughClassifier passthroughClassifier,
+                       OpenAiTranslationService openAiTranslationService,
+                       TranslationSocketClient socketClient,
+                       TranslationConfig config,
+                       LanguageStore languageStore,
+                       MessageStore messageStore) {
+      super("tstats", "Mostra latencias e filas do tradutor");
+      this.metrics = metrics;
+      this.translationRouter = translationRouter;
+      this.passthroughClassifier = passthroughClassifier;
+      this.openAiTranslationService = openAiTranslationService;
+      this.socketClient = socketClient;
+      this.config = config;
+      this.languageStore = languageStore;
+      this.messageStore = messageStore;
+      this.setAllowsExtraArguments(true);
+   }
+
+   protected CompletableFuture<Void> executeAsync(CommandContext ctx) {
+      if (ctx == null) {
+         return CompletableFuture.completedFuture((Void) null);
+      }
+      String lang = resolveMessageLanguage(ctx);
+      for (int minutes : resolveWindows(ctx.getInputString())) {
+         ctx.sendMessage(Message.raw(this.messageStore.format("cmd_stats_window", lang, this.config, Map.of(
+               "minutes", Integer.toString(minutes),
+               "seconds", String.format(Locale.ROOT, "%.0f", this.metrics.getWindowSeconds(minutes))
+         ))));
+         for (String line : this.metrics.report(minutes)) {
+            ctx.sendMessage(Message.raw(line));
+         }
+      }
+      ctx.sendMessage(Message.raw(this.messageStore.getString("cmd_stats_now", lang, this.config)));
+      for (String line : this.metrics.gaugeReport()) {
+         ctx.sendMessage(Message.raw(line));
+      }
+      if (this.passthroughClassifier != null) {
+         ctx.sendMessage(Message.raw(this.passthroughClassifier.describe()));
+      }
+      if (this.translationRouter != null) {
+         for (String line : this.translationRouter.describe()) {
+            ctx.sendMessage(Message.raw(line));
+         }
+      }
+      if (this.openAiTranslationService != null) {
+         ctx.sendMessage(Message.raw("openai.circuit " + this.openAiTranslationService.getCircuitState()
+               + " rejected=" + this.openAiTranslationService.getRejectedRequests()
+               + " rate_limited=" + this.openAiTranslationService.getRateLimitedResponses()
+               + " paced=" + this.openAiTranslationService.getPacedRequests()
+               + " hedges=" + this.openAiTranslationService.getHedgesSent()
+               + " coalesced=" + this.openAiTranslationService.getCoalescedLanguages()));
+      }
+      if (this.socketClient != null) {
+         ctx.sendMessage(Message.raw("ws.circuit " + this.socketClient.getCircuitState()
+               + " rejected=" + this.socketClient.getRejectedRequests()));
+      }
+      return CompletableFuture.completedFuture((Void) null);
+   }
+
+   private String resolveMessageLanguage(CommandContext ctx) {
+      if (!ctx.isPlayer()) {
+         return this.messageStore.resolveLanguage(null, this.config);
+      }
+      UUID uuid = ctx.sender().getUuid();
+      String lang = this.languageStore.getLanguage(uuid);
+      if (lang == null || lang.isBlank()) {
+         PlayerRef player = Universe.get().getPlayer(uuid);
+         lang = player != null ? player.getLanguage() : null;
+      }
+      if (lang == null || lang.isBlank()) {
+         lang = this.config.defaultLanguage;
+      }
+      return this.messageStore.resolveLanguage(lang, this.config);
+   }
+
+   private static int[] resolveWindows(String input) {
+      String[] parts = input == null ? new String[0] : input.trim().split("\\s+");
+      if (parts.length <= 1) {
+         return DEFAULT_WINDOWS;
+      }
+      try {
+         int minutes = Integer.parseInt(parts[1].trim());
+         return new int[] {Math.max(1, Math.min(MetricsRegistry.MAX_WINDOW_MINUTES, minutes))};
+      } catch (NumberFormatException e) {
+         return DEFAULT_WINDOWS;
+      }
+   }
+}
@@ -0,0 +1,76 @@
+package com.jogandobem.commands;
+
+import com.jogandobem.LanguageStore;
+import com.jogandobem.MessageStore;
+import com.jogandobem.MessageTracer;
+import com.jogandobem.TranslationConfig;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.basecommands.AbstractAsyncCommand;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.Universe;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@code /ttrace <id>}: stage timings of one message. Without an id, lists the latest slow messages.
+ */
+public final class TraceCommand extends AbstractAsyncCommand {
+   private static final int LIST_LIMIT = 10;
+
+   private final MessageTracer tracer;
+   private final TranslationConfig config;
+   private final LanguageStore languageStore;
+   private final MessageStore messageStore;
+
+   public TraceCommand(MessageTracer tracer, TranslationConfig config, LanguageStore languageStore, MessageStore messageStore) {
+      super("ttrace", "Mostra o rastreamento de uma mensagem do tradutor");
+      this.tracer = tracer;
+      this.config = config;
+      this.languageStore = languageStore;
+      this.messageStore = messageStore;
+      this.setAllowsExtraArguments(true);
+   }
+
+   protected CompletableFuture<Void> executeAsync(CommandContext ctx) {
+      if (ctx == null) {
+         return CompletableFuture.completedFuture((Void) null);
+      }
+      String lang = resolveMessageLanguage(ctx);
+      String input = ctx.getInputString();
+      String[] parts = input == null ? new String[0] : input.trim().split("\\s+");
+      if (parts.length <= 1) {
+         List<String> slow = this.tracer.recentSlow(LIST_LIMIT);
+         if (slow.isEmpty()) {
+            ctx.sendMessage(Message.raw(this.messageStore.getString("cmd_trace_none", lang, this.config)));
+            return CompletableFuture.completedFuture((Void) null);
+         }
+         ctx.sendMessage(Message.raw(this.messageStore.getString("cmd_trace_recent", lang, this.config)));
+         for (String id : slow) {
+            ctx.sendMessage(Message.raw(id));
+         }
+         return CompletableFuture.completedFuture((Void) null);
+      }
+
+      String trace = this.tracer.describe(parts[1].trim(), this.messageStore.getString("cmd_trace_in_flight", lang, this.config));
+      ctx.sendMessage(Message.raw(trace == null ? this.messageStore.getString("cmd_trace_not_found", lang, this.config) : trace));
+      return CompletableFuture.completedFuture((Void) null);
+   }
+
+   private String resolveMessageLanguage(CommandContext ctx) {
+      if (!ctx.isPlayer()) {
+         return this.messageStore.resolveLanguage(null, this.config);
+      }
+      UUID uuid = ctx.sender().getUuid();
+      String lang = this.languageStore.getLanguage(uuid);
+      if (lang == null || lang.isBlank()) {
+         PlayerRef player = Universe.get().getPlayer(uuid);
+         lang = player != null ? player.getLanguage() : null;
+      }
+      if (lang == null || lang.isBlank()) {
+         lang = this.config.defaultLanguage;
+      }
+      return this.messageStore.resolveLanguage(lang, this.config);
+   }
+}
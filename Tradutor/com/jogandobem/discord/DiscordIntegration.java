@@ -1,22 +1,25 @@
 package com.jogandobem.discord;
 
+import com.jogandobem.ChatMetrics;
 import com.jogandobem.LanguageStore;
-import com.jogandobem.OpenAiTranslationService;
+import com.jogandobem.MessageTracer;
 import com.jogandobem.SocketModels.ChatPayload;
 import com.jogandobem.TranslationConfig;
 import com.jogandobem.TranslationModels.TranslationResponse;
 import com.jogandobem.TranslationModels.TranslationResult;
 import com.jogandobem.TranslationModels.TranslationTarget;
-import com.jogandobem.TranslationSocketClient;
-import com.google.gson.Gson;
+import com.jogandobem.TranslationOverloadedException;
+import com.jogandobem.TranslationRouter;
+import com.jogandobem.platform.ChatMessage;
+import com.jogandobem.platform.ChatPlayer;
+import com.jogandobem.platform.MessageSink;
+import com.jogandobem.platform.PlayerRoster;
 import com.hypixel.hytale.logger.HytaleLogger;
 import com.hypixel.hytale.logger.HytaleLogger.Api;
-import com.hypixel.hytale.server.core.Message;
 import com.hypixel.hytale.server.core.event.events.player.PlayerConnectEvent;
 import com.hypixel.hytale.server.core.event.events.player.PlayerDisconnectEvent;
 import com.hypixel.hytale.server.core.plugin.JavaPlugin;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
-import com.hypixel.hytale.server.core.universe.Universe;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -25,6 +28,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -37,9 +41,10 @@ import net.dv8tion.jda.api.hooks.ListenerAdapter;
 public final class DiscordIntegration {
    private final HytaleLogger logger;
    private final LanguageStore languageStore;
+   private final PlayerRoster roster;
+   private final MessageSink sink;
    private TranslationConfig translationConfig;
-   private TranslationSocketClient socketClient;
-   private OpenAiTranslationService openAiTranslationService;
+   private TranslationRouter translationRouter;
    private DiscordConfig config;
    private DiscordBot bot;
    private DiscordWebhookManager webhookManager;
@@ -50,25 +55,24 @@ public final class DiscordIntegration {
    private final Set<String> warnedMissingChannels = ConcurrentHashMap.newKeySet();
    private final ConcurrentHashMap<String, DiscordPending> pendingDiscord = new ConcurrentHashMap<>();
    private final ScheduledExecutorService pendingScheduler = Executors.newSingleThreadScheduledExecutor();
-   private final Gson gson = new Gson();
    private static final String DISCORD_TARGET_PREFIX = "__discord__:";
 
    public DiscordIntegration(java.nio.file.Path dataDir,
                              HytaleLogger logger,
                              LanguageStore languageStore,
-                             TranslationConfig translationConfig) {
+                             TranslationConfig translationConfig,
+                             PlayerRoster roster,
+                             MessageSink sink) {
       this.logger = logger;
       this.languageStore = languageStore;
+      this.roster = roster;
+      this.sink = sink;
       this.translationConfig = translationConfig;
       this.config = DiscordConfig.loadOrCreate(dataDir, logger);
    }
 
-   public void setSocketClient(TranslationSocketClient socketClient) {
-      this.socketClient = socketClient;
-   }
-
-   public void setOpenAiTranslationService(OpenAiTranslationService openAiTranslationService) {
-      this.openAiTranslationService = openAiTranslationService;
+   public void setTranslationRouter(TranslationRouter translationRouter) {
+      this.translationRouter = translationRouter;
    }
 
    public void start(JavaPlugin plugin) {
@@ -211,7 +215,7 @@ public final class DiscordIntegration {
          return;
       }
 
-      List<PlayerRef> players = Universe.get().getPlayers();
+      List<ChatPlayer> players = this.roster.getPlayers();
       if (players == null || players.isEmpty()) {
          return;
       }
@@ -220,7 +224,7 @@ public final class DiscordIntegration {
       String baseLang = normalizeLanguage(channelLanguage);
       boolean translationNeeded = false;
 
-      for (PlayerRef player : players) {
+      for (ChatPlayer player : players) {
          if (player == null) {
             continue;
          }
@@ -250,14 +254,7 @@ public final class DiscordIntegration {
          return;
       }
 
-      boolean canUseOpenAi = this.openAiTranslationService != null
-            && this.translationConfig != null
-            && this.translationConfig.isDirectTranslationConfigured();
-      boolean canUseWs = this.socketClient != null
-            && this.translationConfig != null
-            && this.translationConfig.isWsConfigured();
-
-      if (!canUseOpenAi && !canUseWs) {
+      if (this.translationRouter == null || this.translationConfig == null || !this.translationRouter.hasAvailableBackend()) {
          if (this.broadcaster != null) {
             this.broadcaster.broadcastToGame(username, message);
          }
@@ -266,6 +263,7 @@ public final class DiscordIntegration {
 
       String messageId = "discord:" + generateMessageId();
       trackPendingDiscord(messageId, new DiscordPending(username, message));
+      ChatMetrics.TRACER.start(messageId, System.nanoTime());
 
       ChatPayload payload = new ChatPayload();
       payload.type = "chat";
@@ -277,19 +275,20 @@ public final class DiscordIntegration {
       payload.jogadorUuid = "";
       payload.jogadoresOnline = targets;
 
-      if (canUseOpenAi) {
-         this.openAiTranslationService.translateAsync(payload)
-               .thenAccept(response -> handleTranslatedDiscordToGame(messageId, response))
-               .exceptionally(err -> {
-                  ((Api) this.logger.atWarning().withCause(err)).log("Discord OpenAI translation failed");
-                  handleTranslatedDiscordToGame(messageId, this.openAiTranslationService.buildFallbackResponse(payload));
-                  return null;
-               });
-         return;
-      }
-
-      String json = this.gson.toJson(payload);
-      this.socketClient.sendChat(json);
+      this.translationRouter.translate(payload, null)
+            .thenAccept(response -> handleTranslatedDiscordToGame(messageId, response))
+            .exceptionally(err -> {
+               Throwable cause = err instanceof CompletionException && err.getCause() != null ? err.getCause() : err;
+               TranslationResponse fallback = null;
+               if (cause instanceof TranslationOverloadedException) {
+                  // Already logged and counted by the router.
+                  fallback = ((TranslationOverloadedException) cause).getFallback();
+               } else {
+                  ((Api) this.logger.atWarning().withCause(err)).log("Discord translation failed");
+               }
+               handleTranslatedDiscordToGame(messageId, fallback != null ? fallback : this.translationRouter.buildFallbackResponse(payload));
+               return null;
+            });
    }
 
    public void handleTranslatedDiscordToGame(String messageId, TranslationResponse response) {
@@ -298,16 +297,20 @@ public final class DiscordIntegration {
          return;
       }
       if (this.config == null) {
+         ChatMetrics.TRACER.finish(messageId);
          return;
       }
+      ChatMetrics.TRACER.mark(messageId, MessageTracer.Stage.DISPATCH_STARTED);
       if (response == null || response.traducao == null || response.traducao.isEmpty()) {
          if (this.broadcaster != null) {
             this.broadcaster.broadcastToGame(pending.user, pending.message);
          }
+         ChatMetrics.TRACER.mark(messageId, MessageTracer.Stage.DELIVERED);
+         ChatMetrics.TRACER.finish(messageId);
          return;
       }
 
-      Map<String, PlayerRef> playersByName = buildPlayersByName();
+      Map<String, ChatPlayer> playersByName = buildPlayersByName();
       for (TranslationResult item : response.traducao) {
          if (item == null) {
             continue;
@@ -316,7 +319,7 @@ public final class DiscordIntegration {
          if (targetName == null || targetName.isBlank()) {
             continue;
          }
-         PlayerRef target = playersByName.get(targetName.toLowerCase(Locale.ROOT));
+         ChatPlayer target = playersByName.get(targetName.toLowerCase(Locale.ROOT));
          if (target == null) {
             continue;
          }
@@ -327,16 +330,18 @@ public final class DiscordIntegration {
          String sanitized = DiscordMessageSanitizer.sanitizeForGame(text);
          String formatted = this.config.formatForGame(pending.user, sanitized);
          try {
-            target.sendMessage(Message.raw(formatted));
+            this.sink.send(target, ChatMessage.raw(formatted));
          } catch (Exception e) {
             ((Api) this.logger.atWarning().withCause(e)).log("Failed to send Discord message to player");
          }
       }
+      ChatMetrics.TRACER.mark(messageId, MessageTracer.Stage.DELIVERED);
+      ChatMetrics.TRACER.finish(messageId);
    }
 
    public void handleTranslatedChat(TranslationResponse response,
-                                    Map<String, PlayerRef> playersByName,
-                                    PlayerRef sender,
+                                    Map<String, ChatPlayer> playersByName,
+                                    ChatPlayer sender,
                                     String senderName) {
       if (response == null || response.traducao == null || response.traducao.isEmpty()) {
          return;
@@ -380,7 +385,28 @@ public final class DiscordIntegration {
       }
    }
 
-   public void handleUntranslatedChat(PlayerRef sender, String senderName, String message, String senderLanguage) {
+   /**
+    * Sends a line that needs no translation, as typed, to the channels of the other languages. The
+    * sender's own channel is covered by {@link #handleUntranslatedChat}.
+    */
+   public void handlePassthroughChat(ChatPlayer sender, String senderName, String message, String senderLanguage) {
+      if (message == null || message.isBlank()) {
+         return;
+      }
+      List<TranslationTarget> targets = new ArrayList<>();
+      if (!appendDiscordTargets(targets, senderLanguage)) {
+         return;
+      }
+      String resolvedSender = resolveSenderName(sender, senderName, null);
+      for (TranslationTarget target : targets) {
+         String language = normalizeLanguage(target.idioma);
+         if (language != null && hasChannelForLanguage(language)) {
+            sendChatToDiscord(resolvedSender, message, language);
+         }
+      }
+   }
+
+   public void handleUntranslatedChat(ChatPlayer sender, String senderName, String message, String senderLanguage) {
       if (message == null || message.isBlank()) {
          return;
       }
@@ -496,13 +522,13 @@ public final class DiscordIntegration {
       this.pendingScheduler.schedule(() -> this.pendingDiscord.remove(messageId, pending), delay, TimeUnit.SECONDS);
    }
 
-   private Map<String, PlayerRef> buildPlayersByName() {
-      List<PlayerRef> players = Universe.get().getPlayers();
-      Map<String, PlayerRef> map = new LinkedHashMap<>();
+   private Map<String, ChatPlayer> buildPlayersByName() {
+      List<ChatPlayer> players = this.roster.getPlayers();
+      Map<String, ChatPlayer> map = new LinkedHashMap<>();
       if (players == null) {
          return map;
       }
-      for (PlayerRef player : players) {
+      for (ChatPlayer player : players) {
          if (player == null) {
             continue;
          }
@@ -521,7 +547,7 @@ public final class DiscordIntegration {
       return Long.toHexString(now) + "-" + Integer.toHexString(rand);
    }
 
-   private String resolveSenderName(PlayerRef sender, String senderName, TranslationResponse response) {
+   private String resolveSenderName(ChatPlayer sender, String senderName, TranslationResponse response) {
       String name = senderName;
       if (name == null || name.isBlank()) {
          if (sender != null) {
@@ -534,7 +560,7 @@ public final class DiscordIntegration {
       return (name == null || name.isBlank()) ? "unknown" : name;
    }
 
-   private String resolveLanguage(PlayerRef player) {
+   private String resolveLanguage(ChatPlayer player) {
       if (player == null) {
          return null;
       }
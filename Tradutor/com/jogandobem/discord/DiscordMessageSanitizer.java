@@ -1,9 +1,21 @@
 package com.jogandobem.discord;
 
+import java.util.regex.Pattern;
+
 public final class DiscordMessageSanitizer {
    private static final int DISCORD_MAX_LENGTH = 2000;
    private static final int GAME_MAX_LENGTH = 256;
    private static final String ZWSP = "\u200B";
+   private static final Pattern QUESTION_COLOR_CODE = Pattern.compile("[?][0-9a-fk-or]");
+   private static final Pattern AMPERSAND_COLOR_CODE = Pattern.compile("(?<!" + ZWSP + ")&[0-9a-fk-or]");
+   private static final Pattern CODE_BLOCK = Pattern.compile("```[\\s\\S]*?```");
+   private static final Pattern INLINE_CODE = Pattern.compile("`[^`]+`");
+   private static final Pattern BOLD = Pattern.compile("\\*\\*(.+?)\\*\\*");
+   private static final Pattern UNDERLINE = Pattern.compile("__(.+?)__");
+   private static final Pattern STRIKETHROUGH = Pattern.compile("~~(.+?)~~");
+   private static final Pattern ITALIC_STAR = Pattern.compile("\\*(.+?)\\*");
+   private static final Pattern ITALIC_UNDERSCORE = Pattern.compile("_(.+?)_");
+   private static final Pattern SPOILER = Pattern.compile("\\|\\|(.+?)\\|\\|");
 
    private DiscordMessageSanitizer() {
    }
@@ -13,11 +25,21 @@ public final class DiscordMessageSanitizer {
          return "";
       }
       String result = input;
-      result = result.replace("<@&", "<@" + ZWSP + "&");
-      result = result.replaceAll("[?][0-9a-fk-or]", "");
-      result = result.replaceAll("(?<!" + ZWSP + ")&[0-9a-fk-or]", "");
-      result = result.replace("@everyone", "@" + ZWSP + "everyone");
-      result = result.replace("@here", "@" + ZWSP + "here");
+      // Most chat lines contain none of the trigger characters; skip the regex passes for them.
+      boolean hasAmpersand = result.indexOf('&') >= 0;
+      if (hasAmpersand) {
+         result = result.replace("<@&", "<@" + ZWSP + "&");
+      }
+      if (result.indexOf('?') >= 0) {
+         result = QUESTION_COLOR_CODE.matcher(result).replaceAll("");
+      }
+      if (hasAmpersand) {
+         result = AMPERSAND_COLOR_CODE.matcher(result).replaceAll("");
+      }
+      if (result.indexOf('@') >= 0) {
+         result = result.replace("@everyone", "@" + ZWSP + "everyone");
+         result = result.replace("@here", "@" + ZWSP + "here");
+      }
       if (result.length() > DISCORD_MAX_LENGTH) {
          result = result.substring(0, DISCORD_MAX_LENGTH - 3) + "...";
       }
@@ -29,18 +51,31 @@ public final class DiscordMessageSanitizer {
          return "";
       }
       String result = input;
-      result = result.replaceAll("```[\\s\\S]*?```", "[code]");
-      result = result.replaceAll("`[^`]+`", "[code]");
-      result = result.replaceAll("\\*\\*(.+?)\\*\\*", "$1");
-      result = result.replaceAll("__(.+?)__", "$1");
-      result = result.replaceAll("~~(.+?)~~", "$1");
-      result = result.replaceAll("\\*(.+?)\\*", "$1");
-      result = result.replaceAll("_(.+?)_", "$1");
-      result = result.replaceAll("\\|\\|(.+?)\\|\\|", "$1");
+      if (result.indexOf('`') >= 0) {
+         result = CODE_BLOCK.matcher(result).replaceAll("[code]");
+         result = INLINE_CODE.matcher(result).replaceAll("[code]");
+      }
+      if (result.indexOf('*') >= 0) {
+         result = BOLD.matcher(result).replaceAll("$1");
+      }
+      if (result.indexOf('_') >= 0) {
+         result = UNDERLINE.matcher(result).replaceAll("$1");
+      }
+      if (result.indexOf('~') >= 0) {
+         result = STRIKETHROUGH.matcher(result).replaceAll("$1");
+      }
+      if (result.indexOf('*') >= 0) {
+         result = ITALIC_STAR.matcher(result).replaceAll("$1");
+      }
+      if (result.indexOf('_') >= 0) {
+         result = ITALIC_UNDERSCORE.matcher(result).replaceAll("$1");
+      }
+      if (result.indexOf('|') >= 0) {
+         result = SPOILER.matcher(result).replaceAll("$1");
+      }
       if (result.length() > GAME_MAX_LENGTH) {
          result = result.substring(0, GAME_MAX_LENGTH - 3) + "...";
       }
       return result;
    }
 }
-
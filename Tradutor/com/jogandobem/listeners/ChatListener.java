@@ -1,92 +1,122 @@
 package com.jogandobem.listeners;
 
+import com.jogandobem.ChatMetrics;
+import com.jogandobem.LanguageDetector;
 import com.jogandobem.LanguageStore;
-import com.jogandobem.OpenAiTranslationService;
+import com.jogandobem.MessageStore;
+import com.jogandobem.PassthroughClassifier;
 import com.jogandobem.PendingChatStore;
 import com.jogandobem.PendingChatStore.PendingChat;
 import com.jogandobem.SocketModels.ChatPayload;
 import com.jogandobem.TranslationConfig;
 import com.jogandobem.TranslationDispatcher;
+import com.jogandobem.TranslationModels.TranslationResponse;
 import com.jogandobem.TranslationModels.TranslationTarget;
-import com.jogandobem.TranslationSocketClient;
+import com.jogandobem.TranslationOverloadedException;
+import com.jogandobem.TranslationRouter;
 import com.jogandobem.discord.DiscordIntegration;
-import com.google.gson.Gson;
+import com.jogandobem.platform.ChatEvent;
+import com.jogandobem.platform.ChatMessage;
+import com.jogandobem.platform.ChatPlayer;
+import com.jogandobem.platform.MessageSink;
+import com.jogandobem.platform.PlayerRoster;
 import com.hypixel.hytale.logger.HytaleLogger;
 import com.hypixel.hytale.logger.HytaleLogger.Api;
-import com.hypixel.hytale.server.core.Message;
-import com.hypixel.hytale.server.core.event.events.player.PlayerChatEvent;
-import com.hypixel.hytale.server.core.universe.PlayerRef;
-import com.hypixel.hytale.server.core.universe.Universe;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ThreadLocalRandom;
 
 public class ChatListener {
    private final TranslationConfig config;
    private final LanguageStore languageStore;
-   private final TranslationSocketClient socketClient;
+   private final TranslationRouter translationRouter;
+   private final PassthroughClassifier passthroughClassifier;
+   private final LanguageDetector languageDetector;
    private final PendingChatStore pendingStore;
-   private final OpenAiTranslationService openAiTranslationService;
    private final TranslationDispatcher translationDispatcher;
    private final HytaleLogger logger;
    private final DiscordIntegration discordIntegration;
-   private final Gson gson = new Gson();
+   private final PlayerRoster roster;
+   private final MessageSink sink;
+   private volatile MessageStore messageStore;
 
    public ChatListener(TranslationConfig config,
                        LanguageStore languageStore,
-                       TranslationSocketClient socketClient,
+                       TranslationRouter translationRouter,
+                       PassthroughClassifier passthroughClassifier,
+                       LanguageDetector languageDetector,
                        PendingChatStore pendingStore,
-                       OpenAiTranslationService openAiTranslationService,
                        TranslationDispatcher translationDispatcher,
                        HytaleLogger logger,
-                       DiscordIntegration discordIntegration) {
+                       DiscordIntegration discordIntegration,
+                       PlayerRoster roster,
+                       MessageSink sink) {
       this.config = config;
       this.languageStore = languageStore;
-      this.socketClient = socketClient;
+      this.translationRouter = translationRouter;
+      this.passthroughClassifier = passthroughClassifier;
+      this.languageDetector = languageDetector;
       this.pendingStore = pendingStore;
-      this.openAiTranslationService = openAiTranslationService;
       this.translationDispatcher = translationDispatcher;
       this.logger = logger;
       this.discordIntegration = discordIntegration;
+      this.roster = roster;
+      this.sink = sink;
    }
 
-   public void onChatEvent(PlayerChatEvent chatEvent) {
+   /**
+    * Player-facing texts; without it an overloaded line is delivered in the original silently.
+    */
+   public void setMessageStore(MessageStore messageStore) {
+      this.messageStore = messageStore;
+   }
+
+   /**
+    * Handles one chat line. The original server event is already cancelled by the event source, so
+    * this delivers the line to the sender and to every recipient.
+    */
+   public void onChat(ChatEvent chatEvent) {
       if (chatEvent == null) {
          return;
       }
+      long receivedNanos = System.nanoTime();
+      ChatMetrics.CHATS_RECEIVED.increment();
 
-      PlayerRef sender = chatEvent.getSender();
+      ChatPlayer sender = chatEvent.sender;
       if (sender == null) {
          return;
       }
 
-      String original = chatEvent.getContent();
+      String original = chatEvent.content;
       if (original == null) {
          original = "";
       }
 
-      List<PlayerRef> targets = chatEvent.getTargets();
+      List<ChatPlayer> targets = chatEvent.targets;
       if (targets == null || targets.isEmpty()) {
-         targets = Universe.get().getPlayers();
+         targets = this.roster.getPlayers();
       }
 
       if (targets == null) {
          targets = Collections.emptyList();
       }
 
-      chatEvent.setCancelled(true);
       this.languageStore.updateUsername(sender.getUuid(), sender.getUsername());
 
-      Message senderMessage = formatMessage(chatEvent, sender, original);
+      ChatMessage senderMessage = formatMessage(chatEvent, sender, original);
       sendMessageSafe(sender, senderMessage);
 
-      Map<String, PlayerRef> recipientsByName = new HashMap<>();
-      for (PlayerRef target : targets) {
+      Map<String, ChatPlayer> recipientsByName = new HashMap<>();
+      for (ChatPlayer target : targets) {
          if (target == null) {
             continue;
          }
@@ -101,11 +131,34 @@ public class ChatListener {
       }
 
       String senderLanguage = resolveLanguage(sender);
+      String detectedLanguage = this.languageDetector == null
+            ? null
+            : this.languageDetector.detect(sender.getUuid(), original, senderLanguage, this.config.languageDetectionMinConfidence);
+      if (detectedLanguage != null && !detectedLanguage.equals(LanguageDetector.baseLanguage(senderLanguage))) {
+         // What the player actually typed wins over the configured language.
+         senderLanguage = languageTagFor(detectedLanguage, recipientsByName);
+         ChatMetrics.LANGUAGE_OVERRIDDEN.increment();
+      }
       boolean playerTranslationNeeded = !recipientsByName.isEmpty() && shouldTranslate(senderLanguage, recipientsByName);
+      boolean discordTranslationNeeded = this.discordIntegration != null && this.discordIntegration.shouldTranslateForDiscord(senderLanguage);
+      boolean passthrough = (playerTranslationNeeded || discordTranslationNeeded)
+            && this.passthroughClassifier != null
+            && this.passthroughClassifier.isPassthrough(
+                  original,
+                  playerNames(recipientsByName, sender),
+                  senderLanguage,
+                  targetLanguages(senderLanguage, recipientsByName, playerTranslationNeeded, discordTranslationNeeded)
+            );
+      if (passthrough) {
+         playerTranslationNeeded = false;
+      }
+      if (playerTranslationNeeded && detectedLanguage != null) {
+         playerTranslationNeeded = deliverSameLanguage(chatEvent, sender, original, senderLanguage, recipientsByName);
+      }
 
       if (!playerTranslationNeeded && !recipientsByName.isEmpty()) {
-         Message formatted = formatMessage(chatEvent, sender, original);
-         for (PlayerRef target : recipientsByName.values()) {
+         ChatMessage formatted = formatMessage(chatEvent, sender, original);
+         for (ChatPlayer target : recipientsByName.values()) {
             sendMessageSafe(target, formatted);
          }
       }
@@ -113,26 +166,37 @@ public class ChatListener {
       if (this.discordIntegration != null && this.discordIntegration.hasChannelForLanguage(senderLanguage)) {
          this.discordIntegration.handleUntranslatedChat(sender, sender.getUsername(), original, senderLanguage);
       }
+      if (passthrough) {
+         if (discordTranslationNeeded) {
+            this.discordIntegration.handlePassthroughChat(sender, sender.getUsername(), original, senderLanguage);
+         }
+         return;
+      }
 
       List<TranslationTarget> onlineList = new ArrayList<>();
       if (playerTranslationNeeded) {
-         List<PlayerRef> onlinePlayers = Universe.get().getPlayers();
+         List<ChatPlayer> onlinePlayers = this.roster.getPlayers();
          onlineList.addAll(buildOnlineList(onlinePlayers));
          if (onlineList.isEmpty()) {
             onlineList.addAll(buildOnlineListFromRecipients(recipientsByName, sender));
          }
+         if (detectedLanguage != null) {
+            String sourceLanguage = senderLanguage;
+            onlineList.removeIf(target -> sameLanguageTag(sourceLanguage, target.idioma));
+         }
       }
       if (this.discordIntegration != null) {
          this.discordIntegration.appendDiscordTargets(onlineList, senderLanguage);
       }
 
-      if (onlineList.isEmpty()) {
+      if (!hasTargetOtherThan(onlineList, sender.getUsername())) {
          return;
       }
 
       String messageId = generateMessageId();
-      PendingChat pending = new PendingChat(sender, chatEvent.getFormatter(), sender.getUsername());
+      PendingChat pending = new PendingChat(sender, chatEvent.formatter, sender.getUsername(), receivedNanos);
       this.pendingStore.put(messageId, pending);
+      ChatMetrics.TRACER.start(messageId, receivedNanos);
 
       ChatPayload payload = new ChatPayload();
       payload.type = "chat";
@@ -143,34 +207,68 @@ public class ChatListener {
       payload.jogador = sender.getUsername() == null ? "" : sender.getUsername();
       payload.jogadorUuid = sender.getUuid() == null ? "" : sender.getUuid().toString();
       payload.jogadoresOnline = onlineList;
-
-      if (this.config.isDirectTranslationConfigured() && this.openAiTranslationService != null) {
-         this.openAiTranslationService.translateAsync(payload)
-               .thenAccept(response -> this.translationDispatcher.dispatch(messageId, response))
-               .exceptionally(err -> {
-                  ((Api) this.logger.atWarning().withCause(err)).log("ChatTranslation OpenAI dispatch failed");
-                  this.translationDispatcher.dispatch(messageId, this.openAiTranslationService.buildFallbackResponse(payload));
+      ChatMetrics.PAYLOAD_BUILD.recordSince(receivedNanos);
+
+      this.translationRouter.translate(payload, partial -> this.translationDispatcher.dispatchPartial(messageId, partial))
+            .thenAccept(response -> this.translationDispatcher.dispatch(messageId, response))
+            .exceptionally(err -> {
+               Throwable cause = err instanceof CompletionException && err.getCause() != null ? err.getCause() : err;
+               if (cause instanceof TranslationOverloadedException) {
+                  // The router already logged and counted it; the sender learns why nobody got a translation.
+                  ChatMetrics.CHAT_OVERLOADED.increment();
+                  TranslationResponse fallback = ((TranslationOverloadedException) cause).getFallback();
+                  this.translationDispatcher.dispatch(messageId, fallback != null ? fallback : this.translationRouter.buildFallbackResponse(payload));
+                  notifyOverloaded(sender);
                   return null;
-               });
-         return;
-      }
+               }
+               ((Api) this.logger.atWarning().withCause(err)).log("ChatTranslation dispatch failed");
+               this.translationDispatcher.dispatch(messageId, this.translationRouter.buildFallbackResponse(payload));
+               return null;
+            });
+   }
 
-      if (!this.config.isWsConfigured()) {
-         ((Api) this.logger.atWarning()).log("ChatTranslation disabled: configure openai_api_key or ws_url/server_id");
+   private void notifyOverloaded(ChatPlayer sender) {
+      MessageStore messages = this.messageStore;
+      if (messages == null) {
          return;
       }
+      String notice = messages.getString("chat_overloaded", resolveLanguage(sender), this.config);
+      if (notice != null && !notice.isBlank()) {
+         sendMessageSafe(sender, ChatMessage.raw(notice));
+      }
+   }
 
-      String json = this.gson.toJson(payload);
-      this.socketClient.sendChat(json);
+   /**
+    * Language tags the line would be translated into: the recipients' and, when Discord needs a
+    * translation too, the channel languages.
+    */
+   private Set<String> targetLanguages(String senderLanguage,
+                                       Map<String, ChatPlayer> recipientsByName,
+                                       boolean players,
+                                       boolean discord) {
+      Set<String> languages = new HashSet<>();
+      if (players) {
+         for (ChatPlayer recipient : recipientsByName.values()) {
+            languages.add(resolveLanguage(recipient));
+         }
+      }
+      if (discord) {
+         List<TranslationTarget> discordTargets = new ArrayList<>();
+         this.discordIntegration.appendDiscordTargets(discordTargets, senderLanguage);
+         for (TranslationTarget target : discordTargets) {
+            languages.add(target.idioma);
+         }
+      }
+      return languages;
    }
 
-   private List<TranslationTarget> buildOnlineList(List<PlayerRef> players) {
+   private List<TranslationTarget> buildOnlineList(List<ChatPlayer> players) {
       if (players == null || players.isEmpty()) {
          return Collections.emptyList();
       }
 
       List<TranslationTarget> list = new ArrayList<>();
-      for (PlayerRef player : players) {
+      for (ChatPlayer player : players) {
          if (player == null) {
             continue;
          }
@@ -186,15 +284,94 @@ public class ChatListener {
       return list;
    }
 
-   private Message formatMessage(PlayerChatEvent chatEvent, PlayerRef sender, String content) {
-      PlayerChatEvent.Formatter formatter = chatEvent.getFormatter();
-      if (formatter == null) {
-         formatter = PlayerChatEvent.DEFAULT_FORMATTER;
+   /**
+    * Delivers the original line to the recipients who read the sender's (detected) language tag and
+    * drops them from {@code recipientsByName}. Returns whether anyone is left to translate for.
+    */
+   private boolean deliverSameLanguage(ChatEvent chatEvent,
+                                       ChatPlayer sender,
+                                       String original,
+                                       String senderLanguage,
+                                       Map<String, ChatPlayer> recipientsByName) {
+      ChatMessage formatted = null;
+      Iterator<ChatPlayer> it = recipientsByName.values().iterator();
+      while (it.hasNext()) {
+         ChatPlayer target = it.next();
+         if (!sameLanguageTag(senderLanguage, resolveLanguage(target))) {
+            continue;
+         }
+         if (formatted == null) {
+            formatted = formatMessage(chatEvent, sender, original);
+         }
+         sendMessageSafe(target, formatted);
+         it.remove();
+         ChatMetrics.SAME_LANGUAGE_SKIPPED.increment();
+      }
+      return !recipientsByName.isEmpty();
+   }
+
+   /**
+    * The most common recipient tag for {@code baseLanguage} ({@code pt} to {@code pt-BR}), so the
+    * detected language matches the recipients' own settings; the bare code when nobody uses it.
+    */
+   private String languageTagFor(String baseLanguage, Map<String, ChatPlayer> recipientsByName) {
+      Map<String, Integer> tags = new HashMap<>();
+      String best = baseLanguage;
+      int bestCount = 0;
+      for (ChatPlayer player : recipientsByName.values()) {
+         String language = resolveLanguage(player);
+         if (!baseLanguage.equals(LanguageDetector.baseLanguage(language))) {
+            continue;
+         }
+         int count = tags.merge(language, 1, Integer::sum);
+         if (count > bestCount) {
+            best = language;
+            bestCount = count;
+         }
+      }
+      return best;
+   }
+
+   /**
+    * Full tags are compared, so {@code pt-BR} still gets translated for {@code pt-PT}. A tag without a
+    * region ({@code pt}) matches every region of its language.
+    */
+   static boolean sameLanguageTag(String a, String b) {
+      String left = normalizeLanguage(a);
+      String right = normalizeLanguage(b);
+      if (left == null || right == null) {
+         return false;
+      }
+      if (left.equals(right)) {
+         return true;
+      }
+      boolean regionless = left.indexOf('-') < 0 || right.indexOf('-') < 0;
+      return regionless && LanguageDetector.baseLanguage(left).equals(LanguageDetector.baseLanguage(right));
+   }
+
+   private static boolean hasTargetOtherThan(List<TranslationTarget> targets, String senderName) {
+      for (TranslationTarget target : targets) {
+         if (senderName == null || target.jogador == null || !target.jogador.equalsIgnoreCase(senderName)) {
+            return true;
+         }
       }
-      return formatter.format(sender, content);
+      return false;
+   }
+
+   private static List<String> playerNames(Map<String, ChatPlayer> recipientsByName, ChatPlayer sender) {
+      List<String> names = new ArrayList<>(recipientsByName.size() + 1);
+      names.addAll(recipientsByName.keySet());
+      if (sender.getUsername() != null) {
+         names.add(sender.getUsername());
+      }
+      return names;
+   }
+
+   private ChatMessage formatMessage(ChatEvent chatEvent, ChatPlayer sender, String content) {
+      return ChatMessage.chat(sender, sender.getUsername(), chatEvent.formatter, content);
    }
 
-   private String resolveLanguage(PlayerRef player) {
+   private String resolveLanguage(ChatPlayer player) {
       String lang = this.languageStore.getLanguage(player.getUuid());
       if (lang == null || lang.isEmpty()) {
          lang = player.getLanguage();
@@ -208,9 +385,9 @@ public class ChatListener {
       return lang.trim();
    }
 
-   private boolean shouldTranslate(String senderLanguage, Map<String, PlayerRef> recipientsByName) {
+   private boolean shouldTranslate(String senderLanguage, Map<String, ChatPlayer> recipientsByName) {
       String base = normalizeLanguage(senderLanguage);
-      for (PlayerRef player : recipientsByName.values()) {
+      for (ChatPlayer player : recipientsByName.values()) {
          String lang = normalizeLanguage(resolveLanguage(player));
          if (base == null) {
             base = lang;
@@ -238,7 +415,7 @@ public class ChatListener {
       return a.equals(b);
    }
 
-   private static String safeName(PlayerRef player) {
+   private static String safeName(ChatPlayer player) {
       if (player == null) {
          return "unknown";
       }
@@ -246,12 +423,12 @@ public class ChatListener {
       return name == null || name.isBlank() ? "unknown" : name;
    }
 
-   private List<TranslationTarget> buildOnlineListFromRecipients(Map<String, PlayerRef> recipientsByName, PlayerRef sender) {
-      Map<String, PlayerRef> unique = new HashMap<>();
+   private List<TranslationTarget> buildOnlineListFromRecipients(Map<String, ChatPlayer> recipientsByName, ChatPlayer sender) {
+      Map<String, ChatPlayer> unique = new HashMap<>();
       if (sender != null && sender.getUuid() != null) {
          unique.put(sender.getUuid().toString(), sender);
       }
-      for (PlayerRef player : recipientsByName.values()) {
+      for (ChatPlayer player : recipientsByName.values()) {
          if (player == null || player.getUuid() == null) {
             continue;
          }
@@ -261,7 +438,7 @@ public class ChatListener {
          return Collections.emptyList();
       }
       List<TranslationTarget> list = new ArrayList<>();
-      for (PlayerRef player : unique.values()) {
+      for (ChatPlayer player : unique.values()) {
          String username = player.getUsername();
          if (username == null || username.isEmpty()) {
             continue;
@@ -274,12 +451,12 @@ public class ChatListener {
       return list;
    }
 
-   private void sendMessageSafe(PlayerRef player, Message message) {
+   private void sendMessageSafe(ChatPlayer player, ChatMessage message) {
       if (player == null || message == null) {
          return;
       }
       try {
-         player.sendMessage(message);
+         this.sink.send(player, message);
       } catch (Exception e) {
          ((Api) this.logger.atWarning().withCause(e)).log("ChatTranslation failed to send message");
       }
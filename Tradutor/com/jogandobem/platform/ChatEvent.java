@@ -0,0 +1,24 @@
+package com.jogandobem.platform;
+
+import com.hypixel.hytale.server.core.event.events.player.PlayerChatEvent;
+import java.util.List;
+
+public final class ChatEvent {
+   public final ChatPlayer sender;
+   public final String content;
+   /**
+    * Recipients chosen by the server; empty means everyone online.
+    */
+   public final List<ChatPlayer> targets;
+   /**
+    * Server formatter for this chat, or {@code null} for the default one.
+    */
+   public final PlayerChatEvent.Formatter formatter;
+
+   public ChatEvent(ChatPlayer sender, String content, List<ChatPlayer> targets, PlayerChatEvent.Formatter formatter) {
+      this.sender = sender;
+      this.content = content;
+      this.targets = targets;
+      this.formatter = formatter;
+   }
+}
@@ -0,0 +1,11 @@
+package com.jogandobem.platform;
+
+import java.util.function.Consumer;
+
+/**
+ * Publishes chat events. On a live server the original event is already cancelled when the handler
+ * runs, so the handler owns delivery to every recipient.
+ */
+public interface ChatEventSource {
+   void subscribe(Consumer<ChatEvent> handler);
+}
@@ -0,0 +1,33 @@
+package com.jogandobem.platform;
+
+import com.hypixel.hytale.server.core.event.events.player.PlayerChatEvent;
+
+/**
+ * One line to deliver. Chat lines keep their sender and formatter so the sink can render them the
+ * way the server would; raw lines are shown as-is.
+ */
+public final class ChatMessage {
+   public final ChatPlayer sender;
+   public final String senderName;
+   public final PlayerChatEvent.Formatter formatter;
+   public final String text;
+
+   private ChatMessage(ChatPlayer sender, String senderName, PlayerChatEvent.Formatter formatter, String text) {
+      this.sender = sender;
+      this.senderName = senderName;
+      this.formatter = formatter;
+      this.text = text;
+   }
+
+   /**
+    * A chat line from {@code sender}. When the sender is gone, the line falls back to
+    * {@code "senderName: text"}.
+    */
+   public static ChatMessage chat(ChatPlayer sender, String senderName, PlayerChatEvent.Formatter formatter, String text) {
+      return new ChatMessage(sender, senderName, formatter, text);
+   }
+
+   public static ChatMessage raw(String text) {
+      return new ChatMessage(null, null, null, text);
+   }
+}
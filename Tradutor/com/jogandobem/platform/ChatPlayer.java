@@ -0,0 +1,18 @@
+package com.jogandobem.platform;
+
+import java.util.UUID;
+
+/**
+ * A player as the chat pipeline sees it. On a live server this wraps a {@code PlayerRef}; the
+ * simulation harness provides virtual players.
+ */
+public interface ChatPlayer {
+   UUID getUuid();
+
+   String getUsername();
+
+   /**
+    * Language reported by the client, or {@code null} when unknown.
+    */
+   String getLanguage();
+}
@@ -0,0 +1,107 @@
+package com.jogandobem.platform;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.event.events.player.PlayerChatEvent;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.Universe;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Roster and message sink backed by the live Hytale universe.
+ */
+public final class HytalePlatform implements PlayerRoster, MessageSink {
+   public static final HytalePlatform INSTANCE = new HytalePlatform();
+
+   private HytalePlatform() {
+   }
+
+   @Override
+   public List<ChatPlayer> getPlayers() {
+      return wrapAll(Universe.get().getPlayers());
+   }
+
+   @Override
+   public ChatPlayer getPlayer(UUID uuid) {
+      return wrap(Universe.get().getPlayer(uuid));
+   }
+
+   @Override
+   public void send(ChatPlayer target, ChatMessage message) {
+      if (!(target instanceof HytalePlayer) || message == null) {
+         return;
+      }
+      ((HytalePlayer) target).ref.sendMessage(toMessage(message));
+   }
+
+   /**
+    * Adapts a server chat event: cancels it (the handler delivers to every recipient itself) and
+    * hands the wrapped event to {@code handler}.
+    */
+   public static void publish(PlayerChatEvent event, Consumer<ChatEvent> handler) {
+      if (event == null || event.getSender() == null) {
+         return;
+      }
+      event.setCancelled(true);
+      handler.accept(new ChatEvent(
+            wrap(event.getSender()),
+            event.getContent(),
+            wrapAll(event.getTargets()),
+            event.getFormatter()
+      ));
+   }
+
+   public static ChatPlayer wrap(PlayerRef ref) {
+      return ref == null ? null : new HytalePlayer(ref);
+   }
+
+   private static List<ChatPlayer> wrapAll(List<PlayerRef> refs) {
+      if (refs == null || refs.isEmpty()) {
+         return Collections.emptyList();
+      }
+      List<ChatPlayer> players = new ArrayList<>(refs.size());
+      for (PlayerRef ref : refs) {
+         if (ref != null) {
+            players.add(new HytalePlayer(ref));
+         }
+      }
+      return players;
+   }
+
+   private static Message toMessage(ChatMessage message) {
+      if (message.sender instanceof HytalePlayer) {
+         PlayerChatEvent.Formatter formatter = message.formatter == null ? PlayerChatEvent.DEFAULT_FORMATTER : message.formatter;
+         return formatter.format(((HytalePlayer) message.sender).ref, message.text);
+      }
+      if (message.senderName != null && !message.senderName.isBlank()) {
+         return Message.raw(message.senderName + ": " + message.text);
+      }
+      return Message.raw(message.text);
+   }
+
+   private static final class HytalePlayer implements ChatPlayer {
+      private final PlayerRef ref;
+
+      private HytalePlayer(PlayerRef ref) {
+         this.ref = ref;
+      }
+
+      @Override
+      public UUID getUuid() {
+         return this.ref.getUuid();
+      }
+
+      @Override
+      public String getUsername() {
+         return this.ref.getUsername();
+      }
+
+      @Override
+      public String getLanguage() {
+         return this.ref.getLanguage();
+      }
+   }
+}
@@ -0,0 +1,8 @@
+package com.jogandobem.platform;
+
+/**
+ * Delivers chat lines to players.
+ */
+public interface MessageSink {
+   void send(ChatPlayer target, ChatMessage message);
+}
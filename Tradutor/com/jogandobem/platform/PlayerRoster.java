@@ -0,0 +1,13 @@
+package com.jogandobem.platform;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Source of the players currently online.
+ */
+public interface PlayerRoster {
+   List<ChatPlayer> getPlayers();
+
+   ChatPlayer getPlayer(UUID uuid);
+}
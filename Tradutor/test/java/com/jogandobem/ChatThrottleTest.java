@@ -0,0 +1,71 @@
+package com.jogandobem;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.jogandobem.ChatThrottle.Verdict;
+import com.jogandobem.SocketModels.ChatPayload;
+import org.junit.jupiter.api.Test;
+
+class ChatThrottleTest {
+   private final ChatThrottle throttle = new ChatThrottle();
+
+   @Test
+   void burstThenOverRate() {
+      for (int i = 0; i < 3; i++) {
+         assertEquals(Verdict.TRANSLATE, this.throttle.check("p", "m" + i, "line " + i, 1, 3, 15_000));
+      }
+      assertEquals(Verdict.OVER_RATE, this.throttle.check("p", "m3", "line 3", 1, 3, 15_000));
+      assertEquals(Verdict.TRANSLATE, this.throttle.check("other", "m4", "line 3", 1, 3, 15_000));
+   }
+
+   @Test
+   void zeroDisablesTheLimits() {
+      for (int i = 0; i < 50; i++) {
+         assertEquals(Verdict.TRANSLATE, this.throttle.check("p", "m" + i, "gg", 0, 0, 0));
+      }
+   }
+
+   @Test
+   void repeatIsNotTranslatedAgain() {
+      assertEquals(Verdict.TRANSLATE, this.throttle.check("p", "m1", "alguem tem ferro?", 30, 10, 15_000));
+      assertEquals(Verdict.DUPLICATE, this.throttle.check("p", "m2", "Alguem tem ferro?", 30, 10, 15_000));
+      assertEquals(Verdict.TRANSLATE, this.throttle.check("p", "m3", "e carvao?", 30, 10, 15_000));
+   }
+
+   @Test
+   void failoverOfTheSameMessageRepeatsTheVerdict() {
+      assertEquals(Verdict.TRANSLATE, this.throttle.check("p", "m1", "oi", 1, 1, 15_000));
+      assertEquals(Verdict.TRANSLATE, this.throttle.check("p", "m1", "oi", 1, 1, 15_000));
+      assertEquals(Verdict.OVER_RATE, this.throttle.check("p", "m2", "tudo bem?", 1, 1, 15_000));
+      assertEquals(Verdict.OVER_RATE, this.throttle.check("p", "m2", "tudo bem?", 1, 1, 15_000));
+   }
+
+   @Test
+   void admitReadsTheConfig() {
+      TranslationConfig config = new TranslationConfig();
+      config.chatRatePerMinute = 0;
+      config.chatRateBurst = 0;
+      config.chatDuplicateWindowSeconds = 0;
+      ChatPayload payload = new ChatPayload();
+      payload.jogadorUuid = "p";
+      payload.textoOriginal = "gg";
+      for (int i = 0; i < 20; i++) {
+         payload.messageId = "m" + i;
+         assertTrue(this.throttle.admit(payload, config));
+      }
+      config.chatDuplicateWindowSeconds = 15;
+      payload.messageId = "m20";
+      assertFalse(this.throttle.admit(payload, config));
+   }
+
+   @Test
+   void crowdEvictsTheLeastRecentlyActive() {
+      for (int i = 0; i < 5000; i++) {
+         this.throttle.check("p" + i, "m" + i, "oi", 30, 10, 15_000);
+      }
+      assertTrue(this.throttle.size() < 4096);
+      assertTrue(this.throttle.size() > 3000);
+   }
+}
@@ -0,0 +1,90 @@
+package com.jogandobem;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+   private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+   // The breaker never opens for less than a second.
+   private static final long OPEN_MS = 1000L;
+
+   private final CircuitBreaker breaker = new CircuitBreaker("test", LOGGER, 50, 500L, OPEN_MS, 4);
+
+   @Test
+   void opensOnceTheFailureRateIsReached() {
+      record(10L, false);
+      record(10L, true);
+      record(10L, false);
+      assertEquals(CircuitBreaker.State.CLOSED, this.breaker.getState());
+
+      record(10L, true);
+      assertEquals(CircuitBreaker.State.OPEN, this.breaker.getState());
+      assertTrue(this.breaker.isOpen());
+      assertFalse(this.breaker.tryAcquire());
+      assertEquals(1L, this.breaker.getOpenedCount());
+      assertEquals(1L, this.breaker.getShortCircuited());
+   }
+
+   @Test
+   void slowCallsCountLikeFailures() {
+      for (int i = 0; i < 4; i++) {
+         record(800L, false);
+      }
+      assertEquals(CircuitBreaker.State.OPEN, this.breaker.getState());
+   }
+
+   @Test
+   void halfOpenProbesCloseTheBreaker() throws InterruptedException {
+      trip();
+      Thread.sleep(OPEN_MS + 100L);
+      // Looking at the breaker does not use up a probe.
+      assertFalse(this.breaker.isOpen());
+      assertEquals(CircuitBreaker.State.OPEN, this.breaker.getState());
+
+      assertTrue(this.breaker.tryAcquire());
+      assertEquals(CircuitBreaker.State.HALF_OPEN, this.breaker.getState());
+      assertTrue(this.breaker.tryAcquire());
+      assertFalse(this.breaker.tryAcquire());
+
+      // A cancelled probe never reached the endpoint and hands its slot back.
+      this.breaker.onCancelled();
+      assertTrue(this.breaker.tryAcquire());
+
+      this.breaker.onResult(10L, false);
+      assertEquals(CircuitBreaker.State.HALF_OPEN, this.breaker.getState());
+      this.breaker.onResult(10L, false);
+      assertEquals(CircuitBreaker.State.CLOSED, this.breaker.getState());
+
+      // The failures from before the open period are forgotten.
+      record(10L, true);
+      assertEquals(CircuitBreaker.State.CLOSED, this.breaker.getState());
+   }
+
+   @Test
+   void failedProbeReopensTheBreaker() throws InterruptedException {
+      trip();
+      Thread.sleep(OPEN_MS + 100L);
+      assertTrue(this.breaker.tryAcquire());
+      this.breaker.onResult(10L, true);
+
+      assertEquals(CircuitBreaker.State.OPEN, this.breaker.getState());
+      assertEquals(2L, this.breaker.getOpenedCount());
+      assertFalse(this.breaker.tryAcquire());
+   }
+
+   private void trip() {
+      for (int i = 0; i < 4; i++) {
+         record(10L, true);
+      }
+      assertEquals(CircuitBreaker.State.OPEN, this.breaker.getState());
+   }
+
+   private void record(long latencyMs, boolean failure) {
+      assertTrue(this.breaker.tryAcquire());
+      this.breaker.onResult(latencyMs, failure);
+   }
+}
@@ -0,0 +1,165 @@
+package com.jogandobem;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+
+class ConcurrencyLimiterTest {
+   private static void sample(ConcurrencyLimiter limiter, long latencyMs, boolean dropped) {
+      assertTrue(limiter.tryAcquire());
+      limiter.release(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(latencyMs), dropped);
+   }
+
+   @Test
+   void mixedRequestSizesDoNotShrinkTheWindow() {
+      ConcurrencyLimiter limiter = new ConcurrencyLimiter(16, 0);
+      int initial = limiter.getLimit();
+      // Short lines answer in ~100ms, long multi-language ones take ten times longer.
+      for (int i = 0; i < 1000; i++) {
+         sample(limiter, i % 3 == 0 ? 1000 : 100, false);
+      }
+      assertEquals(initial, limiter.getLimit());
+   }
+
+   @Test
+   void sustainedSlowdownShrinksTheWindow() {
+      ConcurrencyLimiter limiter = new ConcurrencyLimiter(16, 0);
+      for (int i = 0; i < 100; i++) {
+         sample(limiter, 100, false);
+      }
+      int before = limiter.getLimit();
+      for (int i = 0; i < 40; i++) {
+         sample(limiter, 500, false);
+      }
+      assertTrue(limiter.getLimit() < before);
+      assertTrue(limiter.getLimit() > 1);
+   }
+
+   @Test
+   void overloadBacksOffRightAway() {
+      ConcurrencyLimiter limiter = new ConcurrencyLimiter(16, 0);
+      int before = limiter.getLimit();
+      sample(limiter, 100, true);
+      assertTrue(limiter.getLimit() < before);
+      assertEquals(1, limiter.getDrops());
+   }
+
+   @Test
+   void slowDriftIsAbsorbed() {
+      ConcurrencyLimiter limiter = new ConcurrencyLimiter(16, 0);
+      int before = limiter.getLimit();
+      for (int latency = 100; latency < 1000; latency += 1) {
+         sample(limiter, latency, false);
+      }
+      assertEquals(before, limiter.getLimit());
+   }
+
+   @Test
+   void callsAboveTheWindowWaitInOrder() {
+      // maxLimit 2 starts with a window of one call.
+      ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 4);
+      List<CompletableFuture<Integer>> calls = new ArrayList<>();
+      CompletableFuture<Integer> first = limiter.submit(call(calls), status -> status == 429);
+      CompletableFuture<Integer> second = limiter.submit(call(calls), status -> status == 429);
+      CompletableFuture<Integer> third = limiter.submit(call(calls), status -> status == 429);
+      assertEquals(1, calls.size());
+      assertEquals(1, limiter.getInFlight());
+      assertEquals(2, limiter.getQueueDepth());
+
+      // A fast answer grows the window to two, so both waiting calls start, oldest first.
+      calls.get(0).complete(200);
+      assertEquals(200, first.join());
+      assertEquals(2, limiter.getLimit());
+      assertEquals(3, calls.size());
+      assertFalse(second.isDone());
+
+      calls.get(2).complete(200);
+      assertFalse(second.isDone());
+      calls.get(1).complete(200);
+      assertEquals(200, second.join());
+      assertEquals(200, third.join());
+      assertEquals(0, limiter.getInFlight());
+      assertEquals(0, limiter.getQueueDepth());
+   }
+
+   @Test
+   void fullQueueFailsFast() {
+      ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 1);
+      List<CompletableFuture<Integer>> calls = new ArrayList<>();
+      limiter.submit(call(calls), status -> false);
+      limiter.submit(call(calls), status -> false);
+      assertTrue(limiter.isSaturated());
+
+      CompletableFuture<Integer> rejected = limiter.submit(call(calls), status -> false);
+      ExecutionException error = assertThrows(ExecutionException.class, rejected::get);
+      assertInstanceOf(TranslationOverloadedException.class, error.getCause());
+      assertEquals(1, limiter.getRejected());
+      assertEquals(1, calls.size());
+   }
+
+   @Test
+   void overloadStatusShrinksTheWindow() {
+      ConcurrencyLimiter limiter = new ConcurrencyLimiter(16, 0);
+      int before = limiter.getLimit();
+      List<CompletableFuture<Integer>> calls = new ArrayList<>();
+      CompletableFuture<Integer> result = limiter.submit(call(calls), status -> status == 429);
+      calls.get(0).complete(429);
+      assertEquals(429, result.join());
+      assertEquals(1, limiter.getDrops());
+      assertTrue(limiter.getLimit() < before);
+   }
+
+   @Test
+   void cancelledCallHandsItsSlotOnWithoutBackingOff() {
+      ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 1);
+      int before = limiter.getLimit();
+      List<CompletableFuture<Integer>> calls = new ArrayList<>();
+      CompletableFuture<Integer> first = limiter.submit(call(calls), status -> false);
+      CompletableFuture<Integer> second = limiter.submit(call(calls), status -> false);
+
+      // What a losing hedge or an abandoned chat line does to its HTTP call.
+      calls.get(0).cancel(true);
+      assertTrue(first.isCompletedExceptionally());
+      assertEquals(2, calls.size());
+      assertEquals(1, limiter.getInFlight());
+      assertEquals(0, limiter.getDrops());
+      assertEquals(before, limiter.getLimit());
+
+      calls.get(1).complete(200);
+      assertEquals(200, second.join());
+      assertEquals(0, limiter.getInFlight());
+   }
+
+   @Test
+   void shutdownCancelsQueuedCallsWithoutStartingThem() {
+      ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 4);
+      List<CompletableFuture<Integer>> calls = new ArrayList<>();
+      CompletableFuture<Integer> running = limiter.submit(call(calls), status -> false);
+      CompletableFuture<Integer> queued = limiter.submit(call(calls), status -> false);
+      limiter.shutdown();
+
+      assertThrows(CancellationException.class, queued::join);
+      assertEquals(1, calls.size());
+      assertFalse(running.isDone());
+      assertTrue(limiter.submit(call(calls), status -> false).isCancelled());
+   }
+
+   private static Supplier<CompletableFuture<Integer>> call(List<CompletableFuture<Integer>> started) {
+      return () -> {
+         CompletableFuture<Integer> call = new CompletableFuture<>();
+         started.add(call);
+         return call;
+      };
+   }
+}
@@ -0,0 +1,55 @@
+package com.jogandobem;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class HedgePolicyTest {
+   private final HedgePolicy policy = new HedgePolicy();
+
+   @Test
+   void noHedgeUntilThereIsEnoughHistory() {
+      for (int i = 0; i < 19; i++) {
+         this.policy.recordLatency(300L);
+      }
+      assertEquals(-1L, this.policy.hedgeDelayMs(95));
+      this.policy.recordLatency(300L);
+      assertEquals(300L, this.policy.hedgeDelayMs(95));
+   }
+
+   @Test
+   void delayIsTheRequestedPercentile() {
+      for (long latency = 1; latency <= 100; latency++) {
+         this.policy.recordLatency(latency * 10L);
+      }
+      assertEquals(960L, this.policy.hedgeDelayMs(95));
+      assertEquals(510L, this.policy.hedgeDelayMs(50));
+      // Percentiles below the median would hedge half the traffic and are raised to it.
+      assertEquals(510L, this.policy.hedgeDelayMs(10));
+   }
+
+   @Test
+   void fastHistoryStillWaitsTheMinimumDelay() {
+      for (int i = 0; i < 20; i++) {
+         this.policy.recordLatency(5L);
+      }
+      assertEquals(50L, this.policy.hedgeDelayMs(99));
+   }
+
+   @Test
+   void budgetCapsHedgesToAShareOfRequests() {
+      for (int i = 0; i < 100; i++) {
+         this.policy.onRequest();
+      }
+      for (int i = 0; i < 10; i++) {
+         assertTrue(this.policy.tryHedge(10));
+      }
+      assertFalse(this.policy.tryHedge(10));
+      assertEquals(10L, this.policy.getHedgesSent());
+
+      this.policy.onRequest();
+      assertFalse(this.policy.tryHedge(0));
+   }
+}
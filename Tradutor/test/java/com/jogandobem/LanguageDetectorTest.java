@@ -0,0 +1,29 @@
+package com.jogandobem;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class LanguageDetectorTest {
+   private final LanguageDetector detector = new LanguageDetector(HytaleLogger.forEnclosingClass());
+
+   @Test
+   void latinProfilesAreLoadedFromTheClasspath() {
+      // Needs language_profiles.txt next to the class; without it only non-Latin scripts are detected.
+      assertEquals("pt", this.detector.detect(UUID.randomUUID(), "alguem quer ir minerar comigo amanha de manha?", "en-US", 90));
+      assertEquals("en", this.detector.detect(UUID.randomUUID(), "does anyone want to go mining with me tomorrow?", "pt-BR", 90));
+   }
+
+   @Test
+   void scriptDecidesNonLatinText() {
+      assertEquals("ru", this.detector.detect(UUID.randomUUID(), "привет всем, кто хочет пойти в шахту?", "en", 90));
+   }
+
+   @Test
+   void disabledAtFullConfidence() {
+      assertNull(this.detector.detect(UUID.randomUUID(), "does anyone want to go mining with me tomorrow?", "pt-BR", 100));
+   }
+}
@@ -0,0 +1,74 @@
+package com.jogandobem;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class MicroBatcherTest {
+   private final List<List<String>> flushed = new CopyOnWriteArrayList<>();
+
+   @Test
+   void quietItemGoesOutRightAway() {
+      MicroBatcher<String> batcher = new MicroBatcher<>(10_000L, 10, this.flushed::add);
+      batcher.submit("a");
+      assertEquals(List.of(List.of("a")), this.flushed);
+      assertEquals(0, batcher.getPendingCount());
+      batcher.shutdown();
+   }
+
+   @Test
+   void burstWaitsForTheWindow() throws InterruptedException {
+      CountDownLatch windowFlush = new CountDownLatch(2);
+      MicroBatcher<String> batcher = new MicroBatcher<>(200L, 10, items -> {
+         this.flushed.add(items);
+         windowFlush.countDown();
+      });
+      batcher.submit("a");
+      batcher.submit("b");
+      batcher.submit("c");
+      // "a" followed a quiet period; "b" arrived inside the window and holds it open for "c".
+      assertEquals(List.of(List.of("a")), this.flushed);
+      assertEquals(2, batcher.getPendingCount());
+
+      assertTrue(windowFlush.await(2, TimeUnit.SECONDS));
+      assertEquals(List.of(List.of("a"), List.of("b", "c")), this.flushed);
+      assertEquals(2L, batcher.getFlushedBatches());
+      assertEquals(3L, batcher.getFlushedItems());
+      batcher.shutdown();
+   }
+
+   @Test
+   void sizeCapFlushesBeforeTheWindow() {
+      MicroBatcher<String> batcher = new MicroBatcher<>(10_000L, 3, this.flushed::add);
+      batcher.submit("a");
+      batcher.submit("b");
+      batcher.submit("c");
+      batcher.submit("d");
+      assertEquals(List.of(List.of("a"), List.of("b", "c", "d")), this.flushed);
+      assertEquals(0, batcher.getPendingCount());
+      batcher.shutdown();
+   }
+
+   @Test
+   void zeroWindowNeverHoldsAnItem() {
+      MicroBatcher<String> batcher = new MicroBatcher<>(0L, 10, this.flushed::add);
+      batcher.submit("a");
+      batcher.submit("b");
+      assertEquals(List.of(List.of("a"), List.of("b")), this.flushed);
+      batcher.shutdown();
+   }
+
+   @Test
+   void shutdownFlushesWhatIsPending() {
+      MicroBatcher<String> batcher = new MicroBatcher<>(10_000L, 10, this.flushed::add);
+      batcher.submit("a");
+      batcher.submit("b");
+      batcher.shutdown();
+      assertEquals(List.of(List.of("a"), List.of("b")), this.flushed);
+   }
+}
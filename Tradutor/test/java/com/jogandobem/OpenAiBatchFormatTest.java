@@ -0,0 +1,86 @@
+package com.jogandobem;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.jogandobem.TranslationModels.TranslationTarget;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class OpenAiBatchFormatTest {
+   private final List<Line> lines = List.of(
+         new Line("bom dia {0}", List.of(target("Steve", "EN"), target("Maria", "es")), Map.of("steve", "en", "maria", "es")),
+         new Line("vem \"aqui\"", List.of(target("Steve", "en")), Map.of("steve", "en"))
+   );
+
+   @Test
+   void promptListsEachLineWithItsSlots() {
+      assertEquals(
+            "Mensagens: [{\"id\":\"0\",\"texto_original\":\"bom dia {0}\",\"idiomas\":[\"en\",\"es\"]},"
+                  + "{\"id\":\"1\",\"texto_original\":\"vem \\\"aqui\\\"\",\"idiomas\":[\"en\"]}]",
+            OpenAiBatchFormat.buildPrompt(this.lines)
+      );
+   }
+
+   @Test
+   void rowsAreMatchedBackById() {
+      List<Map<String, String>> byMessage = OpenAiBatchFormat.decodeStrict(
+            "{\"mensagens\":[{\"id\":\"1\",\"traducao\":[\"come \\\"here\\\"\"]},"
+                  + "{\"id\":\"0\",\"traducao\":[\"good morning {0}\",\"buenos dias {0}\"]}]}",
+            this.lines
+      );
+      assertEquals(Map.of("en", "good morning {0}", "es", "buenos dias {0}"), byMessage.get(0));
+      assertEquals(Map.of("en", "come \"here\""), byMessage.get(1));
+   }
+
+   @Test
+   void missingRowIsLeftForASingleRequest() {
+      List<Map<String, String>> strict = OpenAiBatchFormat.decodeStrict(
+            "{\"mensagens\":[{\"id\":\"0\",\"traducao\":[\"good morning {0}\",\"buenos dias {0}\"]}]}",
+            this.lines
+      );
+      assertNull(strict.get(1));
+
+      List<Map<String, String>> lenient = OpenAiBatchFormat.decodeLenient(
+            OpenAiLenientDecoder.parseJsonObjectSafe("Pronto: {\"mensagens\":[{\"id\":\"1\",\"traducao\":[{\"jogador\":\"Steve\",\"texto_traduzido\":\"come\"}]}]}"),
+            this.lines
+      );
+      assertNull(lenient.get(0));
+      assertEquals(Map.of("en", "come"), lenient.get(1));
+   }
+
+   private static TranslationTarget target(String jogador, String idioma) {
+      TranslationTarget target = new TranslationTarget();
+      target.jogador = jogador;
+      target.idioma = idioma;
+      return target;
+   }
+
+   private static final class Line implements OpenAiBatchFormat.Message {
+      private final String template;
+      private final List<TranslationTarget> targets;
+      private final Map<String, String> representativeToLanguage;
+
+      private Line(String template, List<TranslationTarget> targets, Map<String, String> representativeToLanguage) {
+         this.template = template;
+         this.targets = targets;
+         this.representativeToLanguage = representativeToLanguage;
+      }
+
+      @Override
+      public String getTemplate() {
+         return this.template;
+      }
+
+      @Override
+      public List<TranslationTarget> getTargets() {
+         return this.targets;
+      }
+
+      @Override
+      public Map<String, String> getRepresentativeToLanguage() {
+         return this.representativeToLanguage;
+      }
+   }
+}
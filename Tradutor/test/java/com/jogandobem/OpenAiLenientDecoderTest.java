@@ -0,0 +1,63 @@
+package com.jogandobem;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.gson.JsonObject;
+import com.jogandobem.TranslationModels.TranslationTarget;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class OpenAiLenientDecoderTest {
+   @Test
+   void jsonWrappedInProseIsFound() {
+      String body = "{\"output\":[{\"content\":[{\"type\":\"output_text\","
+            + "\"text\":\"Claro! Aqui esta: {\\\"traducao\\\":[\\\"good morning\\\"]} Espero ter ajudado.\"}]}]}";
+      JsonObject parsed = OpenAiLenientDecoder.parseResponseToObject(body, OpenAiLenientDecoder::hasTranslationArrayKey);
+      assertNotNull(parsed);
+      assertTrue(OpenAiLenientDecoder.validateTranslationOutput(parsed));
+      Map<String, String> byLanguage = OpenAiLenientDecoder.extractTranslationsByLanguage(parsed, List.of(target("Steve", "EN")), Map.of());
+      assertEquals(Map.of("en", "good morning"), byLanguage);
+   }
+
+   @Test
+   void legacySlotsMapByPlayerNameBeforeIndex() {
+      String text = "{\"translations\":[{\"player\":\"Renamed\",\"texto_traduzido\":\"good morning\"},"
+            + "{\"jogador\":\"Maria\",\"translated_text\":\"buenos dias\"}]}";
+      JsonObject parsed = OpenAiLenientDecoder.parseJsonObjectSafe(text);
+      assertTrue(OpenAiLenientDecoder.validateTranslationOutput(parsed));
+      Map<String, String> byLanguage = OpenAiLenientDecoder.extractTranslationsByLanguage(
+            parsed,
+            List.of(target("Steve", "en"), target("Maria", "es")),
+            Map.of("maria", "es")
+      );
+      // "Maria" is matched by name; the renamed slot falls back to its position.
+      assertEquals(Map.of("en", "good morning", "es", "buenos dias"), byLanguage);
+   }
+
+   @Test
+   void slotsWithoutTextFailValidation() {
+      assertFalse(OpenAiLenientDecoder.validateTranslationOutput(OpenAiLenientDecoder.parseJsonObjectSafe("{\"traducao\":[\"ok\",{\"jogador\":\"x\"}]}")));
+      assertFalse(OpenAiLenientDecoder.validateTranslationOutput(OpenAiLenientDecoder.parseJsonObjectSafe("{\"resposta\":[\"ok\"]}")));
+      assertNull(OpenAiLenientDecoder.parseJsonObjectSafe("sem json nenhum"));
+      assertNull(OpenAiLenientDecoder.parseResponseToObject("{\"output_text\":\"nada\"}", OpenAiLenientDecoder::hasTranslationArrayKey));
+   }
+
+   @Test
+   void batchOutputNeedsAnObjectPerMessage() {
+      assertTrue(OpenAiLenientDecoder.validateBatchOutput(OpenAiLenientDecoder.parseJsonObjectSafe("{\"mensagens\":[{\"id\":\"0\"}]}")));
+      assertFalse(OpenAiLenientDecoder.validateBatchOutput(OpenAiLenientDecoder.parseJsonObjectSafe("{\"mensagens\":[\"0\"]}")));
+      assertFalse(OpenAiLenientDecoder.validateBatchOutput(OpenAiLenientDecoder.parseJsonObjectSafe("{\"traducao\":[]}")));
+   }
+
+   private static TranslationTarget target(String jogador, String idioma) {
+      TranslationTarget target = new TranslationTarget();
+      target.jogador = jogador;
+      target.idioma = idioma;
+      return target;
+   }
+}
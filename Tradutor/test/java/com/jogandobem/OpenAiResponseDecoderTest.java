@@ -0,0 +1,43 @@
+package com.jogandobem;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+class OpenAiResponseDecoderTest {
+   @Test
+   void batchRowsDecodeById() {
+      String[][] rows = OpenAiResponseDecoder.decodeBatch(
+            "{\"mensagens\":[{\"id\":\"1\",\"traducao\":[\"hi\"]},{\"id\":0,\"traducao\":[\"good morning\",\"buenos dias\"]}]}",
+            new int[] {2, 1}
+      );
+      assertNotNull(rows);
+      assertArrayEquals(new String[] {"good morning", "buenos dias"}, rows[0]);
+      assertArrayEquals(new String[] {"hi"}, rows[1]);
+   }
+
+   @Test
+   void badRowIdOnlyDropsThatRow() {
+      String[][] rows = OpenAiResponseDecoder.decodeBatch(
+            "{\"mensagens\":[{\"id\":\"zero\",\"traducao\":[\"lost\"]},{\"id\":{},\"traducao\":[\"lost\"]},"
+                  + "{\"id\":\"1\",\"traducao\":[\"kept\"]}]}",
+            new int[] {1, 1}
+      );
+      assertNotNull(rows);
+      assertNull(rows[0]);
+      assertArrayEquals(new String[] {"kept"}, rows[1]);
+   }
+
+   @Test
+   void wrongSlotCountLeavesTheRowEmpty() {
+      String[][] rows = OpenAiResponseDecoder.decodeBatch(
+            "{\"mensagens\":[{\"id\":\"0\",\"traducao\":[\"one\"]}]}",
+            new int[] {2}
+      );
+      assertNotNull(rows);
+      assertNull(rows[0]);
+      assertNull(OpenAiResponseDecoder.decodeSlots("Aqui esta: {\"traducao\":[\"hi\"]}", 1));
+   }
+}
@@ -0,0 +1,60 @@
+package com.jogandobem;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class PassthroughClassifierTest {
+   private final PassthroughClassifier classifier = new PassthroughClassifier();
+
+   @Test
+   void symbolsAndRunsPassThrough() {
+      assertTrue(this.classifier.isPassthrough("120 64 -30", List.of(), "pt-BR", Set.of("en")));
+      assertTrue(this.classifier.isPassthrough("kkkkk ?????", List.of(), "pt-BR", Set.of("en")));
+      assertTrue(this.classifier.isPassthrough("@steve", List.of("steve"), "pt-BR", Set.of("en")));
+   }
+
+   @Test
+   void oneLetterWordsAreTranslated() {
+      assertFalse(this.classifier.isPassthrough("e", List.of(), "pt-BR", Set.of("en")));
+      assertFalse(this.classifier.isPassthrough("y", List.of(), "es", Set.of("en")));
+      assertFalse(PassthroughClassifier.isSingleCharacterRun("a"));
+      assertTrue(PassthroughClassifier.isSingleCharacterRun("kk"));
+      assertTrue(PassthroughClassifier.isSingleCharacterRun("?"));
+   }
+
+   @Test
+   void learnedLinePassesOnlyForTheLanguagesSeenUnchanged() {
+      this.classifier.learn("ok", "pt-BR", "en", "ok");
+      this.classifier.learn("ok", "pt-BR", "es", "ok");
+
+      assertTrue(this.classifier.isPassthrough("ok", List.of(), "pt-BR", Set.of("en", "es")));
+      assertTrue(this.classifier.isPassthrough("OK", List.of(), "pt-BR", Set.of("en", "pt-BR")));
+      assertFalse(this.classifier.isPassthrough("ok", List.of(), "pt-BR", Set.of("en", "ja")));
+      assertFalse(this.classifier.isPassthrough("ok", List.of(), "pt-BR", Set.of()));
+   }
+
+   @Test
+   void learningIsKeptPerSourceLanguage() {
+      this.classifier.learn("show", "en", "pt-BR", "show");
+      this.classifier.learn("show", "en", "es", "show");
+
+      assertFalse(this.classifier.isPassthrough("show", List.of(), "pt-BR", Set.of("es")));
+      assertTrue(this.classifier.isPassthrough("show", List.of(), "en", Set.of("es")));
+   }
+
+   @Test
+   void changedPairStopsPassingThrough() {
+      this.classifier.learn("ok", "pt-BR", "en", "ok");
+      this.classifier.learn("ok", "pt-BR", "ja", "オーケー");
+      this.classifier.learn("ok", "pt-BR", "ja", "ok");
+
+      assertTrue(this.classifier.isPassthrough("ok", List.of(), "pt-BR", Set.of("en")));
+      assertFalse(this.classifier.isPassthrough("ok", List.of(), "pt-BR", Set.of("ja")));
+      assertEquals(1, this.classifier.getLearnedCount());
+   }
+}
@@ -0,0 +1,83 @@
+package com.jogandobem;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.jogandobem.SocketModels.ChatPayload;
+import com.jogandobem.TranslationModels.TranslationResponse;
+import com.jogandobem.TranslationModels.TranslationResult;
+import com.jogandobem.TranslationModels.TranslationTarget;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PhrasebookTest {
+   @TempDir
+   Path dataDir;
+
+   private Phrasebook phrasebook;
+
+   @BeforeEach
+   void load() {
+      this.phrasebook = Phrasebook.loadOrCreate(this.dataDir, HytaleLogger.forEnclosingClass());
+   }
+
+   @Test
+   void stretchedLettersMatchButShortenedOnesDoNot() {
+      assertTrue(Phrasebook.stretches("obrigadooo", "obrigado"));
+      assertTrue(Phrasebook.stretches("kkkkkkk", "kkkk"));
+      assertFalse(Phrasebook.stretches("god", "good"));
+      assertFalse(Phrasebook.stretches("g", "gg"));
+      assertFalse(Phrasebook.stretches("k", "kkkk"));
+      assertEquals("good game", Phrasebook.normalizePhrase("GOOD game!"));
+   }
+
+   @Test
+   void stretchedPhraseIsTranslated() {
+      assertEquals("thanks!!", translation(translate("OBRIGADOOO!!", "pt-BR", "en"), "p-en"));
+   }
+
+   @Test
+   void otherLanguagesPhraseIsNotTakenForAKnownSender() {
+      // "já" folds to the German "ja", and "show" is a Portuguese phrase.
+      assertNull(translate("já", "pt-BR", "en"));
+      assertNull(translate("show", "en", "pt-BR"));
+      assertNull(translate("k", "en", "pt-BR"));
+   }
+
+   @Test
+   void anyLanguagePhrasesAndUnknownSendersFallBack() {
+      assertEquals("kkkk", translation(translate("lol", "ja", "pt-BR"), "p-pt-br"));
+      assertEquals("yes", translation(translate("ja", "auto", "en"), "p-en"));
+   }
+
+   private TranslationResponse translate(String text, String senderLanguage, String targetLanguage) {
+      ChatPayload payload = new ChatPayload();
+      payload.textoOriginal = text;
+      payload.idiomaOriginal = senderLanguage;
+      payload.jogador = "sender";
+      TranslationTarget target = new TranslationTarget();
+      target.jogador = "p-" + targetLanguage.toLowerCase();
+      target.idioma = targetLanguage;
+      payload.jogadoresOnline = new ArrayList<>(List.of(target));
+      return this.phrasebook.translate(payload);
+   }
+
+   private static String translation(TranslationResponse response, String player) {
+      if (response == null || response.traducao == null) {
+         return null;
+      }
+      for (TranslationResult result : response.traducao) {
+         if (player.equals(result.jogador)) {
+            return result.textoTraduzido;
+         }
+      }
+      return null;
+   }
+}
@@ -0,0 +1,56 @@
+package com.jogandobem;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PlaceholderMaskerTest {
+   @Test
+   void coordinatesBecomeOnePlaceholder() {
+      PlaceholderMasker.Masked masked = PlaceholderMasker.mask("@Steve vem pro 120, 64 -30 agora", List.of("Steve"));
+      assertEquals("@{0} vem pro {1} agora", masked.getTemplate());
+      assertEquals("@Steve come to 120, 64 -30 now", masked.fill("@{0} come to {1} now"));
+   }
+
+   @Test
+   void axisCoordinatesJoinTheGroup() {
+      PlaceholderMasker.Masked masked = PlaceholderMasker.mask("base em x:100 y=64 z-20!", List.of());
+      assertEquals("base em {0}!", masked.getTemplate());
+      assertEquals("base at x:100 y=64 z-20!", masked.fill("base at {0}!"));
+   }
+
+   @Test
+   void separateNumbersKeepTheirOwnSlots() {
+      PlaceholderMasker.Masked masked = PlaceholderMasker.mask("paguei 150 e ele 150", List.of());
+      assertEquals("paguei {0} e ele {1}", masked.getTemplate());
+   }
+
+   @Test
+   void smallCardinalsStayInTheText() {
+      PlaceholderMasker.Masked masked = PlaceholderMasker.mask("tenho 2 diamantes e 1 espada", List.of());
+      assertFalse(masked.isMasked());
+      assertEquals("tenho 2 diamantes e 1 espada", masked.getTemplate());
+
+      PlaceholderMasker.Masked group = PlaceholderMasker.mask("vem pro 1 2 3", List.of());
+      assertEquals("vem pro {0}", group.getTemplate());
+   }
+
+   @Test
+   void fillRejectsMissingAndUnknownPlaceholders() {
+      PlaceholderMasker.Masked masked = PlaceholderMasker.mask("@Alex vem pro 8 70 12", List.of("Alex"));
+      assertNull(masked.fill("@{0} come here"));
+      assertNull(masked.fill("@{0} come to {1} and {2}"));
+      assertEquals("{literal}", PlaceholderMasker.mask("{literal}", List.of()).getTemplate());
+   }
+
+   @Test
+   void unfillTurnsATranslationOfTheOriginalBackIntoATemplate() {
+      PlaceholderMasker.Masked masked = PlaceholderMasker.mask("@Steve vem pro 120 64 -30", List.of("Steve"));
+      assertEquals("@{0} come to {1}", masked.unfill("@Steve come to 120 64 -30"));
+      assertNull(masked.unfill("@Steve come to 120 64"));
+      assertNull(masked.unfill("@Steven come to 120 64 -30"));
+   }
+}
@@ -0,0 +1,138 @@
+package com.jogandobem;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.http.HttpHeaders;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class RateLimitSchedulerTest {
+   private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+   private final RateLimitScheduler limits = new RateLimitScheduler(this.scheduler);
+   private final AtomicInteger sent = new AtomicInteger();
+
+   @AfterEach
+   void stopScheduler() {
+      this.scheduler.shutdownNow();
+   }
+
+   @Test
+   void nothingIsPacedBeforeTheFirstHeaders() {
+      for (int i = 0; i < 100; i++) {
+         assertEquals(0L, this.limits.reserve(10_000L));
+      }
+      assertEquals(0L, this.limits.getPaced());
+   }
+
+   @Test
+   void emptyRequestBucketSpacesCallsOut() {
+      // 60 requests per minute with one left: the next one goes now, the one after waits a second.
+      this.limits.onResponse(200, headers("x-ratelimit-limit-requests", "60", "x-ratelimit-remaining-requests", "1"));
+      assertEquals(0L, this.limits.reserve(10L));
+      long waitMs = this.limits.reserve(10L);
+      assertTrue(waitMs > 900L && waitMs <= 1000L, "wait=" + waitMs);
+      assertEquals(1L, this.limits.getPaced());
+
+      // A call that was never sent gives its slot back: the next one queues behind one slot, not two.
+      this.limits.cancel(10L);
+      long afterCancelMs = this.limits.reserve(10L);
+      assertTrue(afterCancelMs > 900L && afterCancelMs <= 1000L, "wait=" + afterCancelMs);
+   }
+
+   @Test
+   void exhaustedTokenBudgetWaitsForTheReset() {
+      this.limits.onResponse(200, headers("x-ratelimit-remaining-tokens", "100", "x-ratelimit-reset-tokens", "2s"));
+      assertEquals(0L, this.limits.reserve(60L));
+      long waitMs = this.limits.reserve(60L);
+      assertTrue(waitMs > 1900L && waitMs <= 2000L, "wait=" + waitMs);
+   }
+
+   @Test
+   void throttledResponsePausesForRetryAfter() {
+      this.limits.onResponse(429, headers("retry-after", "3"));
+      long waitMs = this.limits.reserve(10L);
+      assertTrue(waitMs > 2900L && waitMs <= 3000L, "wait=" + waitMs);
+      assertEquals(1L, this.limits.getThrottled());
+   }
+
+   @Test
+   void backoffWithoutRetryAfterGrowsWithEachThrottle() {
+      this.limits.onResponse(429, headers());
+      long first = this.limits.reserve(10L);
+      assertTrue(first > 0L && first <= 250L, "wait=" + first);
+      this.limits.onResponse(429, headers());
+      this.limits.onResponse(429, headers());
+      long third = this.limits.reserve(10L);
+      // Third throttle in a row: 1s base, jittered down to no less than half of it.
+      assertTrue(third >= 500L && third <= 1000L, "wait=" + third);
+   }
+
+   @Test
+   void resetDurationsInOpenAiFormat() {
+      assertEquals(20L, RateLimitScheduler.parseDurationMs("20ms"));
+      assertEquals(1000L, RateLimitScheduler.parseDurationMs("1s"));
+      assertEquals(360_500L, RateLimitScheduler.parseDurationMs("6m0.5s"));
+      assertEquals(0L, RateLimitScheduler.parseDurationMs(null));
+   }
+
+   @Test
+   void pacedCallIsSentAfterTheWait() throws Exception {
+      this.limits.onResponse(429, headers("retry-after-ms", "300"));
+      long start = System.nanoTime();
+      CompletableFuture<Integer> call = this.limits.pace(10L, 5000L, new CallGroup(), this::send);
+      assertEquals(0, this.sent.get());
+
+      assertEquals(200, call.get(2, TimeUnit.SECONDS));
+      assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 250L);
+      assertEquals(1, this.sent.get());
+   }
+
+   @Test
+   void waitLongerThanTheTimeoutFailsFast() {
+      this.limits.onResponse(429, headers("retry-after", "10"));
+      CompletableFuture<Integer> call = this.limits.pace(10L, 5000L, new CallGroup(), this::send);
+      ExecutionException error = assertThrows(ExecutionException.class, call::get);
+      assertInstanceOf(TranslationOverloadedException.class, error.getCause());
+      assertEquals(0, this.sent.get());
+   }
+
+   @Test
+   void callCancelledWhilePacedIsNeverSent() throws Exception {
+      this.limits.onResponse(200, headers("x-ratelimit-limit-requests", "120", "x-ratelimit-remaining-requests", "0"));
+      CallGroup calls = new CallGroup();
+      CompletableFuture<Integer> call = this.limits.pace(10L, 5000L, calls, this::send);
+      assertFalse(call.isDone());
+      calls.cancel();
+
+      ExecutionException error = assertThrows(ExecutionException.class, () -> call.get(2, TimeUnit.SECONDS));
+      assertInstanceOf(CancellationException.class, error.getCause());
+      assertEquals(0, this.sent.get());
+   }
+
+   private CompletableFuture<Integer> send() {
+      this.sent.incrementAndGet();
+      return CompletableFuture.completedFuture(200);
+   }
+
+   private static HttpHeaders headers(String... pairs) {
+      Map<String, List<String>> map = new HashMap<>();
+      for (int i = 0; i < pairs.length; i += 2) {
+         map.put(pairs[i], List.of(pairs[i + 1]));
+      }
+      return HttpHeaders.of(map, (name, value) -> true);
+   }
+}
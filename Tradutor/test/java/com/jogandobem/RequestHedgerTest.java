@@ -0,0 +1,118 @@
+package com.jogandobem;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class RequestHedgerTest {
+   private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+   private final TranslationConfig config = new TranslationConfig();
+   private final RequestHedger hedger = new RequestHedger(this.config, this.scheduler);
+   // The HTTP call behind the primary request, and the calls of the primary side and of the line.
+   private final CompletableFuture<Map<String, String>> primaryCall = new CompletableFuture<>();
+   private final CallGroup primaryCalls = new CallGroup();
+   private final CallGroup lineCalls = new CallGroup();
+   private final CompletableFuture<Map<String, String>> hedgeCall = new CompletableFuture<>();
+   private final CompletableFuture<CallGroup> hedgeLaunched = new CompletableFuture<>();
+
+   RequestHedgerTest() {
+      this.config.openAiHedgePercentile = 95;
+      this.config.openAiHedgeBudgetPercent = 100;
+      this.primaryCalls.add(this.primaryCall);
+      this.lineCalls.onCancel(this.primaryCalls::cancel);
+   }
+
+   @AfterEach
+   void stopScheduler() {
+      this.scheduler.shutdownNow();
+   }
+
+   @Test
+   void noHedgeWithoutLatencyHistory() {
+      CompletableFuture<Map<String, String>> result = race();
+      assertSame(this.primaryCall, result);
+   }
+
+   @Test
+   void winningHedgeCancelsThePrimaryCalls() throws Exception {
+      warmUp();
+      CompletableFuture<Map<String, String>> result = race();
+      hedgeCalls();
+      this.hedgeCall.complete(Map.of("en", "good morning"));
+
+      assertEquals(Map.of("en", "good morning"), result.get(2, TimeUnit.SECONDS));
+      // The loser is cancelled right after the winner is delivered, possibly on the scheduler thread.
+      assertThrows(CancellationException.class, () -> this.primaryCall.get(2, TimeUnit.SECONDS));
+      assertTrue(this.primaryCalls.isCancelled());
+      assertEquals(1L, this.hedger.getPolicy().getHedgesSent());
+      assertEquals(1L, this.hedger.getPolicy().getHedgeWins());
+   }
+
+   @Test
+   void winningPrimaryCancelsTheHedge() throws Exception {
+      warmUp();
+      CompletableFuture<Map<String, String>> result = race();
+      CallGroup hedgeCalls = hedgeCalls();
+      this.primaryCall.complete(Map.of("en", "good morning"));
+
+      assertEquals(Map.of("en", "good morning"), result.get(2, TimeUnit.SECONDS));
+      assertTrue(hedgeCalls.isCancelled());
+      assertTrue(this.hedgeCall.isCancelled());
+      assertFalse(this.primaryCalls.isCancelled());
+      assertEquals(0L, this.hedger.getPolicy().getHedgeWins());
+   }
+
+   @Test
+   void emptyAnswerWaitsForTheOtherSide() throws Exception {
+      warmUp();
+      CompletableFuture<Map<String, String>> result = race();
+      hedgeCalls();
+      this.primaryCall.complete(Map.of());
+      assertFalse(result.isDone());
+
+      this.hedgeCall.complete(Map.of("en", "good morning"));
+      assertEquals(Map.of("en", "good morning"), result.get(2, TimeUnit.SECONDS));
+   }
+
+   @Test
+   void abandonedLineStopsBothSides() throws Exception {
+      warmUp();
+      race();
+      CallGroup hedgeCalls = hedgeCalls();
+      this.lineCalls.cancel();
+
+      assertTrue(this.primaryCall.isCancelled());
+      assertTrue(hedgeCalls.isCancelled());
+      assertTrue(this.hedgeCall.isCancelled());
+   }
+
+   private void warmUp() {
+      // Every past request took 50ms, so the hedge goes out 50ms after the primary.
+      for (int i = 0; i < 20; i++) {
+         this.hedger.getPolicy().recordLatency(50L);
+      }
+   }
+
+   private CompletableFuture<Map<String, String>> race() {
+      return this.hedger.hedge(this.primaryCall, this.primaryCalls, this.lineCalls, System.currentTimeMillis(), (calls, delayMs) -> {
+         calls.add(this.hedgeCall);
+         this.hedgeLaunched.complete(calls);
+         return this.hedgeCall;
+      });
+   }
+
+   private CallGroup hedgeCalls() throws Exception {
+      return this.hedgeLaunched.get(2, TimeUnit.SECONDS);
+   }
+}
@@ -0,0 +1,34 @@
+package com.jogandobem;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class TranslationCacheTest {
+   @Test
+   void echoedOriginalIsSameText() {
+      assertTrue(TranslationCache.sameText("bom  dia ", "Bom dia"));
+      assertFalse(TranslationCache.sameText("bom dia", "good morning"));
+   }
+
+   @Test
+   void onlyFreshModelOutputTeachesPassthrough() {
+      TranslationCache cache = new TranslationCache(64);
+      PassthroughClassifier classifier = new PassthroughClassifier();
+      cache.setPassthroughClassifier(classifier);
+
+      // A relay echo is stored and served, but it is not evidence that the line reads the same.
+      cache.put("bora la", "pt-br", "en", "ws:gpt", "bora la");
+      assertEquals("bora la", cache.get("bora la", "pt-br", "en", "ws:gpt"));
+      assertEquals(0, classifier.getLearnedCount());
+      assertFalse(classifier.isPassthrough("bora la", List.of(), "pt-br", Set.of("en")));
+
+      cache.putFresh("ok", "pt-br", "en", "gpt", "ok");
+      assertEquals(1, classifier.getLearnedCount());
+      assertTrue(classifier.isPassthrough("ok", List.of(), "pt-br", Set.of("en")));
+   }
+}
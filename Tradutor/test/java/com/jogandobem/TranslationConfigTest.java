@@ -0,0 +1,41 @@
+package com.jogandobem;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TranslationConfigTest {
+   @TempDir
+   Path dataDir;
+
+   private TranslationConfig load(String json) throws IOException {
+      Files.writeString(this.dataDir.resolve("translator_config.json"), json, StandardCharsets.UTF_8);
+      return TranslationConfig.loadOrCreate(this.dataDir, HytaleLogger.forEnclosingClass());
+   }
+
+   @Test
+   void zeroQueueIsKept() throws IOException {
+      assertEquals(0, load("{\"translation_max_queue\": 0}").translationMaxQueue);
+      assertEquals(64, load("{}").translationMaxQueue);
+      assertEquals(64, load("{\"translation_max_queue\": -5}").translationMaxQueue);
+   }
+
+   @Test
+   void zeroBatchWindowDisablesBatching() throws IOException {
+      assertEquals(0, load("{\"openai_batch_window_ms\": 0}").openAiBatchWindowMs);
+      assertEquals(50, load("{}").openAiBatchWindowMs);
+      assertEquals(50, load("{\"openai_batch_window_ms\": -1}").openAiBatchWindowMs);
+   }
+
+   @Test
+   void zeroTraceSampleKeepsOnlySlowTraces() throws IOException {
+      assertEquals(0, load("{\"trace_sample_percent\": 0}").traceSamplePercent);
+      assertEquals(10, load("{}").traceSamplePercent);
+   }
+}
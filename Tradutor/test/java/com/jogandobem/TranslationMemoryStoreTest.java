@@ -0,0 +1,70 @@
+package com.jogandobem;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TranslationMemoryStoreTest {
+   private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+   @TempDir
+   Path dataDir;
+
+   @Test
+   void entriesSurviveReopening() {
+      TranslationMemoryStore store = TranslationMemoryStore.open(this.dataDir, LOGGER, 1);
+      assertNotNull(store);
+      store.put("pt-br\u0000en\u0000gpt\u0000bom dia", "good morning");
+      store.put("pt-br\u0000es\u0000gpt\u0000bom dia", "buenos dias");
+      store.put("pt-br\u0000en\u0000gpt\u0000bom dia", "morning");
+      store.shutdown();
+
+      TranslationMemoryStore reopened = TranslationMemoryStore.open(this.dataDir, LOGGER, 1);
+      assertNotNull(reopened);
+      assertEquals(2, reopened.size());
+      assertEquals("morning", reopened.get("pt-br\u0000en\u0000gpt\u0000bom dia"));
+      assertEquals("buenos dias", reopened.get("pt-br\u0000es\u0000gpt\u0000bom dia"));
+      assertNull(reopened.get("pt-br\u0000fr\u0000gpt\u0000bom dia"));
+      reopened.shutdown();
+   }
+
+   @Test
+   void compactionKeepsNewestEntriesWithinBudget() throws IOException, InterruptedException {
+      TranslationMemoryStore store = TranslationMemoryStore.open(this.dataDir, LOGGER, 1);
+      assertNotNull(store);
+      String value = "x".repeat(8000);
+      int written = 200;
+      for (int i = 0; i < written; i++) {
+         store.put("key-" + i, value + i);
+      }
+      long deadline = System.currentTimeMillis() + 5000;
+      while (store.getCompactions() == 0 && System.currentTimeMillis() < deadline) {
+         Thread.sleep(10);
+      }
+      assertTrue(store.getCompactions() > 0);
+      assertTrue(store.size() < written);
+      String newest = "key-" + (written - 1);
+      assertEquals(value + (written - 1), store.get(newest));
+      assertNull(store.get("key-0"));
+      // Whatever the background compactor did meanwhile, this leaves the file at its smallest size.
+      store.compactIfNeeded();
+      assertEquals(1L << 20, Files.size(this.dataDir.resolve("translation_memory.dat")));
+      assertEquals(1L << 20, store.getMappedBytes());
+      int kept = store.size();
+      store.shutdown();
+
+      TranslationMemoryStore reopened = TranslationMemoryStore.open(this.dataDir, LOGGER, 1);
+      assertNotNull(reopened);
+      assertEquals(kept, reopened.size());
+      assertEquals(value + (written - 1), reopened.get(newest));
+      reopened.shutdown();
+   }
+}
@@ -0,0 +1,143 @@
+package com.jogandobem;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.jogandobem.SocketModels.ChatPayload;
+import com.jogandobem.TranslationModels.TranslationResponse;
+import com.jogandobem.TranslationModels.TranslationTarget;
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+
+class TranslationRouterTest {
+   private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+   @Test
+   void timedOutBackendCallIsCancelled() throws Exception {
+      TranslationConfig config = new TranslationConfig();
+      config.backendTimeoutMs = 1000;
+      CompletableFuture<TranslationResponse> hanging = new CompletableFuture<>();
+      TranslationBackend backend = new TranslationBackend() {
+         @Override
+         public String getName() {
+            return "openai";
+         }
+
+         @Override
+         public boolean isAvailable() {
+            return true;
+         }
+
+         @Override
+         public CompletableFuture<TranslationResponse> translate(ChatPayload payload, Consumer<TranslationResponse> partialListener) {
+            return hanging;
+         }
+      };
+      TranslationRouter router = new TranslationRouter(config, LOGGER, null, List.of(backend));
+
+      TranslationResponse response = router.translate(chatLine(), null).get(5, TimeUnit.SECONDS);
+      assertTrue(hanging.isCancelled());
+      assertEquals("alguem tem ferro?", response.traducao.get(0).textoTraduzido);
+   }
+
+   @Test
+   void sheddingIsReportedWithTheOriginalText() {
+      TranslationBackend backend = new TranslationBackend() {
+         @Override
+         public String getName() {
+            return "ws";
+         }
+
+         @Override
+         public boolean isAvailable() {
+            return true;
+         }
+
+         @Override
+         public CompletableFuture<TranslationResponse> translate(ChatPayload payload, Consumer<TranslationResponse> partialListener) {
+            return CompletableFuture.failedFuture(new TranslationOverloadedException("relay in_flight=64 limit=64"));
+         }
+      };
+      TranslationRouter router = new TranslationRouter(new TranslationConfig(), LOGGER, null, List.of(backend));
+
+      ExecutionException error = assertThrows(ExecutionException.class, () -> router.translate(chatLine(), null).get(5, TimeUnit.SECONDS));
+      TranslationOverloadedException overloaded = assertInstanceOf(TranslationOverloadedException.class, error.getCause());
+      assertEquals("alguem tem ferro?", overloaded.getFallback().traducao.get(0).textoTraduzido);
+   }
+
+   @Test
+   void timedOutOpenAiRequestIsAborted() throws Exception {
+      try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+         // Sends the headers and then never the body, so only a cancel can end the exchange.
+         CompletableFuture<Long> closedAt = CompletableFuture.supplyAsync(() -> {
+            try (Socket socket = server.accept()) {
+               InputStream in = socket.getInputStream();
+               BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII));
+               String line;
+               while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                  // request headers
+               }
+               OutputStream out = socket.getOutputStream();
+               out.write("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: 100000\r\n\r\n{".getBytes(StandardCharsets.US_ASCII));
+               out.flush();
+               while (in.read() >= 0) {
+                  // request body, until the client closes the connection
+               }
+               return System.nanoTime();
+            } catch (Exception e) {
+               throw new IllegalStateException(e);
+            }
+         });
+
+         TranslationConfig config = TranslationConfig.loadOrCreate(null, LOGGER);
+         config.openAiApiKey = "test";
+         config.openAiEndpoint = "http://127.0.0.1:" + server.getLocalPort() + "/v1/responses";
+         config.backendTimeoutMs = 1000;
+         OpenAiTranslationService openAi = new OpenAiTranslationService(config, LOGGER, new TranslationCache(16));
+         TranslationRouter router = new TranslationRouter(config, LOGGER, null, List.of(openAi));
+
+         TranslationResponse response = router.translate(chatLine(), null).get(5, TimeUnit.SECONDS);
+         long fellBackAt = System.nanoTime();
+         assertEquals("alguem tem ferro?", response.traducao.get(0).textoTraduzido);
+         long closed = closedAt.get(5, TimeUnit.SECONDS);
+         assertTrue(closed - fellBackAt < TimeUnit.SECONDS.toNanos(2));
+         assertEquals(0, openAi.getInFlightRequests());
+      }
+   }
+
+   @Test
+   void requestTimeoutNeverOutlivesTheRouter() {
+      TranslationConfig config = new TranslationConfig();
+      config.apiTimeoutMs = 60000;
+      config.backendTimeoutMs = 15000;
+      assertEquals(15000, config.getRequestTimeoutMs());
+      config.apiTimeoutMs = 5000;
+      assertEquals(5000, config.getRequestTimeoutMs());
+   }
+
+   private static ChatPayload chatLine() {
+      ChatPayload payload = new ChatPayload();
+      payload.textoOriginal = "alguem tem ferro?";
+      payload.idiomaOriginal = "pt-BR";
+      TranslationTarget target = new TranslationTarget();
+      target.jogador = "steve";
+      target.idioma = "en";
+      payload.jogadoresOnline = List.of(target);
+      return payload;
+   }
+}
@@ -0,0 +1,33 @@
+package com.jogandobem.listeners;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class ChatListenerTest {
+   @Test
+   void sameTagSkipsTranslation() {
+      assertTrue(ChatListener.sameLanguageTag("pt-BR", "pt-br"));
+      assertTrue(ChatListener.sameLanguageTag("en", " EN "));
+   }
+
+   @Test
+   void otherRegionIsStillTranslated() {
+      assertFalse(ChatListener.sameLanguageTag("pt-BR", "pt-PT"));
+      assertFalse(ChatListener.sameLanguageTag("es-ES", "es-MX"));
+   }
+
+   @Test
+   void regionlessTagMatchesEveryRegion() {
+      assertTrue(ChatListener.sameLanguageTag("pt", "pt-PT"));
+      assertTrue(ChatListener.sameLanguageTag("es-MX", "es"));
+      assertFalse(ChatListener.sameLanguageTag("pt", "es"));
+   }
+
+   @Test
+   void missingTagNeverMatches() {
+      assertFalse(ChatListener.sameLanguageTag(null, "pt-BR"));
+      assertFalse(ChatListener.sameLanguageTag("", ""));
+   }
+}
@@ -0,0 +1,224 @@
+package com.jogandobem.simulation;
+
+import com.jogandobem.ChatMetrics;
+import com.jogandobem.ChatThrottle;
+import com.jogandobem.LanguageDetector;
+import com.jogandobem.LanguageStore;
+import com.jogandobem.OpenAiTranslationService;
+import com.jogandobem.PassthroughClassifier;
+import com.jogandobem.PendingChatStore;
+import com.jogandobem.Phrasebook;
+import com.jogandobem.TranslationCache;
+import com.jogandobem.TranslationConfig;
+import com.jogandobem.TranslationDispatcher;
+import com.jogandobem.TranslationRouter;
+import com.jogandobem.listeners.ChatListener;
+import com.jogandobem.simulation.SimulatedServer.SimulatedPlayer;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.hypixel.hytale.logger.HytaleLogger;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Headless end-to-end run of the chat pipeline: N virtual players chat at a Poisson rate through
+ * {@link ChatListener}, the OpenAI service talks to {@code API/openai_stub.py}, and every delivery is
+ * timed from the moment the line was sent. Latency and faults are set on the stub with its
+ * {@code STUB_*} variables.
+ *
+ * <p>Usage: {@code mvn test-compile exec:java -Dexec.args="[players=50,500,5000] [seconds=20]
+ * [chats_per_minute=3] [endpoint=http://127.0.0.1:5522/v1/responses] [batch_window_ms=<config default>]"}
+ */
+public final class ChatSimulation {
+   private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+   private static final String[] LANGUAGES = {"en", "pt-BR", "es", "fr", "de", "ru", "ja", "zh", "ko"};
+   private static final double[] LANGUAGE_WEIGHTS = {0.38, 0.18, 0.14, 0.07, 0.07, 0.06, 0.04, 0.03, 0.03};
+   private static final String[] PHRASES = {
+         "alguem quer ir minerar comigo?",
+         "where is the nearest village",
+         "cuidado com o trork perto do rio",
+         "gg, that boss fight was close",
+         "preciso de madeira e ferro",
+         "anyone selling a better sword?"
+   };
+   private static final long DRAIN_QUIET_MS = 2000L;
+   private static final String DEFAULT_ENDPOINT = "http://127.0.0.1:5522/v1/responses";
+   private static final HttpClient HTTP = HttpClient.newHttpClient();
+
+   private ChatSimulation() {
+   }
+
+   public static void main(String[] args) throws Exception {
+      Map<String, String> options = parseOptions(args);
+      int seconds = Integer.parseInt(options.getOrDefault("seconds", "20"));
+      double chatsPerMinute = Double.parseDouble(options.getOrDefault("chats_per_minute", "3"));
+      String endpoint = options.getOrDefault("endpoint", DEFAULT_ENDPOINT);
+      String batchWindow = options.get("batch_window_ms");
+
+      for (String count : options.getOrDefault("players", "50,500,5000").split(",")) {
+         run(Integer.parseInt(count.trim()), seconds, chatsPerMinute, batchWindow, endpoint);
+      }
+   }
+
+   private static void run(int playerCount, int seconds, double chatsPerMinute, String batchWindow, String endpoint)
+         throws IOException, InterruptedException {
+      TranslationConfig config = TranslationConfig.loadOrCreate(null, LOGGER);
+      config.openAiApiKey = "simulation";
+      config.openAiEndpoint = endpoint;
+      long requestsBefore = stubRequests(endpoint);
+      if (batchWindow != null) {
+         config.openAiBatchWindowMs = Integer.parseInt(batchWindow);
+      }
+
+      Random random = new Random(playerCount);
+      List<SimulatedPlayer> players = new ArrayList<>(playerCount);
+      for (int i = 0; i < playerCount; i++) {
+         players.add(new SimulatedPlayer(new UUID(random.nextLong(), random.nextLong()), "Player" + i, pickLanguage(random)));
+      }
+      SimulatedServer server = new SimulatedServer(players);
+
+      Path dataDir = Files.createTempDirectory("tradutor-simulation");
+      LanguageStore languageStore = LanguageStore.loadOrCreate(dataDir, LOGGER);
+      PendingChatStore pendingStore = new PendingChatStore(config.pendingTtlSeconds);
+      TranslationDispatcher dispatcher = new TranslationDispatcher(pendingStore, LOGGER, null, server, server);
+      TranslationCache cache = new TranslationCache(config.translationCacheSize);
+      PassthroughClassifier passthrough = new PassthroughClassifier();
+      cache.setPassthroughClassifier(passthrough);
+      OpenAiTranslationService openAi = new OpenAiTranslationService(config, LOGGER, cache);
+      openAi.setChatThrottle(new ChatThrottle());
+      TranslationRouter router = new TranslationRouter(config, LOGGER, Phrasebook.loadOrCreate(dataDir, LOGGER), List.of(openAi));
+      ChatListener listener = new ChatListener(config, languageStore, router, passthrough, new LanguageDetector(LOGGER), pendingStore, dispatcher, LOGGER, null, server, server);
+      server.subscribe(listener::onChat);
+
+      // Chats are published from one thread, like the server's chat event thread.
+      double chatsPerSecond = playerCount * chatsPerMinute / 60.0;
+      long start = System.nanoTime();
+      long end = start + TimeUnit.SECONDS.toNanos(seconds);
+      long next = start;
+      long chats = 0;
+      while (true) {
+         next += (long) (-Math.log(1.0 - random.nextDouble()) / chatsPerSecond * 1_000_000_000L);
+         if (next >= end) {
+            break;
+         }
+         long wait = next - System.nanoTime();
+         if (wait > 0) {
+            LockSupport.parkNanos(wait);
+         }
+         SimulatedPlayer sender = players.get(random.nextInt(playerCount));
+         String chatId = "m" + chats++;
+         server.chat(sender, chatId, chatId + " " + PHRASES[random.nextInt(PHRASES.length)]);
+      }
+      long publishNanos = System.nanoTime() - start;
+
+      long lastCount = -1;
+      long quietSince = System.currentTimeMillis();
+      long drainDeadline = quietSince + TimeUnit.SECONDS.toMillis(config.pendingTtlSeconds);
+      while (System.currentTimeMillis() < drainDeadline) {
+         long count = server.deliveries();
+         if (count != lastCount) {
+            lastCount = count;
+            quietSince = System.currentTimeMillis();
+         } else if (System.currentTimeMillis() - quietSince >= DRAIN_QUIET_MS) {
+            break;
+         }
+         LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+      }
+      double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+      System.out.println(String.format(Locale.ROOT,
+            "players=%d chats=%d offered=%.1f/s published=%.1f/s deliveries=%d (translated=%d untranslated=%d same_language=%d)"
+                  + " throughput=%.0f deliveries/s latency_ms p50=%d p90=%d p99=%d max=%d backend_requests=%d"
+                  + " overload_rejections=%d circuit=%s",
+            playerCount,
+            chats,
+            chatsPerSecond,
+            chats / (publishNanos / 1e9),
+            server.deliveries(),
+            server.getTranslated(),
+            server.getUntranslated(),
+            server.getSameLanguage(),
+            server.deliveries() / elapsedSeconds,
+            server.percentileMs(50),
+            server.percentileMs(90),
+            server.percentileMs(99),
+            server.getMaxLatencyMs(),
+            stubRequests(endpoint) - requestsBefore,
+            openAi.getRejectedRequests(),
+            openAi.getCircuitState()
+      ));
+      System.out.println(String.format(Locale.ROOT, "  last 1 min (%.0fs):", ChatMetrics.REGISTRY.getWindowSeconds(1)));
+      for (String line : ChatMetrics.REGISTRY.report(1)) {
+         System.out.println("  " + line);
+      }
+
+      openAi.shutdown();
+      pendingStore.shutdown();
+   }
+
+   /**
+    * Calls answered so far by the stub, from its {@code /stub/stats} page next to {@code /v1/responses}.
+    */
+   private static long stubRequests(String endpoint) throws IOException, InterruptedException {
+      String base = endpoint.endsWith("/v1/responses") ? endpoint.substring(0, endpoint.length() - "/v1/responses".length()) : endpoint;
+      HttpRequest request = HttpRequest.newBuilder(URI.create(base + "/stub/stats")).GET().build();
+      HttpResponse<String> response = HTTP.send(request, HttpResponse.BodyHandlers.ofString());
+      if (response.statusCode() != 200) {
+         throw new IOException("stub stats status=" + response.statusCode() + " (is API/openai_stub.py running?)");
+      }
+      JsonElement requests = JsonParser.parseString(response.body()).getAsJsonObject().get("requests");
+      return requests == null ? 0L : requests.getAsLong();
+   }
+
+   /**
+    * Chat id at the start of a delivered line, after the stub's optional {@code "[lang] "} prefix.
+    */
+   static String chatIdOf(String text) {
+      if (text == null) {
+         return "";
+      }
+      int from = 0;
+      if (text.startsWith("[")) {
+         int close = text.indexOf("] ");
+         from = close < 0 ? 0 : close + 2;
+      }
+      int space = text.indexOf(' ', from);
+      return space < 0 ? text.substring(from) : text.substring(from, space);
+   }
+
+   private static String pickLanguage(Random random) {
+      double roll = random.nextDouble();
+      for (int i = 0; i < LANGUAGES.length; i++) {
+         roll -= LANGUAGE_WEIGHTS[i];
+         if (roll <= 0) {
+            return LANGUAGES[i];
+         }
+      }
+      return LANGUAGES[0];
+   }
+
+   private static Map<String, String> parseOptions(String[] args) {
+      Map<String, String> options = new HashMap<>();
+      for (String arg : args) {
+         int eq = arg.indexOf('=');
+         if (eq > 0) {
+            options.put(arg.substring(0, eq).trim().toLowerCase(Locale.ROOT), arg.substring(eq + 1).trim());
+         }
+      }
+      return options;
+   }
+}
@@ -0,0 +1,160 @@
+package com.jogandobem.simulation;
+
+import com.jogandobem.platform.ChatEvent;
+import com.jogandobem.platform.ChatEventSource;
+import com.jogandobem.platform.ChatMessage;
+import com.jogandobem.platform.ChatPlayer;
+import com.jogandobem.platform.MessageSink;
+import com.jogandobem.platform.PlayerRoster;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Virtual server for the harness: a fixed roster, a sink that timestamps every delivery and an event
+ * source the driver publishes chat lines through.
+ */
+final class SimulatedServer implements PlayerRoster, MessageSink, ChatEventSource {
+   private static final int MAX_LATENCY_MS = 60_000;
+
+   private final List<ChatPlayer> players;
+   private final Map<UUID, ChatPlayer> byUuid = new HashMap<>();
+   private final Map<String, Chat> chats = new ConcurrentHashMap<>();
+   private final AtomicLongArray latencyHistogram = new AtomicLongArray(MAX_LATENCY_MS + 1);
+   private final AtomicLong translated = new AtomicLong();
+   private final AtomicLong untranslated = new AtomicLong();
+   private final AtomicLong sameLanguage = new AtomicLong();
+   private final AtomicLong maxLatencyMs = new AtomicLong();
+   private volatile Consumer<ChatEvent> handler;
+
+   SimulatedServer(List<SimulatedPlayer> players) {
+      this.players = Collections.unmodifiableList(new ArrayList<>(players));
+      for (SimulatedPlayer player : players) {
+         this.byUuid.put(player.uuid, player);
+      }
+   }
+
+   @Override
+   public List<ChatPlayer> getPlayers() {
+      return this.players;
+   }
+
+   @Override
+   public ChatPlayer getPlayer(UUID uuid) {
+      return this.byUuid.get(uuid);
+   }
+
+   @Override
+   public void subscribe(Consumer<ChatEvent> handler) {
+      this.handler = handler;
+   }
+
+   /**
+    * Sends one chat line from {@code sender}; {@code chatId} must appear in the text so deliveries
+    * can be matched back to it.
+    */
+   void chat(SimulatedPlayer sender, String chatId, String text) {
+      this.chats.put(chatId, new Chat(sender, System.nanoTime()));
+      this.handler.accept(new ChatEvent(sender, text, Collections.emptyList(), null));
+   }
+
+   @Override
+   public void send(ChatPlayer target, ChatMessage message) {
+      long now = System.nanoTime();
+      Chat chat = this.chats.get(ChatSimulation.chatIdOf(message.text));
+      if (chat == null || chat.sender == target) {
+         // The sender's own echo is shown immediately and says nothing about translation.
+         return;
+      }
+      long latencyMs = Math.min(MAX_LATENCY_MS, (now - chat.sentNanos) / 1_000_000L);
+      this.latencyHistogram.incrementAndGet((int) latencyMs);
+      this.maxLatencyMs.accumulateAndGet(latencyMs, Math::max);
+      if (chat.sender.language.equals(((SimulatedPlayer) target).language)) {
+         this.sameLanguage.incrementAndGet();
+      } else if (message.text.startsWith("[")) {
+         this.translated.incrementAndGet();
+      } else {
+         this.untranslated.incrementAndGet();
+      }
+   }
+
+   long deliveries() {
+      return this.translated.get() + this.untranslated.get() + this.sameLanguage.get();
+   }
+
+   long getTranslated() {
+      return this.translated.get();
+   }
+
+   long getUntranslated() {
+      return this.untranslated.get();
+   }
+
+   long getSameLanguage() {
+      return this.sameLanguage.get();
+   }
+
+   long getMaxLatencyMs() {
+      return this.maxLatencyMs.get();
+   }
+
+   long percentileMs(double percentile) {
+      long total = deliveries();
+      if (total == 0) {
+         return 0L;
+      }
+      long rank = (long) Math.ceil(total * percentile / 100.0);
+      long seen = 0;
+      for (int ms = 0; ms <= MAX_LATENCY_MS; ms++) {
+         seen += this.latencyHistogram.get(ms);
+         if (seen >= rank) {
+            return ms;
+         }
+      }
+      return MAX_LATENCY_MS;
+   }
+
+   static final class SimulatedPlayer implements ChatPlayer {
+      private final UUID uuid;
+      private final String username;
+      private final String language;
+
+      SimulatedPlayer(UUID uuid, String username, String language) {
+         this.uuid = uuid;
+         this.username = username;
+         this.language = language;
+      }
+
+      @Override
+      public UUID getUuid() {
+         return this.uuid;
+      }
+
+      @Override
+      public String getUsername() {
+         return this.username;
+      }
+
+      @Override
+      public String getLanguage() {
+         return this.language;
+      }
+   }
+
+   private static final class Chat {
+      private final SimulatedPlayer sender;
+      private final long sentNanos;
+
+      private Chat(SimulatedPlayer sender, long sentNanos) {
+         this.sender = sender;
+         this.sentNanos = sentNanos;
+      }
+   }
+}